@@ -4,6 +4,7 @@ plugins {
     alias(libs.plugins.spring.boot)
     alias(libs.plugins.spring.dependency.management)
     alias(libs.plugins.spotless)
+    alias(libs.plugins.jmh)
     java
     jacoco
 }
@@ -38,19 +39,71 @@ dependencies {
     runtimeOnly(libs.jjwt.jackson)
     implementation(libs.flyway.core)
     implementation(libs.flyway.postgresql)
-    implementation(libs.gpx)
     compileOnly(libs.lombok)
     annotationProcessor(libs.lombok)
     testImplementation(libs.spring.boot.starter.test)
     testImplementation(libs.spring.security.test)
     testCompileOnly(libs.lombok)
     testAnnotationProcessor(libs.lombok)
+    jmh(libs.gpx)
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// Heap-ceiling tests ingest files larger than the heap, so they only prove anything in a JVM with a small fixed heap
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("heap-ceiling")
+    }
+}
+
+val heapCeilingTest = tasks.register<Test>("heapCeilingTest") {
+    description = "Runs tests that ingest oversized uploads under a fixed small heap."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("heap-ceiling")
+    }
+    maxHeapSize = "96m"
+    shouldRunAfter(tasks.test)
+}
+
+// -PvectorApi compiles the jdk.incubator.vector distance kernel into the app and enables the module for every JVM the
+// build starts; without it the scalar kernel is used
+val vectorApi = providers.gradleProperty("vectorApi").map(String::toBoolean).getOrElse(false)
+val vectorApiArgs = listOf("--add-modules", "jdk.incubator.vector")
+
+if (vectorApi) {
+    sourceSets.main {
+        java.srcDir("src/vector/java")
+    }
+    tasks.withType<JavaCompile>().configureEach {
+        options.compilerArgs.addAll(vectorApiArgs)
+    }
+    tasks.withType<Test>().configureEach {
+        jvmArgs(vectorApiArgs)
+    }
+    tasks.withType<JavaExec>().configureEach {
+        jvmArgs(vectorApiArgs)
+    }
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    fork.set(1)
+    warmupIterations.set(2)
+    iterations.set(5)
+    jvmArgs.set(listOf("-Xmx4g") + if (vectorApi) vectorApiArgs else emptyList())
+    // Allocation rate is reported next to every score; results are kept per version so runs can be compared
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results-${project.version}.json"))
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.set(listOf(it)) }
+}
+
 val jacocoExclusions = listOf(
     "com/mycyclecoach/Main.class",
     "com/mycyclecoach/config/**",
@@ -92,11 +145,13 @@ val coverageVerification = tasks.register<JacocoCoverageVerification>("jacocoCov
 }
 
 tasks.named("check") {
-    dependsOn(coverageVerification)
+    dependsOn(coverageVerification, heapCeilingTest)
 }
 
 spotless {
     java {
+        // Includes src/vector/java, which is only a source directory when building with -PvectorApi
+        target("src/*/java/**/*.java")
         palantirJavaFormat("2.44.0")
         removeUnusedImports()
         trimTrailingWhitespace()
@@ -0,0 +1,143 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.Climb;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbDetector;
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisMapper;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxTrack;
+import com.mycyclecoach.feature.gpxanalysis.domain.HysteresisClimbDetector;
+import com.mycyclecoach.feature.gpxanalysis.domain.RideTimeEstimator;
+import com.mycyclecoach.feature.gpxanalysis.domain.RouteMetrics;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackCodec;
+import com.mycyclecoach.feature.gpxanalysis.parser.GpxStreamReader;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Times each stage of an upload analysis on the {@link GpxFixtures.Ride} shapes, and the stages chained together the
+ * way {@code GpxAnalysisServiceImpl} runs them, minus persistence and hashing. The services are built directly from a
+ * default {@link GpxAnalysisConfig}, so the numbers follow the shipped defaults. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=AnalysisPipelineBenchmark}; the build adds the GC profiler, so every result
+ * carries its allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnalysisPipelineBenchmark {
+
+    private static final double RIDER_WEIGHT_KG = 75.0;
+    private static final int RIDER_FTP = 250;
+
+    @Param({"COMMUTE", "MOUNTAIN", "ULTRA"})
+    private GpxFixtures.Ride ride;
+
+    private DistanceMode distanceMode;
+    private byte[] gpx;
+    private byte[] trackData;
+    private TrackBuffer track;
+    private double[] latitudeRadians;
+    private double[] longitudeRadians;
+    private List<Climb> climbs;
+    private GpxFile gpxFile;
+    private ClimbDetector climbDetector;
+    private GpxAnalysisMapper mapper;
+    private RideTimeEstimator rideTimeEstimator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GpxAnalysisConfig config = new GpxAnalysisConfig();
+        distanceMode = config.getDistance().getMode();
+        climbDetector = new HysteresisClimbDetector(config);
+        mapper = new GpxAnalysisMapper();
+        rideTimeEstimator = new RideTimeEstimator(config);
+        rideTimeEstimator.speedTable(RIDER_WEIGHT_KG, RIDER_FTP);
+
+        gpx = ride.gpx();
+        track = GpxStreamReader.readTrack(new ByteArrayInputStream(gpx), distanceMode);
+        trackData = TrackCodec.encode(track);
+        latitudeRadians = new double[track.size()];
+        longitudeRadians = new double[track.size()];
+        for (int i = 0; i < track.size(); i++) {
+            latitudeRadians[i] = track.latitudeRadians(i);
+            longitudeRadians[i] = track.longitudeRadians(i);
+        }
+        climbs = climbDetector.detect(track);
+        gpxFile = gpxFile(track, climbs);
+    }
+
+    @Benchmark
+    public TrackBuffer parse() {
+        return GpxStreamReader.readTrack(new ByteArrayInputStream(gpx), distanceMode);
+    }
+
+    @Benchmark
+    public TrackBuffer decodeStored() {
+        return TrackCodec.decode(trackData, distanceMode);
+    }
+
+    @Benchmark
+    public double[] distances() {
+        double[] distances = new double[track.size()];
+        distanceMode.kernel().segmentDistances(latitudeRadians, longitudeRadians, distances, track.size());
+        return distances;
+    }
+
+    @Benchmark
+    public List<Climb> detectClimbs() {
+        return climbDetector.detect(track);
+    }
+
+    @Benchmark
+    public RouteMetrics routeMetrics() {
+        return mapper.calculateRouteMetrics(track, climbs);
+    }
+
+    @Benchmark
+    public double physicsEstimate() {
+        return rideTimeEstimator.estimateMinutes(track, RIDER_WEIGHT_KG, RIDER_FTP);
+    }
+
+    @Benchmark
+    public GpxAnalysisResponse toResponse() {
+        return mapper.toGpxAnalysisResponse(gpxFile, climbs);
+    }
+
+    @Benchmark
+    public GpxAnalysisResponse endToEnd() {
+        TrackBuffer parsed = GpxStreamReader.readTrack(new ByteArrayInputStream(gpx), distanceMode);
+        List<Climb> detected = climbDetector.detect(parsed);
+        return mapper.toGpxAnalysisResponse(gpxFile(parsed, detected), detected);
+    }
+
+    private GpxFile gpxFile(TrackBuffer parsed, List<Climb> detected) {
+        GpxTrack gpxTrack = GpxTrack.builder().trackData(TrackCodec.encode(parsed)).build();
+        detected.forEach(climb -> climb.setTrack(gpxTrack));
+
+        double rideTimeMinutes = rideTimeEstimator.estimateMinutes(parsed, RIDER_WEIGHT_KG, RIDER_FTP);
+        return GpxFile.builder()
+                .id(1L)
+                .filename(ride.name().toLowerCase(Locale.ROOT) + ".gpx")
+                .track(gpxTrack)
+                .userId(1L)
+                .totalDistanceKm(parsed.totalDistance() / 1000.0)
+                .estimatedRideTimeMinutes(rideTimeMinutes)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.Climb;
+import com.mycyclecoach.feature.gpxanalysis.domain.GradientThresholdClimbDetector;
+import com.mycyclecoach.feature.gpxanalysis.domain.HysteresisClimbDetector;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the original point-to-point threshold detector with the smoothed hysteresis detector. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=ClimbDetectorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClimbDetectorBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int points;
+
+    private TrackBuffer track;
+    private GradientThresholdClimbDetector thresholdDetector;
+    private HysteresisClimbDetector hysteresisDetector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        track = GpxFixtures.syntheticTrack(points);
+        GpxAnalysisConfig config = new GpxAnalysisConfig();
+        thresholdDetector = new GradientThresholdClimbDetector(config);
+        hysteresisDetector = new HysteresisClimbDetector(config);
+    }
+
+    @Benchmark
+    public List<Climb> gradientThreshold() {
+        return thresholdDetector.detect(track);
+    }
+
+    @Benchmark
+    public List<Climb> hysteresis() {
+        return hysteresisDetector.detect(track);
+    }
+}
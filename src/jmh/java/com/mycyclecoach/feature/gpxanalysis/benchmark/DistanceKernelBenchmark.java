@@ -0,0 +1,88 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceKernel;
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the scalar haversine kernel with {@link DistanceKernel#best()} and with the other {@link DistanceMode}s. Run
+ * with {@code ./gradlew jmh -PvectorApi -PjmhIncludes=DistanceKernelBenchmark}; without {@code -PvectorApi} the
+ * {@code best} benchmarks measure the scalar kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceKernelBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int points;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] latitudeRadians;
+    private double[] longitudeRadians;
+    private double[] distances;
+    private DistanceKernel best;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        latitudes = new double[points];
+        longitudes = new double[points];
+        for (int i = 0; i < points; i++) {
+            double heading = i / 600.0;
+            latitudes[i] = 51.5 + Math.sin(heading) * 0.05 + i * 0.00001;
+            longitudes[i] = -0.1 + Math.cos(heading) * 0.08;
+        }
+        latitudeRadians = new double[points];
+        longitudeRadians = new double[points];
+        distances = new double[points];
+        DistanceKernel.scalar().toRadians(latitudes, latitudeRadians, points);
+        DistanceKernel.scalar().toRadians(longitudes, longitudeRadians, points);
+        best = DistanceKernel.best();
+    }
+
+    @Benchmark
+    public double[] scalarSegmentDistances() {
+        DistanceKernel.scalar().segmentDistances(latitudeRadians, longitudeRadians, distances, points);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] bestSegmentDistances() {
+        best.segmentDistances(latitudeRadians, longitudeRadians, distances, points);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] cheapRulerSegmentDistances() {
+        DistanceMode.CHEAP_RULER.kernel().segmentDistances(latitudeRadians, longitudeRadians, distances, points);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] vincentySegmentDistances() {
+        DistanceMode.VINCENTY.kernel().segmentDistances(latitudeRadians, longitudeRadians, distances, points);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] scalarToRadians() {
+        DistanceKernel.scalar().toRadians(latitudes, distances, points);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] bestToRadians() {
+        best.toRadians(latitudes, distances, points);
+        return distances;
+    }
+}
@@ -0,0 +1,264 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import com.mycyclecoach.feature.gpxanalysis.parser.GpxWriter;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic GPX tracks for benchmarks. {@link #syntheticRide} is a clean 1 Hz ride at ~30 km/h over
+ * rolling terrain for scaling by point count; {@link Ride} models the shapes of real uploads, and can be written as TCX
+ * and FIT too so the upload formats are compared on the same ride.
+ */
+public final class GpxFixtures {
+
+    private static final double START_LATITUDE = 51.5000;
+    private static final double START_LONGITUDE = -0.1000;
+    private static final long START_EPOCH_MILLIS = Instant.parse("2025-06-01T07:00:00Z").toEpochMilli();
+
+    private static final long FIT_EPOCH_SECONDS = 631_065_600L;
+    private static final int[] FIT_CRC_TABLE = {
+        0x0000, 0xCC01, 0xD801, 0x1400, 0xF001, 0x3C00, 0x2800, 0xE401, 0xA001, 0x6C00, 0x7800, 0xB401, 0x5000, 0x9C01,
+        0x8801, 0x4400
+    };
+
+    private GpxFixtures() {}
+
+    public static byte[] syntheticRide(int points) {
+        StringBuilder gpx = new StringBuilder(points * 120 + 256);
+        gpx.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<gpx version=\"1.1\" creator=\"MyCycleCoach benchmark\" ")
+                .append("xmlns=\"http://www.topografix.com/GPX/1/1\">\n")
+                .append("  <trk>\n    <name>Synthetic ride</name>\n    <trkseg>\n");
+
+        double latitude = START_LATITUDE;
+        double longitude = START_LONGITUDE;
+        for (int i = 0; i < points; i++) {
+            double heading = i / 600.0;
+            latitude += Math.cos(heading) * 0.00007;
+            longitude += Math.sin(heading) * 0.00011;
+            double elevation = 120 + 80 * Math.sin(i / 900.0) + 15 * Math.sin(i / 97.0);
+            gpx.append("      <trkpt lat=\"")
+                    .append(String.format(Locale.ROOT, "%.7f", latitude))
+                    .append("\" lon=\"")
+                    .append(String.format(Locale.ROOT, "%.7f", longitude))
+                    .append("\"><ele>")
+                    .append(String.format(Locale.ROOT, "%.1f", elevation))
+                    .append("</ele><time>")
+                    .append(Instant.ofEpochMilli(START_EPOCH_MILLIS + i * 1000L))
+                    .append("</time></trkpt>\n");
+        }
+
+        gpx.append("    </trkseg>\n  </trk>\n</gpx>\n");
+        return gpx.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The same ride as {@link #syntheticRide} already in a {@link TrackBuffer}, with a little barometric jitter. */
+    public static TrackBuffer syntheticTrack(int points) {
+        TrackBuffer.Builder track = TrackBuffer.builder();
+
+        double latitude = START_LATITUDE;
+        double longitude = START_LONGITUDE;
+        for (int i = 0; i < points; i++) {
+            double heading = i / 600.0;
+            latitude += Math.cos(heading) * 0.00007;
+            longitude += Math.sin(heading) * 0.00011;
+            double elevation = 120 + 80 * Math.sin(i / 900.0) + 15 * Math.sin(i / 97.0) + 0.6 * Math.sin(i * 1.7);
+            track.add(latitude, longitude, elevation, START_EPOCH_MILLIS + i * 1000L);
+        }
+
+        return track.build(DistanceMode.CHEAP_RULER);
+    }
+
+    /** {@code track} as a TCX activity, with power in the Garmin {@code ActivityExtension}. */
+    public static byte[] tcx(TrackBuffer track) {
+        StringBuilder tcx = new StringBuilder(track.size() * 400 + 512);
+        tcx.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<TrainingCenterDatabase ")
+                .append("xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\" ")
+                .append("xmlns:ns3=\"http://www.garmin.com/xmlschemas/ActivityExtension/v2\">\n")
+                .append("  <Activities>\n    <Activity Sport=\"Biking\">\n      <Lap>\n        <Track>\n");
+
+        for (int i = 0; i < track.size(); i++) {
+            tcx.append("          <Trackpoint>\n            <Time>")
+                    .append(Instant.ofEpochMilli(track.epochMillis(i)))
+                    .append("</Time>\n            <Position>\n              <LatitudeDegrees>")
+                    .append(BigDecimal.valueOf(track.latitude(i)).toPlainString())
+                    .append("</LatitudeDegrees>\n              <LongitudeDegrees>")
+                    .append(BigDecimal.valueOf(track.longitude(i)).toPlainString())
+                    .append("</LongitudeDegrees>\n            </Position>\n            <AltitudeMeters>")
+                    .append(BigDecimal.valueOf(track.elevation(i)).toPlainString())
+                    .append("</AltitudeMeters>\n            <HeartRateBpm>\n              <Value>")
+                    .append(track.heartRate(i))
+                    .append("</Value>\n            </HeartRateBpm>\n            <Cadence>")
+                    .append(track.cadence(i))
+                    .append("</Cadence>\n            <Extensions>\n")
+                    .append("              <ns3:TPX>\n                <ns3:Watts>")
+                    .append(track.power(i))
+                    .append("</ns3:Watts>\n              </ns3:TPX>\n            </Extensions>\n")
+                    .append("          </Trackpoint>\n");
+        }
+
+        tcx.append("        </Track>\n      </Lap>\n    </Activity>\n  </Activities>\n</TrainingCenterDatabase>\n");
+        return tcx.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@code track} as a FIT activity the way head units record it: a {@code file_id} message, then one {@code record}
+     * message per point with timestamp, position, enhanced altitude, power, heart rate and cadence.
+     */
+    public static byte[] fit(TrackBuffer track) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(track.size() * 24 + 64);
+        // file_id: type = activity
+        records.writeBytes(new byte[] {0x40, 0, 0, 0, 0, 1, 0, 1, 0x00, 0x00, 4});
+        // record: timestamp, position_lat, position_long, enhanced_altitude, power, heart_rate, cadence
+        records.writeBytes(new byte[] {
+            0x41, 0, 0, 20, 0, 7, (byte) 253, 4, (byte) 0x86, 0, 4, (byte) 0x85, 1, 4, (byte) 0x85, 78, 4, (byte) 0x86,
+            7, 2, (byte) 0x84, 3, 1, 0x02, 4, 1, 0x02
+        });
+
+        ByteBuffer record = ByteBuffer.allocate(23).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < track.size(); i++) {
+            record.clear();
+            record.put((byte) 0x01)
+                    .putInt((int) (track.epochMillis(i) / 1000 - FIT_EPOCH_SECONDS))
+                    .putInt((int) Math.round(track.latitude(i) * (1L << 31) / 180.0))
+                    .putInt((int) Math.round(track.longitude(i) * (1L << 31) / 180.0))
+                    .putInt((int) Math.round((track.elevation(i) + 500) * 5))
+                    .putShort((short) track.power(i))
+                    .put((byte) track.heartRate(i))
+                    .put((byte) track.cadence(i));
+            records.write(record.array(), 0, record.position());
+        }
+
+        byte[] data = records.toByteArray();
+        ByteBuffer fit = ByteBuffer.allocate(14 + data.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+        fit.put((byte) 14).put((byte) 0x20).putShort((short) 2132).putInt(data.length);
+        fit.put(new byte[] {'.', 'F', 'I', 'T'});
+        fit.putShort((short) fitCrc(fit.array(), 12));
+        fit.put(data);
+        fit.putShort((short) fitCrc(fit.array(), 14 + data.length));
+        return fit.array();
+    }
+
+    private static int fitCrc(byte[] bytes, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            for (int nibble = bytes[i] & 0xFF, half = 0; half < 2; half++, nibble >>= 4) {
+                int tmp = FIT_CRC_TABLE[crc & 0x0F];
+                crc = (crc >> 4) & 0x0FFF;
+                crc = crc ^ tmp ^ FIT_CRC_TABLE[nibble & 0x0F];
+            }
+        }
+        return crc;
+    }
+
+    /**
+     * Ride shapes the analysis pipeline sees in practice, recorded at 1 Hz with GPS and barometric noise and power,
+     * heart rate and cadence extensions. Speed follows the gradient, so climbs are sampled more densely than descents,
+     * and the commute stops at junctions where the position keeps drifting while the rider stands still.
+     */
+    public enum Ride {
+        /** 40 minutes through town with a junction stop every few minutes and gentle rolling terrain. */
+        COMMUTE(40 * 60, 7.0, 25.0, 3_000.0, 240),
+
+        /** 5 hours over repeated 1,000 m cols with 10% ramps. */
+        MOUNTAIN(5 * 3_600, 7.5, 1_000.0, 30_000.0, 0),
+
+        /** 24 hours of steady endurance pace over rolling hills. */
+        ULTRA(24 * 3_600, 6.5, 120.0, 12_000.0, 0);
+
+        private static final double METERS_PER_DEGREE = 111_320.0;
+        private static final double RIDER_AND_BIKE_KG = 84.0;
+        private static final int STOP_SECONDS = 30;
+
+        private final int seconds;
+        private final double cruiseSpeed;
+        private final double reliefMeters;
+        private final double climbLengthMeters;
+        private final int stopEverySeconds;
+
+        Ride(int seconds, double cruiseSpeed, double reliefMeters, double climbLengthMeters, int stopEverySeconds) {
+            this.seconds = seconds;
+            this.cruiseSpeed = cruiseSpeed;
+            this.reliefMeters = reliefMeters;
+            this.climbLengthMeters = climbLengthMeters;
+            this.stopEverySeconds = stopEverySeconds;
+        }
+
+        public int points() {
+            return seconds;
+        }
+
+        public TrackBuffer track() {
+            Random noise = new Random(seconds);
+            TrackBuffer.Builder track = TrackBuffer.builder();
+
+            double latitude = START_LATITUDE;
+            double longitude = START_LONGITUDE;
+            double distance = 0.0;
+            double heading = 0.0;
+            double heartRate = 95.0;
+            for (int i = 0; i < seconds; i++) {
+                double gradient = gradient(distance);
+                boolean stopped = stopEverySeconds > 0 && i % stopEverySeconds >= stopEverySeconds - STOP_SECONDS;
+                double speed = stopped ? 0.0 : Math.max(1.8, Math.min(16.0, cruiseSpeed * (1 - 8 * gradient)));
+
+                heading += 0.004 * Math.sin(i / 420.0) + noise.nextGaussian() * 0.002;
+                distance += speed;
+                latitude += Math.cos(heading) * speed / METERS_PER_DEGREE;
+                longitude += Math.sin(heading) * speed / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+
+                double power = stopped ? 0.0 : Math.max(0.0, pedalPower(speed, gradient) + noise.nextGaussian() * 15);
+                heartRate += (100 + power * 0.3 - heartRate) / 30;
+                int cadence = stopped || power == 0.0 ? 0 : (int) Math.round(88 + noise.nextGaussian() * 4);
+
+                track.add(
+                        latitude + noise.nextGaussian() * 2 / METERS_PER_DEGREE,
+                        longitude + noise.nextGaussian() * 2 / METERS_PER_DEGREE,
+                        elevation(distance) + noise.nextGaussian() * 0.4,
+                        START_EPOCH_MILLIS + i * 1000L,
+                        (int) Math.round(power),
+                        (int) Math.round(heartRate),
+                        cadence);
+            }
+
+            return track.build(DistanceMode.CHEAP_RULER);
+        }
+
+        public byte[] gpx() {
+            return GpxWriter.write(track(), name().toLowerCase(Locale.ROOT)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        public byte[] tcx() {
+            return GpxFixtures.tcx(track());
+        }
+
+        public byte[] fit() {
+            return GpxFixtures.fit(track());
+        }
+
+        private double elevation(double distance) {
+            double phase = 2 * Math.PI * distance / climbLengthMeters;
+            return 100 + reliefMeters * (1 - Math.cos(phase)) / 2 + 6 * Math.sin(distance / 350.0);
+        }
+
+        private double gradient(double distance) {
+            double phase = 2 * Math.PI * distance / climbLengthMeters;
+            double climbGradient = reliefMeters * Math.PI / climbLengthMeters * Math.sin(phase);
+            return climbGradient + 6 / 350.0 * Math.cos(distance / 350.0);
+        }
+
+        private static double pedalPower(double speed, double gradient) {
+            double rolling = 0.005 + gradient;
+            return RIDER_AND_BIKE_KG * 9.81 * rolling * speed + 0.5 * 1.225 * 0.32 * speed * speed * speed;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import com.mycyclecoach.feature.gpxanalysis.parser.GpxStreamReader;
+import io.jenetics.jpx.GPX;
+import io.jenetics.jpx.WayPoint;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the original jpx path (String, temp file, {@code GPX.read}, {@code List<WayPoint>}) with the streaming StAX
+ * reader. Run with {@code ./gradlew jmh -PjmhIncludes=GpxParsingBenchmark}; the GC profiler reports allocation per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GpxParsingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int points;
+
+    private byte[] gpx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gpx = GpxFixtures.syntheticRide(points);
+    }
+
+    @Benchmark
+    public List<WayPoint> jpxViaTempFile() throws IOException {
+        String content = new String(gpx, StandardCharsets.UTF_8);
+        Path tempFile = Files.createTempFile("gpx", ".gpx");
+        try {
+            Files.writeString(tempFile, content);
+            GPX parsed = GPX.read(tempFile);
+
+            List<WayPoint> wayPoints = new ArrayList<>();
+            parsed.tracks()
+                    .flatMap(track -> track.segments())
+                    .flatMap(segment -> segment.points())
+                    .forEach(wayPoints::add);
+            return wayPoints;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Benchmark
+    public int streamingPrimitives(Blackhole blackhole) {
+        return GpxStreamReader.read(new ByteArrayInputStream(gpx), (lat, lon, ele, time, power, hr, cad) -> {
+            blackhole.consume(lat);
+            blackhole.consume(lon);
+            blackhole.consume(ele);
+            blackhole.consume(time);
+        });
+    }
+
+    @Benchmark
+    public TrackBuffer streamingTrackBuffer() {
+        return GpxStreamReader.readTrack(new ByteArrayInputStream(gpx), DistanceMode.CHEAP_RULER);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.Climb;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisMapper;
+import com.mycyclecoach.feature.gpxanalysis.domain.RideTimeEstimator;
+import com.mycyclecoach.feature.gpxanalysis.domain.RouteMetrics;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the per-segment stream lookup that {@code GpxAnalysisMapper} used to do over every climb with the current
+ * sorted sweep, on a 30k-point ride split into evenly spaced climbs. {@code physicsEstimate} times the
+ * weight-and-FTP estimate with its speed table already cached, as on every analysis after a rider's first. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=RouteMetricsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteMetricsBenchmark {
+
+    private static final int POINTS = 30_000;
+
+    @Param({"5", "50", "200"})
+    private int climbCount;
+
+    private TrackBuffer track;
+    private List<Climb> climbs;
+    private GpxAnalysisMapper mapper;
+    private RideTimeEstimator rideTimeEstimator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        track = GpxFixtures.syntheticTrack(POINTS);
+        climbs = new ArrayList<>(climbCount);
+        int spacing = POINTS / climbCount;
+        for (int i = 0; i < climbCount; i++) {
+            climbs.add(Climb.builder()
+                    .averageGradient(i % 2 == 0 ? 0.04 : 0.08)
+                    .startPointIndex(i * spacing)
+                    .endPointIndex(i * spacing + spacing / 2)
+                    .build());
+        }
+        mapper = new GpxAnalysisMapper();
+        rideTimeEstimator = new RideTimeEstimator(new GpxAnalysisConfig());
+        rideTimeEstimator.speedTable(75.0, 250);
+    }
+
+    @Benchmark
+    public double streamLookup() {
+        double totalTimeMinutes = 0.0;
+        for (int i = 1; i < track.size(); i++) {
+            int startIdx = i - 1;
+            int endIdx = i;
+            Climb climb = climbs.stream()
+                    .filter(c -> (startIdx >= c.getStartPointIndex() && startIdx <= c.getEndPointIndex())
+                            || (endIdx >= c.getStartPointIndex() && endIdx <= c.getEndPointIndex()))
+                    .findFirst()
+                    .orElse(null);
+            double speedKmh = climb == null ? 25.0 : climb.getAverageGradient() >= 0.06 ? 8.0 : 15.0;
+            totalTimeMinutes += (track.segmentDistance(i) / 1000.0) / speedKmh * 60.0;
+        }
+        return totalTimeMinutes;
+    }
+
+    @Benchmark
+    public RouteMetrics sortedSweep() {
+        return mapper.calculateRouteMetrics(track, climbs);
+    }
+
+    @Benchmark
+    public double physicsEstimate() {
+        return rideTimeEstimator.estimateMinutes(track, 75.0, 250);
+    }
+}
@@ -0,0 +1,58 @@
+package com.mycyclecoach.feature.gpxanalysis.benchmark;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.Climb;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbDetector;
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.HysteresisClimbDetector;
+import com.mycyclecoach.feature.gpxanalysis.parser.TrackFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the cost of ingesting the same {@link GpxFixtures.Ride} uploaded as GPX, TCX and FIT: sniffing the format,
+ * reading it into a track and detecting climbs, which is everything an upload does before persistence. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=TrackFormatBenchmark}; the build adds the GC profiler, so every result carries its
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrackFormatBenchmark {
+
+    @Param({"COMMUTE", "MOUNTAIN", "ULTRA"})
+    private GpxFixtures.Ride ride;
+
+    @Param({"GPX", "TCX", "FIT"})
+    private TrackFormat format;
+
+    private DistanceMode distanceMode;
+    private ClimbDetector climbDetector;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GpxAnalysisConfig config = new GpxAnalysisConfig();
+        distanceMode = config.getDistance().getMode();
+        climbDetector = new HysteresisClimbDetector(config);
+        content = switch (format) {
+            case GPX -> ride.gpx();
+            case TCX -> ride.tcx();
+            case FIT -> ride.fit();
+        };
+    }
+
+    @Benchmark
+    public List<Climb> ingest() {
+        return climbDetector.detect(TrackFormat.detect(content).readTrack(content, distanceMode));
+    }
+}
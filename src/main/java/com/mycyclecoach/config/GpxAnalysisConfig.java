@@ -0,0 +1,124 @@
+package com.mycyclecoach.config;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import java.time.Duration;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "mycyclecoach.gpx")
+@Data
+public class GpxAnalysisConfig {
+
+    private BackfillConfig backfill = new BackfillConfig();
+    private StorageConfig storage = new StorageConfig();
+    private JobsConfig jobs = new JobsConfig();
+    private BulkConfig bulk = new BulkConfig();
+    private UploadConfig upload = new UploadConfig();
+    private ClimbDetectionConfig climbDetection = new ClimbDetectionConfig();
+    private RideTimeConfig rideTime = new RideTimeConfig();
+    private DistanceConfig distance = new DistanceConfig();
+    private GeometryConfig geometry = new GeometryConfig();
+    private ProfileConfig profile = new ProfileConfig();
+    private SpatialConfig spatial = new SpatialConfig();
+    private RecordsConfig records = new RecordsConfig();
+    private PowerConfig power = new PowerConfig();
+
+    @Data
+    public static class BackfillConfig {
+        private boolean enabled = true;
+        private String cron = "0 */10 * * * *"; // Every 10 minutes by default
+        private int batchSize = 100;
+    }
+
+    @Data
+    public static class StorageConfig {
+        private boolean retainXml = false;
+        private BackfillConfig conversion = new BackfillConfig();
+    }
+
+    @Data
+    public static class JobsConfig {
+        private int concurrency = 4; // Analyses running at once
+        private int queueCapacity = 100; // Accepted jobs waiting for a worker before uploads get 429
+    }
+
+    @Data
+    public static class BulkConfig {
+        private int concurrency = 0; // Parallel analyses per request; 0 uses one per available processor
+        private int maxFiles = 1000;
+        private int maxFileBytes = 50 * 1024 * 1024;
+    }
+
+    @Data
+    public static class UploadConfig {
+        private long spillThresholdBytes = 16 * 1024 * 1024; // Larger uploads are spooled to disk and memory-mapped
+        private String spillDirectory = ""; // Where spooled uploads are written; empty uses java.io.tmpdir
+        private int maxTrackPoints = 1_000_000; // Longest track an upload may hold, which bounds the heap it needs
+    }
+
+    @Data
+    public static class ClimbDetectionConfig {
+        private String detector = "hysteresis"; // hysteresis or threshold (the original point-to-point detector)
+        private double smoothingWindowMeters = 100.0; // Centred moving-average window applied to elevation
+        private double startGradient = 0.02; // Smoothed gradient that opens a climb
+        private double continueGradient = 0.01; // Average gradient from the summit needed to extend a climb
+        private double maxFalseFlatMeters = 200.0; // Distance past the summit allowed before a climb is closed
+        private double maxDropMeters = 5.0; // Descent below the summit that closes a climb immediately
+        private double minElevationGainMeters = 10.0;
+        private double minDistanceMeters = 100.0;
+        private double minAverageGradient = 0.02;
+    }
+
+    @Data
+    public static class RideTimeConfig {
+        private double ftpFraction = 0.65; // Share of FTP held for a whole ride
+        private double bikeWeightKg = 9.0;
+        private double dragArea = 0.32; // CdA in square meters, hoods position
+        private double rollingResistance = 0.005;
+        private double airDensity = 1.225;
+        private double drivetrainEfficiency = 0.97;
+        private double minSpeedKmh = 4.0; // Floor for very steep gradients
+        private double maxSpeedKmh = 55.0; // Cap for descents
+        private double gradientWindowMeters = 50.0; // Distance gradients are measured over
+        private int cacheSize = 1000; // Speed tables kept, one per distinct weight and FTP
+    }
+
+    @Data
+    public static class DistanceConfig {
+        private DistanceMode mode = DistanceMode.CHEAP_RULER; // cheap-ruler, haversine or vincenty
+    }
+
+    @Data
+    public static class GeometryConfig {
+        private List<Integer> levels = List.of(50, 200, 1000); // Point counts of the map levels of detail served
+        private int previewPoints = 50; // Points in the encoded polyline stored with each file for list thumbnails
+    }
+
+    @Data
+    public static class ProfileConfig {
+        private int defaultPoints = 300; // Elevation profile points when the client does not ask for a number
+        private int maxPoints = 2000; // Upper bound on requested points, which also bounds the cache key space
+        private int cacheSize = 1000; // Profiles kept, one per distinct track and point count
+    }
+
+    @Data
+    public static class SpatialConfig {
+        private int maxQueryCells = 1024; // Cells a search area may be covered with before coarser cells are used
+        private int cacheSize = 500; // Users whose file bounds trees are kept in memory
+        private Duration cacheTtl = Duration.ofMinutes(5); // Bounds staleness after uploads handled by other instances
+    }
+
+    @Data
+    public static class RecordsConfig {
+        private BackfillConfig rebuild = new BackfillConfig(); // Builds records for climbs with efforts but none
+    }
+
+    @Data
+    public static class PowerConfig {
+        private int recentDays = 90; // Window of the recent best power, by ride start
+        private BackfillConfig backfill = new BackfillConfig(); // Computes curves for tracks stored before them
+    }
+}
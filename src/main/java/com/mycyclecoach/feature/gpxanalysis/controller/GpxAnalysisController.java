@@ -1,16 +1,37 @@
 package com.mycyclecoach.feature.gpxanalysis.controller;
 
 import com.mycyclecoach.feature.auth.security.JwtTokenProvider;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbRecordsResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ElevationProfileResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GeoBounds;
+import com.mycyclecoach.feature.gpxanalysis.domain.GeoCircle;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxExport;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFilePage;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxGeometryResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserTimeInZonesResponse;
+import com.mycyclecoach.feature.gpxanalysis.service.ClimbHistoryService;
 import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxBulkImportService;
+import com.mycyclecoach.feature.gpxanalysis.service.PowerCurveService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -20,19 +41,39 @@ import org.springframework.web.multipart.MultipartFile;
 @Tag(name = "GPX Analysis", description = "GPX file upload and climb analysis endpoints")
 public class GpxAnalysisController {
 
+    private static final String GPX_MEDIA_TYPE = "application/gpx+xml";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final GpxAnalysisService gpxAnalysisService;
+    private final GpxBulkImportService gpxBulkImportService;
+    private final ClimbHistoryService climbHistoryService;
+    private final PowerCurveService powerCurveService;
     private final JwtTokenProvider jwtTokenProvider;
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
-    @Operation(summary = "Upload and analyze a GPX file")
-    @ApiResponse(responseCode = "201", description = "GPX file uploaded and analyzed successfully")
-    @ApiResponse(responseCode = "400", description = "Invalid GPX file format")
+    @Operation(
+            summary = "Upload and analyze a GPX, TCX or FIT file",
+            description = "The format is detected from the file content; TCX and FIT are exported as GPX")
+    @ApiResponse(responseCode = "201", description = "File uploaded and analyzed successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid GPX, TCX or FIT file")
     public GpxAnalysisResponse uploadGpxFile(
             @RequestParam("file") MultipartFile file, @RequestParam("userId") Long userId) {
         return gpxAnalysisService.analyzeGpxFile(file, userId);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Upload and analyze many GPX files at once",
+            description =
+                    "Accepts any number of GPX, TCX or FIT parts and ZIP archives of them; reports a result per file")
+    @ApiResponse(responseCode = "200", description = "Bulk import finished, see per-file results")
+    public GpxBulkImportResponse bulkUploadGpxFiles(
+            @RequestParam("files") List<MultipartFile> files, @RequestParam("userId") Long userId) {
+        return gpxBulkImportService.importFiles(files, userId);
+    }
+
     @GetMapping("/{gpxFileId}")
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Get GPX analysis by ID")
@@ -41,6 +82,64 @@ public class GpxAnalysisController {
         return gpxAnalysisService.getGpxAnalysis(gpxFileId);
     }
 
+    @GetMapping(value = "/{gpxFileId}/export", produces = GPX_MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Export a GPX file")
+    @ApiResponse(responseCode = "200", description = "GPX file exported successfully")
+    @ApiResponse(responseCode = "404", description = "GPX file not found")
+    public ResponseEntity<String> exportGpxFile(@PathVariable Long gpxFileId) {
+        GpxExport export = gpxAnalysisService.exportGpx(gpxFileId);
+        ContentDisposition disposition = ContentDisposition.attachment().filename(export.filename()).build();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(export.content());
+    }
+
+    @GetMapping("/{gpxFileId}/geometry")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get a GPX file's simplified route line for map rendering",
+            description = "lod is a point budget; serves the finest stored level within it, or the finest if omitted")
+    @ApiResponse(responseCode = "200", description = "Geometry retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "GPX file not found")
+    public GpxGeometryResponse getGpxGeometry(
+            @PathVariable Long gpxFileId, @RequestParam(required = false) Integer lod) {
+        return gpxAnalysisService.getGeometry(gpxFileId, lod);
+    }
+
+    @GetMapping("/{gpxFileId}/profile")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get a GPX file's elevation profile for charting",
+            description = "Elevation by distance downsampled to at most the requested points, with climbs overlaid")
+    @ApiResponse(responseCode = "200", description = "Elevation profile retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "GPX file not found")
+    public ElevationProfileResponse getElevationProfile(
+            @PathVariable Long gpxFileId, @RequestParam(required = false) Integer points) {
+        return gpxAnalysisService.getElevationProfile(gpxFileId, points);
+    }
+
+    @GetMapping("/{gpxFileId}/power-curve")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get a GPX file's power curve",
+            description = "Best average power for standard durations from 1 s to 5 h; empty without power data")
+    @ApiResponse(responseCode = "200", description = "Power curve retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "GPX file not found")
+    public GpxPowerCurveResponse getPowerCurve(@PathVariable Long gpxFileId) {
+        return gpxAnalysisService.getPowerCurve(gpxFileId);
+    }
+
+    @DeleteMapping("/{gpxFileId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Delete a GPX file owned by the current user")
+    @ApiResponse(responseCode = "204", description = "GPX file deleted successfully")
+    @ApiResponse(responseCode = "404", description = "GPX file not found")
+    public void deleteGpxFile(@RequestHeader("Authorization") String authHeader, @PathVariable Long gpxFileId) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        gpxAnalysisService.deleteGpxFile(gpxFileId, userId);
+    }
+
     @GetMapping("/analyze/{filename}")
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Analyze a GPX file by filename")
@@ -51,11 +150,122 @@ public class GpxAnalysisController {
 
     @GetMapping("/user")
     @ResponseStatus(HttpStatus.OK)
-    @Operation(summary = "Get all GPX files for the current user")
+    @Operation(
+            summary = "Get GPX files for the current user, newest first",
+            description = "Keyset paginated via X-Next-Cursor; includePreview=true adds each route's encoded polyline")
     @ApiResponse(responseCode = "200", description = "GPX files retrieved successfully")
-    public List<GpxFileResponse> getAllUserGpxFiles(@RequestHeader("Authorization") String authHeader) {
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    public ResponseEntity<List<GpxFileResponse>> getAllUserGpxFiles(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean includePreview) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        GpxFilePage page = gpxAnalysisService.getUserGpxFiles(userId, cursor, limit, includePreview);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.files());
+    }
+
+    @GetMapping("/user/area")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Find the current user's GPX files passing through a bounding box, newest first",
+            description = "Matched to within a geohash cell, about 1 km for areas up to a few hundred square km")
+    @ApiResponse(responseCode = "200", description = "Matching GPX files retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid bounding box")
+    public List<GpxFileResponse> findUserGpxFilesInArea(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon,
+            @RequestParam(defaultValue = "50") int limit) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        return gpxAnalysisService.searchUserGpxFiles(userId, new GeoBounds(minLat, minLon, maxLat, maxLon), limit);
+    }
+
+    @GetMapping("/user/near")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Find the current user's GPX files passing within a radius of a point, newest first",
+            description = "Matched to within a geohash cell, about 1 km for radii up to around 10 km")
+    @ApiResponse(responseCode = "200", description = "Matching GPX files retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid centre or radius")
+    public List<GpxFileResponse> findUserGpxFilesNear(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam double radiusMeters,
+            @RequestParam(defaultValue = "50") int limit) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        return gpxAnalysisService.searchUserGpxFiles(userId, new GeoCircle(lat, lon, radiusMeters), limit);
+    }
+
+    @GetMapping("/user/climbs")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get the distinct climbs the current user has ridden, most ridden first",
+            description = "Climbs on different rides are the same climb when their ends, length and gain match")
+    @ApiResponse(responseCode = "200", description = "Climbs retrieved successfully")
+    public List<CanonicalClimbResponse> getUserClimbs(@RequestHeader("Authorization") String authHeader) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        return climbHistoryService.getUserClimbs(userId);
+    }
+
+    @GetMapping("/user/climbs/{canonicalClimbId}/efforts")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get every effort on one of the current user's climbs, most recent first")
+    @ApiResponse(responseCode = "200", description = "Climb efforts retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "Climb not found")
+    public List<ClimbEffortResponse> getClimbEfforts(
+            @RequestHeader("Authorization") String authHeader, @PathVariable Long canonicalClimbId) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        return climbHistoryService.getClimbEfforts(canonicalClimbId, userId);
+    }
+
+    @GetMapping("/user/climbs/{canonicalClimbId}/records")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get the fastest and most powerful efforts on one of the current user's climbs",
+            description = "Up to limit efforts of each, capped at 50; efforts without times or power are left out")
+    @ApiResponse(responseCode = "200", description = "Climb records retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "Climb not found")
+    public ClimbRecordsResponse getClimbRecords(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable Long canonicalClimbId,
+            @RequestParam(defaultValue = "5") int limit) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        return climbHistoryService.getClimbRecords(canonicalClimbId, userId, limit);
+    }
+
+    @GetMapping("/user/power-curve")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get the current user's best power curve, all-time and over recent rides",
+            description = "Element-wise best over every ride; recent covers rides from the last 90 days by default")
+    @ApiResponse(responseCode = "200", description = "Power curve retrieved successfully")
+    public UserPowerCurveResponse getUserPowerCurve(@RequestHeader("Authorization") String authHeader) {
+        Long userId = getUserIdFromAuthHeader(authHeader);
+        return powerCurveService.getUserPowerCurve(userId);
+    }
+
+    @GetMapping("/user/time-in-zones")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get the current user's time in each power and heart-rate zone over a date range",
+            description = "Sums zones and histograms stored at ingest over rides started between the dates, inclusive")
+    @ApiResponse(responseCode = "200", description = "Time in zones retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "toDate is before fromDate")
+    public UserTimeInZonesResponse getUserTimeInZones(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
         Long userId = getUserIdFromAuthHeader(authHeader);
-        return gpxAnalysisService.getUserGpxFiles(userId);
+        return gpxAnalysisService.getUserTimeInZones(userId, fromDate, toDate);
     }
 
     private Long getUserIdFromAuthHeader(String authHeader) {
@@ -0,0 +1,50 @@
+package com.mycyclecoach.feature.gpxanalysis.controller;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobResponse;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api/v1/gpx/jobs")
+@RequiredArgsConstructor
+@Tag(name = "GPX Analysis Jobs", description = "Asynchronous GPX upload and analysis endpoints")
+public class GpxAnalysisJobController {
+
+    private final GpxAnalysisJobService gpxAnalysisJobService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Upload a GPX file for background analysis",
+            description = "Returns immediately with a job; poll the Location header until the job has finished")
+    @ApiResponse(responseCode = "202", description = "GPX file accepted for analysis")
+    @ApiResponse(responseCode = "429", description = "Analysis queue is full")
+    public ResponseEntity<GpxAnalysisJobResponse> submitGpxFile(
+            @RequestParam("file") MultipartFile file, @RequestParam("userId") Long userId) {
+        GpxAnalysisJobResponse job = gpxAnalysisJobService.submitAnalysis(file, userId);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                        .path("/{jobId}")
+                        .buildAndExpand(job.jobId())
+                        .toUri())
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get the status of a GPX analysis job")
+    @ApiResponse(responseCode = "200", description = "Job status returned")
+    @ApiResponse(responseCode = "404", description = "GPX analysis job not found")
+    public GpxAnalysisJobResponse getJob(@PathVariable Long jobId) {
+        return gpxAnalysisJobService.getJob(jobId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/** Growable byte buffer with the varint and zigzag writers shared by the stored track formats. */
+final class ByteSink {
+
+    private byte[] buffer;
+    private int position;
+
+    ByteSink(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
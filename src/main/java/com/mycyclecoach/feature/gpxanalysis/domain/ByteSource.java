@@ -0,0 +1,48 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/** Reader for {@link ByteSink} output that rejects truncated or malformed data with a {@link GpxParsingException}. */
+final class ByteSource {
+
+    private final byte[] data;
+    private int position;
+
+    ByteSource(byte[] data) {
+        this.data = data;
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readByte() {
+        if (position >= data.length) {
+            throw new GpxParsingException("Stored track data is truncated");
+        }
+        return data[position++];
+    }
+
+    long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new GpxParsingException("Stored track data has a malformed varint");
+    }
+
+    /** Reads a point count, bounded by the bytes left given that every point takes at least {@code minBytes}. */
+    int readSize(int minBytes) {
+        long size = readVarint();
+        if (size < 0 || size > (data.length - position) / minBytes) {
+            throw new GpxParsingException("Stored track data has an invalid point count " + size);
+        }
+        return (int) size;
+    }
+
+    boolean hasRemaining() {
+        return position < data.length;
+    }
+}
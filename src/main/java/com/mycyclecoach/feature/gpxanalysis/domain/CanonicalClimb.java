@@ -0,0 +1,68 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * A hill a user has ridden, however many times. It keeps the {@link ClimbFingerprint} of its first effort, so later
+ * efforts are matched against a fixed reference rather than drifting, and is looked up by the fingerprint's start cell.
+ */
+@Entity
+@Table(name = "canonical_climbs")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CanonicalClimb {
+
+    // Pooled sequence ids let the new climbs of a ride be written in one JDBC batch, as for climbs
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "canonical_climbs_id_seq")
+    @SequenceGenerator(name = "canonical_climbs_id_seq", sequenceName = "canonical_climbs_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long startCell;
+
+    @Column(nullable = false)
+    private Double startLatitude;
+
+    @Column(nullable = false)
+    private Double startLongitude;
+
+    @Column(nullable = false)
+    private Double endLatitude;
+
+    @Column(nullable = false)
+    private Double endLongitude;
+
+    @Column(nullable = false)
+    private Double distanceMeters;
+
+    @Column(nullable = false)
+    private Double elevationGainMeters;
+
+    @Column(nullable = false)
+    private Double averageGradient;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public ClimbFingerprint fingerprint() {
+        return new ClimbFingerprint(
+                startLatitude, startLongitude, endLatitude, endLongitude, distanceMeters, elevationGainMeters);
+    }
+}
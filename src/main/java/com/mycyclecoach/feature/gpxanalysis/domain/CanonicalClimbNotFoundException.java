@@ -0,0 +1,7 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public class CanonicalClimbNotFoundException extends RuntimeException {
+    public CanonicalClimbNotFoundException(Long id) {
+        super("Climb not found with id: " + id);
+    }
+}
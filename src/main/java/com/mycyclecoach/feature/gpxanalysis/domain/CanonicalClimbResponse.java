@@ -0,0 +1,14 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public record CanonicalClimbResponse(
+        Long id,
+        Double startLatitude,
+        Double startLongitude,
+        Double endLatitude,
+        Double endLongitude,
+        Double distanceMeters,
+        Double elevationGainMeters,
+        Double averageGradient,
+        Long effortCount,
+        Double bestDurationSeconds,
+        Double bestAveragePowerWatts) {}
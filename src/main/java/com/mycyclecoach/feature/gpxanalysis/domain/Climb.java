@@ -16,13 +16,15 @@ import lombok.Setter;
 @Builder
 public class Climb {
 
+    // Pooled sequence ids let a track's climbs be written in one JDBC batch (hibernate.jdbc.batch_size)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "climbs_id_seq")
+    @SequenceGenerator(name = "climbs_id_seq", sequenceName = "climbs_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "gpx_file_id", nullable = false)
-    private GpxFile gpxFile;
+    @JoinColumn(name = "track_id", nullable = false)
+    private GpxTrack track;
 
     @Column(nullable = false)
     private Double distanceMeters;
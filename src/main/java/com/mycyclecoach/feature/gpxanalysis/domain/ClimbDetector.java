@@ -0,0 +1,12 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.List;
+
+/**
+ * Finds climbs in a track. Implementations return climbs that are not yet attached to a {@link GpxTrack}; the caller
+ * links and persists them. The active detector is chosen with {@code mycyclecoach.gpx.climb-detection.detector}.
+ */
+public interface ClimbDetector {
+
+    List<Climb> detect(TrackBuffer track);
+}
@@ -0,0 +1,49 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One ride up a {@link CanonicalClimb}: the climb detected on a user's GPX file. Climbs belong to the shared track, so
+ * the effort is what ties one to the file, and goes when the file does.
+ */
+@Entity
+@Table(name = "climb_efforts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClimbEffort {
+
+    // Pooled sequence ids let a ride's efforts be written in one JDBC batch, as for climbs
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "climb_efforts_id_seq")
+    @SequenceGenerator(name = "climb_efforts_id_seq", sequenceName = "climb_efforts_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "canonical_climb_id", nullable = false)
+    private CanonicalClimb canonicalClimb;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gpx_file_id", nullable = false)
+    private GpxFile gpxFile;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "climb_id", nullable = false)
+    private Climb climb;
+
+    // Both null when the track has no timestamps at the climb's ends
+    private LocalDateTime startedAt;
+
+    private Double durationSeconds;
+
+    // Mean of the power samples on the climb; null when the track has none
+    private Double averagePowerWatts;
+}
@@ -0,0 +1,15 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.time.LocalDateTime;
+
+public record ClimbEffortResponse(
+        Long id,
+        Long gpxFileId,
+        String filename,
+        Long climbId,
+        LocalDateTime startedAt,
+        Double durationSeconds,
+        Double averagePowerWatts,
+        Double distanceMeters,
+        Double elevationGainMeters,
+        Double averageGradient) {}
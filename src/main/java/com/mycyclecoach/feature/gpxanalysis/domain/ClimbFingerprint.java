@@ -0,0 +1,73 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * What identifies a climb across rides: where it starts and ends, how long it is and how much it gains. Climb detection
+ * moves the ends by a few points from one ride to the next, so two fingerprints match within tolerances rather than
+ * exactly. The {@link Geohash} cell of the start is the quantised key a user's canonical climbs are indexed by, and
+ * {@link #startCells()} the few cells a matching climb can start in, so a match is found with a handful of lookups.
+ */
+public record ClimbFingerprint(
+        double startLatitude,
+        double startLongitude,
+        double endLatitude,
+        double endLongitude,
+        double distanceMeters,
+        double elevationGainMeters) {
+
+    /** Depth of the start cell, about 300 m of latitude by 600 m of longitude at the equator. */
+    public static final int CELL_BITS = 32;
+
+    private static final double MATCH_RADIUS_METERS = 150;
+    private static final double DISTANCE_TOLERANCE = 0.15;
+    private static final double MIN_DISTANCE_TOLERANCE_METERS = 100;
+    private static final double GAIN_TOLERANCE = 0.25;
+    private static final double MIN_GAIN_TOLERANCE_METERS = 10;
+    // Only reached near the poles, where cells are narrow
+    private static final int MAX_START_CELLS = 64;
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    public static ClimbFingerprint of(TrackBuffer track, Climb climb) {
+        int start = climb.getStartPointIndex();
+        int end = climb.getEndPointIndex();
+        return new ClimbFingerprint(
+                track.latitude(start),
+                track.longitude(start),
+                track.latitude(end),
+                track.longitude(end),
+                climb.getDistanceMeters(),
+                climb.getElevationGainMeters());
+    }
+
+    public long startCell() {
+        return Geohash.cell(startLatitude, startLongitude, CELL_BITS);
+    }
+
+    /** Cells any climb matching this one starts in: those within the match radius of this climb's start. */
+    public long[] startCells() {
+        long[] cells = Geohash.cover(
+                new GeoCircle(startLatitude, startLongitude, MATCH_RADIUS_METERS), CELL_BITS, MAX_START_CELLS);
+        return cells == null ? new long[] {startCell()} : cells;
+    }
+
+    public boolean matches(ClimbFingerprint other) {
+        double startOffset = metersBetween(startLatitude, startLongitude, other.startLatitude, other.startLongitude);
+        double endOffset = metersBetween(endLatitude, endLongitude, other.endLatitude, other.endLongitude);
+        return startOffset <= MATCH_RADIUS_METERS
+                && endOffset <= MATCH_RADIUS_METERS
+                && within(distanceMeters, other.distanceMeters, DISTANCE_TOLERANCE, MIN_DISTANCE_TOLERANCE_METERS)
+                && within(elevationGainMeters, other.elevationGainMeters, GAIN_TOLERANCE, MIN_GAIN_TOLERANCE_METERS);
+    }
+
+    private static boolean within(double a, double b, double tolerance, double minTolerance) {
+        return Math.abs(a - b) <= Math.max(Math.max(a, b) * tolerance, minTolerance);
+    }
+
+    /** Equirectangular distance, accurate to well under a metre over the match radius. */
+    private static double metersBetween(
+            double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double meanLatitude = Math.toRadians((fromLatitude + toLatitude) / 2);
+        double x = Math.toRadians(toLongitude - fromLongitude) * Math.cos(meanLatitude);
+        double y = Math.toRadians(toLatitude - fromLatitude);
+        return EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y);
+    }
+}
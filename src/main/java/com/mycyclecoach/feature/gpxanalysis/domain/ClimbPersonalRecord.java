@@ -0,0 +1,63 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * A user's best time and best power on a {@link CanonicalClimb}, with how often they have ridden it. Kept up to date
+ * as efforts are recorded and deleted, so listing climbs never aggregates over their efforts.
+ */
+@Entity
+@Table(name = "climb_personal_records")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClimbPersonalRecord {
+
+    @Id
+    private Long canonicalClimbId;
+
+    // Null until first saved, which lets Spring Data insert a new record without selecting it first
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private Long effortCount;
+
+    private Long fastestEffortId;
+
+    private Double bestDurationSeconds;
+
+    private Long strongestEffortId;
+
+    private Double bestAveragePowerWatts;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    /** Counts {@code effort}, and keeps it as the fastest or strongest when it beats the current best. */
+    public void add(ClimbEffort effort) {
+        effortCount++;
+        Double duration = effort.getDurationSeconds();
+        if (duration != null && (bestDurationSeconds == null || duration < bestDurationSeconds)) {
+            fastestEffortId = effort.getId();
+            bestDurationSeconds = duration;
+        }
+        Double power = effort.getAveragePowerWatts();
+        if (power != null && (bestAveragePowerWatts == null || power > bestAveragePowerWatts)) {
+            strongestEffortId = effort.getId();
+            bestAveragePowerWatts = power;
+        }
+    }
+}
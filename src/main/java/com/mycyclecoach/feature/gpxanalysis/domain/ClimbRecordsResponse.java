@@ -0,0 +1,9 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.List;
+
+public record ClimbRecordsResponse(
+        Long canonicalClimbId,
+        Long effortCount,
+        List<ClimbEffortResponse> fastest,
+        List<ClimbEffortResponse> mostPowerful) {}
@@ -0,0 +1,47 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Bulk geometry over a track's primitive coordinate arrays, used by {@link TrackBuffer} when it is built. Each
+ * {@link DistanceMode} maps to a kernel. For haversine the scalar kernel always works; builds made with
+ * {@code -PvectorApi} also carry a {@code jdk.incubator.vector} kernel, which {@link #best()} picks whenever the module
+ * is enabled in the running JVM.
+ */
+public interface DistanceKernel {
+
+    double EARTH_RADIUS_METERS = 6371000.0;
+
+    /** Writes {@code degrees[i]} in radians to {@code radians[i]} for the first {@code size} entries. */
+    default void toRadians(double[] degrees, double[] radians, int size) {
+        for (int i = 0; i < size; i++) {
+            radians[i] = Math.toRadians(degrees[i]);
+        }
+    }
+
+    /**
+     * Writes the distance in meters from point {@code i - 1} to point {@code i} to {@code distances[i]}, and zero to
+     * {@code distances[0]}. Coordinates are in radians.
+     */
+    void segmentDistances(double[] latitudeRadians, double[] longitudeRadians, double[] distances, int size);
+
+    /** Scalar haversine on a sphere of {@link #EARTH_RADIUS_METERS}. */
+    static DistanceKernel scalar() {
+        return ScalarDistanceKernel.INSTANCE;
+    }
+
+    /**
+     * The vector haversine kernel when it is on the classpath and its module is enabled, otherwise {@link #scalar()}.
+     */
+    static DistanceKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return scalar();
+        }
+        try {
+            return (DistanceKernel) Class.forName(DistanceKernel.class.getPackageName() + ".VectorDistanceKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Built without -PvectorApi, or the vector classes failed to link on this JVM
+            return scalar();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/** How {@link TrackBuffer} measures the distance between consecutive points. */
+public enum DistanceMode {
+    /** Great circle on a sphere; the reference the rest of the analysis was tuned on. */
+    HAVERSINE(DistanceKernel.best()),
+
+    /** Flat-earth approximation with per-track WGS84 scale factors; the fastest and nearer the ellipsoid. */
+    CHEAP_RULER(CheapRulerDistanceKernel.INSTANCE),
+
+    /** Vincenty on the WGS84 ellipsoid; slow, for validating the other modes. */
+    VINCENTY(VincentyDistanceKernel.INSTANCE);
+
+    private final DistanceKernel kernel;
+
+    DistanceMode(DistanceKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    public DistanceKernel kernel() {
+        return kernel;
+    }
+}
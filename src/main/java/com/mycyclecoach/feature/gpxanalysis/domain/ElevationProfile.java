@@ -0,0 +1,41 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A track's elevation against distance downsampled for charting, with its climbs placed on the same distance axis.
+ * Depends only on the track and its climbs, both shared by every file with that track, so it can be cached per track.
+ */
+public record ElevationProfile(double[] distanceMeters, double[] elevationMeters, List<ProfileClimb> climbs) {
+
+    public static ElevationProfile of(TrackBuffer track, List<Climb> climbs, int points) {
+        int[] selected = LttbDownsampler.downsample(track, points);
+        double[] distanceMeters = new double[selected.length];
+        double[] elevationMeters = new double[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            distanceMeters[i] = track.cumulativeDistance(selected[i]);
+            elevationMeters[i] = track.elevation(selected[i]);
+        }
+
+        List<ProfileClimb> profileClimbs = climbs.stream()
+                .filter(climb -> climb.getEndPointIndex() < track.size())
+                .sorted(Comparator.comparing(Climb::getStartPointIndex))
+                .map(climb -> new ProfileClimb(
+                        climb.getId(),
+                        track.cumulativeDistance(climb.getStartPointIndex()),
+                        track.cumulativeDistance(climb.getEndPointIndex()),
+                        climb.getElevationGainMeters(),
+                        climb.getAverageGradient()))
+                .toList();
+
+        return new ElevationProfile(distanceMeters, elevationMeters, profileClimbs);
+    }
+
+    public record ProfileClimb(
+            Long id,
+            double startDistanceMeters,
+            double endDistanceMeters,
+            double elevationGainMeters,
+            double averageGradient) {}
+}
@@ -0,0 +1,10 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.List;
+
+public record ElevationProfileResponse(
+        Long gpxFileId,
+        int pointCount,
+        double[] distanceMeters,
+        double[] elevationMeters,
+        List<ElevationProfile.ProfileClimb> climbs) {}
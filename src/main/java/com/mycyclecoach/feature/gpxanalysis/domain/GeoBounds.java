@@ -0,0 +1,35 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public record GeoBounds(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude)
+        implements SearchArea {
+
+    public GeoBounds {
+        if (!(minLatitude >= -90 && maxLatitude <= 90 && minLatitude <= maxLatitude)) {
+            throw new IllegalArgumentException("Invalid latitude range " + minLatitude + " to " + maxLatitude);
+        }
+        if (!(minLongitude >= -180 && maxLongitude <= 180 && minLongitude <= maxLongitude)) {
+            throw new IllegalArgumentException("Invalid longitude range " + minLongitude + " to " + maxLongitude);
+        }
+    }
+
+    @Override
+    public GeoBounds bounds() {
+        return this;
+    }
+
+    @Override
+    public boolean intersects(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        return minLatitude <= this.maxLatitude
+                && maxLatitude >= this.minLatitude
+                && minLongitude <= this.maxLongitude
+                && maxLongitude >= this.minLongitude;
+    }
+
+    @Override
+    public boolean contains(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        return minLatitude >= this.minLatitude
+                && maxLatitude <= this.maxLatitude
+                && minLongitude >= this.minLongitude
+                && maxLongitude <= this.maxLongitude;
+    }
+}
@@ -0,0 +1,53 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Points within {@code radiusMeters} of a centre. Distances use the equirectangular approximation, which is well
+ * within a cell's width for the radii rides are searched over.
+ */
+public record GeoCircle(double latitude, double longitude, double radiusMeters) implements SearchArea {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    public GeoCircle {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid centre " + latitude + ", " + longitude);
+        }
+        if (!(radiusMeters > 0)) {
+            throw new IllegalArgumentException("Radius must be positive but was " + radiusMeters);
+        }
+    }
+
+    @Override
+    public GeoBounds bounds() {
+        double latitudeDelta = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+        // Near the poles the box spans every longitude
+        double longitudeDelta = latitudeDelta / Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+        return new GeoBounds(
+                Math.max(latitude - latitudeDelta, -90),
+                Math.max(longitude - longitudeDelta, -180),
+                Math.min(latitude + latitudeDelta, 90),
+                Math.min(longitude + longitudeDelta, 180));
+    }
+
+    @Override
+    public boolean intersects(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        double nearestLatitude = Math.clamp(latitude, minLatitude, maxLatitude);
+        double nearestLongitude = Math.clamp(longitude, minLongitude, maxLongitude);
+        return within(nearestLatitude, nearestLongitude);
+    }
+
+    @Override
+    public boolean contains(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        return within(minLatitude, minLongitude)
+                && within(minLatitude, maxLongitude)
+                && within(maxLatitude, minLongitude)
+                && within(maxLatitude, maxLongitude);
+    }
+
+    private boolean within(double pointLatitude, double pointLongitude) {
+        double meanLatitude = Math.toRadians((pointLatitude + latitude) / 2);
+        double x = Math.toRadians(pointLongitude - longitude) * Math.cos(meanLatitude);
+        double y = Math.toRadians(pointLatitude - latitude);
+        return EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y) <= radiusMeters;
+    }
+}
@@ -0,0 +1,87 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/**
+ * Geohash cells as integers. A cell at {@code bits} depth interleaves that many bits of longitude and latitude grid
+ * position, longitude first as in geohash strings, under a leading one bit so cells of different depths never share a
+ * value and can live in the same indexed column.
+ */
+public final class Geohash {
+
+    private Geohash() {}
+
+    /** The cell containing a point. */
+    public static long cell(double latitude, double longitude, int bits) {
+        int row = index(latitude, -90, 180, latitudeBits(bits));
+        int column = index(longitude, -180, 360, longitudeBits(bits));
+        return cell(row, column, bits);
+    }
+
+    /**
+     * Cells at {@code bits} depth that intersect {@code area}, or {@code null} when covering it would take more than
+     * {@code maxCells} cells before those outside the area are dropped.
+     */
+    public static long[] cover(SearchArea area, int bits, int maxCells) {
+        GeoBounds bounds = area.bounds();
+        int latitudeBits = latitudeBits(bits);
+        int longitudeBits = longitudeBits(bits);
+        int fromRow = index(bounds.minLatitude(), -90, 180, latitudeBits);
+        int toRow = index(bounds.maxLatitude(), -90, 180, latitudeBits);
+        int fromColumn = index(bounds.minLongitude(), -180, 360, longitudeBits);
+        int toColumn = index(bounds.maxLongitude(), -180, 360, longitudeBits);
+        long count = (long) (toRow - fromRow + 1) * (toColumn - fromColumn + 1);
+        if (count > maxCells) {
+            return null;
+        }
+
+        double cellHeight = cellHeight(bits);
+        double cellWidth = cellWidth(bits);
+        long[] cells = new long[(int) count];
+        int size = 0;
+        for (int row = fromRow; row <= toRow; row++) {
+            double minLatitude = -90 + row * cellHeight;
+            for (int column = fromColumn; column <= toColumn; column++) {
+                double minLongitude = -180 + column * cellWidth;
+                if (area.intersects(minLatitude, minLongitude, minLatitude + cellHeight, minLongitude + cellWidth)) {
+                    cells[size++] = cell(row, column, bits);
+                }
+            }
+        }
+        return Arrays.copyOf(cells, size);
+    }
+
+    /** Height of a cell at {@code bits} depth in degrees of latitude. */
+    public static double cellHeight(int bits) {
+        return 180.0 / (1L << latitudeBits(bits));
+    }
+
+    /** Width of a cell at {@code bits} depth in degrees of longitude. */
+    public static double cellWidth(int bits) {
+        return 360.0 / (1L << longitudeBits(bits));
+    }
+
+    private static int latitudeBits(int bits) {
+        return bits / 2;
+    }
+
+    private static int longitudeBits(int bits) {
+        return (bits + 1) / 2;
+    }
+
+    private static int index(double degrees, double origin, double span, int bits) {
+        int cells = 1 << bits;
+        return Math.clamp((long) Math.floor((degrees - origin) / span * cells), 0, cells - 1);
+    }
+
+    private static long cell(int row, int column, int bits) {
+        long cell = 1;
+        int latitudeBit = latitudeBits(bits) - 1;
+        int longitudeBit = longitudeBits(bits) - 1;
+        for (int i = 0; i < bits; i++) {
+            int bit = i % 2 == 0 ? (column >>> longitudeBit--) & 1 : (row >>> latitudeBit--) & 1;
+            cell = (cell << 1) | bit;
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * A GPX upload accepted for background analysis. The raw file is held in {@code payload}, or spooled to
+ * {@code payloadPath} when it is above the upload spill threshold, until a worker has processed it, so queued jobs
+ * survive a restart.
+ */
+@Entity
+@Table(name = "gpx_analysis_jobs")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GpxAnalysisJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private GpxAnalysisJobStatus status;
+
+    // Raw upload; cleared once the job has finished
+    private byte[] payload;
+
+    // Spooled upload in the spill directory, set instead of payload for large files; deleted once the job has finished
+    private String payloadPath;
+
+    private Long gpxFileId;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
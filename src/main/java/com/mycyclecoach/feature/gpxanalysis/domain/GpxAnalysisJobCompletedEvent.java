@@ -0,0 +1,5 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/** Published once a background GPX analysis job has finished, whether it completed or failed. */
+public record GpxAnalysisJobCompletedEvent(
+        Long jobId, Long userId, GpxAnalysisJobStatus status, Long gpxFileId, String errorMessage) {}
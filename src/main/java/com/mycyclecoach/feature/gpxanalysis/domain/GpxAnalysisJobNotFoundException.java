@@ -0,0 +1,7 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public class GpxAnalysisJobNotFoundException extends RuntimeException {
+    public GpxAnalysisJobNotFoundException(Long id) {
+        super("GPX analysis job not found with id: " + id);
+    }
+}
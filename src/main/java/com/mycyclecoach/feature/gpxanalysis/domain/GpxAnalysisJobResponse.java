@@ -0,0 +1,12 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.time.LocalDateTime;
+
+public record GpxAnalysisJobResponse(
+        Long jobId,
+        String filename,
+        GpxAnalysisJobStatus status,
+        Long gpxFileId,
+        String errorMessage,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt) {}
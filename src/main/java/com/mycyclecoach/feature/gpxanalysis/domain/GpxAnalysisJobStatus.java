@@ -0,0 +1,8 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public enum GpxAnalysisJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,7 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public class GpxAnalysisQueueFullException extends RuntimeException {
+    public GpxAnalysisQueueFullException() {
+        super("GPX analysis queue is full, please retry later");
+    }
+}
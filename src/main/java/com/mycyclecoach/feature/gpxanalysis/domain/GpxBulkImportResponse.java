@@ -0,0 +1,6 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.List;
+
+public record GpxBulkImportResponse(
+        int importedCount, int failedCount, long elapsedMillis, List<GpxBulkImportResult> results) {}
@@ -0,0 +1,16 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public record GpxBulkImportResult(String filename, Long gpxFileId, Integer climbCount, String errorMessage) {
+
+    public static GpxBulkImportResult imported(String filename, GpxAnalysisResponse analysis) {
+        return new GpxBulkImportResult(filename, analysis.gpxFileId(), analysis.climbCount(), null);
+    }
+
+    public static GpxBulkImportResult failed(String filename, String errorMessage) {
+        return new GpxBulkImportResult(filename, null, null, errorMessage);
+    }
+
+    public boolean isImported() {
+        return errorMessage == null;
+    }
+}
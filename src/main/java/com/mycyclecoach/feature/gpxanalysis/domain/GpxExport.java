@@ -0,0 +1,3 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public record GpxExport(String filename, String content) {}
@@ -7,6 +7,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -28,12 +30,53 @@ public class GpxFile {
     @Column(nullable = false)
     private String filename;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String content;
+    // Shared by every file with the same track content; the service deletes it once its reference count drops to zero
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST, optional = false)
+    @JoinColumn(name = "track_id", nullable = false)
+    private GpxTrack track;
+
+    // SHA-256 of the uploaded bytes, so a byte-identical re-upload is recognised without parsing
+    private byte[] sourceHash;
 
     @Column(nullable = false)
     private Long userId;
 
+    private Double totalDistanceKm;
+
+    private Double estimatedRideTimeMinutes;
+
+    private LocalDateTime metricsComputedAt;
+
+    // Training load from the power stream; null without power, and IF and TSS also null when the rider has no FTP
+    private Integer movingTimeSeconds;
+
+    private Double normalizedPowerWatts;
+
+    private Double intensityFactor;
+
+    private Double trainingStressScore;
+
+    private LocalDateTime loadComputedAt;
+
+    // Seconds per zone against the rider's thresholds at ingest, and per power and heart-rate bin; null without the
+    // channel, and the zones also null without the threshold
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private int[] powerZoneSeconds;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private int[] heartRateZoneSeconds;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private int[] powerHistogram;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private int[] heartRateHistogram;
+
+    private LocalDateTime zonesComputedAt;
+
+    // Encoded polyline of the track's coarsest shape, copied onto each file so list pages never join gpx_tracks
+    private String previewPolyline;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,21 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.time.LocalDateTime;
+
+/** Listing columns of a file with its track's bounding box, as loaded to build a user's {@link TrackBoundsIndex}. */
+public record GpxFileBounds(
+        Long id,
+        String filename,
+        Long userId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long trackId,
+        Double minLatitude,
+        Double minLongitude,
+        Double maxLatitude,
+        Double maxLongitude) {
+
+    public GpxFileResponse toResponse() {
+        return new GpxFileResponse(id, filename, userId, createdAt, updatedAt, null);
+    }
+}
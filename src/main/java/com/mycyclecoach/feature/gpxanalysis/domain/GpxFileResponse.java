@@ -3,4 +3,14 @@ package com.mycyclecoach.feature.gpxanalysis.domain;
 import java.time.LocalDateTime;
 
 public record GpxFileResponse(
-        Long id, String filename, Long userId, LocalDateTime createdAt, LocalDateTime updatedAt) {}
+        Long id,
+        String filename,
+        Long userId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String previewPolyline) {
+
+    public GpxFileResponse withoutPreview() {
+        return previewPolyline == null ? this : new GpxFileResponse(id, filename, userId, createdAt, updatedAt, null);
+    }
+}
@@ -0,0 +1,4 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/** A route's map line at one level of detail, as GeoJSON-ordered {@code [longitude, latitude]} pairs. */
+public record GpxGeometryResponse(Long gpxFileId, int lod, int pointCount, double[][] coordinates) {}
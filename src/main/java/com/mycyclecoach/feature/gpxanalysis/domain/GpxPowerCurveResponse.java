@@ -0,0 +1,5 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.List;
+
+public record GpxPowerCurveResponse(Long gpxFileId, List<PowerCurve.Point> points) {}
@@ -0,0 +1,66 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Track payload kept in its own table so listing and analysis reads of {@code gpx_files} never load it. It is only
+ * fetched when a file's {@code track} association is navigated.
+ *
+ * <p>Tracks are content-addressed: every {@link GpxFile} whose track encodes to the same bytes shares one row, along
+ * with its climbs, and {@code referenceCount} records how many files point at it.
+ */
+@Entity
+@Table(name = "gpx_tracks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GpxTrack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Original XML, kept only when mycyclecoach.gpx.storage.retain-xml is set; exports are rebuilt from trackData
+    @Column(columnDefinition = "TEXT")
+    private String content;
+
+    // Track encoded with TrackCodec; null until an XML-only row has been converted
+    private byte[] trackData;
+
+    // RouteGeometry encoding of the map levels of detail; null for tracks stored before geometries were kept
+    private byte[] geometryData;
+
+    // Bounding box from the TrackFootprint, with its cells in gpx_track_cells; null for empty or unindexed tracks
+    private Double minLatitude;
+
+    private Double minLongitude;
+
+    private Double maxLatitude;
+
+    private Double maxLongitude;
+
+    private LocalDateTime spatialIndexedAt;
+
+    // PowerCurve encoding, empty without power samples; null for tracks stored before power curves were kept
+    private byte[] powerCurve;
+
+    // UTC time of the first timed point, which places the ride in or out of a rider's recent power window
+    private LocalDateTime startedAt;
+
+    // SHA-256 of trackData; null for legacy rows that duplicate an already hashed track
+    @Column(unique = true)
+    private byte[] contentHash;
+
+    // Only the bulk updates in GpxTrackRepository change it; flushing a loaded track must not write back a stale count
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private int referenceCount = 1;
+}
@@ -0,0 +1,32 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** One {@link Geohash} cell a track passes through, from its {@link TrackFootprint}. */
+@Entity
+@Table(name = "gpx_track_cells")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GpxTrackCell {
+
+    // Pooled sequence ids let a track's cells be written in one JDBC batch, as for climbs
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gpx_track_cells_id_seq")
+    @SequenceGenerator(name = "gpx_track_cells_id_seq", sequenceName = "gpx_track_cells_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "track_id", nullable = false)
+    private GpxTrack track;
+
+    @Column(nullable = false)
+    private Long cell;
+}
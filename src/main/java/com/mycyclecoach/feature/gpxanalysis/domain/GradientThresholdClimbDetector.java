@@ -0,0 +1,96 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Original climb detector, kept for comparison. A climb is any unbroken run of raw point-to-point segments at or above
+ * {@code startGradient}, so a single noisy sample or a short false flat ends it. Only the minimum gain and distance
+ * thresholds apply; smoothing and hysteresis settings are ignored.
+ */
+@Component
+@ConditionalOnProperty(prefix = "mycyclecoach.gpx.climb-detection", name = "detector", havingValue = "threshold")
+@RequiredArgsConstructor
+public class GradientThresholdClimbDetector implements ClimbDetector {
+
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Override
+    public List<Climb> detect(TrackBuffer track) {
+        GpxAnalysisConfig.ClimbDetectionConfig config = gpxAnalysisConfig.getClimbDetection();
+        List<Climb> climbs = new ArrayList<>();
+
+        if (track.size() < 2) {
+            return climbs;
+        }
+
+        int climbStartIndex = -1;
+        double climbStartElevation = 0;
+        double climbDistance = 0;
+
+        for (int i = 1; i < track.size(); i++) {
+            if (!track.hasElevation(i - 1) || !track.hasElevation(i)) {
+                continue;
+            }
+
+            double prevElevation = track.elevation(i - 1);
+            double currElevation = track.elevation(i);
+            double elevationDiff = currElevation - prevElevation;
+
+            double segmentDistance = track.segmentDistance(i);
+
+            double gradient = segmentDistance > 0 ? elevationDiff / segmentDistance : 0;
+
+            if (gradient >= config.getStartGradient()) {
+                if (climbStartIndex == -1) {
+                    climbStartIndex = i - 1;
+                    climbStartElevation = prevElevation;
+                    climbDistance = 0;
+                }
+                climbDistance += segmentDistance;
+            } else if (climbStartIndex != -1) {
+                addIfSignificant(
+                        climbs, config, climbStartIndex, i - 1, climbDistance, prevElevation - climbStartElevation);
+                climbStartIndex = -1;
+                climbDistance = 0;
+            }
+        }
+
+        int lastIndex = track.size() - 1;
+        if (climbStartIndex != -1 && track.hasElevation(lastIndex)) {
+            addIfSignificant(
+                    climbs,
+                    config,
+                    climbStartIndex,
+                    lastIndex,
+                    climbDistance,
+                    track.elevation(lastIndex) - climbStartElevation);
+        }
+
+        return climbs;
+    }
+
+    private static void addIfSignificant(
+            List<Climb> climbs,
+            GpxAnalysisConfig.ClimbDetectionConfig config,
+            int startIndex,
+            int endIndex,
+            double distance,
+            double elevationGain) {
+        if (elevationGain < config.getMinElevationGainMeters() || distance < config.getMinDistanceMeters()) {
+            return;
+        }
+
+        climbs.add(Climb.builder()
+                .distanceMeters(distance)
+                .elevationGainMeters(elevationGain)
+                .averageGradient(distance > 0 ? elevationGain / distance : 0)
+                .startPointIndex(startIndex)
+                .endPointIndex(endIndex)
+                .build());
+    }
+}
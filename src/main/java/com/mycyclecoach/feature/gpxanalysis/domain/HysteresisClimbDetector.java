@@ -0,0 +1,138 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default climb detector. A single pass over the track keeps a centred, distance-based moving average of elevation
+ * with two pointers, so smoothing needs no buffer, and feeds it to a start/stop state machine:
+ *
+ * <ul>
+ *   <li>a climb opens where the smoothed gradient reaches {@code startGradient};
+ *   <li>it keeps extending while the road regains at least {@code continueGradient} on average from the current
+ *       summit, so short false flats and noise do not split it;
+ *   <li>it closes at the summit once the road has gone {@code maxFalseFlatMeters} without doing so, or has dropped
+ *       {@code maxDropMeters} below it, and is discarded if it falls back below its own start.
+ * </ul>
+ *
+ * <p>Gain is measured on the smoothed profile, so it reads slightly lower than the raw elevation difference.
+ */
+@Component
+@ConditionalOnProperty(
+        prefix = "mycyclecoach.gpx.climb-detection",
+        name = "detector",
+        havingValue = "hysteresis",
+        matchIfMissing = true)
+@RequiredArgsConstructor
+public class HysteresisClimbDetector implements ClimbDetector {
+
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Override
+    public List<Climb> detect(TrackBuffer track) {
+        GpxAnalysisConfig.ClimbDetectionConfig config = gpxAnalysisConfig.getClimbDetection();
+        double halfWindow = config.getSmoothingWindowMeters() / 2;
+        List<Climb> climbs = new ArrayList<>();
+        int size = track.size();
+
+        // Points in [lag, lead) form the smoothing window around the current point
+        int lead = 0;
+        int lag = 0;
+        double windowSum = 0;
+        int windowCount = 0;
+
+        int previousIndex = -1;
+        double previousElevation = 0;
+
+        boolean climbing = false;
+        int startIndex = 0;
+        double startElevation = 0;
+        int summitIndex = 0;
+        double summitElevation = 0;
+
+        for (int i = 0; i < size; i++) {
+            double position = track.cumulativeDistance(i);
+            while (lead < size && track.cumulativeDistance(lead) - position <= halfWindow) {
+                if (track.hasElevation(lead)) {
+                    windowSum += track.elevation(lead);
+                    windowCount++;
+                }
+                lead++;
+            }
+            while (position - track.cumulativeDistance(lag) > halfWindow) {
+                if (track.hasElevation(lag)) {
+                    windowSum -= track.elevation(lag);
+                    windowCount--;
+                }
+                lag++;
+            }
+            if (windowCount == 0) {
+                continue;
+            }
+            double elevation = windowSum / windowCount;
+
+            if (climbing) {
+                double sinceSummit = position - track.cumulativeDistance(summitIndex);
+                if (elevation < startElevation) {
+                    // Fell back below where it started: noise, not a climb
+                    climbing = false;
+                } else if (elevation > summitElevation
+                        && elevation - summitElevation >= config.getContinueGradient() * sinceSummit) {
+                    summitIndex = i;
+                    summitElevation = elevation;
+                } else if (summitElevation - elevation > config.getMaxDropMeters()
+                        || sinceSummit > config.getMaxFalseFlatMeters()) {
+                    addIfSignificant(climbs, track, config, startIndex, startElevation, summitIndex, summitElevation);
+                    climbing = false;
+                }
+            } else if (previousIndex >= 0) {
+                double distance = position - track.cumulativeDistance(previousIndex);
+                if (distance > 0 && (elevation - previousElevation) / distance >= config.getStartGradient()) {
+                    climbing = true;
+                    startIndex = previousIndex;
+                    startElevation = previousElevation;
+                    summitIndex = i;
+                    summitElevation = elevation;
+                }
+            }
+
+            previousIndex = i;
+            previousElevation = elevation;
+        }
+
+        if (climbing) {
+            addIfSignificant(climbs, track, config, startIndex, startElevation, summitIndex, summitElevation);
+        }
+
+        return climbs;
+    }
+
+    private static void addIfSignificant(
+            List<Climb> climbs,
+            TrackBuffer track,
+            GpxAnalysisConfig.ClimbDetectionConfig config,
+            int startIndex,
+            double startElevation,
+            int summitIndex,
+            double summitElevation) {
+        double distance = track.cumulativeDistance(summitIndex) - track.cumulativeDistance(startIndex);
+        double elevationGain = summitElevation - startElevation;
+        if (elevationGain < config.getMinElevationGainMeters()
+                || distance < config.getMinDistanceMeters()
+                || elevationGain / distance < config.getMinAverageGradient()) {
+            return;
+        }
+
+        climbs.add(Climb.builder()
+                .distanceMeters(distance)
+                .elevationGainMeters(elevationGain)
+                .averageGradient(elevationGain / distance)
+                .startPointIndex(startIndex)
+                .endPointIndex(summitIndex)
+                .build());
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a track's elevation against distance. The points between the first
+ * and last are split into equal buckets and from each the point forming the largest triangle with the previously
+ * chosen point and the next bucket's average is kept, so summits and valley floors survive where plain striding would
+ * step over them.
+ *
+ * <p>Points without elevation are skipped. The index of every point that has one is collected only when some do not,
+ * so a complete track is downsampled without any allocation besides the result.
+ */
+public final class LttbDownsampler {
+
+    private LttbDownsampler() {}
+
+    /**
+     * Indices of the track points with elevation to plot, in track order: all of them when there are no more than
+     * {@code points}, otherwise {@code points} of them (at least two) including the first and last.
+     */
+    public static int[] downsample(TrackBuffer track, int points) {
+        int[] candidates = pointsWithElevation(track);
+        int available = candidates == null ? track.size() : candidates.length;
+        if (points >= available || available <= 2) {
+            int[] all = new int[available];
+            for (int i = 0; i < available; i++) {
+                all[i] = index(candidates, i);
+            }
+            return all;
+        }
+        if (points < 3) {
+            // No room for a bucket between the ends
+            return new int[] {index(candidates, 0), index(candidates, available - 1)};
+        }
+
+        int[] selected = new int[points];
+        selected[0] = index(candidates, 0);
+        double bucketSize = (double) (available - 2) / (points - 2);
+        int previous = selected[0];
+
+        for (int bucket = 0; bucket < points - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket, or the last point for the final bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, available);
+            double averageX = 0.0;
+            double averageY = 0.0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                int index = index(candidates, i);
+                averageX += track.cumulativeDistance(index);
+                averageY += track.elevation(index);
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            double previousX = track.cumulativeDistance(previous);
+            double previousY = track.elevation(previous);
+            double largestArea = -1.0;
+            int chosen = index(candidates, start);
+            for (int i = start; i < end; i++) {
+                int index = index(candidates, i);
+                double area = Math.abs((previousX - averageX) * (track.elevation(index) - previousY)
+                        - (previousX - track.cumulativeDistance(index)) * (averageY - previousY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = index;
+                }
+            }
+
+            selected[bucket + 1] = chosen;
+            previous = chosen;
+        }
+
+        selected[points - 1] = index(candidates, available - 1);
+        return selected;
+    }
+
+    private static int index(int[] candidates, int position) {
+        return candidates == null ? position : candidates[position];
+    }
+
+    /** Indices of the points that have elevation, or {@code null} when every point does. */
+    private static int[] pointsWithElevation(TrackBuffer track) {
+        int count = 0;
+        for (int i = 0; i < track.size(); i++) {
+            if (track.hasElevation(i)) {
+                count++;
+            }
+        }
+        if (count == track.size()) {
+            return null;
+        }
+
+        int[] candidates = new int[count];
+        int position = 0;
+        for (int i = 0; i < track.size(); i++) {
+            if (track.hasElevation(i)) {
+                candidates[position++] = i;
+            }
+        }
+        return candidates;
+    }
+}
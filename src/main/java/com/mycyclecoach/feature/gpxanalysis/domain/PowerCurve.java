@@ -0,0 +1,195 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mean-maximal power of a ride: the best average power held for each of a fixed set of durations from 1 s to 5 h.
+ * The power samples are laid out on a 1 s grid, at most one per second, summed into a single prefix array, so the best
+ * window of any duration is one pass of subtractions over it and a ride is analysed with no allocation besides that
+ * array and the result.
+ *
+ * <p>Curves merge by element-wise maximum, which is how a rider's all-time and recent bests are kept without revisiting
+ * their rides. Encoded for {@code gpx_tracks.power_curve} as a format version byte and the number of durations the ride
+ * lasted long enough for, then the whole watts of each as varints.
+ */
+public final class PowerCurve {
+
+    public static final PowerCurve EMPTY = new PowerCurve(new int[0]);
+
+    private static final int[] DURATIONS_SECONDS = {
+        1, 2, 3, 5, 10, 15, 20, 30, 45, 60, 90, 120, 180, 240, 300, 420, 600, 900, 1200, 1800, 2700, 3600, 5400, 7200,
+        10800, 14400, 18000
+    };
+    private static final byte FORMAT_VERSION = 1;
+    // Samples hold their power across gaps as long as smart recording leaves; longer gaps are stops at zero watts
+    static final int MAX_HOLD_SECONDS = 10;
+    // Elapsed second of the point before the first, so that the first point covers a single second
+    static final long BEFORE_FIRST_SECOND = -1;
+    // No window can span a stop longer than the longest duration, so a stop never needs more seconds than that
+    private static final int MAX_STOP_SECONDS = DURATIONS_SECONDS[DURATIONS_SECONDS.length - 1];
+    // Bounds the grid for tracks with absurd timestamps; a week of riding is far beyond any real file
+    private static final int MAX_GRID_SECONDS = 7 * 24 * 3600;
+
+    private final int[] watts;
+
+    private PowerCurve(int[] watts) {
+        this.watts = watts;
+    }
+
+    /** The curve of {@code track}'s power samples; empty when it has no power or no timestamps. */
+    public static PowerCurve of(TrackBuffer track) {
+        if (!track.hasPower()) {
+            return EMPTY;
+        }
+        int seconds = layOut(track, null, MAX_GRID_SECONDS);
+        if (seconds == 0) {
+            return EMPTY;
+        }
+
+        long[] prefix = new long[seconds + 1];
+        layOut(track, prefix, seconds);
+
+        int covered = 0;
+        while (covered < DURATIONS_SECONDS.length && DURATIONS_SECONDS[covered] <= seconds) {
+            covered++;
+        }
+        int[] watts = new int[covered];
+        for (int d = 0; d < covered; d++) {
+            int duration = DURATIONS_SECONDS[d];
+            long best = 0;
+            for (int end = duration; end <= seconds; end++) {
+                best = Math.max(best, prefix[end] - prefix[end - duration]);
+            }
+            watts[d] = (int) Math.round((double) best / duration);
+        }
+        return new PowerCurve(watts);
+    }
+
+    public boolean isEmpty() {
+        return watts.length == 0;
+    }
+
+    /** Element-wise maximum of the two curves, as long as the longer one. */
+    public PowerCurve max(PowerCurve other) {
+        int[] merged = Arrays.copyOf(
+                watts.length >= other.watts.length ? watts : other.watts, Math.max(watts.length, other.watts.length));
+        for (int i = 0; i < Math.min(watts.length, other.watts.length); i++) {
+            merged[i] = Math.max(watts[i], other.watts[i]);
+        }
+        return new PowerCurve(merged);
+    }
+
+    /** Whether this curve beats {@code other} at any duration, so merging it would change {@code other}. */
+    public boolean improves(PowerCurve other) {
+        for (int i = 0; i < watts.length; i++) {
+            if (i >= other.watts.length || watts[i] > other.watts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The best power for each duration the ride lasted, shortest first. */
+    public List<Point> points() {
+        List<Point> points = new ArrayList<>(watts.length);
+        for (int i = 0; i < watts.length; i++) {
+            points.add(new Point(DURATIONS_SECONDS[i], watts[i]));
+        }
+        return points;
+    }
+
+    public byte[] encode() {
+        ByteSink out = new ByteSink(2 + watts.length * 2);
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarint(watts.length);
+        for (int value : watts) {
+            out.writeVarint(value);
+        }
+        return out.toByteArray();
+    }
+
+    public static PowerCurve decode(byte[] data) {
+        ByteSource in = new ByteSource(data);
+
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new GpxParsingException("Unsupported stored power curve format version " + version);
+        }
+        int size = in.readSize(1);
+        if (size > DURATIONS_SECONDS.length) {
+            throw new GpxParsingException("Stored power curve has too many durations " + size);
+        }
+
+        int[] watts = new int[size];
+        for (int i = 0; i < size; i++) {
+            long value = in.readVarint();
+            if (value > Integer.MAX_VALUE) {
+                throw new GpxParsingException("Stored power curve has an invalid power " + value);
+            }
+            watts[i] = (int) value;
+        }
+
+        if (in.hasRemaining()) {
+            throw new GpxParsingException("Stored power curve has trailing bytes");
+        }
+
+        return new PowerCurve(watts);
+    }
+
+    /**
+     * Lays the timed points of {@code track} out on a 1 s grid of at most {@code limit} seconds, writing the running
+     * power total into {@code prefix} when given, and returns the grid's length. The first point in each elapsed second
+     * covers the seconds since the previous such point, the very first a single second; points without a power sample
+     * count as zero watts.
+     */
+    private static int layOut(TrackBuffer track, long[] prefix, int limit) {
+        int second = 0;
+        long firstTime = TrackBuffer.NO_TIME;
+        long previousElapsed = BEFORE_FIRST_SECOND;
+        for (int i = 0; i < track.size() && second < limit; i++) {
+            if (!track.hasTime(i)) {
+                continue;
+            }
+            long time = track.epochMillis(i);
+            if (firstTime == TrackBuffer.NO_TIME) {
+                firstTime = time;
+            }
+            long elapsed = elapsedSeconds(firstTime, time);
+            long gap = elapsed - previousElapsed;
+            if (gap <= 0) {
+                // Later points in a second already sampled, and out-of-order points, are dropped
+                continue;
+            }
+            previousElapsed = elapsed;
+
+            int held = 1;
+            int stopped = 0;
+            if (gap <= MAX_HOLD_SECONDS) {
+                held = (int) gap;
+            } else {
+                stopped = (int) Math.min(gap - 1, MAX_STOP_SECONDS);
+            }
+
+            int power = Math.max(track.power(i), 0);
+            for (int s = 0; s < stopped + held && second < limit; s++, second++) {
+                if (prefix != null) {
+                    prefix[second + 1] = prefix[second] + (s < stopped ? 0 : power);
+                }
+            }
+        }
+        return second;
+    }
+
+    /**
+     * The whole second since {@code firstTime} that {@code time} falls in, which places a point on the 1 s grid. Taken
+     * from the first point rather than the previous one so that points recorded faster than 1 Hz share a second instead
+     * of each rounding up to a second of their own.
+     */
+    static long elapsedSeconds(long firstTime, long time) {
+        return Math.floorDiv(time - firstTime, 1000);
+    }
+
+    public record Point(int durationSeconds, int watts) {}
+}
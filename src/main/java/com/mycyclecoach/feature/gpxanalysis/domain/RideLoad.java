@@ -0,0 +1,90 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Training load of a ride: its Normalized Power, the fourth-power mean of the 30 s rolling average power, over the
+ * seconds it was recorded. Intensity Factor and Training Stress Score follow from these against the rider's FTP.
+ *
+ * <p>Computed in one pass over the track with a 30 s ring buffer, so the power stream is never laid out in memory.
+ * Samples fill the same 1 s grid as {@link PowerCurve}, at most one per elapsed second, except that gaps too long to
+ * hold are pauses that add no seconds, so a coffee stop neither dilutes Normalized Power nor adds stress.
+ */
+public record RideLoad(int movingSeconds, double normalizedPowerWatts) {
+
+    public static final RideLoad EMPTY = new RideLoad(0, 0.0);
+
+    private static final int ROLLING_SECONDS = 30;
+
+    /** The load of {@code track}; empty when it has no power, no timestamps or less than 30 s of riding. */
+    public static RideLoad of(TrackBuffer track) {
+        if (!track.hasPower()) {
+            return EMPTY;
+        }
+
+        int[] window = new int[ROLLING_SECONDS];
+        long windowTotal = 0;
+        double fourthPowerTotal = 0;
+        int seconds = 0;
+        long firstTime = TrackBuffer.NO_TIME;
+        long previousElapsed = PowerCurve.BEFORE_FIRST_SECOND;
+        for (int i = 0; i < track.size(); i++) {
+            if (!track.hasTime(i)) {
+                continue;
+            }
+            long time = track.epochMillis(i);
+            if (firstTime == TrackBuffer.NO_TIME) {
+                firstTime = time;
+            }
+            long elapsed = PowerCurve.elapsedSeconds(firstTime, time);
+            int held = coveredSeconds(previousElapsed, elapsed);
+            if (held == 0) {
+                continue;
+            }
+            previousElapsed = elapsed;
+
+            int power = Math.max(track.power(i), 0);
+            for (int s = 0; s < held; s++, seconds++) {
+                int slot = seconds % ROLLING_SECONDS;
+                windowTotal += power - window[slot];
+                window[slot] = power;
+                if (seconds >= ROLLING_SECONDS - 1) {
+                    double average = (double) windowTotal / ROLLING_SECONDS;
+                    fourthPowerTotal += average * average * average * average;
+                }
+            }
+        }
+
+        if (seconds < ROLLING_SECONDS) {
+            return EMPTY;
+        }
+        double meanFourthPower = fourthPowerTotal / (seconds - ROLLING_SECONDS + 1);
+        return new RideLoad(seconds, Math.sqrt(Math.sqrt(meanFourthPower)));
+    }
+
+    public boolean isEmpty() {
+        return movingSeconds == 0;
+    }
+
+    public double intensityFactor(int ftpWatts) {
+        return normalizedPowerWatts / ftpWatts;
+    }
+
+    /** Scaled so that an hour ridden at FTP scores 100. */
+    public double trainingStressScore(int ftpWatts) {
+        double intensityFactor = intensityFactor(ftpWatts);
+        return movingSeconds * intensityFactor * intensityFactor * 100 / 3600;
+    }
+
+    /**
+     * Seconds of riding a timed point in elapsed second {@code elapsed} covers after the last point kept, in
+     * {@code previousElapsed}: the gap when a sample can hold across it, and a single second for the first point and
+     * the first after a pause. Points in a second already covered and out-of-order points cover none and are skipped,
+     * so each second counts once however fast the track was recorded.
+     */
+    static int coveredSeconds(long previousElapsed, long elapsed) {
+        long gap = elapsed - previousElapsed;
+        if (gap <= 0) {
+            return 0;
+        }
+        return gap <= PowerCurve.MAX_HOLD_SECONDS ? (int) gap : 1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.time.LocalDateTime;
+
+/** A ride's stored power curve with its start, as loaded to merge a rider's {@link UserPowerCurve}. */
+public record RidePowerCurve(LocalDateTime startedAt, byte[] powerCurve) {
+
+    public PowerCurve curve() {
+        return PowerCurve.decode(powerCurve);
+    }
+}
@@ -0,0 +1,110 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estimates ride time from the rider's weight and FTP. The rider holds a fixed share of FTP, and the speed on each
+ * gradient is where that power balances rolling resistance, gravity and aerodynamic drag. Solving that cubic per
+ * segment would dominate the estimate, so each rider gets a {@link SpeedTable} built once and kept in a small LRU
+ * cache keyed by weight and FTP; a profile change simply selects a different table.
+ *
+ * <p>Gradients are measured over {@code gradientWindowMeters} rather than point to point so that elevation noise on
+ * short segments does not swing the speed between the floor and the cap.
+ */
+@Component
+public class RideTimeEstimator {
+
+    private static final double GRAVITY = 9.80665;
+    private static final int SOLVER_ITERATIONS = 60;
+
+    private final GpxAnalysisConfig.RideTimeConfig config;
+    private final Map<RiderKey, SpeedTable> speedTables;
+
+    public RideTimeEstimator(GpxAnalysisConfig gpxAnalysisConfig) {
+        this.config = gpxAnalysisConfig.getRideTime();
+        int cacheSize = config.getCacheSize();
+        this.speedTables = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RiderKey, SpeedTable> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /** Estimated moving time in minutes, rounded to one decimal place like the terrain-speed estimate. */
+    public double estimateMinutes(TrackBuffer track, double riderWeightKg, int ftp) {
+        if (track.size() < 2) {
+            return 0.0;
+        }
+
+        SpeedTable speedTable = speedTable(riderWeightKg, ftp);
+        double window = config.getGradientWindowMeters();
+        int last = track.size() - 1;
+        double totalSeconds = 0.0;
+        int anchor = 0;
+
+        for (int i = 1; i <= last; i++) {
+            double distance = track.cumulativeDistance(i) - track.cumulativeDistance(anchor);
+            if (distance < window && i < last) {
+                continue;
+            }
+            double gradient = distance > 0 && track.hasElevation(anchor) && track.hasElevation(i)
+                    ? (track.elevation(i) - track.elevation(anchor)) / distance
+                    : 0.0;
+            totalSeconds += distance / speedTable.speedMetersPerSecond(gradient);
+            anchor = i;
+        }
+
+        return Math.round(totalSeconds / 60.0 * 10.0) / 10.0;
+    }
+
+    public SpeedTable speedTable(double riderWeightKg, int ftp) {
+        // Weight is keyed to 100 g so trivially different profile values share a table
+        RiderKey key = new RiderKey(Math.round(riderWeightKg * 10), ftp);
+        return speedTables.computeIfAbsent(key, this::buildSpeedTable);
+    }
+
+    private SpeedTable buildSpeedTable(RiderKey key) {
+        double mass = key.weightHectograms() / 10.0 + config.getBikeWeightKg();
+        double power = key.ftp() * config.getFtpFraction() * config.getDrivetrainEfficiency();
+        double drag = 0.5 * config.getAirDensity() * config.getDragArea();
+        double minSpeed = config.getMinSpeedKmh() / 3.6;
+        double maxSpeed = config.getMaxSpeedKmh() / 3.6;
+
+        double[] speeds = new double[SpeedTable.SIZE];
+        for (int i = 0; i < speeds.length; i++) {
+            double angle = Math.atan(SpeedTable.gradientAt(i));
+            double resistance = mass * GRAVITY * (config.getRollingResistance() * Math.cos(angle) + Math.sin(angle));
+            speeds[i] = Math.clamp(solveSpeed(power, resistance, drag, maxSpeed), minSpeed, maxSpeed);
+        }
+        return new SpeedTable(speeds);
+    }
+
+    /**
+     * Positive root of {@code drag * v^3 + resistance * v = power}, found by bisection. The left side is negative
+     * just above zero whenever power is positive, and there is exactly one positive crossing, so bisection cannot pick
+     * the wrong root.
+     */
+    private static double solveSpeed(double power, double resistance, double drag, double maxSpeed) {
+        if (drag * maxSpeed * maxSpeed * maxSpeed + resistance * maxSpeed <= power) {
+            return maxSpeed;
+        }
+        double low = 0.0;
+        double high = maxSpeed;
+        for (int i = 0; i < SOLVER_ITERATIONS; i++) {
+            double mid = (low + high) / 2;
+            if (drag * mid * mid * mid + resistance * mid < power) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private record RiderKey(long weightHectograms, int ftp) {}
+}
@@ -0,0 +1,157 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/**
+ * Simplified route shape kept with each track for map rendering. It holds the finest level of detail in track order
+ * with each point's {@link RouteSimplifier} rank, so any smaller level is read back by keeping the points
+ * ranked below its size, without touching the full track.
+ *
+ * <p>Encoded for the {@code gpx_tracks.geometry_data} column as a format version byte and the point count, then
+ * coordinates at 1e-5 degrees (about 1 m, plenty for a map line) delta- and zigzag-encoded as varints, then the ranks.
+ */
+public final class RouteGeometry {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final double COORDINATE_SCALE = 1e5;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] ranks;
+
+    private RouteGeometry(double[] latitudes, double[] longitudes, int[] ranks) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.ranks = ranks;
+    }
+
+    /** Simplifies {@code track} down to at most {@code maxPoints} points, keeping the ranking of every level below. */
+    public static RouteGeometry of(TrackBuffer track, int maxPoints) {
+        int[] ranked = RouteSimplifier.rank(track, maxPoints);
+
+        // Pack index and rank into one long so a primitive sort restores track order
+        long[] byIndex = new long[ranked.length];
+        for (int rank = 0; rank < ranked.length; rank++) {
+            byIndex[rank] = ((long) ranked[rank] << 32) | rank;
+        }
+        Arrays.sort(byIndex);
+
+        double[] latitudes = new double[ranked.length];
+        double[] longitudes = new double[ranked.length];
+        int[] ranks = new int[ranked.length];
+        for (int i = 0; i < byIndex.length; i++) {
+            int index = (int) (byIndex[i] >>> 32);
+            latitudes[i] = track.latitude(index);
+            longitudes[i] = track.longitude(index);
+            ranks[i] = (int) byIndex[i];
+        }
+
+        return new RouteGeometry(latitudes, longitudes, ranks);
+    }
+
+    public int size() {
+        return ranks.length;
+    }
+
+    /** Coordinates of the best {@code points}-point level of detail as {@code [longitude, latitude]} pairs. */
+    public double[][] coordinates(int points) {
+        double[][] coordinates = new double[Math.min(Math.max(points, 0), ranks.length)][];
+        int count = 0;
+        for (int i = 0; i < ranks.length && count < coordinates.length; i++) {
+            if (ranks[i] < points) {
+                coordinates[count++] = new double[] {longitudes[i], latitudes[i]};
+            }
+        }
+        return coordinates;
+    }
+
+    /**
+     * The best {@code points}-point level of detail in Google's encoded polyline format (latitude before longitude at
+     * 1e-5 degrees), which map SDKs draw directly, so a list of routes can show thumbnails without fetching geometry.
+     */
+    public String polyline(int points) {
+        StringBuilder polyline = new StringBuilder(Math.min(Math.max(points, 0), ranks.length) * 8);
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (int i = 0; i < ranks.length; i++) {
+            if (ranks[i] < points) {
+                long latitude = Math.round(latitudes[i] * COORDINATE_SCALE);
+                long longitude = Math.round(longitudes[i] * COORDINATE_SCALE);
+                appendPolylineValue(polyline, latitude - previousLatitude);
+                appendPolylineValue(polyline, longitude - previousLongitude);
+                previousLatitude = latitude;
+                previousLongitude = longitude;
+            }
+        }
+        return polyline.toString();
+    }
+
+    public byte[] encode() {
+        ByteSink out = new ByteSink(8 + ranks.length * 6);
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarint(ranks.length);
+
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (int i = 0; i < ranks.length; i++) {
+            long latitude = Math.round(latitudes[i] * COORDINATE_SCALE);
+            long longitude = Math.round(longitudes[i] * COORDINATE_SCALE);
+            out.writeVarint(ByteSink.zigzag(latitude - previousLatitude));
+            out.writeVarint(ByteSink.zigzag(longitude - previousLongitude));
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+        for (int rank : ranks) {
+            out.writeVarint(rank);
+        }
+
+        return out.toByteArray();
+    }
+
+    public static RouteGeometry decode(byte[] data) {
+        ByteSource in = new ByteSource(data);
+
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new GpxParsingException("Unsupported stored geometry format version " + version);
+        }
+        // Every point needs at least three bytes: latitude, longitude and rank
+        int size = in.readSize(3);
+
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        long latitude = 0;
+        long longitude = 0;
+        for (int i = 0; i < size; i++) {
+            latitude += ByteSource.unzigzag(in.readVarint());
+            longitude += ByteSource.unzigzag(in.readVarint());
+            latitudes[i] = latitude / COORDINATE_SCALE;
+            longitudes[i] = longitude / COORDINATE_SCALE;
+        }
+
+        int[] ranks = new int[size];
+        for (int i = 0; i < size; i++) {
+            long rank = in.readVarint();
+            if (rank >= size) {
+                throw new GpxParsingException("Stored geometry has an invalid rank " + rank);
+            }
+            ranks[i] = (int) rank;
+        }
+
+        if (in.hasRemaining()) {
+            throw new GpxParsingException("Stored geometry has trailing bytes");
+        }
+
+        return new RouteGeometry(latitudes, longitudes, ranks);
+    }
+
+    /** Zigzag value in five-bit chunks, low first, each offset into printable ASCII with 0x20 marking continuation. */
+    private static void appendPolylineValue(StringBuilder polyline, long delta) {
+        long value = ByteSink.zigzag(delta);
+        while (value >= 0x20) {
+            polyline.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>>= 5;
+        }
+        polyline.append((char) (value + 63));
+    }
+}
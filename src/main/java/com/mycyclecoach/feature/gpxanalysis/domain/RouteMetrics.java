@@ -0,0 +1,6 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+public record RouteMetrics(double totalDistanceKm, double estimatedRideTimeMinutes) {
+
+    public static final RouteMetrics EMPTY = new RouteMetrics(0.0, 0.0);
+}
@@ -0,0 +1,166 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Ranks track points by how much they contribute to the route's shape, using Douglas-Peucker refined greedily: the
+ * pending segment whose farthest point deviates most is always split next, so the first {@code n} ranked points are
+ * the best {@code n}-point simplification and every smaller level of detail is a prefix of a larger one.
+ *
+ * <p>Runs without recursion. Pending segments sit in a primitive max-heap that never holds more than
+ * {@code maxPoints} entries, and deviations are measured in an equirectangular projection around each segment read
+ * straight from the track's radian columns, so nothing proportional to the track length is allocated.
+ */
+public final class RouteSimplifier {
+
+    private RouteSimplifier() {}
+
+    /**
+     * Returns up to {@code maxPoints} point indices, most significant first. The first and last points always lead;
+     * points on a perfectly straight stretch only follow once every bend has been taken.
+     */
+    public static int[] rank(TrackBuffer track, int maxPoints) {
+        int size = track.size();
+        int limit = Math.min(Math.max(maxPoints, 0), size);
+        int[] ranked = new int[limit];
+        if (limit == 0) {
+            return ranked;
+        }
+
+        ranked[0] = 0;
+        int count = 1;
+        if (limit > 1) {
+            ranked[count++] = size - 1;
+        }
+
+        SegmentHeap pending = new SegmentHeap(limit);
+        pending.push(track, 0, size - 1);
+        while (count < limit && !pending.isEmpty()) {
+            int start = pending.start();
+            int end = pending.end();
+            int split = pending.split();
+            pending.pop();
+
+            ranked[count++] = split;
+            pending.push(track, start, split);
+            pending.push(track, split, end);
+        }
+
+        return ranked;
+    }
+
+    /**
+     * Squared distance, in squared radians, from {@code point} to the segment from {@code start} to {@code end} after
+     * scaling longitude by the cosine of the segment's mean latitude.
+     */
+    private static double deviation(TrackBuffer track, int start, int end, int point) {
+        double scale = Math.cos((track.latitudeRadians(start) + track.latitudeRadians(end)) / 2);
+        double ax = track.longitudeRadians(start) * scale;
+        double ay = track.latitudeRadians(start);
+        double dx = track.longitudeRadians(end) * scale - ax;
+        double dy = track.latitudeRadians(end) - ay;
+        double px = track.longitudeRadians(point) * scale - ax;
+        double py = track.latitudeRadians(point) - ay;
+
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0.0 ? 0.0 : Math.max(0.0, Math.min(1.0, (px * dx + py * dy) / lengthSquared));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    /** Binary max-heap of segments keyed by the deviation of their farthest interior point, in parallel arrays. */
+    private static final class SegmentHeap {
+
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] splits;
+        private final double[] deviations;
+        private int size;
+
+        private SegmentHeap(int capacity) {
+            starts = new int[capacity];
+            ends = new int[capacity];
+            splits = new int[capacity];
+            deviations = new double[capacity];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int start() {
+            return starts[0];
+        }
+
+        private int end() {
+            return ends[0];
+        }
+
+        private int split() {
+            return splits[0];
+        }
+
+        /** Finds the farthest interior point of the segment and queues it; segments without one are dropped. */
+        private void push(TrackBuffer track, int start, int end) {
+            if (end - start < 2 || size == starts.length) {
+                return;
+            }
+
+            int split = start + 1;
+            double farthest = -1.0;
+            for (int i = start + 1; i < end; i++) {
+                double deviation = deviation(track, start, end, i);
+                if (deviation > farthest) {
+                    farthest = deviation;
+                    split = i;
+                }
+            }
+
+            int child = size++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (deviations[parent] >= farthest) {
+                    break;
+                }
+                move(parent, child);
+                child = parent;
+            }
+            set(child, start, end, split, farthest);
+        }
+
+        private void pop() {
+            size--;
+            int start = starts[size];
+            int end = ends[size];
+            int split = splits[size];
+            double deviation = deviations[size];
+
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && deviations[child + 1] > deviations[child]) {
+                    child++;
+                }
+                if (deviation >= deviations[child]) {
+                    break;
+                }
+                move(child, parent);
+                parent = child;
+            }
+            set(parent, start, end, split, deviation);
+        }
+
+        private void move(int from, int to) {
+            set(to, starts[from], ends[from], splits[from], deviations[from]);
+        }
+
+        private void set(int index, int start, int end, int split, double deviation) {
+            starts[index] = start;
+            ends[index] = end;
+            splits[index] = split;
+            deviations[index] = deviation;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/** Plain-loop haversine {@link DistanceKernel}; each latitude's cosine is carried over to the next segment. */
+final class ScalarDistanceKernel implements DistanceKernel {
+
+    static final ScalarDistanceKernel INSTANCE = new ScalarDistanceKernel();
+
+    private ScalarDistanceKernel() {}
+
+    @Override
+    public void segmentDistances(double[] latitudeRadians, double[] longitudeRadians, double[] distances, int size) {
+        if (size == 0) {
+            return;
+        }
+        distances[0] = 0.0;
+
+        double previousCosLatitude = Math.cos(latitudeRadians[0]);
+        for (int i = 1; i < size; i++) {
+            double cosLatitude = Math.cos(latitudeRadians[i]);
+            double sinHalfDLat = Math.sin((latitudeRadians[i] - latitudeRadians[i - 1]) / 2);
+            double sinHalfDLon = Math.sin((longitudeRadians[i] - longitudeRadians[i - 1]) / 2);
+            double a = sinHalfDLat * sinHalfDLat + previousCosLatitude * cosLatitude * sinHalfDLon * sinHalfDLon;
+            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+            distances[i] = EARTH_RADIUS_METERS * c;
+            previousCosLatitude = cosLatitude;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * A region to search rides in. Boxes are given in degrees as minimum latitude, minimum longitude, maximum latitude and
+ * maximum longitude, and are not wrapped across the antimeridian.
+ */
+public sealed interface SearchArea permits GeoBounds, GeoCircle {
+
+    /** The smallest box enclosing the area. */
+    GeoBounds bounds();
+
+    boolean intersects(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude);
+
+    boolean contains(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude);
+}
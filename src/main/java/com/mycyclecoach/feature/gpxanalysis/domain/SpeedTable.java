@@ -0,0 +1,34 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Steady-state speed for one rider at gradients from {@value #MIN_GRADIENT} to {@value #MAX_GRADIENT}, sampled every
+ * {@value #GRADIENT_STEP}. Lookups clamp the gradient to that range and interpolate linearly, so the hot loop never
+ * solves the power balance itself. Built and cached by {@link RideTimeEstimator}.
+ */
+public final class SpeedTable {
+
+    static final double MIN_GRADIENT = -0.20;
+    static final double MAX_GRADIENT = 0.25;
+    static final double GRADIENT_STEP = 0.005;
+    static final int SIZE = (int) Math.round((MAX_GRADIENT - MIN_GRADIENT) / GRADIENT_STEP) + 1;
+
+    private final double[] speeds;
+
+    SpeedTable(double[] speeds) {
+        if (speeds.length != SIZE) {
+            throw new IllegalArgumentException("Speed table needs " + SIZE + " entries, got " + speeds.length);
+        }
+        this.speeds = speeds;
+    }
+
+    static double gradientAt(int index) {
+        return MIN_GRADIENT + index * GRADIENT_STEP;
+    }
+
+    public double speedMetersPerSecond(double gradient) {
+        double position = (Math.clamp(gradient, MIN_GRADIENT, MAX_GRADIENT) - MIN_GRADIENT) / GRADIENT_STEP;
+        int index = Math.min((int) position, SIZE - 2);
+        double fraction = position - index;
+        return speeds[index] + (speeds[index + 1] - speeds[index]) * fraction;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Static R-tree over bounding boxes, bulk loaded with Sort-Tile-Recursive packing: entries are sorted into vertical
+ * slices by longitude and each slice by latitude, so every full leaf covers a compact tile. Upper levels group
+ * consecutive nodes, keeping the tree in flat primitive arrays with no node objects.
+ */
+public final class StrTree {
+
+    private static final int NODE_CAPACITY = 16;
+
+    // Original index of the entry in each leaf slot
+    private final int[] entries;
+    // Boxes per level from the entries up to the root, four values per node: min lat, min lon, max lat, max lon
+    private final double[][] levels;
+
+    private StrTree(int[] entries, double[][] levels) {
+        this.entries = entries;
+        this.levels = levels;
+    }
+
+    public static StrTree build(
+            double[] minLatitudes, double[] minLongitudes, double[] maxLatitudes, double[] maxLongitudes) {
+        int size = minLatitudes.length;
+        int leafCount = Math.ceilDiv(size, NODE_CAPACITY);
+        int sliceSize = (int) Math.ceil(Math.sqrt(leafCount)) * NODE_CAPACITY;
+
+        Integer[] order = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(i -> minLongitudes[i] + maxLongitudes[i]));
+        for (int start = 0; start < size; start += sliceSize) {
+            Arrays.sort(
+                    order,
+                    start,
+                    Math.min(start + sliceSize, size),
+                    Comparator.comparingDouble(i -> minLatitudes[i] + maxLatitudes[i]));
+        }
+
+        int[] entries = new int[size];
+        double[] boxes = new double[size * 4];
+        for (int slot = 0; slot < size; slot++) {
+            int entry = order[slot];
+            entries[slot] = entry;
+            boxes[slot * 4] = minLatitudes[entry];
+            boxes[slot * 4 + 1] = minLongitudes[entry];
+            boxes[slot * 4 + 2] = maxLatitudes[entry];
+            boxes[slot * 4 + 3] = maxLongitudes[entry];
+        }
+
+        List<double[]> levels = new ArrayList<>();
+        levels.add(boxes);
+        while (boxes.length > 4) {
+            boxes = parentBoxes(boxes);
+            levels.add(boxes);
+        }
+        return new StrTree(entries, levels.toArray(double[][]::new));
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /** Passes the original index of every entry whose box intersects {@code area} to {@code consumer}. */
+    public void search(SearchArea area, IntConsumer consumer) {
+        if (entries.length > 0) {
+            search(area, levels.length - 1, 0, consumer);
+        }
+    }
+
+    private void search(SearchArea area, int level, int node, IntConsumer consumer) {
+        double[] boxes = levels[level];
+        if (!area.intersects(boxes[node * 4], boxes[node * 4 + 1], boxes[node * 4 + 2], boxes[node * 4 + 3])) {
+            return;
+        }
+        if (level == 0) {
+            consumer.accept(entries[node]);
+            return;
+        }
+
+        int childCount = levels[level - 1].length / 4;
+        for (int child = node * NODE_CAPACITY; child < Math.min((node + 1) * NODE_CAPACITY, childCount); child++) {
+            search(area, level - 1, child, consumer);
+        }
+    }
+
+    private static double[] parentBoxes(double[] children) {
+        int childCount = children.length / 4;
+        double[] parents = new double[Math.ceilDiv(childCount, NODE_CAPACITY) * 4];
+        for (int parent = 0; parent < parents.length / 4; parent++) {
+            int first = parent * NODE_CAPACITY;
+            parents[parent * 4] = children[first * 4];
+            parents[parent * 4 + 1] = children[first * 4 + 1];
+            parents[parent * 4 + 2] = children[first * 4 + 2];
+            parents[parent * 4 + 3] = children[first * 4 + 3];
+            for (int child = first + 1; child < Math.min(first + NODE_CAPACITY, childCount); child++) {
+                parents[parent * 4] = Math.min(parents[parent * 4], children[child * 4]);
+                parents[parent * 4 + 1] = Math.min(parents[parent * 4 + 1], children[child * 4 + 1]);
+                parents[parent * 4 + 2] = Math.max(parents[parent * 4 + 2], children[child * 4 + 2]);
+                parents[parent * 4 + 3] = Math.max(parents[parent * 4 + 3], children[child * 4 + 3]);
+            }
+        }
+        return parents;
+    }
+}
@@ -0,0 +1,124 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/**
+ * Seconds a ride spent in each power and heart-rate training zone, and at each power and heart rate, counted in one
+ * pass over the track on the same moving-time grid as {@link RideLoad}.
+ *
+ * <p>Zones are fixed-width arrays scored against the rider's thresholds at ingest: Coggan's seven power zones from FTP
+ * and five heart-rate zones from maximum heart rate. The histograms are independent of the rider, in
+ * {@value #POWER_BIN_WATTS} W and 1 bpm bins from zero, trimmed after the highest bin ridden. Each is stored as a
+ * Postgres {@code INTEGER[]} so a rider's totals over any period are summed in the database.
+ */
+public record TimeInZones(
+        int[] powerZoneSeconds, int[] heartRateZoneSeconds, int[] powerHistogram, int[] heartRateHistogram) {
+
+    public static final TimeInZones EMPTY = new TimeInZones(null, null, null, null);
+
+    public static final int POWER_BIN_WATTS = 5;
+    public static final int POWER_ZONES = 7;
+    public static final int HEART_RATE_ZONES = 5;
+
+    // Lower bounds of power zones 2 to 7 as fractions of FTP
+    private static final double[] POWER_ZONE_FTP_FRACTIONS = {0.55, 0.75, 0.90, 1.05, 1.20, 1.50};
+    // Lower bounds of heart-rate zones 2 to 5 as fractions of maximum heart rate
+    private static final double[] HEART_RATE_ZONE_MAX_FRACTIONS = {0.60, 0.70, 0.80, 0.90};
+    // Samples above these land in the top bin; both are well past anything a rider or sensor really records
+    private static final int MAX_POWER_WATTS = 2500;
+    private static final int MAX_HEART_RATE_BPM = 250;
+
+    /**
+     * Time in zones of {@code track}. A channel the track lacks is left {@code null}, as are zones whose threshold
+     * is {@code null}; the result is empty when the track has no power or heart rate, or no timestamps.
+     */
+    public static TimeInZones of(TrackBuffer track, Integer ftpWatts, Integer maxHeartRate) {
+        if (!track.hasPower() && !track.hasHeartRate()) {
+            return EMPTY;
+        }
+
+        int[] powerHistogram = track.hasPower() ? new int[MAX_POWER_WATTS / POWER_BIN_WATTS + 1] : null;
+        int[] heartRateHistogram = track.hasHeartRate() ? new int[MAX_HEART_RATE_BPM + 1] : null;
+        double[] powerBounds = powerHistogram == null ? null : bounds(POWER_ZONE_FTP_FRACTIONS, ftpWatts);
+        double[] heartRateBounds =
+                heartRateHistogram == null ? null : bounds(HEART_RATE_ZONE_MAX_FRACTIONS, maxHeartRate);
+        int[] powerZoneSeconds = powerBounds == null ? null : new int[POWER_ZONES];
+        int[] heartRateZoneSeconds = heartRateBounds == null ? null : new int[HEART_RATE_ZONES];
+
+        int seconds = 0;
+        long firstTime = TrackBuffer.NO_TIME;
+        long previousElapsed = PowerCurve.BEFORE_FIRST_SECOND;
+        for (int i = 0; i < track.size(); i++) {
+            if (!track.hasTime(i)) {
+                continue;
+            }
+            long time = track.epochMillis(i);
+            if (firstTime == TrackBuffer.NO_TIME) {
+                firstTime = time;
+            }
+            long elapsed = PowerCurve.elapsedSeconds(firstTime, time);
+            int held = RideLoad.coveredSeconds(previousElapsed, elapsed);
+            if (held == 0) {
+                continue;
+            }
+            previousElapsed = elapsed;
+            seconds += held;
+
+            if (powerHistogram != null) {
+                // Points without a power sample count as zero watts, as they do for Normalized Power
+                int watts = Math.max(track.power(i), 0);
+                powerHistogram[Math.min(watts / POWER_BIN_WATTS, powerHistogram.length - 1)] += held;
+                if (powerZoneSeconds != null) {
+                    powerZoneSeconds[zone(watts, powerBounds)] += held;
+                }
+            }
+            // Heart rate has no meaningful zero, so seconds without a sample are left out rather than counted
+            int bpm = heartRateHistogram == null ? TrackBuffer.NO_SAMPLE : track.heartRate(i);
+            if (bpm > 0) {
+                heartRateHistogram[Math.min(bpm, heartRateHistogram.length - 1)] += held;
+                if (heartRateZoneSeconds != null) {
+                    heartRateZoneSeconds[zone(bpm, heartRateBounds)] += held;
+                }
+            }
+        }
+
+        if (seconds == 0) {
+            return EMPTY;
+        }
+        return new TimeInZones(powerZoneSeconds, heartRateZoneSeconds, trim(powerHistogram), trim(heartRateHistogram));
+    }
+
+    public boolean isEmpty() {
+        return powerHistogram == null && heartRateHistogram == null;
+    }
+
+    private static double[] bounds(double[] fractions, Integer threshold) {
+        if (threshold == null || threshold <= 0) {
+            return null;
+        }
+        double[] bounds = new double[fractions.length];
+        for (int i = 0; i < fractions.length; i++) {
+            bounds[i] = fractions[i] * threshold;
+        }
+        return bounds;
+    }
+
+    private static int zone(int value, double[] bounds) {
+        int zone = 0;
+        while (zone < bounds.length && value >= bounds[zone]) {
+            zone++;
+        }
+        return zone;
+    }
+
+    private static int[] trim(int[] histogram) {
+        if (histogram == null) {
+            return null;
+        }
+        int length = histogram.length;
+        while (length > 0 && histogram[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+}
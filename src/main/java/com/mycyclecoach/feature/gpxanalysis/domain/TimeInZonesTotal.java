@@ -0,0 +1,16 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/** One bin of a rider's summed {@link TimeInZones} arrays, as returned by the aggregate query. */
+public interface TimeInZonesTotal {
+
+    int POWER_ZONES = 0;
+    int HEART_RATE_ZONES = 1;
+    int POWER_HISTOGRAM = 2;
+    int HEART_RATE_HISTOGRAM = 3;
+
+    Integer getHistogram();
+
+    Integer getBin();
+
+    Long getSeconds();
+}
@@ -0,0 +1,57 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user's files in an {@link StrTree} over their track bounds, so an area search finds candidate files without
+ * touching the database. A file whose bounds lie wholly inside the area certainly passes through it; one whose bounds
+ * only overlap it may not, and is left for its cells to decide.
+ */
+public final class TrackBoundsIndex {
+
+    private final List<GpxFileBounds> files;
+    private final StrTree tree;
+
+    private TrackBoundsIndex(List<GpxFileBounds> files, StrTree tree) {
+        this.files = files;
+        this.tree = tree;
+    }
+
+    public static TrackBoundsIndex of(List<GpxFileBounds> files) {
+        double[] minLatitudes = new double[files.size()];
+        double[] minLongitudes = new double[files.size()];
+        double[] maxLatitudes = new double[files.size()];
+        double[] maxLongitudes = new double[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            GpxFileBounds file = files.get(i);
+            minLatitudes[i] = file.minLatitude();
+            minLongitudes[i] = file.minLongitude();
+            maxLatitudes[i] = file.maxLatitude();
+            maxLongitudes[i] = file.maxLongitude();
+        }
+
+        return new TrackBoundsIndex(
+                List.copyOf(files), StrTree.build(minLatitudes, minLongitudes, maxLatitudes, maxLongitudes));
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public Candidates candidates(SearchArea area) {
+        List<GpxFileBounds> inside = new ArrayList<>();
+        List<GpxFileBounds> overlapping = new ArrayList<>();
+        tree.search(area, index -> {
+            GpxFileBounds file = files.get(index);
+            if (area.contains(file.minLatitude(), file.minLongitude(), file.maxLatitude(), file.maxLongitude())) {
+                inside.add(file);
+            } else {
+                overlapping.add(file);
+            }
+        });
+        return new Candidates(inside, overlapping);
+    }
+
+    public record Candidates(List<GpxFileBounds> inside, List<GpxFileBounds> overlapping) {}
+}
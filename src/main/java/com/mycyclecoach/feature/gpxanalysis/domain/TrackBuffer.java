@@ -0,0 +1,244 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/**
+ * Columnar, primitive representation of a recorded track shared by all GPX analysis code. Each point is an index into
+ * parallel arrays rather than an object, and the radian coordinates and per-segment distances are computed once, with
+ * the chosen {@link DistanceMode}, when the buffer is built, so analysis loops only read flat {@code double[]}s.
+ *
+ * <p>Missing values are encoded in-band: elevation as {@link Double#NaN}, time as {@link #NO_TIME} and sensor samples
+ * as {@link #NO_SAMPLE}. Sensor channels that never carry a sample are not allocated at all.
+ */
+public final class TrackBuffer {
+
+    public static final long NO_TIME = Long.MIN_VALUE;
+    public static final int NO_SAMPLE = -1;
+
+    private final int size;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] elevations;
+    private final long[] epochMillis;
+    private final int[] power;
+    private final int[] heartRate;
+    private final int[] cadence;
+    private final double[] latitudeRadians;
+    private final double[] longitudeRadians;
+    private final double[] segmentDistances;
+    private final double[] cumulativeDistances;
+
+    private TrackBuffer(
+            int size,
+            double[] latitudes,
+            double[] longitudes,
+            double[] elevations,
+            long[] epochMillis,
+            int[] power,
+            int[] heartRate,
+            int[] cadence,
+            DistanceMode distanceMode) {
+        this.size = size;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.elevations = elevations;
+        this.epochMillis = epochMillis;
+        this.power = power;
+        this.heartRate = heartRate;
+        this.cadence = cadence;
+        this.latitudeRadians = new double[size];
+        this.longitudeRadians = new double[size];
+        this.segmentDistances = new double[size];
+        this.cumulativeDistances = new double[size];
+        precompute(distanceMode.kernel());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Adopts already-sized arrays without copying; used by {@link TrackCodec} when decoding. */
+    static TrackBuffer wrap(
+            int size,
+            double[] latitudes,
+            double[] longitudes,
+            double[] elevations,
+            long[] epochMillis,
+            int[] power,
+            int[] heartRate,
+            int[] cadence,
+            DistanceMode distanceMode) {
+        return new TrackBuffer(
+                size, latitudes, longitudes, elevations, epochMillis, power, heartRate, cadence, distanceMode);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    public double latitudeRadians(int index) {
+        return latitudeRadians[index];
+    }
+
+    public double longitudeRadians(int index) {
+        return longitudeRadians[index];
+    }
+
+    public double elevation(int index) {
+        return elevations[index];
+    }
+
+    public boolean hasElevation(int index) {
+        return !Double.isNaN(elevations[index]);
+    }
+
+    public long epochMillis(int index) {
+        return epochMillis[index];
+    }
+
+    public boolean hasTime(int index) {
+        return epochMillis[index] != NO_TIME;
+    }
+
+    /** Distance in meters from point {@code index - 1} to point {@code index}; zero for the first point. */
+    public double segmentDistance(int index) {
+        return segmentDistances[index];
+    }
+
+    /** Distance in meters from the first point to point {@code index}. */
+    public double cumulativeDistance(int index) {
+        return cumulativeDistances[index];
+    }
+
+    public double totalDistance() {
+        return size == 0 ? 0.0 : cumulativeDistances[size - 1];
+    }
+
+    public boolean hasPower() {
+        return power != null;
+    }
+
+    public int power(int index) {
+        return power == null ? NO_SAMPLE : power[index];
+    }
+
+    public boolean hasHeartRate() {
+        return heartRate != null;
+    }
+
+    public int heartRate(int index) {
+        return heartRate == null ? NO_SAMPLE : heartRate[index];
+    }
+
+    public boolean hasCadence() {
+        return cadence != null;
+    }
+
+    public int cadence(int index) {
+        return cadence == null ? NO_SAMPLE : cadence[index];
+    }
+
+    private void precompute(DistanceKernel kernel) {
+        kernel.toRadians(latitudes, latitudeRadians, size);
+        kernel.toRadians(longitudes, longitudeRadians, size);
+        kernel.segmentDistances(latitudeRadians, longitudeRadians, segmentDistances, size);
+
+        for (int i = 1; i < size; i++) {
+            cumulativeDistances[i] = cumulativeDistances[i - 1] + segmentDistances[i];
+        }
+    }
+
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int size;
+        private double[] latitudes = new double[INITIAL_CAPACITY];
+        private double[] longitudes = new double[INITIAL_CAPACITY];
+        private double[] elevations = new double[INITIAL_CAPACITY];
+        private long[] epochMillis = new long[INITIAL_CAPACITY];
+        private int[] power;
+        private int[] heartRate;
+        private int[] cadence;
+
+        private Builder() {}
+
+        public Builder add(double latitude, double longitude, double elevation, long time) {
+            return add(latitude, longitude, elevation, time, NO_SAMPLE, NO_SAMPLE, NO_SAMPLE);
+        }
+
+        public Builder add(
+                double latitude,
+                double longitude,
+                double elevation,
+                long time,
+                int powerSample,
+                int heartRateSample,
+                int cadenceSample) {
+            if (size == latitudes.length) {
+                grow();
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            elevations[size] = elevation;
+            epochMillis[size] = time;
+            power = record(power, powerSample);
+            heartRate = record(heartRate, heartRateSample);
+            cadence = record(cadence, cadenceSample);
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public TrackBuffer build(DistanceMode distanceMode) {
+            return new TrackBuffer(
+                    size,
+                    Arrays.copyOf(latitudes, size),
+                    Arrays.copyOf(longitudes, size),
+                    Arrays.copyOf(elevations, size),
+                    Arrays.copyOf(epochMillis, size),
+                    power == null ? null : Arrays.copyOf(power, size),
+                    heartRate == null ? null : Arrays.copyOf(heartRate, size),
+                    cadence == null ? null : Arrays.copyOf(cadence, size),
+                    distanceMode);
+        }
+
+        private int[] record(int[] channel, int sample) {
+            if (channel == null) {
+                if (sample == NO_SAMPLE) {
+                    return null;
+                }
+                channel = new int[latitudes.length];
+                Arrays.fill(channel, 0, size, NO_SAMPLE);
+            }
+            channel[size] = sample;
+            return channel;
+        }
+
+        private void grow() {
+            int capacity = latitudes.length + (latitudes.length >> 1);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            elevations = Arrays.copyOf(elevations, capacity);
+            epochMillis = Arrays.copyOf(epochMillis, capacity);
+            power = power == null ? null : Arrays.copyOf(power, capacity);
+            heartRate = heartRate == null ? null : Arrays.copyOf(heartRate, capacity);
+            cadence = cadence == null ? null : Arrays.copyOf(cadence, capacity);
+        }
+    }
+}
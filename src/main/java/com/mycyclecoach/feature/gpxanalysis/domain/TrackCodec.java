@@ -0,0 +1,195 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of a {@link TrackBuffer} for the {@code gpx_files.track_data} column.
+ *
+ * <p>Layout: a format version byte, a channel flags byte and the point count, followed by one block per channel
+ * (latitude, longitude, then elevation, time, power, heart rate and cadence when present). Every value is written as a
+ * varint. Coordinates are fixed-point at 1e-7 degrees and elevation at 0.1 m, each delta-encoded against the previous
+ * point and zigzag-packed so small steps in either direction take one or two bytes. Elevation and time deltas are
+ * taken from the last point that had a value, with {@code 0} reserved for "missing". Sensor samples are stored as
+ * {@code value + 1}, again with {@code 0} for "missing".
+ *
+ * <p>Coordinates round-trip to 1e-7 degrees (about 1 cm) and elevation to 0.1 m; time and sensor samples are exact.
+ */
+public final class TrackCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final double ELEVATION_SCALE = 10.0;
+
+    private static final int HAS_ELEVATION = 1;
+    private static final int HAS_TIME = 1 << 1;
+    private static final int HAS_POWER = 1 << 2;
+    private static final int HAS_HEART_RATE = 1 << 3;
+    private static final int HAS_CADENCE = 1 << 4;
+
+    private TrackCodec() {}
+
+    public static byte[] encode(TrackBuffer track) {
+        int size = track.size();
+        int flags = channelFlags(track);
+        ByteSink out = new ByteSink(16 + size * 8);
+
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(flags);
+        out.writeVarint(size);
+
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long latitude = Math.round(track.latitude(i) * COORDINATE_SCALE);
+            out.writeVarint(ByteSink.zigzag(latitude - previous));
+            previous = latitude;
+        }
+
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            long longitude = Math.round(track.longitude(i) * COORDINATE_SCALE);
+            out.writeVarint(ByteSink.zigzag(longitude - previous));
+            previous = longitude;
+        }
+
+        if ((flags & HAS_ELEVATION) != 0) {
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                if (track.hasElevation(i)) {
+                    long elevation = Math.round(track.elevation(i) * ELEVATION_SCALE);
+                    out.writeVarint(ByteSink.zigzag(elevation - previous) + 1);
+                    previous = elevation;
+                } else {
+                    out.writeVarint(0);
+                }
+            }
+        }
+
+        if ((flags & HAS_TIME) != 0) {
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                if (track.hasTime(i)) {
+                    long time = track.epochMillis(i);
+                    out.writeVarint(ByteSink.zigzag(time - previous) + 1);
+                    previous = time;
+                } else {
+                    out.writeVarint(0);
+                }
+            }
+        }
+
+        if ((flags & HAS_POWER) != 0) {
+            for (int i = 0; i < size; i++) {
+                out.writeVarint(track.power(i) + 1L);
+            }
+        }
+        if ((flags & HAS_HEART_RATE) != 0) {
+            for (int i = 0; i < size; i++) {
+                out.writeVarint(track.heartRate(i) + 1L);
+            }
+        }
+        if ((flags & HAS_CADENCE) != 0) {
+            for (int i = 0; i < size; i++) {
+                out.writeVarint(track.cadence(i) + 1L);
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    public static TrackBuffer decode(byte[] data, DistanceMode distanceMode) {
+        ByteSource in = new ByteSource(data);
+
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new GpxParsingException("Unsupported stored track format version " + version);
+        }
+        int flags = in.readByte();
+        // Every point needs at least two bytes (latitude and longitude), which bounds a corrupt count
+        int size = in.readSize(2);
+
+        double[] latitudes = new double[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += ByteSource.unzigzag(in.readVarint());
+            latitudes[i] = previous / COORDINATE_SCALE;
+        }
+
+        double[] longitudes = new double[size];
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += ByteSource.unzigzag(in.readVarint());
+            longitudes[i] = previous / COORDINATE_SCALE;
+        }
+
+        double[] elevations = new double[size];
+        Arrays.fill(elevations, Double.NaN);
+        if ((flags & HAS_ELEVATION) != 0) {
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                long code = in.readVarint();
+                if (code != 0) {
+                    previous += ByteSource.unzigzag(code - 1);
+                    elevations[i] = previous / ELEVATION_SCALE;
+                }
+            }
+        }
+
+        long[] epochMillis = new long[size];
+        Arrays.fill(epochMillis, TrackBuffer.NO_TIME);
+        if ((flags & HAS_TIME) != 0) {
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                long code = in.readVarint();
+                if (code != 0) {
+                    previous += ByteSource.unzigzag(code - 1);
+                    epochMillis[i] = previous;
+                }
+            }
+        }
+
+        int[] power = (flags & HAS_POWER) != 0 ? readSamples(in, size) : null;
+        int[] heartRate = (flags & HAS_HEART_RATE) != 0 ? readSamples(in, size) : null;
+        int[] cadence = (flags & HAS_CADENCE) != 0 ? readSamples(in, size) : null;
+
+        if (in.hasRemaining()) {
+            throw new GpxParsingException("Stored track data has trailing bytes");
+        }
+
+        return TrackBuffer.wrap(
+                size, latitudes, longitudes, elevations, epochMillis, power, heartRate, cadence, distanceMode);
+    }
+
+    private static int channelFlags(TrackBuffer track) {
+        int flags = 0;
+        for (int i = 0; i < track.size(); i++) {
+            if (track.hasElevation(i)) {
+                flags |= HAS_ELEVATION;
+            }
+            if (track.hasTime(i)) {
+                flags |= HAS_TIME;
+            }
+            if ((flags & HAS_ELEVATION) != 0 && (flags & HAS_TIME) != 0) {
+                break;
+            }
+        }
+        if (track.hasPower()) {
+            flags |= HAS_POWER;
+        }
+        if (track.hasHeartRate()) {
+            flags |= HAS_HEART_RATE;
+        }
+        if (track.hasCadence()) {
+            flags |= HAS_CADENCE;
+        }
+        return flags;
+    }
+
+    private static int[] readSamples(ByteSource in, int size) {
+        int[] samples = new int[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = (int) (in.readVarint() - 1);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.Arrays;
+
+/**
+ * Where a track goes, for area searches: its bounding box, {@code null} for an empty track, and the sorted
+ * {@link Geohash} cells it passes through at two depths. Fine cells answer searches over towns and valleys; coarse
+ * cells keep regional searches to a bounded number of cells.
+ */
+public record TrackFootprint(GeoBounds bounds, long[] cells) {
+
+    /** About 1.2 km by 0.6 km at the equator. */
+    public static final int FINE_BITS = 30;
+
+    /** About 39 km by 20 km at the equator. */
+    public static final int COARSE_BITS = 20;
+
+    public static TrackFootprint of(TrackBuffer track) {
+        if (track.isEmpty()) {
+            return new TrackFootprint(null, new long[0]);
+        }
+
+        // Bounds first, so a coordinate off the globe is rejected before it can drive the stepping below
+        double minLatitude = track.latitude(0);
+        double maxLatitude = minLatitude;
+        double minLongitude = track.longitude(0);
+        double maxLongitude = minLongitude;
+        for (int i = 1; i < track.size(); i++) {
+            minLatitude = Math.min(minLatitude, track.latitude(i));
+            maxLatitude = Math.max(maxLatitude, track.latitude(i));
+            minLongitude = Math.min(minLongitude, track.longitude(i));
+            maxLongitude = Math.max(maxLongitude, track.longitude(i));
+        }
+        GeoBounds bounds = new GeoBounds(minLatitude, minLongitude, maxLatitude, maxLongitude);
+
+        // Step along each segment at under half a fine cell so sparse recording or a GPS gap cannot skip a cell
+        double latitudeStep = Geohash.cellHeight(FINE_BITS) / 2;
+        double longitudeStep = Geohash.cellWidth(FINE_BITS) / 2;
+
+        CellCollector cells = new CellCollector();
+        cells.add(track.latitude(0), track.longitude(0));
+
+        for (int i = 1; i < track.size(); i++) {
+            double latitude = track.latitude(i);
+            double longitude = track.longitude(i);
+            double latitudeDelta = latitude - track.latitude(i - 1);
+            double longitudeDelta = longitude - track.longitude(i - 1);
+            int steps = (int) Math.ceil(
+                    Math.max(Math.abs(latitudeDelta) / latitudeStep, Math.abs(longitudeDelta) / longitudeStep));
+            for (int step = steps - 1; step >= 0; step--) {
+                double fraction = (double) step / steps;
+                cells.add(latitude - latitudeDelta * fraction, longitude - longitudeDelta * fraction);
+            }
+        }
+
+        return new TrackFootprint(bounds, cells.toSortedArray());
+    }
+
+    /** Collects cells without boxing, skipping the common case of consecutive points in the same cell. */
+    private static final class CellCollector {
+
+        private long[] cells = new long[64];
+        private int size;
+        private long lastFine;
+        private long lastCoarse;
+
+        void add(double latitude, double longitude) {
+            long fine = Geohash.cell(latitude, longitude, FINE_BITS);
+            if (fine == lastFine) {
+                return;
+            }
+            append(fine);
+            lastFine = fine;
+
+            long coarse = Geohash.cell(latitude, longitude, COARSE_BITS);
+            if (coarse != lastCoarse) {
+                append(coarse);
+                lastCoarse = coarse;
+            }
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(cells, size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, unique);
+        }
+
+        private void append(long cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+        }
+    }
+}
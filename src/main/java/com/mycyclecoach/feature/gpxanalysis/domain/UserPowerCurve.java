@@ -0,0 +1,46 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * A rider's best power: the element-wise maximum of the {@link PowerCurve}s of all their rides, and of the rides
+ * started within the recent window. New rides are merged in as they are stored, so viewing it never reads their curves.
+ */
+@Entity
+@Table(name = "user_power_curves")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPowerCurve {
+
+    @Id
+    private Long userId;
+
+    // Null until first saved, which lets Spring Data insert a new envelope without selecting it first
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private byte[] allTimeCurve;
+
+    @Column(nullable = false)
+    private byte[] recentCurve;
+
+    // When the earliest ride that raised the recent curve leaves the window and it must be rebuilt; null when none did
+    private LocalDateTime recentRebuildAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,6 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.util.List;
+
+public record UserPowerCurveResponse(
+        Long userId, List<PowerCurve.Point> allTime, int recentDays, List<PowerCurve.Point> recent) {}
@@ -0,0 +1,13 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import java.time.LocalDate;
+
+public record UserTimeInZonesResponse(
+        Long userId,
+        LocalDate fromDate,
+        LocalDate toDate,
+        long[] powerZoneSeconds,
+        long[] heartRateZoneSeconds,
+        int powerBinWatts,
+        long[] powerHistogramSeconds,
+        long[] heartRateHistogramSeconds) {}
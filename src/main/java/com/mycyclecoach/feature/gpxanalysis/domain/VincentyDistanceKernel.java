@@ -0,0 +1,85 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+/**
+ * Vincenty's inverse formula on the WGS84 ellipsoid, accurate to well under a millimeter. It iterates per segment and
+ * is several times slower than haversine, so it is meant for validating the faster modes rather than for production
+ * analysis. The rare nearly antipodal pair where the iteration does not converge falls back to haversine.
+ */
+final class VincentyDistanceKernel implements DistanceKernel {
+
+    static final VincentyDistanceKernel INSTANCE = new VincentyDistanceKernel();
+
+    private static final double A = 6378137.0;
+    private static final double F = 1 / 298.257223563;
+    private static final double B = A * (1 - F);
+    private static final int MAX_ITERATIONS = 200;
+    private static final double CONVERGENCE = 1e-12;
+
+    private VincentyDistanceKernel() {}
+
+    @Override
+    public void segmentDistances(double[] latitudeRadians, double[] longitudeRadians, double[] distances, int size) {
+        if (size == 0) {
+            return;
+        }
+        distances[0] = 0.0;
+
+        for (int i = 1; i < size; i++) {
+            distances[i] = distance(
+                    latitudeRadians[i - 1], longitudeRadians[i - 1], latitudeRadians[i], longitudeRadians[i]);
+        }
+    }
+
+    static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double l = longitude2 - longitude1;
+        double u1 = Math.atan((1 - F) * Math.tan(latitude1));
+        double u2 = Math.atan((1 - F) * Math.tan(latitude2));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double east = cosU2 * sinLambda;
+            double north = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            double sinSigma = Math.sqrt(east * east + north * north);
+            if (sinSigma == 0) {
+                return 0.0;
+            }
+            double cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            double sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            double cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // Zero on equatorial lines, where the term drops out
+            double cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+            double cos2SigmaMSq = cos2SigmaM * cos2SigmaM;
+            double c = F / 16 * cosSqAlpha * (4 + F * (4 - 3 * cosSqAlpha));
+
+            double previousLambda = lambda;
+            double correction = sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaMSq));
+            lambda = l + (1 - c) * F * sinAlpha * correction;
+
+            if (Math.abs(lambda - previousLambda) < CONVERGENCE) {
+                double uSq = cosSqAlpha * (A * A - B * B) / (B * B);
+                double bigA = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+                double bigB = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+                double first = cosSigma * (-1 + 2 * cos2SigmaMSq);
+                double second = bigB / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaMSq);
+                double deltaSigma = bigB * sinSigma * (cos2SigmaM + bigB / 4 * (first - second));
+                return B * bigA * (sigma - deltaSigma);
+            }
+        }
+
+        return haversine(latitude1, longitude1, latitude2, longitude2);
+    }
+
+    private static double haversine(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinHalfDLat = Math.sin((latitude2 - latitude1) / 2);
+        double sinHalfDLon = Math.sin((longitude2 - longitude1) / 2);
+        double a = sinHalfDLat * sinHalfDLat + Math.cos(latitude1) * Math.cos(latitude2) * sinHalfDLon * sinHalfDLon;
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,324 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decoder for Garmin FIT activity files that walks the record stream of a {@link ByteBuffer} and hands each
+ * {@code record} message with a position to a {@link TrackPointHandler}, with no third-party SDK.
+ *
+ * <p>FIT data messages carry no field names: each is laid out by the last definition message for its local type. A
+ * definition is resolved once into the byte offsets of the few fields the track needs, so a data message is decoded
+ * with a handful of absolute reads and skipped past in one step, whatever else the device recorded. Chained files,
+ * compressed timestamp headers and developer fields are supported; every file's CRC is checked before its records are
+ * read.
+ */
+public final class FitReader {
+
+    // Offset of the ".FIT" signature in the file header, and the two header sizes the protocol defines
+    private static final int SIGNATURE_OFFSET = 8;
+    private static final int LEGACY_HEADER_SIZE = 12;
+    private static final int HEADER_SIZE = 14;
+    private static final int CRC_SIZE = 2;
+    private static final int LOCAL_MESSAGE_TYPES = 16;
+
+    private static final int RECORD_MESSAGE = 20;
+    private static final int POSITION_LAT_FIELD = 0;
+    private static final int POSITION_LONG_FIELD = 1;
+    private static final int ALTITUDE_FIELD = 2;
+    private static final int HEART_RATE_FIELD = 3;
+    private static final int CADENCE_FIELD = 4;
+    private static final int POWER_FIELD = 7;
+    private static final int ENHANCED_ALTITUDE_FIELD = 78;
+    private static final int TIMESTAMP_FIELD = 253;
+
+    private static final double DEGREES_PER_SEMICIRCLE = 180.0 / (1L << 31);
+    // FIT timestamps count seconds from 1989-12-31T00:00:00Z
+    private static final long FIT_EPOCH_SECONDS = 631_065_600L;
+    // Altitudes are stored in fifths of a meter above a point 500 m below sea level
+    private static final double ALTITUDE_SCALE = 5.0;
+    private static final double ALTITUDE_OFFSET = 500.0;
+
+    private static final int[] CRC_TABLE = {
+        0x0000, 0xCC01, 0xD801, 0x1400, 0xF001, 0x3C00, 0x2800, 0xE401, 0xA001, 0x6C00, 0x7800, 0xB401, 0x5000, 0x9C01,
+        0x8801, 0x4400
+    };
+
+    private FitReader() {}
+
+    /** Whether {@code content} starts with a FIT file header. */
+    public static boolean isFit(byte[] content) {
+        return isFit(ByteBuffer.wrap(content));
+    }
+
+    /** Whether the remaining bytes of {@code content} start with a FIT file header; its position is left unchanged. */
+    public static boolean isFit(ByteBuffer content) {
+        if (content.remaining() < LEGACY_HEADER_SIZE) {
+            return false;
+        }
+        int start = content.position();
+        int headerSize = content.get(start) & 0xFF;
+        return (headerSize == LEGACY_HEADER_SIZE || headerSize == HEADER_SIZE)
+                && content.get(start + SIGNATURE_OFFSET) == '.'
+                && content.get(start + SIGNATURE_OFFSET + 1) == 'F'
+                && content.get(start + SIGNATURE_OFFSET + 2) == 'I'
+                && content.get(start + SIGNATURE_OFFSET + 3) == 'T';
+    }
+
+    public static int read(ByteBuffer buffer, TrackPointHandler handler) {
+        ByteBuffer fit = buffer.slice();
+        try {
+            int count = 0;
+            do {
+                count += readFile(fit, handler);
+            } while (fit.hasRemaining());
+            return count;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new GpxParsingException("Failed to parse FIT file: message runs past the end of the data", e);
+        }
+    }
+
+    public static TrackBuffer readTrack(byte[] content, DistanceMode distanceMode) {
+        return readTrack(ByteBuffer.wrap(content), distanceMode);
+    }
+
+    public static TrackBuffer readTrack(ByteBuffer buffer, DistanceMode distanceMode) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        read(buffer, builder::add);
+        return builder.build(distanceMode);
+    }
+
+    /** Reads one file of a possibly chained stream from {@code fit}'s position, leaving it just past the CRC. */
+    private static int readFile(ByteBuffer fit, TrackPointHandler handler) {
+        int start = fit.position();
+        fit.order(ByteOrder.LITTLE_ENDIAN);
+        if (fit.remaining() < LEGACY_HEADER_SIZE) {
+            throw new GpxParsingException("Failed to parse FIT file: truncated file header");
+        }
+        int headerSize = fit.get(start) & 0xFF;
+        if ((headerSize != LEGACY_HEADER_SIZE && headerSize != HEADER_SIZE)
+                || fit.getInt(start + SIGNATURE_OFFSET) != ('.' | 'F' << 8 | 'I' << 16 | 'T' << 24)) {
+            throw new GpxParsingException("Failed to parse FIT file: missing .FIT file header");
+        }
+        long dataSize = fit.getInt(start + 4) & 0xFFFFFFFFL;
+        if (dataSize > fit.remaining() - headerSize - CRC_SIZE) {
+            throw new GpxParsingException("Failed to parse FIT file: data size " + dataSize + " exceeds the file");
+        }
+        int dataStart = start + headerSize;
+        int dataEnd = dataStart + (int) dataSize;
+        // A zero header CRC means the writer did not compute one; the file CRC still covers the header
+        if (headerSize == HEADER_SIZE) {
+            int headerCrc = fit.getShort(start + LEGACY_HEADER_SIZE) & 0xFFFF;
+            if (headerCrc != 0 && headerCrc != crc(fit, start, start + LEGACY_HEADER_SIZE)) {
+                throw new GpxParsingException("Failed to parse FIT file: header checksum mismatch");
+            }
+        }
+        if ((fit.getShort(dataEnd) & 0xFFFF) != crc(fit, start, dataEnd)) {
+            throw new GpxParsingException("Failed to parse FIT file: checksum mismatch");
+        }
+
+        Definition[] definitions = new Definition[LOCAL_MESSAGE_TYPES];
+        long timestamp = -1;
+        int count = 0;
+        int position = dataStart;
+        while (position < dataEnd) {
+            int header = fit.get(position++) & 0xFF;
+            if ((header & 0x40) != 0 && (header & 0x80) == 0) {
+                fit.order(ByteOrder.LITTLE_ENDIAN);
+                Definition definition = Definition.read(fit, position, (header & 0x20) != 0);
+                position += definition.length;
+                if (position > dataEnd) {
+                    throw new GpxParsingException("Failed to parse FIT file: message runs past the end of the data");
+                }
+                definitions[header & 0x0F] = definition;
+                continue;
+            }
+
+            boolean compressed = (header & 0x80) != 0;
+            Definition definition = definitions[compressed ? (header >> 5) & 0x03 : header & 0x0F];
+            if (definition == null) {
+                throw new GpxParsingException("Failed to parse FIT file: data message without a definition");
+            }
+            if (position + definition.size > dataEnd) {
+                throw new GpxParsingException("Failed to parse FIT file: message runs past the end of the data");
+            }
+            fit.order(definition.byteOrder);
+            if (compressed) {
+                // The header carries the low five bits of the time, which roll over from the last full timestamp
+                int offset = header & 0x1F;
+                if (timestamp >= 0) {
+                    timestamp = (timestamp & ~0x1FL) + offset + (offset < (timestamp & 0x1F) ? 0x20 : 0);
+                }
+            } else if (definition.timestamp >= 0) {
+                long value = fit.getInt(position + definition.timestamp) & 0xFFFFFFFFL;
+                if (value != 0xFFFFFFFFL) {
+                    timestamp = value;
+                }
+            }
+
+            if (definition.isRecord() && emitRecord(fit, position, definition, timestamp, handler)) {
+                count++;
+            }
+            position += definition.size;
+        }
+
+        fit.position(dataEnd + CRC_SIZE);
+        return count;
+    }
+
+    private static boolean emitRecord(
+            ByteBuffer fit, int position, Definition definition, long timestamp, TrackPointHandler handler) {
+        if (definition.latitude < 0 || definition.longitude < 0) {
+            return false;
+        }
+        int latitude = fit.getInt(position + definition.latitude);
+        int longitude = fit.getInt(position + definition.longitude);
+        // Indoor and pre-fix records have no position, which the track model cannot hold
+        if (latitude == Integer.MAX_VALUE || longitude == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        // A 32-bit semicircle covers 180 degrees either side of zero, so a corrupt latitude can land past the poles
+        double latitudeDegrees = latitude * DEGREES_PER_SEMICIRCLE;
+        if (!GpxStreamReader.isCoordinate(latitudeDegrees, GpxStreamReader.MAX_LATITUDE)) {
+            throw new GpxParsingException("Failed to parse FIT file: invalid latitude " + latitudeDegrees);
+        }
+
+        double elevation = Double.NaN;
+        if (definition.enhancedAltitude >= 0) {
+            long altitude = fit.getInt(position + definition.enhancedAltitude) & 0xFFFFFFFFL;
+            if (altitude != 0xFFFFFFFFL) {
+                elevation = altitude / ALTITUDE_SCALE - ALTITUDE_OFFSET;
+            }
+        }
+        if (Double.isNaN(elevation) && definition.altitude >= 0) {
+            int altitude = fit.getShort(position + definition.altitude) & 0xFFFF;
+            if (altitude != 0xFFFF) {
+                elevation = altitude / ALTITUDE_SCALE - ALTITUDE_OFFSET;
+            }
+        }
+
+        handler.onTrackPoint(
+                latitudeDegrees,
+                longitude * DEGREES_PER_SEMICIRCLE,
+                elevation,
+                timestamp < 0 ? TrackBuffer.NO_TIME : (FIT_EPOCH_SECONDS + timestamp) * 1000L,
+                uint16Sample(fit, position, definition.power),
+                uint8Sample(fit, position, definition.heartRate),
+                uint8Sample(fit, position, definition.cadence));
+        return true;
+    }
+
+    private static int uint8Sample(ByteBuffer fit, int position, int offset) {
+        if (offset < 0) {
+            return TrackBuffer.NO_SAMPLE;
+        }
+        int value = fit.get(position + offset) & 0xFF;
+        return value == 0xFF ? TrackBuffer.NO_SAMPLE : value;
+    }
+
+    private static int uint16Sample(ByteBuffer fit, int position, int offset) {
+        if (offset < 0) {
+            return TrackBuffer.NO_SAMPLE;
+        }
+        int value = fit.getShort(position + offset) & 0xFFFF;
+        return value == 0xFFFF ? TrackBuffer.NO_SAMPLE : value;
+    }
+
+    /** The FIT CRC-16 of bytes {@code from} to {@code to} of {@code fit}. */
+    static int crc(ByteBuffer fit, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc = crc(crc, fit.get(i));
+        }
+        return crc;
+    }
+
+    static int crc(int crc, byte value) {
+        int tmp = CRC_TABLE[crc & 0x0F];
+        crc = (crc >> 4) & 0x0FFF;
+        crc = crc ^ tmp ^ CRC_TABLE[value & 0x0F];
+        tmp = CRC_TABLE[crc & 0x0F];
+        crc = (crc >> 4) & 0x0FFF;
+        return crc ^ tmp ^ CRC_TABLE[(value >> 4) & 0x0F];
+    }
+
+    /**
+     * A definition message resolved for decoding: the byte order and size of the data messages it lays out, and the
+     * offset within them of each field the track needs, or -1 when absent or not of the expected size.
+     */
+    private static final class Definition {
+
+        private final int globalMessage;
+        private final ByteOrder byteOrder;
+        private final int length;
+        private int size;
+        private int timestamp = -1;
+        private int latitude = -1;
+        private int longitude = -1;
+        private int altitude = -1;
+        private int enhancedAltitude = -1;
+        private int heartRate = -1;
+        private int cadence = -1;
+        private int power = -1;
+
+        private Definition(int globalMessage, ByteOrder byteOrder, int length) {
+            this.globalMessage = globalMessage;
+            this.byteOrder = byteOrder;
+            this.length = length;
+        }
+
+        /** Reads the definition message content at {@code position}, just past its record header. */
+        static Definition read(ByteBuffer fit, int position, boolean hasDeveloperFields) {
+            ByteOrder byteOrder = fit.get(position + 1) == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            int globalMessage = fit.order(byteOrder).getShort(position + 2) & 0xFFFF;
+            int fields = fit.get(position + 4) & 0xFF;
+            int developerFields = hasDeveloperFields ? fit.get(position + 5 + fields * 3) & 0xFF : 0;
+            int length = 5 + fields * 3 + (hasDeveloperFields ? 1 + developerFields * 3 : 0);
+
+            Definition definition = new Definition(globalMessage, byteOrder, length);
+            int offset = 0;
+            for (int i = 0; i < fields; i++) {
+                int field = position + 5 + i * 3;
+                int size = fit.get(field + 1) & 0xFF;
+                definition.resolve(fit.get(field) & 0xFF, size, offset);
+                offset += size;
+            }
+            for (int i = 0; i < developerFields; i++) {
+                offset += fit.get(position + 6 + fields * 3 + i * 3 + 1) & 0xFF;
+            }
+            definition.size = offset;
+            return definition;
+        }
+
+        boolean isRecord() {
+            return globalMessage == RECORD_MESSAGE;
+        }
+
+        private void resolve(int field, int size, int offset) {
+            if (field == TIMESTAMP_FIELD && size == 4) {
+                timestamp = offset;
+            } else if (!isRecord()) {
+                return;
+            } else if (field == POSITION_LAT_FIELD && size == 4) {
+                latitude = offset;
+            } else if (field == POSITION_LONG_FIELD && size == 4) {
+                longitude = offset;
+            } else if (field == ALTITUDE_FIELD && size == 2) {
+                altitude = offset;
+            } else if (field == ENHANCED_ALTITUDE_FIELD && size == 4) {
+                enhancedAltitude = offset;
+            } else if (field == HEART_RATE_FIELD && size == 1) {
+                heartRate = offset;
+            } else if (field == CADENCE_FIELD && size == 1) {
+                cadence = offset;
+            } else if (field == POWER_FIELD && size == 2) {
+                power = offset;
+            }
+        }
+    }
+}
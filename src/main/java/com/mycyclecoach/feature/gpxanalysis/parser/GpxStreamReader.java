@@ -0,0 +1,179 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pull-based GPX reader that walks {@code trkpt} elements with StAX and hands each point to a
+ * {@link TrackPointHandler}. Nothing is buffered beyond the current point, so memory use is independent of file size.
+ *
+ * <p>Power, heart rate and cadence are picked up from the common point extensions (Garmin {@code TrackPointExtension}
+ * {@code hr}/{@code cad}, and {@code power}/{@code PowerInWatts}) wherever they are nested inside the point.
+ */
+public final class GpxStreamReader {
+
+    static final double MAX_LATITUDE = 90.0;
+    static final double MAX_LONGITUDE = 180.0;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private GpxStreamReader() {}
+
+    public static int read(InputStream inputStream, TrackPointHandler handler) {
+        try {
+            return read(XML_INPUT_FACTORY.createXMLStreamReader(inputStream), handler);
+        } catch (XMLStreamException e) {
+            throw new GpxParsingException("Failed to parse GPX file", e);
+        }
+    }
+
+    public static int read(Reader reader, TrackPointHandler handler) {
+        try {
+            return read(XML_INPUT_FACTORY.createXMLStreamReader(reader), handler);
+        } catch (XMLStreamException e) {
+            throw new GpxParsingException("Failed to parse GPX file", e);
+        }
+    }
+
+    public static TrackBuffer readTrack(InputStream inputStream, DistanceMode distanceMode) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        read(inputStream, builder::add);
+        return builder.build(distanceMode);
+    }
+
+    public static TrackBuffer readTrack(Reader reader, DistanceMode distanceMode) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        read(reader, builder::add);
+        return builder.build(distanceMode);
+    }
+
+    private static int read(XMLStreamReader xml, TrackPointHandler handler) throws XMLStreamException {
+        try {
+            boolean gpxRootSeen = false;
+            boolean inTrackPoint = false;
+            int depth = 0;
+            int count = 0;
+            double latitude = 0;
+            double longitude = 0;
+            double elevation = Double.NaN;
+            long epochMillis = TrackBuffer.NO_TIME;
+            int power = TrackBuffer.NO_SAMPLE;
+            int heartRate = TrackBuffer.NO_SAMPLE;
+            int cadence = TrackBuffer.NO_SAMPLE;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (!inTrackPoint) {
+                        if ("gpx".equals(name)) {
+                            gpxRootSeen = true;
+                        } else if ("trkpt".equals(name)) {
+                            inTrackPoint = true;
+                            depth = 0;
+                            latitude = parseCoordinate(xml, "lat", MAX_LATITUDE);
+                            longitude = parseCoordinate(xml, "lon", MAX_LONGITUDE);
+                            elevation = Double.NaN;
+                            epochMillis = TrackBuffer.NO_TIME;
+                            power = TrackBuffer.NO_SAMPLE;
+                            heartRate = TrackBuffer.NO_SAMPLE;
+                            cadence = TrackBuffer.NO_SAMPLE;
+                        }
+                    } else if (depth == 0 && "ele".equals(name)) {
+                        elevation = parseElevation(xml.getElementText());
+                    } else if (depth == 0 && "time".equals(name)) {
+                        epochMillis = parseTime(xml.getElementText());
+                    } else if (depth > 0 && ("power".equals(name) || "PowerInWatts".equals(name))) {
+                        power = parseSample(xml.getElementText());
+                    } else if (depth > 0 && "hr".equals(name)) {
+                        heartRate = parseSample(xml.getElementText());
+                    } else if (depth > 0 && "cad".equals(name)) {
+                        cadence = parseSample(xml.getElementText());
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && inTrackPoint) {
+                    if (depth == 0) {
+                        handler.onTrackPoint(latitude, longitude, elevation, epochMillis, power, heartRate, cadence);
+                        count++;
+                        inTrackPoint = false;
+                    } else {
+                        depth--;
+                    }
+                }
+            }
+
+            if (!gpxRootSeen) {
+                throw new GpxParsingException("Failed to parse GPX file: missing <gpx> root element");
+            }
+            return count;
+        } finally {
+            xml.close();
+        }
+    }
+
+    private static double parseCoordinate(XMLStreamReader xml, String attribute, double limit) {
+        String value = xml.getAttributeValue(null, attribute);
+        if (value == null) {
+            throw new GpxParsingException("Failed to parse GPX file: trkpt is missing the " + attribute + " attribute");
+        }
+        double degrees;
+        try {
+            degrees = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new GpxParsingException("Failed to parse GPX file: invalid " + attribute + " value " + value, e);
+        }
+        if (!isCoordinate(degrees, limit)) {
+            throw new GpxParsingException("Failed to parse GPX file: invalid " + attribute + " value " + value);
+        }
+        return degrees;
+    }
+
+    /** Whether {@code degrees} lies within {@code limit} degrees of zero; NaN and infinities never do. */
+    static boolean isCoordinate(double degrees, double limit) {
+        return degrees >= -limit && degrees <= limit;
+    }
+
+    static double parseElevation(String text) {
+        try {
+            double elevation = Double.parseDouble(text.trim());
+            return Double.isFinite(elevation) ? elevation : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    static long parseTime(String text) {
+        try {
+            return Instant.parse(text.trim()).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return TrackBuffer.NO_TIME;
+        }
+    }
+
+    static int parseSample(String text) {
+        try {
+            long value = Math.round(Double.parseDouble(text.trim()));
+            return value >= 0 && value <= Integer.MAX_VALUE ? (int) value : TrackBuffer.NO_SAMPLE;
+        } catch (NumberFormatException e) {
+            return TrackBuffer.NO_SAMPLE;
+        }
+    }
+
+    static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -0,0 +1,129 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.Instant;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes a {@link TrackBuffer} back out as a single-segment GPX 1.1 track, used to export files whose original XML
+ * was not retained. Sensor channels are written as Garmin {@code TrackPointExtension} {@code hr}/{@code cad} and a
+ * plain {@code power} element, which {@link GpxStreamReader} reads back.
+ */
+public final class GpxWriter {
+
+    private static final String GPX_NAMESPACE = "http://www.topografix.com/GPX/1/1";
+    private static final String TRACK_POINT_EXTENSION_PREFIX = "gpxtpx";
+    private static final String TRACK_POINT_EXTENSION_NAMESPACE =
+            "http://www.garmin.com/xmlschemas/TrackPointExtension/v1";
+    private static final String CREATOR = "MyCycleCoach";
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private GpxWriter() {}
+
+    public static String write(TrackBuffer track, String name) {
+        StringWriter writer = new StringWriter(track.size() * 96 + 256);
+        write(track, name, writer);
+        return writer.toString();
+    }
+
+    public static void write(TrackBuffer track, String name, Writer writer) {
+        try {
+            XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+            try {
+                writeDocument(xml, track, name);
+                xml.flush();
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new GpxParsingException("Failed to write GPX file", e);
+        }
+    }
+
+    private static void writeDocument(XMLStreamWriter xml, TrackBuffer track, String name) throws XMLStreamException {
+        boolean hasSensors = track.hasPower() || track.hasHeartRate() || track.hasCadence();
+
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("gpx");
+        xml.writeDefaultNamespace(GPX_NAMESPACE);
+        if (hasSensors) {
+            xml.writeNamespace(TRACK_POINT_EXTENSION_PREFIX, TRACK_POINT_EXTENSION_NAMESPACE);
+        }
+        xml.writeAttribute("version", "1.1");
+        xml.writeAttribute("creator", CREATOR);
+
+        xml.writeStartElement("trk");
+        if (name != null) {
+            writeTextElement(xml, "name", name);
+        }
+        xml.writeStartElement("trkseg");
+
+        for (int i = 0; i < track.size(); i++) {
+            xml.writeStartElement("trkpt");
+            xml.writeAttribute("lat", formatDecimal(track.latitude(i)));
+            xml.writeAttribute("lon", formatDecimal(track.longitude(i)));
+            if (track.hasElevation(i)) {
+                writeTextElement(xml, "ele", formatDecimal(track.elevation(i)));
+            }
+            if (track.hasTime(i)) {
+                writeTextElement(xml, "time", Instant.ofEpochMilli(track.epochMillis(i)).toString());
+            }
+            if (hasSensors) {
+                writeExtensions(xml, track, i);
+            }
+            xml.writeEndElement();
+        }
+
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+    }
+
+    private static void writeExtensions(XMLStreamWriter xml, TrackBuffer track, int index) throws XMLStreamException {
+        int power = track.power(index);
+        int heartRate = track.heartRate(index);
+        int cadence = track.cadence(index);
+        if (power == TrackBuffer.NO_SAMPLE && heartRate == TrackBuffer.NO_SAMPLE && cadence == TrackBuffer.NO_SAMPLE) {
+            return;
+        }
+
+        xml.writeStartElement("extensions");
+        if (power != TrackBuffer.NO_SAMPLE) {
+            writeTextElement(xml, "power", Integer.toString(power));
+        }
+        if (heartRate != TrackBuffer.NO_SAMPLE || cadence != TrackBuffer.NO_SAMPLE) {
+            xml.writeStartElement(TRACK_POINT_EXTENSION_PREFIX, "TrackPointExtension", TRACK_POINT_EXTENSION_NAMESPACE);
+            if (heartRate != TrackBuffer.NO_SAMPLE) {
+                xml.writeStartElement(TRACK_POINT_EXTENSION_PREFIX, "hr", TRACK_POINT_EXTENSION_NAMESPACE);
+                xml.writeCharacters(Integer.toString(heartRate));
+                xml.writeEndElement();
+            }
+            if (cadence != TrackBuffer.NO_SAMPLE) {
+                xml.writeStartElement(TRACK_POINT_EXTENSION_PREFIX, "cad", TRACK_POINT_EXTENSION_NAMESPACE);
+                xml.writeCharacters(Integer.toString(cadence));
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private static void writeTextElement(XMLStreamWriter xml, String name, String text) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    // xsd:decimal has no exponent form, so avoid Double.toString's scientific notation for tiny coordinates
+    private static String formatDecimal(double value) {
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.InputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pull-based reader for Garmin Training Center (TCX) activities and courses that walks {@code Trackpoint} elements
+ * with StAX and hands each to a {@link TrackPointHandler}, the same way {@link GpxStreamReader} walks GPX.
+ *
+ * <p>Heart rate comes from {@code HeartRateBpm/Value}, cadence from {@code Cadence} and power from the
+ * {@code ActivityExtension} {@code Watts}. Devices write trackpoints without a {@code Position} before a fix and while
+ * paused; the track model needs a position, so those are skipped.
+ */
+public final class TcxStreamReader {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = GpxStreamReader.createInputFactory();
+
+    private TcxStreamReader() {}
+
+    public static int read(InputStream inputStream, TrackPointHandler handler) {
+        try {
+            return read(XML_INPUT_FACTORY.createXMLStreamReader(inputStream), handler);
+        } catch (XMLStreamException e) {
+            throw new GpxParsingException("Failed to parse TCX file", e);
+        }
+    }
+
+    public static TrackBuffer readTrack(InputStream inputStream, DistanceMode distanceMode) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        read(inputStream, builder::add);
+        return builder.build(distanceMode);
+    }
+
+    private static int read(XMLStreamReader xml, TrackPointHandler handler) throws XMLStreamException {
+        try {
+            boolean rootSeen = false;
+            boolean inTrackPoint = false;
+            boolean inHeartRate = false;
+            int count = 0;
+            double latitude = Double.NaN;
+            double longitude = Double.NaN;
+            double elevation = Double.NaN;
+            long epochMillis = TrackBuffer.NO_TIME;
+            int power = TrackBuffer.NO_SAMPLE;
+            int heartRate = TrackBuffer.NO_SAMPLE;
+            int cadence = TrackBuffer.NO_SAMPLE;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (!inTrackPoint) {
+                        if ("TrainingCenterDatabase".equals(name)) {
+                            rootSeen = true;
+                        } else if ("Trackpoint".equals(name)) {
+                            inTrackPoint = true;
+                            latitude = Double.NaN;
+                            longitude = Double.NaN;
+                            elevation = Double.NaN;
+                            epochMillis = TrackBuffer.NO_TIME;
+                            power = TrackBuffer.NO_SAMPLE;
+                            heartRate = TrackBuffer.NO_SAMPLE;
+                            cadence = TrackBuffer.NO_SAMPLE;
+                        }
+                    } else if ("Time".equals(name)) {
+                        epochMillis = GpxStreamReader.parseTime(xml.getElementText());
+                    } else if ("LatitudeDegrees".equals(name)) {
+                        latitude = parseCoordinate(xml.getElementText(), name, GpxStreamReader.MAX_LATITUDE);
+                    } else if ("LongitudeDegrees".equals(name)) {
+                        longitude = parseCoordinate(xml.getElementText(), name, GpxStreamReader.MAX_LONGITUDE);
+                    } else if ("AltitudeMeters".equals(name)) {
+                        elevation = GpxStreamReader.parseElevation(xml.getElementText());
+                    } else if ("HeartRateBpm".equals(name)) {
+                        inHeartRate = true;
+                    } else if (inHeartRate && "Value".equals(name)) {
+                        heartRate = GpxStreamReader.parseSample(xml.getElementText());
+                    } else if ("Cadence".equals(name)) {
+                        cadence = GpxStreamReader.parseSample(xml.getElementText());
+                    } else if ("Watts".equals(name)) {
+                        power = GpxStreamReader.parseSample(xml.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && inTrackPoint) {
+                    String name = xml.getLocalName();
+                    if ("HeartRateBpm".equals(name)) {
+                        inHeartRate = false;
+                    } else if ("Trackpoint".equals(name)) {
+                        inTrackPoint = false;
+                        if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+                            handler.onTrackPoint(
+                                    latitude, longitude, elevation, epochMillis, power, heartRate, cadence);
+                            count++;
+                        }
+                    }
+                }
+            }
+
+            if (!rootSeen) {
+                throw new GpxParsingException(
+                        "Failed to parse TCX file: missing <TrainingCenterDatabase> root element");
+            }
+            return count;
+        } finally {
+            xml.close();
+        }
+    }
+
+    private static double parseCoordinate(String text, String element, double limit) {
+        double degrees;
+        try {
+            degrees = Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            throw new GpxParsingException("Failed to parse TCX file: invalid " + element + " value " + text, e);
+        }
+        if (!GpxStreamReader.isCoordinate(degrees, limit)) {
+            throw new GpxParsingException("Failed to parse TCX file: invalid " + element + " value " + text);
+        }
+        return degrees;
+    }
+}
@@ -0,0 +1,93 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.nio.ByteBuffer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The upload formats a track can be read from, told apart by their content rather than the filename or the declared
+ * content type, which head units and browsers get wrong as often as not. Content is taken as a {@link ByteBuffer} so a
+ * memory-mapped upload is sniffed and read in place.
+ */
+public enum TrackFormat {
+    GPX,
+    TCX,
+    FIT;
+
+    private static final String TCX_ROOT_ELEMENT = "TrainingCenterDatabase";
+    private static final XMLInputFactory XML_INPUT_FACTORY = GpxStreamReader.createInputFactory();
+
+    public static TrackFormat detect(byte[] content) {
+        return detect(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * The format of the remaining bytes of {@code content}: FIT by its binary header, TCX by its root element,
+     * otherwise GPX. The buffer's position is left unchanged.
+     */
+    public static TrackFormat detect(ByteBuffer content) {
+        if (FitReader.isFit(content)) {
+            return FIT;
+        }
+        return TCX_ROOT_ELEMENT.equals(rootElement(content)) ? TCX : GPX;
+    }
+
+    /**
+     * The local name of the first element of {@code content}, past the XML declaration, comments and any doctype, or
+     * {@code null} when there is none. Parsing stops there, so only the head of a large upload is read, and the name
+     * is never matched in a description or comment further on.
+     */
+    private static String rootElement(ByteBuffer content) {
+        try {
+            XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(new ByteBufferInputStream(content));
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                        return xml.getLocalName();
+                    }
+                }
+                return null;
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            // Not well-formed XML; left to the GPX reader, which reports it
+            return null;
+        }
+    }
+
+    public TrackBuffer readTrack(byte[] content, DistanceMode distanceMode) {
+        return readTrack(ByteBuffer.wrap(content), distanceMode);
+    }
+
+    /** Reads the remaining bytes of {@code content}, leaving its position unchanged. */
+    public TrackBuffer readTrack(ByteBuffer content, DistanceMode distanceMode) {
+        return readTrack(content, distanceMode, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the remaining bytes of {@code content}, leaving its position unchanged, and fails as soon as the track
+     * would pass {@code maxPoints}. The heap a track needs grows with its points, so this bounds it however large or
+     * densely written the file is.
+     */
+    public TrackBuffer readTrack(ByteBuffer content, DistanceMode distanceMode, int maxPoints) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        TrackPointHandler handler = (latitude, longitude, elevation, epochMillis, power, heartRate, cadence) -> {
+            if (builder.size() == maxPoints) {
+                throw new GpxParsingException("Track has more than " + maxPoints + " points");
+            }
+            builder.add(latitude, longitude, elevation, epochMillis, power, heartRate, cadence);
+        };
+        switch (this) {
+            case GPX -> GpxStreamReader.read(new ByteBufferInputStream(content), handler);
+            case TCX -> TcxStreamReader.read(new ByteBufferInputStream(content), handler);
+            case FIT -> FitReader.read(content, handler);
+        }
+        return builder.build(distanceMode);
+    }
+}
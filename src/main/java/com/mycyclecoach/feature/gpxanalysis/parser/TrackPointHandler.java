@@ -0,0 +1,29 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+
+/**
+ * Receives track points from a streaming reader as primitives, so callers can build whatever representation they need
+ * without an intermediate object per point.
+ */
+@FunctionalInterface
+public interface TrackPointHandler {
+
+    /**
+     * @param latitude latitude in decimal degrees
+     * @param longitude longitude in decimal degrees
+     * @param elevation elevation in meters, or {@link Double#NaN} when the point has none
+     * @param epochMillis timestamp in epoch milliseconds, or {@link TrackBuffer#NO_TIME} when the point has none
+     * @param power power in watts, or {@link TrackBuffer#NO_SAMPLE}
+     * @param heartRate heart rate in beats per minute, or {@link TrackBuffer#NO_SAMPLE}
+     * @param cadence cadence in revolutions per minute, or {@link TrackBuffer#NO_SAMPLE}
+     */
+    void onTrackPoint(
+            double latitude,
+            double longitude,
+            double elevation,
+            long epochMillis,
+            int power,
+            int heartRate,
+            int cadence);
+}
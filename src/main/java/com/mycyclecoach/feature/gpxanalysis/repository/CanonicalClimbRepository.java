@@ -0,0 +1,48 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimb;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbResponse;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CanonicalClimbRepository extends JpaRepository<CanonicalClimb, Long> {
+
+    // Served from the (user_id, start_cell) index; a ride's climbs probe only the few cells they could start in
+    List<CanonicalClimb> findByUserIdAndStartCellIn(Long userId, Collection<Long> startCells);
+
+    Optional<CanonicalClimb> findByIdAndUserId(Long id, Long userId);
+
+    // The user's advisory lock, held until commit, so their uploads analysed in parallel match and record one at a time
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(:userId)", nativeQuery = true)
+    long lockUserClimbs(@Param("userId") Long userId);
+
+    // Counts and bests come from the maintained records; climbs whose every effort was deleted have none
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbResponse(
+                c.id, c.startLatitude, c.startLongitude, c.endLatitude, c.endLongitude,
+                c.distanceMeters, c.elevationGainMeters, c.averageGradient,
+                r.effortCount, r.bestDurationSeconds, r.bestAveragePowerWatts)
+            FROM CanonicalClimb c JOIN ClimbPersonalRecord r ON r.canonicalClimbId = c.id
+            WHERE c.userId = :userId
+            ORDER BY r.effortCount DESC, c.id ASC
+            """)
+    List<CanonicalClimbResponse> findSummariesByUserId(@Param("userId") Long userId);
+
+    // Climbs with efforts but no record, such as those recorded before records were kept
+    @Query(
+            """
+            SELECT c FROM CanonicalClimb c
+            WHERE NOT EXISTS (SELECT 1 FROM ClimbPersonalRecord r WHERE r.canonicalClimbId = c.id)
+                AND EXISTS (SELECT 1 FROM ClimbEffort e WHERE e.canonicalClimb = c)
+            ORDER BY c.id ASC
+            """)
+    List<CanonicalClimb> findWithoutRecord(Limit limit);
+}
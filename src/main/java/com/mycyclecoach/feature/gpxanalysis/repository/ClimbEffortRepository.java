@@ -0,0 +1,60 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffort;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClimbEffortRepository extends JpaRepository<ClimbEffort, Long> {
+
+    // Served from the canonical_climb_id index, so history never scans the climbs table
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse(
+                e.id, g.id, g.filename, c.id, e.startedAt, e.durationSeconds, e.averagePowerWatts,
+                c.distanceMeters, c.elevationGainMeters, c.averageGradient)
+            FROM ClimbEffort e JOIN e.gpxFile g JOIN e.climb c
+            WHERE e.canonicalClimb.id = :canonicalClimbId
+            ORDER BY e.startedAt DESC NULLS LAST, e.id DESC
+            """)
+    List<ClimbEffortResponse> findByCanonicalClimbId(@Param("canonicalClimbId") Long canonicalClimbId);
+
+    // Top-N reads walk the partial (canonical_climb_id, duration_seconds, id) index and stop after the limit
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse(
+                e.id, g.id, g.filename, c.id, e.startedAt, e.durationSeconds, e.averagePowerWatts,
+                c.distanceMeters, c.elevationGainMeters, c.averageGradient)
+            FROM ClimbEffort e JOIN e.gpxFile g JOIN e.climb c
+            WHERE e.canonicalClimb.id = :canonicalClimbId AND e.durationSeconds IS NOT NULL
+            ORDER BY e.durationSeconds ASC, e.id ASC
+            """)
+    List<ClimbEffortResponse> findFastest(@Param("canonicalClimbId") Long canonicalClimbId, Limit limit);
+
+    // As above on the partial (canonical_climb_id, average_power_watts DESC, id) index
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse(
+                e.id, g.id, g.filename, c.id, e.startedAt, e.durationSeconds, e.averagePowerWatts,
+                c.distanceMeters, c.elevationGainMeters, c.averageGradient)
+            FROM ClimbEffort e JOIN e.gpxFile g JOIN e.climb c
+            WHERE e.canonicalClimb.id = :canonicalClimbId AND e.averagePowerWatts IS NOT NULL
+            ORDER BY e.averagePowerWatts DESC, e.id ASC
+            """)
+    List<ClimbEffortResponse> findMostPowerful(@Param("canonicalClimbId") Long canonicalClimbId, Limit limit);
+
+    long countByCanonicalClimbId(Long canonicalClimbId);
+
+    @Query("SELECT DISTINCT e.canonicalClimb.id FROM ClimbEffort e WHERE e.gpxFile.id = :gpxFileId")
+    List<Long> findCanonicalClimbIdsByGpxFileId(@Param("gpxFileId") Long gpxFileId);
+
+    @Modifying
+    @Query("DELETE FROM ClimbEffort e WHERE e.gpxFile.id = :gpxFileId")
+    int deleteByGpxFileId(@Param("gpxFileId") Long gpxFileId);
+}
@@ -0,0 +1,8 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbPersonalRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClimbPersonalRecordRepository extends JpaRepository<ClimbPersonalRecord, Long> {}
@@ -8,5 +8,5 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ClimbRepository extends JpaRepository<Climb, Long> {
 
-    List<Climb> findByGpxFileId(Long gpxFileId);
+    List<Climb> findByTrackId(Long trackId);
 }
@@ -0,0 +1,29 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJob;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobStatus;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GpxAnalysisJobRepository extends JpaRepository<GpxAnalysisJob, Long> {
+
+    // Status polling reads everything except the raw payload
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobResponse(
+                j.id, j.filename, j.status, j.gpxFileId, j.errorMessage, j.createdAt, j.completedAt)
+            FROM GpxAnalysisJob j
+            WHERE j.id = :id
+            """)
+    Optional<GpxAnalysisJobResponse> findResponseById(@Param("id") Long id);
+
+    @Query("SELECT j.id FROM GpxAnalysisJob j WHERE j.status IN :statuses ORDER BY j.id ASC")
+    List<Long> findIdsByStatusIn(@Param("statuses") Collection<GpxAnalysisJobStatus> statuses);
+}
@@ -1,15 +1,117 @@
 package com.mycyclecoach.feature.gpxanalysis.repository;
 
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFileBounds;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.RidePowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.TimeInZonesTotal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface GpxFileRepository extends JpaRepository<GpxFile, Long> {
 
-    List<GpxFile> findByUserId(Long userId);
+    // Constructor projections select only listing columns and never touch gpx_tracks
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
+                g.id, g.filename, g.userId, g.createdAt, g.updatedAt, g.previewPolyline)
+            FROM GpxFile g
+            WHERE g.userId = :userId
+            ORDER BY g.createdAt DESC, g.id DESC
+            """)
+    List<GpxFileResponse> findSummariesByUserId(@Param("userId") Long userId, Limit limit);
+
+    // Row-value comparison lets the (user_id, created_at, id) index seek straight to the cursor
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
+                g.id, g.filename, g.userId, g.createdAt, g.updatedAt, g.previewPolyline)
+            FROM GpxFile g
+            WHERE g.userId = :userId AND (g.createdAt, g.id) < (:createdAt, :id)
+            ORDER BY g.createdAt DESC, g.id DESC
+            """)
+    List<GpxFileResponse> findSummariesByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    // Everything a user's bounds tree needs in one query; tracks not yet spatially indexed are left out
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileBounds(
+                g.id, g.filename, g.userId, g.createdAt, g.updatedAt,
+                t.id, t.minLatitude, t.minLongitude, t.maxLatitude, t.maxLongitude)
+            FROM GpxFile g JOIN g.track t
+            WHERE g.userId = :userId AND t.minLatitude IS NOT NULL
+            """)
+    List<GpxFileBounds> findBoundsByUserId(@Param("userId") Long userId);
+
+    // Newest first, so older rides only raise a rider's recent curve where no newer ride already beat them
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.RidePowerCurve(t.startedAt, t.powerCurve)
+            FROM GpxFile g JOIN g.track t
+            WHERE g.userId = :userId AND t.powerCurve IS NOT NULL
+            ORDER BY t.startedAt DESC NULLS LAST
+            """)
+    List<RidePowerCurve> findPowerCurvesByUserId(@Param("userId") Long userId);
+
+    // Empty when the file's track was stored before power curves and is still waiting for the backfill
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.gpxanalysis.domain.RidePowerCurve(t.startedAt, t.powerCurve)
+            FROM GpxFile g JOIN g.track t
+            WHERE g.id = :id AND t.powerCurve IS NOT NULL
+            """)
+    Optional<RidePowerCurve> findPowerCurveById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT g.userId FROM GpxFile g WHERE g.track.id IN :trackIds")
+    List<Long> findUserIdsByTrackIdIn(@Param("trackIds") Collection<Long> trackIds);
 
     Optional<GpxFile> findByFilename(String filename);
+
+    Optional<GpxFile> findFirstBySourceHash(byte[] sourceHash);
+
+    Optional<GpxFile> findFirstByUserIdAndTrackId(Long userId, Long trackId);
+
+    // Files from before route metrics, previews, training load or time in zones were computed at ingest
+    @Query(
+            """
+            SELECT g FROM GpxFile g
+            WHERE g.metricsComputedAt IS NULL OR g.previewPolyline IS NULL
+                OR g.loadComputedAt IS NULL OR g.zonesComputedAt IS NULL
+            ORDER BY g.id
+            """)
+    List<GpxFile> findPendingBackfill(Pageable pageable);
+
+    // Sums each array element-wise over the rider's rides started in [from, to). Arrays line up from their first bin
+    // whatever their length, and a missing array adds nothing. The histogram numbers are those of TimeInZonesTotal.
+    @Query(
+            value =
+                    """
+                    SELECT h.histogram AS histogram, CAST(b.ordinality AS INTEGER) - 1 AS bin, SUM(b.seconds) AS seconds
+                    FROM gpx_files f
+                    JOIN gpx_tracks t ON t.id = f.track_id
+                    CROSS JOIN LATERAL (VALUES
+                        (0, f.power_zone_seconds),
+                        (1, f.heart_rate_zone_seconds),
+                        (2, f.power_histogram),
+                        (3, f.heart_rate_histogram)) AS h(histogram, bins)
+                    CROSS JOIN LATERAL unnest(h.bins) WITH ORDINALITY AS b(seconds, ordinality)
+                    WHERE f.user_id = :userId AND t.started_at >= :from AND t.started_at < :to
+                    GROUP BY h.histogram, b.ordinality
+                    """,
+            nativeQuery = true)
+    List<TimeInZonesTotal> sumTimeInZonesByUserId(
+            @Param("userId") Long userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,22 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxTrackCell;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GpxTrackCellRepository extends JpaRepository<GpxTrackCell, Long> {
+
+    // Served from the (track_id, cell) index; only candidates from the bounds tree are ever checked
+    @Query(
+            """
+            SELECT DISTINCT c.track.id FROM GpxTrackCell c
+            WHERE c.track.id IN :trackIds AND c.cell IN :cells
+            """)
+    List<Long> findTrackIdsPassingThrough(
+            @Param("trackIds") Collection<Long> trackIds, @Param("cells") Collection<Long> cells);
+}
@@ -0,0 +1,55 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxTrack;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GpxTrackRepository extends JpaRepository<GpxTrack, Long> {
+
+    List<GpxTrack> findByTrackDataIsNullOrderByIdAsc(Pageable pageable);
+
+    // Converted tracks stored before area search existed
+    List<GpxTrack> findBySpatialIndexedAtIsNullAndTrackDataIsNotNullOrderByIdAsc(Pageable pageable);
+
+    // Tracks stored before power curves were computed at ingest
+    List<GpxTrack> findByPowerCurveIsNullAndTrackDataIsNotNullOrderByIdAsc(Pageable pageable);
+
+    // Selects only the id so a deduplication hit never loads the payload
+    @Query("SELECT t.id FROM GpxTrack t WHERE t.contentHash = :contentHash")
+    Optional<Long> findIdByContentHash(@Param("contentHash") byte[] contentHash);
+
+    // Selects only the geometry so map requests never load the full track
+    @Query("SELECT t.geometryData FROM GpxTrack t WHERE t.id = :id")
+    Optional<byte[]> findGeometryDataById(@Param("id") Long id);
+
+    boolean existsByContentHash(byte[] contentHash);
+
+    // Claims a hash for a new track, returning nothing when another file already holds it. A concurrent claim of the
+    // same hash waits for the first to commit or roll back, so two identical uploads never both insert the track
+    @Query(
+            value = "INSERT INTO gpx_tracks (content_hash, reference_count) VALUES (:contentHash, 1)"
+                    + " ON CONFLICT (content_hash) DO NOTHING RETURNING id",
+            nativeQuery = true)
+    Optional<Long> insertIfAbsent(@Param("contentHash") byte[] contentHash);
+
+    // Reference counts are adjusted in the database so concurrent uploads and deletes never lose an update
+    @Modifying
+    @Query("UPDATE GpxTrack t SET t.referenceCount = t.referenceCount + 1 WHERE t.id = :id")
+    int incrementReferenceCount(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GpxTrack t SET t.referenceCount = t.referenceCount - 1 WHERE t.id = :id")
+    int decrementReferenceCount(@Param("id") Long id);
+
+    // Climbs go with the track through the ON DELETE CASCADE on climbs.track_id
+    @Modifying
+    @Query("DELETE FROM GpxTrack t WHERE t.id = :id AND t.referenceCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
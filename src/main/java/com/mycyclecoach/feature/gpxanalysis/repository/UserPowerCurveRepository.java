@@ -0,0 +1,15 @@
+package com.mycyclecoach.feature.gpxanalysis.repository;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurve;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserPowerCurveRepository extends JpaRepository<UserPowerCurve, Long> {
+
+    // The same per-user advisory lock climb history takes, so uploads analysed in parallel merge one at a time
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(:userId)", nativeQuery = true)
+    long lockUserPowerCurve(@Param("userId") Long userId);
+}
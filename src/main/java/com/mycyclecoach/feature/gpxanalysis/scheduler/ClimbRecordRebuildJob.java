@@ -0,0 +1,39 @@
+package com.mycyclecoach.feature.gpxanalysis.scheduler;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.service.ClimbHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "mycyclecoach.gpx.records.rebuild", name = "enabled", havingValue = "true")
+public class ClimbRecordRebuildJob {
+
+    private final ClimbHistoryService climbHistoryService;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Scheduled(cron = "${mycyclecoach.gpx.records.rebuild.cron}")
+    public void rebuildPendingRecords() {
+        int batchSize = gpxAnalysisConfig.getRecords().getRebuild().getBatchSize();
+        try {
+            int total = 0;
+            int processed;
+            // Each batch runs in its own transaction, holding its users' locks only briefly
+            do {
+                processed = climbHistoryService.rebuildPendingRecords(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+
+            if (total > 0) {
+                log.info("Completed personal records rebuild for {} climbs", total);
+            }
+        } catch (Exception e) {
+            log.error("Error during personal records rebuild", e);
+        }
+    }
+}
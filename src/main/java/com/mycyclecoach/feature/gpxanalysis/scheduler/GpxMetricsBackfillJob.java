@@ -0,0 +1,39 @@
+package com.mycyclecoach.feature.gpxanalysis.scheduler;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "mycyclecoach.gpx.backfill", name = "enabled", havingValue = "true")
+public class GpxMetricsBackfillJob {
+
+    private final GpxAnalysisService gpxAnalysisService;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Scheduled(cron = "${mycyclecoach.gpx.backfill.cron}")
+    public void backfillRouteMetrics() {
+        int batchSize = gpxAnalysisConfig.getBackfill().getBatchSize();
+        try {
+            int total = 0;
+            int processed;
+            // Each batch runs in its own transaction so a long backfill never holds one open
+            do {
+                processed = gpxAnalysisService.backfillRouteMetrics(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+
+            if (total > 0) {
+                log.info("Completed GPX route metrics backfill for {} files", total);
+            }
+        } catch (Exception e) {
+            log.error("Error during GPX route metrics backfill", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mycyclecoach.feature.gpxanalysis.scheduler;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "mycyclecoach.gpx.storage.conversion", name = "enabled", havingValue = "true")
+public class GpxTrackConversionJob {
+
+    private final GpxAnalysisService gpxAnalysisService;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Scheduled(cron = "${mycyclecoach.gpx.storage.conversion.cron}")
+    public void convertStoredTracks() {
+        int batchSize = gpxAnalysisConfig.getStorage().getConversion().getBatchSize();
+        try {
+            int total = 0;
+            int processed;
+            do {
+                processed = gpxAnalysisService.convertStoredTracks(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+
+            if (total > 0) {
+                log.info("Completed GPX track storage conversion for {} files", total);
+            }
+        } catch (Exception e) {
+            log.error("Error during GPX track storage conversion", e);
+        }
+
+        // Conversion indexes the tracks it converts; this catches up tracks converted before area search existed
+        try {
+            int total = 0;
+            int processed;
+            do {
+                processed = gpxAnalysisService.indexStoredTracks(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+
+            if (total > 0) {
+                log.info("Completed spatial indexing for {} GPX tracks", total);
+            }
+        } catch (Exception e) {
+            log.error("Error during GPX track spatial indexing", e);
+        }
+    }
+}
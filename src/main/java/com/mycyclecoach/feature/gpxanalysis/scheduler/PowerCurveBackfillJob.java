@@ -0,0 +1,38 @@
+package com.mycyclecoach.feature.gpxanalysis.scheduler;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "mycyclecoach.gpx.power.backfill", name = "enabled", havingValue = "true")
+public class PowerCurveBackfillJob {
+
+    private final GpxAnalysisService gpxAnalysisService;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Scheduled(cron = "${mycyclecoach.gpx.power.backfill.cron}")
+    public void computeStoredPowerCurves() {
+        int batchSize = gpxAnalysisConfig.getPower().getBackfill().getBatchSize();
+        try {
+            int total = 0;
+            int processed;
+            do {
+                processed = gpxAnalysisService.computeStoredPowerCurves(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+
+            if (total > 0) {
+                log.info("Completed power curve backfill for {} GPX tracks", total);
+            }
+        } catch (Exception e) {
+            log.error("Error during power curve backfill", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.Climb;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbRecordsResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.util.List;
+
+public interface ClimbHistoryService {
+
+    /**
+     * Matches each of {@code climbs}, detected on {@code track}, against the file owner's canonical climbs and records
+     * an effort on the match, creating a canonical climb for any hill not ridden before.
+     */
+    void recordEfforts(GpxFile gpxFile, TrackBuffer track, List<Climb> climbs);
+
+    /** Deletes the efforts ridden on {@code gpxFile} and rebuilds the personal records of the climbs they were on. */
+    void deleteEfforts(GpxFile gpxFile);
+
+    List<CanonicalClimbResponse> getUserClimbs(Long userId);
+
+    List<ClimbEffortResponse> getClimbEfforts(Long canonicalClimbId, Long userId);
+
+    ClimbRecordsResponse getClimbRecords(Long canonicalClimbId, Long userId, int limit);
+
+    /** Builds personal records for up to {@code batchSize} climbs that have efforts but no record. */
+    int rebuildPendingRecords(int batchSize);
+}
@@ -0,0 +1,290 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimb;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbNotFoundException;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.Climb;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffort;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbFingerprint;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbPersonalRecord;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbRecordsResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import com.mycyclecoach.feature.gpxanalysis.repository.CanonicalClimbRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.ClimbEffortRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.ClimbPersonalRecordRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClimbHistoryServiceImpl implements ClimbHistoryService {
+
+    private final CanonicalClimbRepository canonicalClimbRepository;
+    private final ClimbEffortRepository climbEffortRepository;
+    private final ClimbPersonalRecordRepository climbPersonalRecordRepository;
+
+    private static final int MAX_TOP_EFFORTS = 50;
+
+    @Override
+    @Transactional
+    public void recordEfforts(GpxFile gpxFile, TrackBuffer track, List<Climb> climbs) {
+        if (climbs.isEmpty()) {
+            return;
+        }
+
+        canonicalClimbRepository.lockUserClimbs(gpxFile.getUserId());
+        List<ClimbFingerprint> fingerprints =
+                climbs.stream().map(climb -> ClimbFingerprint.of(track, climb)).toList();
+        Map<Long, List<CanonicalClimb>> byStartCell = canonicalClimbsByStartCell(gpxFile.getUserId(), fingerprints);
+
+        List<CanonicalClimb> created = new ArrayList<>();
+        List<ClimbEffort> efforts = new ArrayList<>(climbs.size());
+        for (int i = 0; i < climbs.size(); i++) {
+            Climb climb = climbs.get(i);
+            ClimbFingerprint fingerprint = fingerprints.get(i);
+            CanonicalClimb canonicalClimb = findMatch(fingerprint, byStartCell);
+            if (canonicalClimb == null) {
+                canonicalClimb = toCanonicalClimb(gpxFile.getUserId(), fingerprint, climb);
+                // Indexed straight away so a second lap of the same hill in this ride matches it
+                byStartCell
+                        .computeIfAbsent(canonicalClimb.getStartCell(), cell -> new ArrayList<>())
+                        .add(canonicalClimb);
+                created.add(canonicalClimb);
+            }
+            efforts.add(toEffort(canonicalClimb, gpxFile, climb, track));
+        }
+
+        // Persisting takes ids from the pooled sequences, so the records below can refer to new efforts
+        canonicalClimbRepository.saveAll(created);
+        climbEffortRepository.saveAll(efforts);
+        addToRecords(efforts);
+        log.info(
+                "Recorded {} climb efforts for gpxFileId={}, {} on newly seen climbs",
+                efforts.size(),
+                gpxFile.getId(),
+                created.size());
+    }
+
+    @Override
+    @Transactional
+    public void deleteEfforts(GpxFile gpxFile) {
+        List<Long> canonicalClimbIds = climbEffortRepository.findCanonicalClimbIdsByGpxFileId(gpxFile.getId());
+        if (canonicalClimbIds.isEmpty()) {
+            return;
+        }
+
+        canonicalClimbRepository.lockUserClimbs(gpxFile.getUserId());
+        int deleted = climbEffortRepository.deleteByGpxFileId(gpxFile.getId());
+        rebuildRecords(canonicalClimbIds);
+        log.info("Deleted {} climb efforts for gpxFileId={}", deleted, gpxFile.getId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CanonicalClimbResponse> getUserClimbs(Long userId) {
+        log.info("Fetching climbs for userId={}", userId);
+
+        return canonicalClimbRepository.findSummariesByUserId(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClimbEffortResponse> getClimbEfforts(Long canonicalClimbId, Long userId) {
+        log.info("Fetching efforts for canonicalClimbId={} userId={}", canonicalClimbId, userId);
+
+        CanonicalClimb canonicalClimb = canonicalClimbRepository
+                .findByIdAndUserId(canonicalClimbId, userId)
+                .orElseThrow(() -> new CanonicalClimbNotFoundException(canonicalClimbId));
+
+        return climbEffortRepository.findByCanonicalClimbId(canonicalClimb.getId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClimbRecordsResponse getClimbRecords(Long canonicalClimbId, Long userId, int limit) {
+        log.info("Fetching records for canonicalClimbId={} userId={} limit={}", canonicalClimbId, userId, limit);
+
+        CanonicalClimb canonicalClimb = canonicalClimbRepository
+                .findByIdAndUserId(canonicalClimbId, userId)
+                .orElseThrow(() -> new CanonicalClimbNotFoundException(canonicalClimbId));
+        Long id = canonicalClimb.getId();
+        Limit topEfforts = Limit.of(Math.clamp(limit, 1, MAX_TOP_EFFORTS));
+
+        long effortCount = climbPersonalRecordRepository
+                .findById(id)
+                .map(ClimbPersonalRecord::getEffortCount)
+                // Climbs waiting for the rebuild job are counted directly
+                .orElseGet(() -> climbEffortRepository.countByCanonicalClimbId(id));
+
+        return new ClimbRecordsResponse(
+                id,
+                effortCount,
+                climbEffortRepository.findFastest(id, topEfforts),
+                climbEffortRepository.findMostPowerful(id, topEfforts));
+    }
+
+    @Override
+    @Transactional
+    public int rebuildPendingRecords(int batchSize) {
+        List<CanonicalClimb> pending = canonicalClimbRepository.findWithoutRecord(Limit.of(batchSize));
+
+        // Locks are taken in user order so two rebuilds never wait on each other
+        pending.stream()
+                .map(CanonicalClimb::getUserId)
+                .distinct()
+                .sorted()
+                .forEach(canonicalClimbRepository::lockUserClimbs);
+        rebuildRecords(pending.stream().map(CanonicalClimb::getId).toList());
+
+        log.info("Rebuilt personal records for {} climbs", pending.size());
+        return pending.size();
+    }
+
+    /** Counts {@code efforts} into their climbs' records, creating those that do not exist yet. */
+    private void addToRecords(List<ClimbEffort> efforts) {
+        Set<Long> canonicalClimbIds = new HashSet<>();
+        for (ClimbEffort effort : efforts) {
+            canonicalClimbIds.add(effort.getCanonicalClimb().getId());
+        }
+
+        Map<Long, ClimbPersonalRecord> records = new HashMap<>();
+        for (ClimbPersonalRecord record : climbPersonalRecordRepository.findAllById(canonicalClimbIds)) {
+            records.put(record.getCanonicalClimbId(), record);
+        }
+        for (ClimbEffort effort : efforts) {
+            records.computeIfAbsent(effort.getCanonicalClimb().getId(), ClimbHistoryServiceImpl::emptyRecord)
+                    .add(effort);
+        }
+        climbPersonalRecordRepository.saveAll(records.values());
+    }
+
+    /** Recomputes the records of {@code canonicalClimbIds} from their remaining efforts, best first off the indexes. */
+    private void rebuildRecords(Collection<Long> canonicalClimbIds) {
+        Map<Long, ClimbPersonalRecord> records = new HashMap<>();
+        for (ClimbPersonalRecord record : climbPersonalRecordRepository.findAllById(canonicalClimbIds)) {
+            records.put(record.getCanonicalClimbId(), record);
+        }
+
+        for (Long id : canonicalClimbIds) {
+            ClimbPersonalRecord record = records.get(id);
+            long effortCount = climbEffortRepository.countByCanonicalClimbId(id);
+            if (effortCount == 0) {
+                if (record != null) {
+                    climbPersonalRecordRepository.delete(record);
+                }
+                continue;
+            }
+
+            if (record == null) {
+                record = emptyRecord(id);
+            }
+            record.setEffortCount(effortCount);
+            ClimbEffortResponse fastest = first(climbEffortRepository.findFastest(id, Limit.of(1)));
+            record.setFastestEffortId(fastest == null ? null : fastest.id());
+            record.setBestDurationSeconds(fastest == null ? null : fastest.durationSeconds());
+            ClimbEffortResponse strongest = first(climbEffortRepository.findMostPowerful(id, Limit.of(1)));
+            record.setStrongestEffortId(strongest == null ? null : strongest.id());
+            record.setBestAveragePowerWatts(strongest == null ? null : strongest.averagePowerWatts());
+            climbPersonalRecordRepository.save(record);
+        }
+    }
+
+    private static ClimbPersonalRecord emptyRecord(Long canonicalClimbId) {
+        return ClimbPersonalRecord.builder().canonicalClimbId(canonicalClimbId).effortCount(0L).build();
+    }
+
+    private static ClimbEffortResponse first(List<ClimbEffortResponse> efforts) {
+        return efforts.isEmpty() ? null : efforts.getFirst();
+    }
+
+    /** The user's canonical climbs starting in any cell one of {@code fingerprints} could match in, in one query. */
+    private Map<Long, List<CanonicalClimb>> canonicalClimbsByStartCell(
+            Long userId, List<ClimbFingerprint> fingerprints) {
+        Set<Long> startCells = new HashSet<>();
+        for (ClimbFingerprint fingerprint : fingerprints) {
+            for (long cell : fingerprint.startCells()) {
+                startCells.add(cell);
+            }
+        }
+
+        Map<Long, List<CanonicalClimb>> byStartCell = new HashMap<>();
+        for (CanonicalClimb canonicalClimb : canonicalClimbRepository.findByUserIdAndStartCellIn(userId, startCells)) {
+            byStartCell.computeIfAbsent(canonicalClimb.getStartCell(), cell -> new ArrayList<>()).add(canonicalClimb);
+        }
+        return byStartCell;
+    }
+
+    private static CanonicalClimb findMatch(ClimbFingerprint fingerprint, Map<Long, List<CanonicalClimb>> byStartCell) {
+        for (long cell : fingerprint.startCells()) {
+            for (CanonicalClimb candidate : byStartCell.getOrDefault(cell, List.of())) {
+                if (candidate.fingerprint().matches(fingerprint)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static CanonicalClimb toCanonicalClimb(Long userId, ClimbFingerprint fingerprint, Climb climb) {
+        return CanonicalClimb.builder()
+                .userId(userId)
+                .startCell(fingerprint.startCell())
+                .startLatitude(fingerprint.startLatitude())
+                .startLongitude(fingerprint.startLongitude())
+                .endLatitude(fingerprint.endLatitude())
+                .endLongitude(fingerprint.endLongitude())
+                .distanceMeters(fingerprint.distanceMeters())
+                .elevationGainMeters(fingerprint.elevationGainMeters())
+                .averageGradient(climb.getAverageGradient())
+                .build();
+    }
+
+    private static ClimbEffort toEffort(
+            CanonicalClimb canonicalClimb, GpxFile gpxFile, Climb climb, TrackBuffer track) {
+        ClimbEffort.ClimbEffortBuilder effort =
+                ClimbEffort.builder().canonicalClimb(canonicalClimb).gpxFile(gpxFile).climb(climb);
+
+        int start = climb.getStartPointIndex();
+        int end = climb.getEndPointIndex();
+        if (track.hasTime(start) && track.hasTime(end)) {
+            long startMillis = track.epochMillis(start);
+            effort.startedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), ZoneOffset.UTC));
+            effort.durationSeconds((track.epochMillis(end) - startMillis) / 1000.0);
+        }
+        return effort.averagePowerWatts(averagePowerWatts(track, start, end)).build();
+    }
+
+    /** Mean of the power samples from {@code start} to {@code end}, or {@code null} when there are none. */
+    private static Double averagePowerWatts(TrackBuffer track, int start, int end) {
+        if (!track.hasPower()) {
+            return null;
+        }
+
+        long total = 0;
+        int samples = 0;
+        for (int i = start; i <= end; i++) {
+            int power = track.power(i);
+            if (power != TrackBuffer.NO_SAMPLE) {
+                total += power;
+                samples++;
+            }
+        }
+        return samples == 0 ? null : (double) total / samples;
+    }
+}
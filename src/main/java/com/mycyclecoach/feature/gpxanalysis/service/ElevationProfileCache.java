@@ -0,0 +1,39 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.ElevationProfile;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Small LRU cache of elevation profiles keyed by track and point count. Tracks are content-addressed and never change
+ * once stored, and a deleted track's id is never reused, so entries need no invalidation and simply age out.
+ */
+@Component
+public class ElevationProfileCache {
+
+    private final Map<ProfileKey, ElevationProfile> profiles;
+
+    public ElevationProfileCache(GpxAnalysisConfig gpxAnalysisConfig) {
+        int cacheSize = gpxAnalysisConfig.getProfile().getCacheSize();
+        this.profiles = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProfileKey, ElevationProfile> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /** The cached profile, or {@code null} when it has not been built or has been evicted. */
+    public ElevationProfile get(Long trackId, int points) {
+        return profiles.get(new ProfileKey(trackId, points));
+    }
+
+    public void put(Long trackId, int points, ElevationProfile profile) {
+        profiles.put(new ProfileKey(trackId, points), profile);
+    }
+
+    private record ProfileKey(Long trackId, int points) {}
+}
@@ -0,0 +1,65 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs GPX analysis jobs on virtual threads. At most {@code concurrency} jobs run at once and up to
+ * {@code queueCapacity} more wait for a worker; a caller must {@link #tryReserve() reserve} a slot before accepting a
+ * job, so a full queue is rejected up front instead of growing without bound.
+ */
+@Component
+@Slf4j
+public class GpxAnalysisJobDispatcher {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("gpx-analysis-", 0).factory());
+    private final Semaphore slots;
+    private final Semaphore workers;
+
+    public GpxAnalysisJobDispatcher(GpxAnalysisConfig gpxAnalysisConfig) {
+        GpxAnalysisConfig.JobsConfig jobs = gpxAnalysisConfig.getJobs();
+        this.slots = new Semaphore(jobs.getConcurrency() + jobs.getQueueCapacity());
+        // Fair, so waiting jobs start in the order they were accepted
+        this.workers = new Semaphore(jobs.getConcurrency(), true);
+    }
+
+    public boolean tryReserve() {
+        return slots.tryAcquire();
+    }
+
+    public void cancelReservation() {
+        slots.release();
+    }
+
+    /** Runs {@code task} once a worker is free and then releases the slot taken by {@link #tryReserve()}. */
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            try {
+                workers.acquire();
+                try {
+                    task.run();
+                } finally {
+                    workers.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in GPX analysis worker", e);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Jobs that have not finished stay QUEUED or RUNNING and are resumed on the next start
+        executor.shutdownNow();
+    }
+}
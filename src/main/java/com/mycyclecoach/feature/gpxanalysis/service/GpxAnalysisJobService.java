@@ -0,0 +1,13 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface GpxAnalysisJobService {
+
+    GpxAnalysisJobResponse submitAnalysis(MultipartFile file, Long userId);
+
+    GpxAnalysisJobResponse getJob(Long jobId);
+
+    int resumePendingJobs();
+}
@@ -0,0 +1,144 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.*;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxAnalysisJobRepository;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GpxAnalysisJobServiceImpl implements GpxAnalysisJobService {
+
+    private final GpxAnalysisJobRepository gpxAnalysisJobRepository;
+    private final GpxAnalysisService gpxAnalysisService;
+    private final GpxAnalysisJobDispatcher gpxAnalysisJobDispatcher;
+    private final GpxAnalysisMapper gpxAnalysisMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Override
+    public GpxAnalysisJobResponse submitAnalysis(MultipartFile file, Long userId) {
+        log.info("Queueing GPX analysis filename={} for userId={}", file.getOriginalFilename(), userId);
+
+        // Reserve before reading the upload or writing anything, so an overloaded queue rejects uploads without
+        // copying them onto the heap or touching the database
+        if (!gpxAnalysisJobDispatcher.tryReserve()) {
+            log.warn("GPX analysis queue is full, rejecting upload for userId={}", userId);
+            throw new GpxAnalysisQueueFullException();
+        }
+
+        // Files above the spill threshold are queued on disk, as synchronous uploads are analyzed, so a large upload
+        // is never copied onto the heap or into the job row
+        boolean spill = file.getSize() > gpxAnalysisConfig.getUpload().getSpillThresholdBytes();
+        Path spooled = null;
+        GpxAnalysisJob job;
+        try {
+            GpxAnalysisJob.GpxAnalysisJobBuilder builder = GpxAnalysisJob.builder()
+                    .userId(userId)
+                    .filename(file.getOriginalFilename())
+                    .status(GpxAnalysisJobStatus.QUEUED);
+            if (spill) {
+                spooled = UploadSpool.spool(file, gpxAnalysisConfig.getUpload());
+                builder.payloadPath(spooled.toString());
+            } else {
+                builder.payload(file.getBytes());
+            }
+            job = gpxAnalysisJobRepository.save(builder.build());
+        } catch (IOException e) {
+            gpxAnalysisJobDispatcher.cancelReservation();
+            UploadSpool.delete(spooled);
+            throw new GpxParsingException("Failed to read GPX file content", e);
+        } catch (RuntimeException e) {
+            gpxAnalysisJobDispatcher.cancelReservation();
+            UploadSpool.delete(spooled);
+            throw e;
+        }
+
+        Long jobId = job.getId();
+        gpxAnalysisJobDispatcher.execute(() -> runJob(jobId));
+        log.info("Queued GPX analysis jobId={}", jobId);
+
+        return gpxAnalysisMapper.toGpxAnalysisJobResponse(job);
+    }
+
+    @Override
+    public GpxAnalysisJobResponse getJob(Long jobId) {
+        return gpxAnalysisJobRepository
+                .findResponseById(jobId)
+                .orElseThrow(() -> new GpxAnalysisJobNotFoundException(jobId));
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public int resumePendingJobs() {
+        List<Long> pending = gpxAnalysisJobRepository.findIdsByStatusIn(
+                List.of(GpxAnalysisJobStatus.QUEUED, GpxAnalysisJobStatus.RUNNING));
+
+        int resumed = 0;
+        for (Long jobId : pending) {
+            if (!gpxAnalysisJobDispatcher.tryReserve()) {
+                log.warn(
+                        "GPX analysis queue is full, {} jobs left queued until the next start",
+                        pending.size() - resumed);
+                break;
+            }
+            gpxAnalysisJobDispatcher.execute(() -> runJob(jobId));
+            resumed++;
+        }
+
+        if (resumed > 0) {
+            log.info("Resumed {} unfinished GPX analysis jobs", resumed);
+        }
+        return resumed;
+    }
+
+    private void runJob(Long jobId) {
+        GpxAnalysisJob job = gpxAnalysisJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            log.warn("GPX analysis jobId={} no longer exists, skipping", jobId);
+            return;
+        }
+
+        job.setStatus(GpxAnalysisJobStatus.RUNNING);
+        job = gpxAnalysisJobRepository.save(job);
+
+        Path spooled = job.getPayloadPath() != null ? Path.of(job.getPayloadPath()) : null;
+        try {
+            GpxAnalysisResponse analysis = spooled != null
+                    ? gpxAnalysisService.analyzeGpxPath(job.getFilename(), spooled, job.getUserId())
+                    : gpxAnalysisService.analyzeGpxBytes(job.getFilename(), job.getPayload(), job.getUserId());
+            job.setStatus(GpxAnalysisJobStatus.COMPLETED);
+            job.setGpxFileId(analysis.gpxFileId());
+            log.info("GPX analysis jobId={} completed with gpxFileId={}", jobId, analysis.gpxFileId());
+        } catch (GpxParsingException e) {
+            log.warn("GPX analysis jobId={} failed: {}", jobId, e.getMessage());
+            job.setStatus(GpxAnalysisJobStatus.FAILED);
+            job.setErrorMessage(e.getMessage());
+        } catch (RuntimeException e) {
+            // Anything else is a server fault whose message may carry SQL or internals, so it stays in the log
+            log.error("GPX analysis jobId={} failed", jobId, e);
+            job.setStatus(GpxAnalysisJobStatus.FAILED);
+            job.setErrorMessage("Failed to analyze file");
+        }
+
+        job.setPayload(null);
+        job.setPayloadPath(null);
+        job.setCompletedAt(LocalDateTime.now());
+        job = gpxAnalysisJobRepository.save(job);
+        UploadSpool.delete(spooled);
+
+        eventPublisher.publishEvent(new GpxAnalysisJobCompletedEvent(
+                job.getId(), job.getUserId(), job.getStatus(), job.getGpxFileId(), job.getErrorMessage()));
+    }
+}
@@ -1,7 +1,16 @@
 package com.mycyclecoach.feature.gpxanalysis.service;
 
+import com.mycyclecoach.feature.gpxanalysis.domain.ElevationProfileResponse;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxExport;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFilePage;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxGeometryResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.SearchArea;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserTimeInZonesResponse;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -9,9 +18,37 @@ public interface GpxAnalysisService {
 
     GpxAnalysisResponse analyzeGpxFile(MultipartFile file, Long userId);
 
+    GpxAnalysisResponse analyzeGpxBytes(String filename, byte[] content, Long userId);
+
+    GpxAnalysisResponse analyzeGpxPath(String filename, Path path, Long userId);
+
+    GpxAnalysisResponse importGpxContent(Long userId, String filename, String content);
+
     GpxAnalysisResponse getGpxAnalysis(Long gpxFileId);
 
     GpxAnalysisResponse analyzeByFilename(String filename);
 
-    List<GpxFileResponse> getUserGpxFiles(Long userId);
+    GpxFilePage getUserGpxFiles(Long userId, String cursor, int limit, boolean includePreview);
+
+    List<GpxFileResponse> searchUserGpxFiles(Long userId, SearchArea area, int limit);
+
+    UserTimeInZonesResponse getUserTimeInZones(Long userId, LocalDate fromDate, LocalDate toDate);
+
+    GpxExport exportGpx(Long gpxFileId);
+
+    GpxGeometryResponse getGeometry(Long gpxFileId, Integer lod);
+
+    ElevationProfileResponse getElevationProfile(Long gpxFileId, Integer points);
+
+    GpxPowerCurveResponse getPowerCurve(Long gpxFileId);
+
+    void deleteGpxFile(Long gpxFileId, Long userId);
+
+    int backfillRouteMetrics(int batchSize);
+
+    int convertStoredTracks(int batchSize);
+
+    int indexStoredTracks(int batchSize);
+
+    int computeStoredPowerCurves(int batchSize);
 }
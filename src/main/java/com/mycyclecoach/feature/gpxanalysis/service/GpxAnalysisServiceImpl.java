@@ -1,17 +1,46 @@
 package com.mycyclecoach.feature.gpxanalysis.service;
 
+import com.mycyclecoach.config.GpxAnalysisConfig;
 import com.mycyclecoach.feature.gpxanalysis.domain.*;
+import com.mycyclecoach.feature.gpxanalysis.parser.GpxStreamReader;
+import com.mycyclecoach.feature.gpxanalysis.parser.GpxWriter;
+import com.mycyclecoach.feature.gpxanalysis.parser.TrackFormat;
 import com.mycyclecoach.feature.gpxanalysis.repository.ClimbRepository;
 import com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository;
-import io.jenetics.jpx.GPX;
-import io.jenetics.jpx.WayPoint;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxTrackCellRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxTrackRepository;
+import com.mycyclecoach.feature.userprofile.domain.UserProfile;
+import com.mycyclecoach.feature.userprofile.repository.UserProfileRepository;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
@@ -20,41 +49,90 @@ import org.springframework.web.multipart.MultipartFile;
 public class GpxAnalysisServiceImpl implements GpxAnalysisService {
 
     private final GpxFileRepository gpxFileRepository;
+    private final GpxTrackRepository gpxTrackRepository;
     private final ClimbRepository climbRepository;
     private final GpxAnalysisMapper gpxAnalysisMapper;
-
-    private static final double MIN_CLIMB_ELEVATION_METERS = 10.0;
-    private static final double MIN_CLIMB_DISTANCE_METERS = 100.0;
-    private static final double CLIMB_GRADIENT_THRESHOLD = 0.02;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+    private final ClimbDetector climbDetector;
+    private final RideTimeEstimator rideTimeEstimator;
+    private final UserProfileRepository userProfileRepository;
+    private final ElevationProfileCache elevationProfileCache;
+    private final GpxTrackCellRepository gpxTrackCellRepository;
+    private final TrackBoundsIndexCache trackBoundsIndexCache;
+    private final ClimbHistoryService climbHistoryService;
+    private final PowerCurveService powerCurveService;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_TRACK_IDS_PER_QUERY = 1000;
+    private static final Comparator<GpxFileBounds> NEWEST_FIRST =
+            Comparator.comparing(GpxFileBounds::createdAt).thenComparing(GpxFileBounds::id).reversed();
 
     @Override
-    @Transactional
+    // Not transactional: the upload is spooled and parsed without holding a connection, and only the source lookup and
+    // the store run in transactions of their own
     public GpxAnalysisResponse analyzeGpxFile(MultipartFile file, Long userId) {
         log.info("Analyzing GPX file filename={} for userId={}", file.getOriginalFilename(), userId);
 
-        String content;
+        if (file.getSize() > gpxAnalysisConfig.getUpload().getSpillThresholdBytes()) {
+            return analyzeSpilled(file, userId);
+        }
+
+        byte[] bytes;
         try {
-            content = new String(file.getBytes());
+            bytes = file.getBytes();
         } catch (IOException e) {
             throw new GpxParsingException("Failed to read GPX file content", e);
         }
 
-        GpxFile gpxFile = GpxFile.builder()
-                .filename(file.getOriginalFilename())
-                .content(content)
-                .userId(userId)
-                .build();
+        return analyzeContent(file.getOriginalFilename(), ByteBuffer.wrap(bytes), userId);
+    }
 
-        gpxFile = gpxFileRepository.save(gpxFile);
-        log.info("Saved GPX file with id={}", gpxFile.getId());
+    @Override
+    // Not transactional, for the same reason as analyzeGpxFile
+    public GpxAnalysisResponse analyzeGpxBytes(String filename, byte[] content, Long userId) {
+        log.info("Analyzing GPX content filename={} for userId={}", filename, userId);
 
-        List<WayPoint> wayPoints = extractWayPoints(content);
-        List<Climb> climbs = detectClimbs(wayPoints, gpxFile);
-        climbs = climbRepository.saveAll(climbs);
+        return analyzeContent(filename, ByteBuffer.wrap(content), userId);
+    }
 
-        log.info("Detected and saved {} climbs for gpxFileId={}", climbs.size(), gpxFile.getId());
+    /**
+     * Analyzes a file on disk through a read-only mapping. The mapped pages live in the page cache rather than the
+     * heap, and hashing, sniffing and parsing all stream over them, so heap use grows with the track's points but not
+     * with the size of the file, and the points are capped at {@code upload.max-track-points}.
+     */
+    @Override
+    // Not transactional, for the same reason as analyzeGpxFile
+    public GpxAnalysisResponse analyzeGpxPath(String filename, Path path, Long userId) {
+        log.info("Analyzing GPX file filename={} from {} for userId={}", filename, path, userId);
 
-        return gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, climbs);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new GpxParsingException("GPX file of " + channel.size() + " bytes is too large to analyze");
+            }
+            MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return analyzeContent(filename, content, userId);
+        } catch (IOException e) {
+            throw new GpxParsingException("Failed to read GPX file content", e);
+        }
+    }
+
+    @Override
+    // Runs apart from any caller's transaction, so a file that fails to import rolls back alone instead of marking the
+    // caller rollback-only. The Strava sync calls it outside a transaction, so each ride holds one connection
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public GpxAnalysisResponse importGpxContent(Long userId, String filename, String content) {
+        log.info("Importing GPX content filename={} for userId={}", filename, userId);
+
+        byte[] sourceHash = sha256(content.getBytes(StandardCharsets.UTF_8));
+        Optional<GpxAnalysisResponse> cached = findBySourceHash(filename, sourceHash, userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        TrackBuffer track = requireTrackPoints(GpxStreamReader.readTrack(new StringReader(content), distanceMode()));
+
+        return saveAnalysis(filename, content, sourceHash, track, userId);
     }
 
     @Override
@@ -65,7 +143,7 @@ public class GpxAnalysisServiceImpl implements GpxAnalysisService {
         GpxFile gpxFile =
                 gpxFileRepository.findById(gpxFileId).orElseThrow(() -> new GpxFileNotFoundException(gpxFileId));
 
-        List<Climb> climbs = climbRepository.findByGpxFileId(gpxFileId);
+        List<Climb> climbs = climbRepository.findByTrackId(gpxFile.getTrack().getId());
 
         return gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, climbs);
     }
@@ -81,151 +159,679 @@ public class GpxAnalysisServiceImpl implements GpxAnalysisService {
                 .findByFilename(filename)
                 .orElseThrow(() -> new GpxFileNotFoundException("GPX file not found with filename: " + filename));
 
-        List<Climb> climbs = climbRepository.findByGpxFileId(gpxFile.getId());
+        List<Climb> climbs = climbRepository.findByTrackId(gpxFile.getTrack().getId());
 
         return gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, climbs);
     }
 
-    private List<WayPoint> extractWayPoints(String gpxContent) {
-        try {
-            java.nio.file.Path tempFile = java.nio.file.Files.createTempFile("gpx", ".gpx");
+    @Override
+    @Transactional
+    public int backfillRouteMetrics(int batchSize) {
+        List<GpxFile> pending = gpxFileRepository.findPendingBackfill(PageRequest.of(0, batchSize));
+
+        for (GpxFile gpxFile : pending) {
+            RouteMetrics metrics;
+            String previewPolyline;
+            TrackBuffer track;
             try {
-                java.nio.file.Files.writeString(tempFile, gpxContent);
-                GPX gpx = GPX.read(tempFile);
+                track = loadTrack(gpxFile);
+                List<Climb> climbs = climbRepository.findByTrackId(gpxFile.getTrack().getId());
+                metrics = calculateRouteMetrics(track, climbs, gpxFile.getUserId());
+                previewPolyline = previewPolyline(track);
+            } catch (GpxParsingException e) {
+                log.warn("Stored GPX for gpxFileId={} could not be parsed, recording empty metrics", gpxFile.getId());
+                metrics = RouteMetrics.EMPTY;
+                // Empty rather than null so the row is not picked up again
+                previewPolyline = "";
+                track = null;
+            }
+            applyRouteMetrics(gpxFile, metrics);
+            gpxFile.setPreviewPolyline(previewPolyline);
+            applyIntensity(gpxFile, track);
+        }
+
+        log.info("Backfilled route metrics, previews, training load and zones for {} GPX files", pending.size());
+        return pending.size();
+    }
 
-                List<WayPoint> wayPoints = new ArrayList<>();
-                gpx.tracks()
-                        .flatMap(track -> track.segments())
-                        .flatMap(segment -> segment.points())
-                        .forEach(wayPoints::add);
+    @Override
+    @Transactional
+    public int convertStoredTracks(int batchSize) {
+        List<GpxTrack> pending = gpxTrackRepository.findByTrackDataIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        boolean retainXml = gpxAnalysisConfig.getStorage().isRetainXml();
 
-                if (wayPoints.isEmpty()) {
-                    throw new GpxParsingException("No waypoints found in GPX file");
+        for (GpxTrack gpxTrack : pending) {
+            try {
+                TrackBuffer track = GpxStreamReader.readTrack(new StringReader(gpxTrack.getContent()), distanceMode());
+                byte[] trackData = TrackCodec.encode(track);
+                gpxTrack.setTrackData(trackData);
+                gpxTrack.setGeometryData(RouteGeometry.of(track, maxGeometryLevel()).encode());
+                indexFootprint(gpxTrack, TrackFootprint.of(track));
+                // Existing duplicates stay separate rows; only the first copy becomes the deduplication target.
+                // The lookup auto-flushes, so hashes assigned earlier in this batch are seen too.
+                byte[] contentHash = sha256(trackData);
+                if (!track.isEmpty() && !gpxTrackRepository.existsByContentHash(contentHash)) {
+                    gpxTrack.setContentHash(contentHash);
+                }
+                if (!retainXml) {
+                    gpxTrack.setContent(null);
                 }
+            } catch (GpxParsingException e) {
+                // Keep the XML so nothing is lost, and store an empty track so the row is not picked up again
+                log.warn("Stored GPX for gpxTrackId={} could not be parsed, keeping original XML", gpxTrack.getId());
+                gpxTrack.setTrackData(TrackCodec.encode(TrackBuffer.builder().build(distanceMode())));
+                indexFootprint(gpxTrack, TrackFootprint.of(TrackBuffer.builder().build(distanceMode())));
+            }
+        }
+        if (!pending.isEmpty()) {
+            trackBoundsIndexCache.clear();
+        }
+
+        log.info("Converted {} GPX files to binary track storage", pending.size());
+        return pending.size();
+    }
+
+    @Override
+    @Transactional
+    public int indexStoredTracks(int batchSize) {
+        List<GpxTrack> pending = gpxTrackRepository.findBySpatialIndexedAtIsNullAndTrackDataIsNotNullOrderByIdAsc(
+                PageRequest.of(0, batchSize));
+
+        for (GpxTrack gpxTrack : pending) {
+            TrackFootprint footprint;
+            try {
+                footprint = TrackFootprint.of(TrackCodec.decode(gpxTrack.getTrackData(), distanceMode()));
+            } catch (GpxParsingException e) {
+                log.warn("Stored track gpxTrackId={} could not be decoded, indexing it as empty", gpxTrack.getId());
+                footprint = TrackFootprint.of(TrackBuffer.builder().build(distanceMode()));
+            }
+            indexFootprint(gpxTrack, footprint);
+        }
+        if (!pending.isEmpty()) {
+            trackBoundsIndexCache.clear();
+        }
+
+        log.info("Spatially indexed {} GPX tracks", pending.size());
+        return pending.size();
+    }
+
+    @Override
+    @Transactional
+    public int computeStoredPowerCurves(int batchSize) {
+        List<GpxTrack> pending = gpxTrackRepository.findByPowerCurveIsNullAndTrackDataIsNotNullOrderByIdAsc(
+                PageRequest.of(0, batchSize));
 
-                return wayPoints;
-            } finally {
-                java.nio.file.Files.deleteIfExists(tempFile);
+        List<Long> withPower = new ArrayList<>();
+        for (GpxTrack gpxTrack : pending) {
+            PowerCurve curve;
+            try {
+                TrackBuffer track = TrackCodec.decode(gpxTrack.getTrackData(), distanceMode());
+                curve = PowerCurve.of(track);
+                gpxTrack.setStartedAt(startedAt(track));
+            } catch (GpxParsingException e) {
+                log.warn("Stored track gpxTrackId={} could not be decoded, storing no power", gpxTrack.getId());
+                curve = PowerCurve.EMPTY;
+            }
+            gpxTrack.setPowerCurve(curve.encode());
+            if (!curve.isEmpty()) {
+                withPower.add(gpxTrack.getId());
             }
+        }
+        if (!withPower.isEmpty()) {
+            // Best power already built for these riders is missing the rides that just gained curves
+            powerCurveService.invalidate(gpxFileRepository.findUserIdsByTrackIdIn(withPower));
+        }
+
+        log.info("Computed power curves for {} GPX tracks", pending.size());
+        return pending.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GpxExport exportGpx(Long gpxFileId) {
+        log.info("Exporting GPX file gpxFileId={}", gpxFileId);
+
+        GpxFile gpxFile =
+                gpxFileRepository.findById(gpxFileId).orElseThrow(() -> new GpxFileNotFoundException(gpxFileId));
+
+        GpxTrack gpxTrack = gpxFile.getTrack();
+        if (gpxTrack.getContent() != null) {
+            return new GpxExport(gpxFile.getFilename(), gpxTrack.getContent());
+        }
+
+        TrackBuffer track = TrackCodec.decode(gpxTrack.getTrackData(), distanceMode());
+        return new GpxExport(gpxFile.getFilename(), GpxWriter.write(track, gpxFile.getFilename()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GpxGeometryResponse getGeometry(Long gpxFileId, Integer lod) {
+        log.info("Retrieving GPX geometry for gpxFileId={} lod={}", gpxFileId, lod);
+
+        GpxFile gpxFile =
+                gpxFileRepository.findById(gpxFileId).orElseThrow(() -> new GpxFileNotFoundException(gpxFileId));
+
+        RouteGeometry geometry = gpxTrackRepository
+                .findGeometryDataById(gpxFile.getTrack().getId())
+                .map(RouteGeometry::decode)
+                // Tracks stored before geometries were kept are simplified on each request instead
+                .orElseGet(() -> RouteGeometry.of(loadTrack(gpxFile), maxGeometryLevel()));
+
+        int level = geometryLevel(lod);
+        double[][] coordinates = geometry.coordinates(level);
+        return new GpxGeometryResponse(gpxFileId, level, coordinates.length, coordinates);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ElevationProfileResponse getElevationProfile(Long gpxFileId, Integer points) {
+        log.info("Retrieving elevation profile for gpxFileId={} points={}", gpxFileId, points);
+
+        GpxFile gpxFile =
+                gpxFileRepository.findById(gpxFileId).orElseThrow(() -> new GpxFileNotFoundException(gpxFileId));
+        Long trackId = gpxFile.getTrack().getId();
+        GpxAnalysisConfig.ProfileConfig config = gpxAnalysisConfig.getProfile();
+        int pointCount = points == null ? config.getDefaultPoints() : Math.clamp(points, 2, config.getMaxPoints());
+
+        ElevationProfile profile = elevationProfileCache.get(trackId, pointCount);
+        if (profile == null) {
+            profile = ElevationProfile.of(loadTrack(gpxFile), climbRepository.findByTrackId(trackId), pointCount);
+            elevationProfileCache.put(trackId, pointCount, profile);
+        }
+
+        return new ElevationProfileResponse(
+                gpxFileId,
+                profile.distanceMeters().length,
+                profile.distanceMeters(),
+                profile.elevationMeters(),
+                profile.climbs());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GpxPowerCurveResponse getPowerCurve(Long gpxFileId) {
+        log.info("Retrieving power curve for gpxFileId={}", gpxFileId);
+
+        GpxFile gpxFile =
+                gpxFileRepository.findById(gpxFileId).orElseThrow(() -> new GpxFileNotFoundException(gpxFileId));
+
+        PowerCurve curve = gpxFileRepository
+                .findPowerCurveById(gpxFileId)
+                .map(RidePowerCurve::curve)
+                // Tracks waiting for the power curve backfill are analysed on each request instead
+                .orElseGet(() -> PowerCurve.of(loadTrack(gpxFile)));
+
+        return new GpxPowerCurveResponse(gpxFileId, curve.points());
+    }
+
+    @Override
+    @Transactional
+    public void deleteGpxFile(Long gpxFileId, Long userId) {
+        log.info("Deleting GPX file gpxFileId={} for userId={}", gpxFileId, userId);
+
+        GpxFile gpxFile = gpxFileRepository
+                .findById(gpxFileId)
+                .filter(file -> file.getUserId().equals(userId))
+                .orElseThrow(() -> new GpxFileNotFoundException(gpxFileId));
+        Long trackId = gpxFile.getTrack().getId();
+
+        climbHistoryService.deleteEfforts(gpxFile);
+        powerCurveService.deleteRide(gpxFile);
+        gpxFileRepository.delete(gpxFile);
+        trackBoundsIndexCache.evict(userId);
+        gpxTrackRepository.decrementReferenceCount(trackId);
+        if (gpxTrackRepository.deleteIfUnreferenced(trackId) > 0) {
+            log.info("Deleted unreferenced GPX track gpxTrackId={}", trackId);
+        }
+    }
+
+    /**
+     * Spools an upload too large to hold on the heap to a temporary file and analyzes it from there, deleting the file
+     * once done.
+     */
+    private GpxAnalysisResponse analyzeSpilled(MultipartFile file, Long userId) {
+        log.info("Spooling GPX file filename={} of {} bytes to disk", file.getOriginalFilename(), file.getSize());
+
+        Path spill;
+        try {
+            spill = UploadSpool.spool(file, gpxAnalysisConfig.getUpload());
         } catch (IOException e) {
-            throw new GpxParsingException("Failed to parse GPX file", e);
+            throw new GpxParsingException("Failed to read GPX file content", e);
+        }
+
+        try {
+            return analyzeGpxPath(file.getOriginalFilename(), spill, userId);
+        } finally {
+            UploadSpool.delete(spill);
+        }
+    }
+
+    /**
+     * Hashes and parses {@code content} outside any transaction, so a pooled connection is only held for the source
+     * lookup and for storing the result, never while a large upload is read.
+     */
+    private GpxAnalysisResponse analyzeContent(String filename, ByteBuffer content, Long userId) {
+        byte[] sourceHash = sha256(content);
+        Optional<GpxAnalysisResponse> cached =
+                transactionTemplate.execute(status -> findBySourceHash(filename, sourceHash, userId));
+        if (cached.isPresent()) {
+            return cached.get();
         }
+
+        TrackFormat format = TrackFormat.detect(content);
+        log.debug("Reading {} as {}", filename, format);
+        TrackBuffer track = requireTrackPoints(
+                format.readTrack(content, distanceMode(), gpxAnalysisConfig.getUpload().getMaxTrackPoints()));
+
+        // Only GPX held on the heap is kept as uploaded, and only decoded when retain-xml is set. TCX and FIT, and
+        // spooled GPX too large to hold as a String, are exported as GPX rebuilt from the track data
+        boolean gpxOnHeap = format == TrackFormat.GPX && content.hasArray();
+        String retained = gpxOnHeap && gpxAnalysisConfig.getStorage().isRetainXml() ? utf8(content) : null;
+        return transactionTemplate.execute(status -> saveAnalysis(filename, retained, sourceHash, track, userId));
     }
 
-    private List<Climb> detectClimbs(List<WayPoint> wayPoints, GpxFile gpxFile) {
-        List<Climb> climbs = new ArrayList<>();
+    private Optional<GpxAnalysisResponse> findBySourceHash(String filename, byte[] sourceHash, Long userId) {
+        return gpxFileRepository.findFirstBySourceHash(sourceHash).map(source -> {
+            Long trackId = source.getTrack().getId();
+            log.info("GPX upload matches gpxFileId={}, reusing gpxTrackId={} without parsing", source.getId(), trackId);
+
+            List<Climb> climbs = climbRepository.findByTrackId(trackId);
+            GpxFile gpxFile = gpxFileRepository
+                    .findFirstByUserIdAndTrackId(userId, trackId)
+                    .orElseGet(() -> {
+                        GpxFile shared = shareTrack(filename, sourceHash, source.getTrack(), userId);
+                        shared.setPreviewPolyline(source.getPreviewPolyline());
+                        // The source's ride time may be estimated from its uploader's weight and FTP, so metrics are
+                        // recomputed for this rider from the stored track, which is decoded rather than re-parsed
+                        TrackBuffer track = loadTrack(shared);
+                        applyRouteMetrics(shared, calculateRouteMetrics(track, climbs, userId));
+                        // Left for the backfill when the source's zones are still to be computed
+                        if (source.getZonesComputedAt() != null) {
+                            applyIntensity(shared, track);
+                        }
+                        trackBoundsIndexCache.evict(userId);
+                        shared = gpxFileRepository.save(shared);
+                        if (!climbs.isEmpty()) {
+                            climbHistoryService.recordEfforts(shared, track, climbs);
+                        }
+                        powerCurveService.recordRide(shared);
+                        return shared;
+                    });
+
+            return gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, climbs);
+        });
+    }
 
-        if (wayPoints.size() < 2) {
-            return climbs;
+    private GpxAnalysisResponse saveAnalysis(
+            String filename, String content, byte[] sourceHash, TrackBuffer track, Long userId) {
+        byte[] trackData = TrackCodec.encode(track);
+        byte[] contentHash = sha256(trackData);
+
+        Optional<Long> existingTrackId = gpxTrackRepository.findIdByContentHash(contentHash);
+        if (existingTrackId.isPresent()) {
+            return reuseTrack(filename, sourceHash, existingTrackId.get(), track, userId);
         }
 
-        int climbStartIndex = -1;
-        double climbStartElevation = 0;
-        double climbDistance = 0;
+        // An identical track analysed concurrently may have been stored since the lookup; the claim then waits for it
+        // to commit and comes back empty, and the upload shares that track instead of failing on the unique hash
+        Optional<Long> claimedTrackId = gpxTrackRepository.insertIfAbsent(contentHash);
+        if (claimedTrackId.isEmpty()) {
+            Long trackId = gpxTrackRepository.findIdByContentHash(contentHash).orElseThrow();
+            return reuseTrack(filename, sourceHash, trackId, track, userId);
+        }
 
-        for (int i = 1; i < wayPoints.size(); i++) {
-            WayPoint previous = wayPoints.get(i - 1);
-            WayPoint current = wayPoints.get(i);
+        RouteGeometry geometry = RouteGeometry.of(track, maxGeometryLevel());
+        TrackFootprint footprint = TrackFootprint.of(track);
+        GpxTrack gpxTrack = gpxTrackRepository.findById(claimedTrackId.get()).orElseThrow();
+        gpxTrack.setContent(gpxAnalysisConfig.getStorage().isRetainXml() ? content : null);
+        gpxTrack.setTrackData(trackData);
+        gpxTrack.setGeometryData(geometry.encode());
+        gpxTrack.setPowerCurve(PowerCurve.of(track).encode());
+        gpxTrack.setStartedAt(startedAt(track));
+        applyBounds(gpxTrack, footprint);
+        GpxFile gpxFile = GpxFile.builder()
+                .filename(filename)
+                .track(gpxTrack)
+                .sourceHash(sourceHash)
+                .userId(userId)
+                .previewPolyline(geometry.polyline(gpxAnalysisConfig.getGeometry().getPreviewPoints()))
+                .build();
 
-            if (previous.getElevation().isEmpty() || current.getElevation().isEmpty()) {
-                continue;
-            }
+        List<Climb> climbs = climbDetector.detect(track);
+        climbs.forEach(climb -> climb.setTrack(gpxTrack));
+        applyRouteMetrics(gpxFile, calculateRouteMetrics(track, climbs, userId));
+        applyIntensity(gpxFile, track);
 
-            double prevElevation = previous.getElevation().get().doubleValue();
-            double currElevation = current.getElevation().get().doubleValue();
-            double elevationDiff = currElevation - prevElevation;
+        gpxFile = gpxFileRepository.save(gpxFile);
+        log.info("Saved GPX file with id={}", gpxFile.getId());
 
-            double segmentDistance = calculateDistance(previous, current);
+        climbs = climbRepository.saveAll(climbs);
+        log.info("Detected and saved {} climbs for gpxFileId={}", climbs.size(), gpxFile.getId());
+        climbHistoryService.recordEfforts(gpxFile, track, climbs);
+        powerCurveService.recordRide(gpxFile);
 
-            double gradient = segmentDistance > 0 ? elevationDiff / segmentDistance : 0;
+        saveCells(gpxTrack, footprint);
+        trackBoundsIndexCache.evict(userId);
 
-            if (gradient >= CLIMB_GRADIENT_THRESHOLD) {
-                if (climbStartIndex == -1) {
-                    climbStartIndex = i - 1;
-                    climbStartElevation = prevElevation;
-                    climbDistance = 0;
-                }
-                climbDistance += segmentDistance;
-            } else {
-                if (climbStartIndex != -1) {
-                    double elevationGain = prevElevation - climbStartElevation;
-                    if (elevationGain >= MIN_CLIMB_ELEVATION_METERS && climbDistance >= MIN_CLIMB_DISTANCE_METERS) {
-                        double avgGradient = climbDistance > 0 ? elevationGain / climbDistance : 0;
-
-                        Climb climb = Climb.builder()
-                                .gpxFile(gpxFile)
-                                .distanceMeters(climbDistance)
-                                .elevationGainMeters(elevationGain)
-                                .averageGradient(avgGradient)
-                                .startPointIndex(climbStartIndex)
-                                .endPointIndex(i - 1)
-                                .build();
-
-                        climbs.add(climb);
-                    }
-
-                    climbStartIndex = -1;
-                    climbDistance = 0;
-                }
+        return gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, climbs);
+    }
+
+    private GpxAnalysisResponse reuseTrack(
+            String filename, byte[] sourceHash, Long trackId, TrackBuffer track, Long userId) {
+        log.info("GPX track content matches gpxTrackId={}, skipping climb detection", trackId);
+
+        List<Climb> climbs = climbRepository.findByTrackId(trackId);
+        Optional<GpxFile> existing = gpxFileRepository.findFirstByUserIdAndTrackId(userId, trackId);
+        if (existing.isPresent()) {
+            return gpxAnalysisMapper.toGpxAnalysisResponse(existing.get(), climbs);
+        }
+
+        GpxFile gpxFile = shareTrack(filename, sourceHash, gpxTrackRepository.getReferenceById(trackId), userId);
+        applyRouteMetrics(gpxFile, calculateRouteMetrics(track, climbs, userId));
+        gpxFile.setPreviewPolyline(previewPolyline(track));
+        applyIntensity(gpxFile, track);
+        gpxFile = gpxFileRepository.save(gpxFile);
+        log.info("Saved GPX file with id={} sharing gpxTrackId={}", gpxFile.getId(), trackId);
+        climbHistoryService.recordEfforts(gpxFile, track, climbs);
+        powerCurveService.recordRide(gpxFile);
+        trackBoundsIndexCache.evict(userId);
+
+        return gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, climbs);
+    }
+
+    private GpxFile shareTrack(String filename, byte[] sourceHash, GpxTrack gpxTrack, Long userId) {
+        gpxTrackRepository.incrementReferenceCount(gpxTrack.getId());
+
+        return GpxFile.builder()
+                .filename(filename)
+                .track(gpxTrack)
+                .sourceHash(sourceHash)
+                .userId(userId)
+                .build();
+    }
+
+    /**
+     * Uses the rider's weight and FTP when their profile has both, falling back to the terrain-speed estimate from
+     * {@link GpxAnalysisMapper} otherwise.
+     */
+    private RouteMetrics calculateRouteMetrics(TrackBuffer track, List<Climb> climbs, Long userId) {
+        Optional<UserProfile> rider = userProfileRepository
+                .findByUserId(userId)
+                .filter(profile -> profile.getWeight() != null && profile.getWeight().signum() > 0)
+                .filter(profile -> profile.getCurrentFtp() != null && profile.getCurrentFtp() > 0);
+        if (rider.isEmpty()) {
+            return gpxAnalysisMapper.calculateRouteMetrics(track, climbs);
+        }
+
+        double rideTimeMinutes = rideTimeEstimator.estimateMinutes(
+                track, rider.get().getWeight().doubleValue(), rider.get().getCurrentFtp());
+        return new RouteMetrics(track.totalDistance() / 1000.0, rideTimeMinutes);
+    }
+
+    private void applyRouteMetrics(GpxFile gpxFile, RouteMetrics metrics) {
+        gpxFile.setTotalDistanceKm(metrics.totalDistanceKm());
+        gpxFile.setEstimatedRideTimeMinutes(metrics.estimatedRideTimeMinutes());
+        gpxFile.setMetricsComputedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Stores the ride's training load and time in zones, scored against the rider's current FTP and maximum heart rate.
+     * Everything is left {@code null} for a {@code null} track, or one without power or heart rate.
+     */
+    private void applyIntensity(GpxFile gpxFile, TrackBuffer track) {
+        Integer ftp = null;
+        RideLoad load = RideLoad.EMPTY;
+        TimeInZones zones = TimeInZones.EMPTY;
+        if (track != null && (track.hasPower() || track.hasHeartRate())) {
+            Optional<UserProfile> rider = userProfileRepository.findByUserId(gpxFile.getUserId());
+            ftp = rider.map(UserProfile::getCurrentFtp).filter(value -> value > 0).orElse(null);
+            Integer maxHeartRate = rider.map(UserProfile::getMaxHr).filter(value -> value > 0).orElse(null);
+            load = RideLoad.of(track);
+            zones = TimeInZones.of(track, ftp, maxHeartRate);
+        }
+
+        boolean scored = !load.isEmpty() && ftp != null;
+        gpxFile.setMovingTimeSeconds(load.isEmpty() ? null : load.movingSeconds());
+        gpxFile.setNormalizedPowerWatts(load.isEmpty() ? null : load.normalizedPowerWatts());
+        gpxFile.setIntensityFactor(scored ? load.intensityFactor(ftp) : null);
+        gpxFile.setTrainingStressScore(scored ? load.trainingStressScore(ftp) : null);
+        gpxFile.setPowerZoneSeconds(zones.powerZoneSeconds());
+        gpxFile.setHeartRateZoneSeconds(zones.heartRateZoneSeconds());
+        gpxFile.setPowerHistogram(zones.powerHistogram());
+        gpxFile.setHeartRateHistogram(zones.heartRateHistogram());
+        LocalDateTime computedAt = LocalDateTime.now();
+        gpxFile.setLoadComputedAt(computedAt);
+        gpxFile.setZonesComputedAt(computedAt);
+    }
+
+    private void indexFootprint(GpxTrack gpxTrack, TrackFootprint footprint) {
+        applyBounds(gpxTrack, footprint);
+        saveCells(gpxTrack, footprint);
+    }
+
+    private void applyBounds(GpxTrack gpxTrack, TrackFootprint footprint) {
+        if (footprint.bounds() != null) {
+            gpxTrack.setMinLatitude(footprint.bounds().minLatitude());
+            gpxTrack.setMinLongitude(footprint.bounds().minLongitude());
+            gpxTrack.setMaxLatitude(footprint.bounds().maxLatitude());
+            gpxTrack.setMaxLongitude(footprint.bounds().maxLongitude());
+        }
+        gpxTrack.setSpatialIndexedAt(LocalDateTime.now());
+    }
+
+    private void saveCells(GpxTrack gpxTrack, TrackFootprint footprint) {
+        List<GpxTrackCell> cells = Arrays.stream(footprint.cells())
+                .mapToObj(cell -> GpxTrackCell.builder().track(gpxTrack).cell(cell).build())
+                .toList();
+        gpxTrackCellRepository.saveAll(cells);
+    }
+
+    /**
+     * Tracks among {@code files} with a cell in {@code area}, checked at the finest depth that covers the area within
+     * the configured number of cells.
+     */
+    private Set<Long> tracksPassingThrough(SearchArea area, List<GpxFileBounds> files) {
+        List<Long> trackIds = files.stream().map(GpxFileBounds::trackId).distinct().toList();
+        if (trackIds.isEmpty()) {
+            return Set.of();
+        }
+
+        int maxCells = gpxAnalysisConfig.getSpatial().getMaxQueryCells();
+        long[] cells = Geohash.cover(area, TrackFootprint.FINE_BITS, maxCells);
+        if (cells == null) {
+            cells = Geohash.cover(area, TrackFootprint.COARSE_BITS, maxCells);
+        }
+        if (cells == null) {
+            // Areas this large are barely narrowed by cells; overlapping bounds are taken as passing through
+            return new HashSet<>(trackIds);
+        }
+
+        List<Long> cellIds = Arrays.stream(cells).boxed().toList();
+        Set<Long> passing = new HashSet<>();
+        for (int from = 0; from < trackIds.size(); from += MAX_TRACK_IDS_PER_QUERY) {
+            List<Long> batch = trackIds.subList(from, Math.min(from + MAX_TRACK_IDS_PER_QUERY, trackIds.size()));
+            passing.addAll(gpxTrackCellRepository.findTrackIdsPassingThrough(batch, cellIds));
+        }
+        return passing;
+    }
+
+    private String previewPolyline(TrackBuffer track) {
+        int points = gpxAnalysisConfig.getGeometry().getPreviewPoints();
+        return RouteGeometry.of(track, points).polyline(points);
+    }
+
+    /** UTC time of the first timed point, or {@code null} for an untimed track. */
+    private static LocalDateTime startedAt(TrackBuffer track) {
+        for (int i = 0; i < track.size(); i++) {
+            if (track.hasTime(i)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(track.epochMillis(i)), ZoneOffset.UTC);
             }
         }
+        return null;
+    }
 
-        if (climbStartIndex != -1) {
-            WayPoint lastPoint = wayPoints.get(wayPoints.size() - 1);
-            if (lastPoint.getElevation().isPresent()) {
-                double elevationGain = lastPoint.getElevation().get().doubleValue() - climbStartElevation;
-                if (elevationGain >= MIN_CLIMB_ELEVATION_METERS && climbDistance >= MIN_CLIMB_DISTANCE_METERS) {
-                    double avgGradient = climbDistance > 0 ? elevationGain / climbDistance : 0;
+    private TrackBuffer loadTrack(GpxFile gpxFile) {
+        GpxTrack gpxTrack = gpxFile.getTrack();
+        if (gpxTrack.getTrackData() != null) {
+            return TrackCodec.decode(gpxTrack.getTrackData(), distanceMode());
+        }
 
-                    Climb climb = Climb.builder()
-                            .gpxFile(gpxFile)
-                            .distanceMeters(climbDistance)
-                            .elevationGainMeters(elevationGain)
-                            .averageGradient(avgGradient)
-                            .startPointIndex(climbStartIndex)
-                            .endPointIndex(wayPoints.size() - 1)
-                            .build();
+        return GpxStreamReader.readTrack(new StringReader(gpxTrack.getContent()), distanceMode());
+    }
 
-                    climbs.add(climb);
-                }
+    /** The most detailed configured level that fits within {@code lod} points; the coarsest when none does. */
+    private int geometryLevel(Integer lod) {
+        List<Integer> levels = gpxAnalysisConfig.getGeometry().getLevels().stream().sorted().toList();
+        if (lod == null) {
+            return levels.getLast();
+        }
+
+        int level = levels.getFirst();
+        for (int candidate : levels) {
+            if (candidate <= lod) {
+                level = candidate;
             }
         }
+        return level;
+    }
+
+    private int maxGeometryLevel() {
+        return gpxAnalysisConfig.getGeometry().getLevels().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    private DistanceMode distanceMode() {
+        return gpxAnalysisConfig.getDistance().getMode();
+    }
+
+    private TrackBuffer requireTrackPoints(TrackBuffer track) {
+        if (track.isEmpty()) {
+            throw new GpxParsingException("No waypoints found in GPX file");
+        }
+
+        return track;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Digests the remaining bytes of {@code data} in place, leaving its position unchanged. */
+    private static byte[] sha256(ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 
-        return climbs;
+    /** Decodes the remaining bytes of a heap buffer as UTF-8, the encoding GPX declares by default. */
+    private static String utf8(ByteBuffer data) {
+        return new String(data.array(), data.arrayOffset() + data.position(), data.remaining(), StandardCharsets.UTF_8);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<GpxFileResponse> getUserGpxFiles(Long userId) {
-        log.info("Fetching all GPX files for userId={}", userId);
-
-        List<GpxFile> gpxFiles = gpxFileRepository.findByUserId(userId);
-
-        return gpxFiles.stream()
-                .map(gpxFile -> new GpxFileResponse(
-                        gpxFile.getId(),
-                        gpxFile.getFilename(),
-                        gpxFile.getUserId(),
-                        gpxFile.getCreatedAt(),
-                        gpxFile.getUpdatedAt()))
-                .toList();
+    public UserTimeInZonesResponse getUserTimeInZones(Long userId, LocalDate fromDate, LocalDate toDate) {
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("toDate must not be before fromDate");
+        }
+        log.info("Summing time in zones for userId={} from {} to {}", userId, fromDate, toDate);
+
+        // Ride starts are stored in UTC, and the range takes in the whole of toDate
+        List<TimeInZonesTotal> totals = gpxFileRepository.sumTimeInZonesByUserId(
+                userId, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay());
+
+        long[] powerZones = new long[TimeInZones.POWER_ZONES];
+        long[] heartRateZones = new long[TimeInZones.HEART_RATE_ZONES];
+        long[] powerHistogram = new long[histogramLength(totals, TimeInZonesTotal.POWER_HISTOGRAM)];
+        long[] heartRateHistogram = new long[histogramLength(totals, TimeInZonesTotal.HEART_RATE_HISTOGRAM)];
+        for (TimeInZonesTotal total : totals) {
+            long[] bins =
+                    switch (total.getHistogram()) {
+                        case TimeInZonesTotal.POWER_ZONES -> powerZones;
+                        case TimeInZonesTotal.HEART_RATE_ZONES -> heartRateZones;
+                        case TimeInZonesTotal.POWER_HISTOGRAM -> powerHistogram;
+                        case TimeInZonesTotal.HEART_RATE_HISTOGRAM -> heartRateHistogram;
+                        default -> throw new IllegalStateException("Unknown histogram " + total.getHistogram());
+                    };
+            bins[total.getBin()] = total.getSeconds();
+        }
+
+        return new UserTimeInZonesResponse(
+                userId,
+                fromDate,
+                toDate,
+                powerZones,
+                heartRateZones,
+                TimeInZones.POWER_BIN_WATTS,
+                powerHistogram,
+                heartRateHistogram);
     }
 
-    private double calculateDistance(WayPoint p1, WayPoint p2) {
-        double lat1 = Math.toRadians(p1.getLatitude().doubleValue());
-        double lon1 = Math.toRadians(p1.getLongitude().doubleValue());
-        double lat2 = Math.toRadians(p2.getLatitude().doubleValue());
-        double lon2 = Math.toRadians(p2.getLongitude().doubleValue());
+    private static int histogramLength(List<TimeInZonesTotal> totals, int histogram) {
+        return totals.stream()
+                .filter(total -> total.getHistogram() == histogram)
+                .mapToInt(total -> total.getBin() + 1)
+                .max()
+                .orElse(0);
+    }
 
-        double dLat = lat2 - lat1;
-        double dLon = lon2 - lon1;
+    @Override
+    @Transactional(readOnly = true)
+    public GpxFilePage getUserGpxFiles(Long userId, String cursor, int limit, boolean includePreview) {
+        log.info("Fetching GPX files for userId={} limit={} includePreview={}", userId, limit, includePreview);
+
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // Fetch one extra row to learn whether another page exists without a count query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<GpxFileResponse> files;
+        if (cursor == null || cursor.isBlank()) {
+            files = gpxFileRepository.findSummariesByUserId(userId, fetchLimit);
+        } else {
+            GpxFileCursor position = GpxFileCursor.decode(cursor);
+            files = gpxFileRepository.findSummariesByUserIdBefore(
+                    userId, position.createdAt(), position.id(), fetchLimit);
+        }
+        if (!includePreview) {
+            files = files.stream().map(GpxFileResponse::withoutPreview).toList();
+        }
 
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        if (files.size() <= pageSize) {
+            return new GpxFilePage(files, null);
+        }
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        List<GpxFileResponse> page = files.subList(0, pageSize);
+        return new GpxFilePage(List.copyOf(page), GpxFileCursor.after(page.get(pageSize - 1)).encode());
+    }
 
-        final double EARTH_RADIUS_METERS = 6371000;
-        return EARTH_RADIUS_METERS * c;
+    @Override
+    @Transactional(readOnly = true)
+    public List<GpxFileResponse> searchUserGpxFiles(Long userId, SearchArea area, int limit) {
+        log.info("Searching GPX files for userId={} in {}", userId, area);
+
+        TrackBoundsIndex index = trackBoundsIndexCache.get(userId);
+        if (index == null) {
+            index = TrackBoundsIndex.of(gpxFileRepository.findBoundsByUserId(userId));
+            trackBoundsIndexCache.put(userId, index);
+        }
+
+        // Files whose bounds lie inside the area match outright; only those straddling its edge need their cells
+        TrackBoundsIndex.Candidates candidates = index.candidates(area);
+        Set<Long> passingTrackIds = tracksPassingThrough(area, candidates.overlapping());
+
+        return Stream.concat(
+                        candidates.inside().stream(),
+                        candidates.overlapping().stream().filter(file -> passingTrackIds.contains(file.trackId())))
+                .sorted(NEWEST_FIRST)
+                .limit(Math.clamp(limit, 1, MAX_PAGE_SIZE))
+                .map(GpxFileBounds::toResponse)
+                .toList();
     }
 }
@@ -0,0 +1,10 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResponse;
+import java.util.List;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface GpxBulkImportService {
+
+    GpxBulkImportResponse importFiles(List<MultipartFile> files, Long userId);
+}
@@ -0,0 +1,190 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResult;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GpxBulkImportServiceImpl implements GpxBulkImportService {
+
+    private final GpxAnalysisService gpxAnalysisService;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Override
+    public GpxBulkImportResponse importFiles(List<MultipartFile> files, Long userId) {
+        log.info("Bulk importing {} uploaded parts for userId={}", files.size(), userId);
+        long startedAt = System.nanoTime();
+
+        List<Future<GpxBulkImportResult>> pending;
+        try (BulkImport bulkImport = new BulkImport(userId, gpxAnalysisConfig.getBulk())) {
+            for (MultipartFile file : files) {
+                if (hasExtension(file.getOriginalFilename(), ".zip")) {
+                    bulkImport.addArchive(file);
+                } else {
+                    bulkImport.addFile(file);
+                }
+            }
+            pending = bulkImport.results;
+        }
+
+        // Closing the executor waited for every analysis, so each future is already done
+        List<GpxBulkImportResult> results = pending.stream().map(Future::resultNow).toList();
+        int imported = (int) results.stream().filter(GpxBulkImportResult::isImported).count();
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        log.info(
+                "Bulk import for userId={} finished: {} imported, {} failed in {} ms",
+                userId,
+                imported,
+                results.size() - imported,
+                elapsedMillis);
+        return new GpxBulkImportResponse(imported, results.size() - imported, elapsedMillis, results);
+    }
+
+    private static boolean isTrackFile(String filename) {
+        return hasExtension(filename, ".gpx") || hasExtension(filename, ".tcx") || hasExtension(filename, ".fit");
+    }
+
+    private static boolean hasExtension(String filename, String extension) {
+        return filename != null && filename.toLowerCase(Locale.ROOT).endsWith(extension);
+    }
+
+    private static String entryFilename(ZipEntry entry) {
+        String name = entry.getName();
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * One bulk request. Files are read one at a time on the request thread and analysed on virtual threads; a permit
+     * is taken before each file is read, so at most {@code concurrency} files are held in memory at once.
+     */
+    private final class BulkImport implements AutoCloseable {
+
+        private final Long userId;
+        private final int maxFiles;
+        private final int maxFileBytes;
+        private final Semaphore permits;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final List<Future<GpxBulkImportResult>> results = new ArrayList<>();
+        private int accepted;
+
+        private BulkImport(Long userId, GpxAnalysisConfig.BulkConfig bulk) {
+            this.userId = userId;
+            this.maxFiles = bulk.getMaxFiles();
+            this.maxFileBytes = bulk.getMaxFileBytes();
+            int concurrency =
+                    bulk.getConcurrency() > 0 ? bulk.getConcurrency() : Runtime.getRuntime().availableProcessors();
+            this.permits = new Semaphore(concurrency);
+        }
+
+        private void addFile(MultipartFile file) {
+            String filename = file.getOriginalFilename();
+            if (!accept(filename)) {
+                return;
+            }
+            if (file.getSize() > maxFileBytes) {
+                reject(filename, "File exceeds the bulk import size limit of " + maxFileBytes + " bytes");
+                return;
+            }
+
+            permits.acquireUninterruptibly();
+            try {
+                submit(filename, file.getBytes());
+            } catch (IOException e) {
+                permits.release();
+                reject(filename, "Failed to read GPX file content");
+            }
+        }
+
+        private void addArchive(MultipartFile archive) {
+            try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    String filename = entryFilename(entry);
+                    // Skips folders, files that are not rides and macOS resource forks
+                    if (entry.isDirectory() || !isTrackFile(filename) || filename.startsWith("._")) {
+                        continue;
+                    }
+                    if (!accept(filename)) {
+                        continue;
+                    }
+
+                    permits.acquireUninterruptibly();
+                    byte[] content;
+                    try {
+                        content = zip.readNBytes(maxFileBytes + 1);
+                    } catch (IOException e) {
+                        permits.release();
+                        throw e;
+                    }
+                    if (content.length > maxFileBytes) {
+                        permits.release();
+                        reject(filename, "File exceeds the bulk import size limit of " + maxFileBytes + " bytes");
+                        continue;
+                    }
+                    submit(filename, content);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read ZIP archive {}: {}", archive.getOriginalFilename(), e.getMessage());
+                reject(archive.getOriginalFilename(), "Failed to read ZIP archive");
+            }
+        }
+
+        private boolean accept(String filename) {
+            if (accepted >= maxFiles) {
+                reject(filename, "Skipped, bulk import is limited to " + maxFiles + " files");
+                return false;
+            }
+            accepted++;
+            return true;
+        }
+
+        private void reject(String filename, String errorMessage) {
+            results.add(CompletableFuture.completedFuture(GpxBulkImportResult.failed(filename, errorMessage)));
+        }
+
+        private void submit(String filename, byte[] content) {
+            results.add(executor.submit(() -> analyze(filename, content)));
+        }
+
+        private GpxBulkImportResult analyze(String filename, byte[] content) {
+            try {
+                GpxAnalysisResponse analysis = gpxAnalysisService.analyzeGpxBytes(filename, content, userId);
+                return GpxBulkImportResult.imported(filename, analysis);
+            } catch (GpxParsingException e) {
+                log.warn("Bulk import of {} for userId={} failed: {}", filename, userId, e.getMessage());
+                return GpxBulkImportResult.failed(filename, e.getMessage());
+            } catch (RuntimeException e) {
+                // Anything else is a server fault whose message may carry SQL or internals, so it stays in the log
+                log.error("Bulk import of {} for userId={} failed", filename, userId, e);
+                return GpxBulkImportResult.failed(filename, "Failed to analyze file");
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.close();
+        }
+    }
+}
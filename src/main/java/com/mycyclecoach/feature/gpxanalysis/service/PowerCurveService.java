@@ -0,0 +1,19 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurveResponse;
+import java.util.Collection;
+
+public interface PowerCurveService {
+
+    /** Merges the stored power curve of the newly saved {@code gpxFile} into its owner's best power. */
+    void recordRide(GpxFile gpxFile);
+
+    /** Drops the owner's best power when {@code gpxFile}, about to be deleted, has power; it is rebuilt when viewed. */
+    void deleteRide(GpxFile gpxFile);
+
+    /** Drops the best power of {@code userIds}, whose rides gained curves, to be rebuilt when next viewed. */
+    void invalidate(Collection<Long> userIds);
+
+    UserPowerCurveResponse getUserPowerCurve(Long userId);
+}
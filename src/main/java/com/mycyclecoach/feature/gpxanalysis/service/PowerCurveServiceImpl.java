@@ -0,0 +1,144 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.PowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.RidePowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.UserPowerCurveRepository;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PowerCurveServiceImpl implements PowerCurveService {
+
+    private final UserPowerCurveRepository userPowerCurveRepository;
+    private final GpxFileRepository gpxFileRepository;
+    private final GpxAnalysisConfig gpxAnalysisConfig;
+
+    @Override
+    @Transactional
+    public void recordRide(GpxFile gpxFile) {
+        Optional<RidePowerCurve> ride = gpxFileRepository.findPowerCurveById(gpxFile.getId());
+        PowerCurve curve = ride.map(RidePowerCurve::curve).orElse(PowerCurve.EMPTY);
+        if (curve.isEmpty()) {
+            return;
+        }
+
+        Long userId = gpxFile.getUserId();
+        userPowerCurveRepository.lockUserPowerCurve(userId);
+        // Riders who have not viewed their best power yet have it built from all their rides when they first do
+        userPowerCurveRepository.findById(userId).ifPresent(best -> {
+            PowerCurve allTime = PowerCurve.decode(best.getAllTimeCurve());
+            PowerCurve recent = PowerCurve.decode(best.getRecentCurve());
+            best.setAllTimeCurve(allTime.max(curve).encode());
+            if (isRecent(ride.get().startedAt()) && curve.improves(recent)) {
+                best.setRecentCurve(recent.max(curve).encode());
+                best.setRecentRebuildAt(earlier(best.getRecentRebuildAt(), leavesWindowAt(ride.get().startedAt())));
+            }
+            userPowerCurveRepository.save(best);
+            log.info("Merged power curve of gpxFileId={} into best power of userId={}", gpxFile.getId(), userId);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void deleteRide(GpxFile gpxFile) {
+        boolean hasPower = gpxFileRepository
+                .findPowerCurveById(gpxFile.getId())
+                .map(ride -> !ride.curve().isEmpty())
+                .orElse(false);
+        if (!hasPower) {
+            return;
+        }
+
+        userPowerCurveRepository.lockUserPowerCurve(gpxFile.getUserId());
+        userPowerCurveRepository.deleteById(gpxFile.getUserId());
+    }
+
+    @Override
+    @Transactional
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        // Locks are taken in user order so two invalidations never wait on each other
+        List<Long> sorted = userIds.stream().distinct().sorted().toList();
+        sorted.forEach(userPowerCurveRepository::lockUserPowerCurve);
+        userPowerCurveRepository.deleteAllByIdInBatch(sorted);
+        log.info("Invalidated best power of {} users", sorted.size());
+    }
+
+    @Override
+    @Transactional
+    public UserPowerCurveResponse getUserPowerCurve(Long userId) {
+        log.info("Fetching best power for userId={}", userId);
+
+        // Locked first so a rebuild never races a ride being merged; ride starts are UTC
+        userPowerCurveRepository.lockUserPowerCurve(userId);
+        UserPowerCurve best = userPowerCurveRepository
+                .findById(userId)
+                .filter(stored -> stored.getRecentRebuildAt() == null
+                        || LocalDateTime.now(ZoneOffset.UTC).isBefore(stored.getRecentRebuildAt()))
+                .orElseGet(() -> rebuild(userId));
+
+        return new UserPowerCurveResponse(
+                userId,
+                PowerCurve.decode(best.getAllTimeCurve()).points(),
+                recentDays(),
+                PowerCurve.decode(best.getRecentCurve()).points());
+    }
+
+    /** Merges the stored curves of all the user's rides, without decoding any track. */
+    private UserPowerCurve rebuild(Long userId) {
+        PowerCurve allTime = PowerCurve.EMPTY;
+        PowerCurve recent = PowerCurve.EMPTY;
+        LocalDateTime recentRebuildAt = null;
+        List<RidePowerCurve> rides = gpxFileRepository.findPowerCurvesByUserId(userId);
+        for (RidePowerCurve ride : rides) {
+            PowerCurve curve = ride.curve();
+            allTime = allTime.max(curve);
+            if (isRecent(ride.startedAt()) && curve.improves(recent)) {
+                recent = recent.max(curve);
+                recentRebuildAt = earlier(recentRebuildAt, leavesWindowAt(ride.startedAt()));
+            }
+        }
+
+        UserPowerCurve best = userPowerCurveRepository.findById(userId).orElseGet(() -> UserPowerCurve.builder()
+                .userId(userId)
+                .build());
+        best.setAllTimeCurve(allTime.encode());
+        best.setRecentCurve(recent.encode());
+        best.setRecentRebuildAt(recentRebuildAt);
+        log.info("Rebuilt best power for userId={} from {} rides", userId, rides.size());
+        return userPowerCurveRepository.save(best);
+    }
+
+    private boolean isRecent(LocalDateTime startedAt) {
+        return startedAt != null && LocalDateTime.now(ZoneOffset.UTC).isBefore(leavesWindowAt(startedAt));
+    }
+
+    private LocalDateTime leavesWindowAt(LocalDateTime startedAt) {
+        return startedAt.plusDays(recentDays());
+    }
+
+    private int recentDays() {
+        return gpxAnalysisConfig.getPower().getRecentDays();
+    }
+
+    private static LocalDateTime earlier(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBoundsIndex;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * LRU cache of each recently searching user's {@link TrackBoundsIndex}. Unlike profiles these change whenever the user
+ * uploads or deletes a file: this instance evicts the user's entry itself, and entries also expire after the
+ * configured TTL so uploads handled by another instance show up within it.
+ */
+@Component
+public class TrackBoundsIndexCache {
+
+    private final Map<Long, CachedIndex> indexes;
+    private final long ttlNanos;
+
+    public TrackBoundsIndexCache(GpxAnalysisConfig gpxAnalysisConfig) {
+        int cacheSize = gpxAnalysisConfig.getSpatial().getCacheSize();
+        this.ttlNanos = gpxAnalysisConfig.getSpatial().getCacheTtl().toNanos();
+        this.indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedIndex> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /** The cached index, or {@code null} when it has not been built, has expired or has been evicted. */
+    public TrackBoundsIndex get(Long userId) {
+        CachedIndex cached = indexes.get(userId);
+        if (cached == null || System.nanoTime() - cached.builtAtNanos() > ttlNanos) {
+            return null;
+        }
+        return cached.index();
+    }
+
+    public void put(Long userId, TrackBoundsIndex index) {
+        indexes.put(userId, new CachedIndex(index, System.nanoTime()));
+    }
+
+    public void evict(Long userId) {
+        indexes.remove(userId);
+    }
+
+    /** Drops every entry, for changes such as backfills that may touch any user's tracks. */
+    public void clear() {
+        indexes.clear();
+    }
+
+    private record CachedIndex(TrackBoundsIndex index, long builtAtNanos) {}
+}
@@ -0,0 +1,48 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Temporary files in {@code upload.spill-directory} for uploads too large to hold on the heap. The servlet container
+ * already keeps large parts on disk, so spooling one is a file copy that never passes the bytes through the heap.
+ */
+@Slf4j
+final class UploadSpool {
+
+    private UploadSpool() {}
+
+    static Path spool(MultipartFile file, GpxAnalysisConfig.UploadConfig upload) throws IOException {
+        Path spill = create(upload);
+        try {
+            file.transferTo(spill);
+            return spill;
+        } catch (IOException | RuntimeException e) {
+            delete(spill);
+            throw e;
+        }
+    }
+
+    static void delete(Path spill) {
+        if (spill == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spill);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload {}", spill, e);
+        }
+    }
+
+    private static Path create(GpxAnalysisConfig.UploadConfig upload) throws IOException {
+        String directory = upload.getSpillDirectory();
+        if (directory == null || directory.isBlank()) {
+            return Files.createTempFile("gpx-upload-", ".tmp");
+        }
+        return Files.createTempFile(Path.of(directory), "gpx-upload-", ".tmp");
+    }
+}
@@ -106,11 +106,15 @@ public class StravaController {
 
     @GetMapping("/rides")
     @ResponseStatus(HttpStatus.OK)
-    @Operation(summary = "Get synced rides for current user")
+    @Operation(
+            summary = "Get synced rides for current user",
+            description = "includePreview=true adds the encoded route polyline of each ride's GPX file")
     @ApiResponses({@ApiResponse(responseCode = "200", description = "Rides retrieved successfully")})
-    public ResponseEntity<List<RideResponse>> getRides(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<List<RideResponse>> getRides(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(defaultValue = "false") boolean includePreview) {
         Long userId = getUserIdFromAuthHeader(authHeader);
-        List<RideResponse> rides = stravaSyncService.getUserRides(userId);
+        List<RideResponse> rides = stravaSyncService.getUserRides(userId, includePreview);
         return ResponseEntity.ok(rides);
     }
 
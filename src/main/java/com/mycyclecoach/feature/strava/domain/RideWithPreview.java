@@ -0,0 +1,4 @@
+package com.mycyclecoach.feature.strava.domain;
+
+/** A ride with the encoded route polyline of its GPX file, or {@code null} when the ride has none. */
+public record RideWithPreview(Ride ride, String previewPolyline) {}
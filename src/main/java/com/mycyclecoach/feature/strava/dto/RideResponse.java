@@ -20,4 +20,5 @@ public record RideResponse(
         String sportType,
         Integer workoutType,
         String activityType,
-        Long gpxFileId) {}
+        Long gpxFileId,
+        String previewPolyline) {}
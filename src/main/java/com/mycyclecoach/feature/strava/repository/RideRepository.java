@@ -1,10 +1,13 @@
 package com.mycyclecoach.feature.strava.repository;
 
 import com.mycyclecoach.feature.strava.domain.Ride;
+import com.mycyclecoach.feature.strava.domain.RideWithPreview;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,6 +15,15 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
 
     List<Ride> findByUserId(Long userId);
 
+    // Joins the preview stored on the GPX file so a list page stays a single query
+    @Query(
+            """
+            SELECT new com.mycyclecoach.feature.strava.domain.RideWithPreview(r, g.previewPolyline)
+            FROM Ride r LEFT JOIN GpxFile g ON g.id = r.gpxFileId
+            WHERE r.userId = :userId
+            """)
+    List<RideWithPreview> findWithPreviewByUserId(@Param("userId") Long userId);
+
     Optional<Ride> findByStravaActivityId(Long stravaActivityId);
 
     boolean existsByStravaActivityId(Long stravaActivityId);
@@ -9,5 +9,5 @@ public interface StravaSyncService {
 
     void syncRidesForAllUsers();
 
-    List<RideResponse> getUserRides(Long userId);
+    List<RideResponse> getUserRides(Long userId, boolean includePreview);
 }
@@ -1,7 +1,6 @@
 package com.mycyclecoach.feature.strava.service;
 
-import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
-import com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
 import com.mycyclecoach.feature.strava.client.StravaApiClient;
 import com.mycyclecoach.feature.strava.domain.Ride;
 import com.mycyclecoach.feature.strava.domain.StravaConnection;
@@ -26,10 +25,11 @@ public class StravaSyncServiceImpl implements StravaSyncService {
     private final StravaConnectionRepository stravaConnectionRepository;
     private final RideRepository rideRepository;
     private final StravaAuthService stravaAuthService;
-    private final GpxFileRepository gpxFileRepository;
+    private final GpxAnalysisService gpxAnalysisService;
 
     @Override
-    @Transactional
+    // Not transactional: each lookup, GPX import and ride save runs in a short transaction of its own, so a ride holds
+    // at most one pooled connection, never one for the whole sync plus one for the import
     public void syncRidesForUser(Long userId) {
         log.info("Starting ride sync for user: {}", userId);
 
@@ -63,20 +63,19 @@ public class StravaSyncServiceImpl implements StravaSyncService {
                             String gpxContent =
                                     stravaApiClient.getActivityGpx(connection.getAccessToken(), activity.id());
                             if (gpxContent != null && !gpxContent.isEmpty()) {
-                                // Save GPX file
-                                GpxFile gpxFile = GpxFile.builder()
-                                        .filename(activity.id() + "_" + sanitizeFilename(activity.name()) + ".gpx")
-                                        .content(gpxContent)
-                                        .userId(userId)
-                                        .build();
-                                gpxFile = gpxFileRepository.save(gpxFile);
-                                gpxFileId = gpxFile.getId();
+                                // Save and analyse GPX file so route metrics are computed once at ingest
+                                gpxFileId = gpxAnalysisService
+                                        .importGpxContent(
+                                                userId,
+                                                activity.id() + "_" + sanitizeFilename(activity.name()) + ".gpx",
+                                                gpxContent)
+                                        .gpxFileId();
                                 log.info("Saved GPX file for activity: {} with id: {}", activity.id(), gpxFileId);
                             } else {
                                 log.debug("No GPX data available for activity: {}", activity.id());
                             }
                         } catch (Exception e) {
-                            log.warn("Failed to download GPX for activity {}: {}", activity.id(), e.getMessage());
+                            log.warn("Failed to import GPX for activity {}: {}", activity.id(), e.getMessage());
                         }
 
                         // Save ride with all fields including GPX reference
@@ -120,7 +119,7 @@ public class StravaSyncServiceImpl implements StravaSyncService {
     }
 
     @Override
-    @Transactional
+    // Not transactional, so one user's sync neither holds a connection for the others nor rolls them back
     public void syncRidesForAllUsers() {
         log.info("Starting ride sync for all connected users");
 
@@ -141,31 +140,40 @@ public class StravaSyncServiceImpl implements StravaSyncService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<RideResponse> getUserRides(Long userId) {
-        log.info("Fetching rides for user: {}", userId);
+    public List<RideResponse> getUserRides(Long userId, boolean includePreview) {
+        log.info("Fetching rides for user: {} includePreview: {}", userId, includePreview);
+
+        if (includePreview) {
+            return rideRepository.findWithPreviewByUserId(userId).stream()
+                    .map(row -> toRideResponse(row.ride(), row.previewPolyline()))
+                    .collect(Collectors.toList());
+        }
 
         List<Ride> rides = rideRepository.findByUserId(userId);
 
-        return rides.stream()
-                .map(ride -> new RideResponse(
-                        ride.getId(),
-                        ride.getStravaActivityId(),
-                        ride.getName(),
-                        ride.getDistance(),
-                        ride.getMovingTime(),
-                        ride.getElapsedTime(),
-                        ride.getTotalElevationGain(),
-                        ride.getStartDate(),
-                        ride.getAverageSpeed(),
-                        ride.getMaxSpeed(),
-                        ride.getAverageWatts(),
-                        ride.getAverageHeartrate(),
-                        ride.getMaxHeartrate(),
-                        ride.getSportType(),
-                        ride.getWorkoutType(),
-                        ride.getActivityType(),
-                        ride.getGpxFileId()))
-                .collect(Collectors.toList());
+        return rides.stream().map(ride -> toRideResponse(ride, null)).collect(Collectors.toList());
+    }
+
+    private RideResponse toRideResponse(Ride ride, String previewPolyline) {
+        return new RideResponse(
+                ride.getId(),
+                ride.getStravaActivityId(),
+                ride.getName(),
+                ride.getDistance(),
+                ride.getMovingTime(),
+                ride.getElapsedTime(),
+                ride.getTotalElevationGain(),
+                ride.getStartDate(),
+                ride.getAverageSpeed(),
+                ride.getMaxSpeed(),
+                ride.getAverageWatts(),
+                ride.getAverageHeartrate(),
+                ride.getMaxHeartrate(),
+                ride.getSportType(),
+                ride.getWorkoutType(),
+                ride.getActivityType(),
+                ride.getGpxFileId(),
+                previewPolyline);
     }
 
     private String sanitizeFilename(String name) {
@@ -5,6 +5,9 @@ import com.mycyclecoach.feature.auth.exception.InvalidCredentialsException;
 import com.mycyclecoach.feature.auth.exception.InvalidVerificationTokenException;
 import com.mycyclecoach.feature.auth.exception.TokenExpiredException;
 import com.mycyclecoach.feature.auth.exception.UserAlreadyExistsException;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbNotFoundException;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobNotFoundException;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisQueueFullException;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxFileNotFoundException;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -82,6 +85,28 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(404, "Not Found", ex.getMessage(), request.getRequestURI(), LocalDateTime.now());
     }
 
+    @ExceptionHandler(GpxAnalysisJobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleGpxAnalysisJobNotFound(GpxAnalysisJobNotFoundException ex, HttpServletRequest request) {
+        log.warn("GPX analysis job not found: {}", ex.getMessage());
+        return new ErrorResponse(404, "Not Found", ex.getMessage(), request.getRequestURI(), LocalDateTime.now());
+    }
+
+    @ExceptionHandler(CanonicalClimbNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleCanonicalClimbNotFound(CanonicalClimbNotFoundException ex, HttpServletRequest request) {
+        log.warn("Climb not found: {}", ex.getMessage());
+        return new ErrorResponse(404, "Not Found", ex.getMessage(), request.getRequestURI(), LocalDateTime.now());
+    }
+
+    @ExceptionHandler(GpxAnalysisQueueFullException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleGpxAnalysisQueueFull(GpxAnalysisQueueFullException ex, HttpServletRequest request) {
+        log.warn("GPX analysis queue full: {}", ex.getMessage());
+        return new ErrorResponse(
+                429, "Too Many Requests", ex.getMessage(), request.getRequestURI(), LocalDateTime.now());
+    }
+
     @ExceptionHandler(GpxParsingException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleGpxParsing(GpxParsingException ex, HttpServletRequest request) {
@@ -0,0 +1,10 @@
+-- Compact binary track (see TrackCodec); the original XML becomes optional once a row has been converted
+ALTER TABLE gpx_files
+    ADD COLUMN track_data BYTEA,
+    ALTER COLUMN content DROP NOT NULL;
+
+-- Binary tracks are already delta/varint packed, so skip TOAST compression and store them out of line directly
+ALTER TABLE gpx_files ALTER COLUMN track_data SET STORAGE EXTERNAL;
+
+-- Partial index so the conversion job can find rows still holding only XML without scanning the table
+CREATE INDEX idx_gpx_files_track_pending ON gpx_files(id) WHERE track_data IS NULL;
@@ -0,0 +1,31 @@
+-- Track payloads move out of gpx_files so listing and analysis reads never touch them
+CREATE TABLE gpx_tracks (
+    id BIGSERIAL PRIMARY KEY,
+    content TEXT,
+    track_data BYTEA
+);
+
+ALTER TABLE gpx_tracks ALTER COLUMN track_data SET STORAGE EXTERNAL;
+
+-- Reuse the gpx_files ids so each existing file keeps a one-to-one link to its payload
+INSERT INTO gpx_tracks (id, content, track_data)
+SELECT id, content, track_data FROM gpx_files;
+
+SELECT setval(pg_get_serial_sequence('gpx_tracks', 'id'), COALESCE((SELECT MAX(id) FROM gpx_tracks), 0) + 1, false);
+
+ALTER TABLE gpx_files ADD COLUMN track_id BIGINT;
+UPDATE gpx_files SET track_id = id;
+
+ALTER TABLE gpx_files
+    ALTER COLUMN track_id SET NOT NULL,
+    ADD CONSTRAINT fk_gpx_files_track FOREIGN KEY (track_id) REFERENCES gpx_tracks(id),
+    ADD CONSTRAINT uk_gpx_files_track UNIQUE (track_id),
+    DROP COLUMN content,
+    DROP COLUMN track_data;
+
+-- Conversion job lookup moves with the payload
+CREATE INDEX idx_gpx_tracks_pending ON gpx_tracks(id) WHERE track_data IS NULL;
+
+-- Keyset pagination of a user's files, newest first
+DROP INDEX idx_gpx_files_user_id;
+CREATE INDEX idx_gpx_files_user_created ON gpx_files(user_id, created_at DESC, id DESC);
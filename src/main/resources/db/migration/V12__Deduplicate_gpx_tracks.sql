@@ -0,0 +1,39 @@
+-- Identical tracks share one gpx_tracks row; reference_count tracks how many gpx_files point at it
+ALTER TABLE gpx_tracks
+    ADD COLUMN content_hash BYTEA,
+    ADD COLUMN reference_count INTEGER NOT NULL DEFAULT 1,
+    ADD CONSTRAINT uk_gpx_tracks_content_hash UNIQUE (content_hash);
+
+-- Hash already-converted tracks; legacy duplicates are left unhashed rather than merged
+UPDATE gpx_tracks t
+SET content_hash = h.hash
+FROM (
+    SELECT id, sha256(track_data) AS hash,
+           ROW_NUMBER() OVER (PARTITION BY sha256(track_data) ORDER BY id) AS rn
+    FROM gpx_tracks
+    WHERE track_data IS NOT NULL
+) h
+WHERE t.id = h.id AND h.rn = 1;
+
+-- Several files may now share a track; source_hash lets a byte-identical re-upload skip parsing
+ALTER TABLE gpx_files
+    DROP CONSTRAINT uk_gpx_files_track,
+    ADD COLUMN source_hash BYTEA;
+
+CREATE INDEX idx_gpx_files_track_user ON gpx_files(track_id, user_id);
+CREATE INDEX idx_gpx_files_source_hash ON gpx_files(source_hash) WHERE source_hash IS NOT NULL;
+
+-- Climbs belong to the shared track so they are detected and stored once per distinct track
+ALTER TABLE climbs ADD COLUMN track_id BIGINT;
+
+UPDATE climbs c
+SET track_id = f.track_id
+FROM gpx_files f
+WHERE f.id = c.gpx_file_id;
+
+ALTER TABLE climbs
+    ALTER COLUMN track_id SET NOT NULL,
+    ADD CONSTRAINT fk_climbs_track FOREIGN KEY (track_id) REFERENCES gpx_tracks(id) ON DELETE CASCADE,
+    DROP COLUMN gpx_file_id;
+
+CREATE INDEX idx_climbs_track_id ON climbs(track_id);
@@ -0,0 +1,19 @@
+-- Uploads accepted for background analysis; payload holds the raw file until a worker has processed it
+CREATE TABLE gpx_analysis_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    filename VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    payload BYTEA,
+    gpx_file_id BIGINT,
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    CONSTRAINT fk_gpx_analysis_jobs_gpx_file FOREIGN KEY (gpx_file_id) REFERENCES gpx_files(id) ON DELETE SET NULL
+);
+
+ALTER TABLE gpx_analysis_jobs ALTER COLUMN payload SET STORAGE EXTERNAL;
+
+-- Restart recovery only looks at unfinished jobs
+CREATE INDEX idx_gpx_analysis_jobs_pending ON gpx_analysis_jobs(id) WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,2 @@
+-- Climbs take ids from a pooled sequence so Hibernate can batch their inserts; IDENTITY forces one round trip per row
+ALTER SEQUENCE climbs_id_seq INCREMENT BY 50;
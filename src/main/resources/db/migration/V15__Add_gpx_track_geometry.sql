@@ -0,0 +1,2 @@
+-- Simplified map geometry (RouteGeometry encoding), written at ingest so map requests never decode the full track
+ALTER TABLE gpx_tracks ADD COLUMN geometry_data BYTEA;
@@ -0,0 +1,5 @@
+-- Encoded polyline of each file's coarse route shape, so list pages can draw thumbnails from the listing query alone
+ALTER TABLE gpx_files ADD COLUMN preview_polyline TEXT;
+
+-- Existing files are picked up by the backfill job alongside those still missing metrics
+CREATE INDEX idx_gpx_files_preview_pending ON gpx_files(id) WHERE preview_polyline IS NULL;
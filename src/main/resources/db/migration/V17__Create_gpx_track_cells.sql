@@ -0,0 +1,22 @@
+-- Track bounding boxes for area searches; tracks stored earlier are indexed by the storage conversion job
+ALTER TABLE gpx_tracks
+    ADD COLUMN min_latitude DOUBLE PRECISION,
+    ADD COLUMN min_longitude DOUBLE PRECISION,
+    ADD COLUMN max_latitude DOUBLE PRECISION,
+    ADD COLUMN max_longitude DOUBLE PRECISION,
+    ADD COLUMN spatial_indexed_at TIMESTAMP;
+
+CREATE INDEX idx_gpx_tracks_spatial_pending ON gpx_tracks(id) WHERE spatial_indexed_at IS NULL;
+
+-- Geohash cells each track passes through, at two depths told apart by their leading bit
+CREATE TABLE gpx_track_cells (
+    id BIGSERIAL PRIMARY KEY,
+    track_id BIGINT NOT NULL,
+    cell BIGINT NOT NULL,
+    CONSTRAINT fk_gpx_track_cells_track FOREIGN KEY (track_id) REFERENCES gpx_tracks(id) ON DELETE CASCADE
+);
+
+-- Pooled sequence ids so Hibernate can batch a track's cells, as for climbs
+ALTER SEQUENCE gpx_track_cells_id_seq INCREMENT BY 50;
+
+CREATE INDEX idx_gpx_track_cells_track_cell ON gpx_track_cells(track_id, cell);
@@ -0,0 +1,38 @@
+-- Distinct climbs per user, keyed by the geohash cell their first effort starts in
+CREATE TABLE canonical_climbs (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    start_cell BIGINT NOT NULL,
+    start_latitude DOUBLE PRECISION NOT NULL,
+    start_longitude DOUBLE PRECISION NOT NULL,
+    end_latitude DOUBLE PRECISION NOT NULL,
+    end_longitude DOUBLE PRECISION NOT NULL,
+    distance_meters DOUBLE PRECISION NOT NULL,
+    elevation_gain_meters DOUBLE PRECISION NOT NULL,
+    average_gradient DOUBLE PRECISION NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_canonical_climbs_user_start_cell ON canonical_climbs(user_id, start_cell);
+
+-- Each ride up a canonical climb, removed with the GPX file it was ridden on
+CREATE TABLE climb_efforts (
+    id BIGSERIAL PRIMARY KEY,
+    canonical_climb_id BIGINT NOT NULL,
+    gpx_file_id BIGINT NOT NULL,
+    climb_id BIGINT NOT NULL,
+    started_at TIMESTAMP,
+    duration_seconds DOUBLE PRECISION,
+    CONSTRAINT fk_climb_efforts_canonical_climb FOREIGN KEY (canonical_climb_id)
+        REFERENCES canonical_climbs(id) ON DELETE CASCADE,
+    CONSTRAINT fk_climb_efforts_gpx_file FOREIGN KEY (gpx_file_id) REFERENCES gpx_files(id) ON DELETE CASCADE,
+    CONSTRAINT fk_climb_efforts_climb FOREIGN KEY (climb_id) REFERENCES climbs(id) ON DELETE CASCADE
+);
+
+-- Pooled sequence ids so Hibernate can batch a ride's climbs and efforts, as for climbs
+ALTER SEQUENCE canonical_climbs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE climb_efforts_id_seq INCREMENT BY 50;
+
+CREATE INDEX idx_climb_efforts_canonical_climb_id ON climb_efforts(canonical_climb_id);
+CREATE INDEX idx_climb_efforts_gpx_file_id ON climb_efforts(gpx_file_id);
+CREATE INDEX idx_climb_efforts_climb_id ON climb_efforts(climb_id);
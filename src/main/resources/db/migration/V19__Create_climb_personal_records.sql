@@ -0,0 +1,23 @@
+-- Mean power on each effort, for best-power records
+ALTER TABLE climb_efforts ADD COLUMN average_power_watts DOUBLE PRECISION;
+
+-- Per-climb counts and bests, maintained as efforts are recorded and deleted; climbs from before this are filled in
+-- by the personal records rebuild job
+CREATE TABLE climb_personal_records (
+    canonical_climb_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL,
+    effort_count BIGINT NOT NULL,
+    fastest_effort_id BIGINT,
+    best_duration_seconds DOUBLE PRECISION,
+    strongest_effort_id BIGINT,
+    best_average_power_watts DOUBLE PRECISION,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_climb_personal_records_canonical_climb FOREIGN KEY (canonical_climb_id)
+        REFERENCES canonical_climbs(id) ON DELETE CASCADE
+);
+
+-- Top-N efforts per climb are read straight off these in order
+CREATE INDEX idx_climb_efforts_fastest ON climb_efforts(canonical_climb_id, duration_seconds, id)
+    WHERE duration_seconds IS NOT NULL;
+CREATE INDEX idx_climb_efforts_most_powerful ON climb_efforts(canonical_climb_id, average_power_watts DESC, id)
+    WHERE average_power_watts IS NOT NULL;
@@ -0,0 +1,17 @@
+-- Mean-maximal power curve (PowerCurve encoding, empty without power) and start of each track, written at ingest
+ALTER TABLE gpx_tracks
+    ADD COLUMN power_curve BYTEA,
+    ADD COLUMN started_at TIMESTAMP;
+
+-- Tracks stored before power curves existed are picked up by the power curve backfill job
+CREATE INDEX idx_gpx_tracks_power_curve_pending ON gpx_tracks(id) WHERE power_curve IS NULL;
+
+-- Each rider's all-time and recent best power, merged from their rides' curves as rides are stored
+CREATE TABLE user_power_curves (
+    user_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL,
+    all_time_curve BYTEA NOT NULL,
+    recent_curve BYTEA NOT NULL,
+    recent_rebuild_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,10 @@
+-- Training load computed once at ingest, against the rider's FTP at the time, so training-load queries aggregate rows
+ALTER TABLE gpx_files
+    ADD COLUMN moving_time_seconds INTEGER,
+    ADD COLUMN normalized_power_watts DOUBLE PRECISION,
+    ADD COLUMN intensity_factor DOUBLE PRECISION,
+    ADD COLUMN training_stress_score DOUBLE PRECISION,
+    ADD COLUMN load_computed_at TIMESTAMP;
+
+-- Existing files are picked up by the backfill job alongside those still missing metrics
+CREATE INDEX idx_gpx_files_load_pending ON gpx_files(id) WHERE load_computed_at IS NULL;
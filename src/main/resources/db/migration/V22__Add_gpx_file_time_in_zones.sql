@@ -0,0 +1,10 @@
+-- Time in zones and fine histograms computed once at ingest, as arrays so a rider's totals are summed in the database
+ALTER TABLE gpx_files
+    ADD COLUMN power_zone_seconds INTEGER[],
+    ADD COLUMN heart_rate_zone_seconds INTEGER[],
+    ADD COLUMN power_histogram INTEGER[],
+    ADD COLUMN heart_rate_histogram INTEGER[],
+    ADD COLUMN zones_computed_at TIMESTAMP;
+
+-- Existing files are picked up by the backfill job alongside those still missing metrics
+CREATE INDEX idx_gpx_files_zones_pending ON gpx_files(id) WHERE zones_computed_at IS NULL;
@@ -0,0 +1,2 @@
+-- Uploads above the spill threshold are queued as a file in the spill directory instead of a payload held in the row
+ALTER TABLE gpx_analysis_jobs ADD COLUMN payload_path VARCHAR(1024);
@@ -0,0 +1,8 @@
+-- Route metrics computed once at ingest so reads never re-parse the stored GPX
+ALTER TABLE gpx_files
+    ADD COLUMN total_distance_km DOUBLE PRECISION,
+    ADD COLUMN estimated_ride_time_minutes DOUBLE PRECISION,
+    ADD COLUMN metrics_computed_at TIMESTAMP;
+
+-- Partial index so the backfill job can find rows still missing metrics without scanning the table
+CREATE INDEX idx_gpx_files_metrics_pending ON gpx_files(id) WHERE metrics_computed_at IS NULL;
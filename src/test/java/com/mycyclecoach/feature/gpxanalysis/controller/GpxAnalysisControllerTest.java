@@ -3,17 +3,45 @@ package com.mycyclecoach.feature.gpxanalysis.controller;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.mycyclecoach.config.JwtConfig;
 import com.mycyclecoach.feature.auth.security.JwtAuthenticationFilter;
 import com.mycyclecoach.feature.auth.security.JwtTokenProvider;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbNotFoundException;
+import com.mycyclecoach.feature.gpxanalysis.domain.CanonicalClimbResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbEffortResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ClimbRecordsResponse;
 import com.mycyclecoach.feature.gpxanalysis.domain.ClimbResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.ElevationProfile;
+import com.mycyclecoach.feature.gpxanalysis.domain.ElevationProfileResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GeoBounds;
+import com.mycyclecoach.feature.gpxanalysis.domain.GeoCircle;
 import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResult;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxExport;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFileNotFoundException;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFilePage;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxGeometryResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.PowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserTimeInZonesResponse;
+import com.mycyclecoach.feature.gpxanalysis.service.ClimbHistoryService;
 import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxBulkImportService;
+import com.mycyclecoach.feature.gpxanalysis.service.PowerCurveService;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -35,6 +63,15 @@ class GpxAnalysisControllerTest {
     @MockitoBean
     private GpxAnalysisService gpxAnalysisService;
 
+    @MockitoBean
+    private GpxBulkImportService gpxBulkImportService;
+
+    @MockitoBean
+    private ClimbHistoryService climbHistoryService;
+
+    @MockitoBean
+    private PowerCurveService powerCurveService;
+
     @MockitoBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -69,6 +106,30 @@ class GpxAnalysisControllerTest {
                 .andExpect(jsonPath("$.climbs[0].elevationGainMeters").value(40.0));
     }
 
+    @Test
+    void shouldReturnPerFileResultsWhenGpxFilesAreBulkUploaded() throws Exception {
+        // given
+        MockMultipartFile gpx = new MockMultipartFile("files", "ride.gpx", "application/gpx+xml", "gpx".getBytes());
+        MockMultipartFile zip = new MockMultipartFile("files", "rides.zip", "application/zip", "zip".getBytes());
+        GpxBulkImportResponse response = new GpxBulkImportResponse(
+                1,
+                1,
+                42L,
+                List.of(
+                        new GpxBulkImportResult("ride.gpx", 1L, 2, null),
+                        GpxBulkImportResult.failed("broken.gpx", "Failed to parse GPX file")));
+
+        given(gpxBulkImportService.importFiles(any(), eq(100L))).willReturn(response);
+
+        // when / then
+        mockMvc.perform(multipart("/api/v1/gpx/bulk").file(gpx).file(zip).param("userId", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.failedCount").value(1))
+                .andExpect(jsonPath("$.results[0].gpxFileId").value(1))
+                .andExpect(jsonPath("$.results[1].errorMessage").value("Failed to parse GPX file"));
+    }
+
     @Test
     void shouldReturn200WhenGettingGpxAnalysisByIdSuccessfully() throws Exception {
         // given
@@ -113,13 +174,14 @@ class GpxAnalysisControllerTest {
         String token = "test-jwt-token";
         com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse gpxFile1 =
                 new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
-                        1L, "ride1.gpx", userId, LocalDateTime.now(), LocalDateTime.now());
+                        1L, "ride1.gpx", userId, LocalDateTime.now(), LocalDateTime.now(), null);
         com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse gpxFile2 =
                 new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
-                        2L, "ride2.gpx", userId, LocalDateTime.now(), LocalDateTime.now());
+                        2L, "ride2.gpx", userId, LocalDateTime.now(), LocalDateTime.now(), null);
 
         given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
-        given(gpxAnalysisService.getUserGpxFiles(userId)).willReturn(List.of(gpxFile1, gpxFile2));
+        given(gpxAnalysisService.getUserGpxFiles(userId, null, 50, false))
+                .willReturn(new GpxFilePage(List.of(gpxFile1, gpxFile2), null));
 
         // when / then
         mockMvc.perform(get("/api/v1/gpx/user").header("Authorization", "Bearer " + token))
@@ -130,6 +192,326 @@ class GpxAnalysisControllerTest {
                 .andExpect(jsonPath("$[0].userId").value(userId))
                 .andExpect(jsonPath("$[1].id").value(2L))
                 .andExpect(jsonPath("$[1].filename").value("ride2.gpx"))
-                .andExpect(jsonPath("$[1].userId").value(userId));
+                .andExpect(jsonPath("$[1].userId").value(userId))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void shouldReturnNextCursorHeaderWhenMoreGpxFilesExist() throws Exception {
+        // given
+        Long userId = 100L;
+        String token = "test-jwt-token";
+        com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse gpxFile =
+                new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
+                        2L, "ride2.gpx", userId, LocalDateTime.now(), LocalDateTime.now(), null);
+
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
+        given(gpxAnalysisService.getUserGpxFiles(userId, "abc", 1, false))
+                .willReturn(new GpxFilePage(List.of(gpxFile), "next"));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user")
+                        .header("Authorization", "Bearer " + token)
+                        .param("cursor", "abc")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string("X-Next-Cursor", "next"));
+    }
+
+    @Test
+    void shouldReturnGpxFilesPassingThroughBoundingBox() throws Exception {
+        // given
+        Long userId = 100L;
+        String token = "test-jwt-token";
+        com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse gpxFile =
+                new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
+                        1L, "ride1.gpx", userId, LocalDateTime.now(), LocalDateTime.now(), null);
+
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
+        given(gpxAnalysisService.searchUserGpxFiles(userId, new GeoBounds(51.4, -0.2, 51.6, 0.0), 50))
+                .willReturn(List.of(gpxFile));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/area")
+                        .header("Authorization", "Bearer " + token)
+                        .param("minLat", "51.4")
+                        .param("minLon", "-0.2")
+                        .param("maxLat", "51.6")
+                        .param("maxLon", "0.0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void shouldReturnGpxFilesPassingNearPoint() throws Exception {
+        // given
+        Long userId = 100L;
+        String token = "test-jwt-token";
+
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
+        given(gpxAnalysisService.searchUserGpxFiles(userId, new GeoCircle(51.5, -0.1, 2000), 10))
+                .willReturn(List.of());
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/near")
+                        .header("Authorization", "Bearer " + token)
+                        .param("lat", "51.5")
+                        .param("lon", "-0.1")
+                        .param("radiusMeters", "2000")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void shouldReturn400WhenBoundingBoxIsInverted() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/area")
+                        .header("Authorization", "Bearer " + token)
+                        .param("minLat", "51.6")
+                        .param("minLon", "-0.2")
+                        .param("maxLat", "51.4")
+                        .param("maxLon", "0.0"))
+                .andExpect(status().isBadRequest());
+        then(gpxAnalysisService).should(never()).searchUserGpxFiles(any(), any(), eq(50));
+    }
+
+    @Test
+    void shouldReturnPreviewPolylinesWhenRequested() throws Exception {
+        // given
+        Long userId = 100L;
+        String token = "test-jwt-token";
+        com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse gpxFile =
+                new com.mycyclecoach.feature.gpxanalysis.domain.GpxFileResponse(
+                        1L, "ride1.gpx", userId, LocalDateTime.now(), LocalDateTime.now(), "_p~iF~ps|U");
+
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
+        given(gpxAnalysisService.getUserGpxFiles(userId, null, 50, true))
+                .willReturn(new GpxFilePage(List.of(gpxFile), null));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user")
+                        .header("Authorization", "Bearer " + token)
+                        .param("includePreview", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].previewPolyline").value("_p~iF~ps|U"));
+    }
+
+    @Test
+    void shouldReturnGpxAttachmentWhenExportingGpxFile() throws Exception {
+        // given
+        given(gpxAnalysisService.exportGpx(1L)).willReturn(new GpxExport("ride.gpx", "<gpx/>"));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/1/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ride.gpx\""))
+                .andExpect(content().contentTypeCompatibleWith("application/gpx+xml"))
+                .andExpect(content().string("<gpx/>"));
+    }
+
+    @Test
+    void shouldReturnGeometryCoordinatesWhenLodIsRequested() throws Exception {
+        // given
+        double[][] coordinates = {{-0.1, 51.5}, {-0.099, 51.501}};
+        given(gpxAnalysisService.getGeometry(1L, 50)).willReturn(new GpxGeometryResponse(1L, 50, 2, coordinates));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/1/geometry").param("lod", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lod").value(50))
+                .andExpect(jsonPath("$.pointCount").value(2))
+                .andExpect(jsonPath("$.coordinates[1][0]").value(-0.099))
+                .andExpect(jsonPath("$.coordinates[1][1]").value(51.501));
+    }
+
+    @Test
+    void shouldReturn404WhenGeometryIsRequestedForUnknownGpxFile() throws Exception {
+        // given
+        given(gpxAnalysisService.getGeometry(99L, null)).willThrow(new GpxFileNotFoundException(99L));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/99/geometry")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnElevationProfileWithClimbsWhenPointsAreRequested() throws Exception {
+        // given
+        ElevationProfileResponse profile = new ElevationProfileResponse(
+                1L,
+                3,
+                new double[] {0.0, 500.0, 1000.0},
+                new double[] {100.0, 140.0, 120.0},
+                List.of(new ElevationProfile.ProfileClimb(7L, 0.0, 500.0, 40.0, 0.08)));
+        given(gpxAnalysisService.getElevationProfile(1L, 3)).willReturn(profile);
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/1/profile").param("points", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pointCount").value(3))
+                .andExpect(jsonPath("$.elevationMeters[1]").value(140.0))
+                .andExpect(jsonPath("$.climbs[0].endDistanceMeters").value(500.0));
+    }
+
+    @Test
+    void shouldReturnPowerCurveOfGpxFile() throws Exception {
+        // given
+        given(gpxAnalysisService.getPowerCurve(1L))
+                .willReturn(new GpxPowerCurveResponse(
+                        1L, List.of(new PowerCurve.Point(1, 820), new PowerCurve.Point(60, 410))));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/1/power-curve"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.points[0].durationSeconds").value(1))
+                .andExpect(jsonPath("$.points[1].watts").value(410));
+    }
+
+    @Test
+    void shouldReturn204WhenGpxFileIsDeleted() throws Exception {
+        // given
+        Long userId = 100L;
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
+
+        // when / then
+        mockMvc.perform(delete("/api/v1/gpx/1").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+        then(gpxAnalysisService).should().deleteGpxFile(1L, userId);
+    }
+
+    @Test
+    void shouldReturn404WhenDeletingGpxFileOwnedByAnotherUser() throws Exception {
+        // given
+        Long userId = 100L;
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
+        willThrow(new GpxFileNotFoundException(1L)).given(gpxAnalysisService).deleteGpxFile(1L, userId);
+
+        // when / then
+        mockMvc.perform(delete("/api/v1/gpx/1").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnUserClimbsWithEffortCounts() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+        given(climbHistoryService.getUserClimbs(100L))
+                .willReturn(List.of(new CanonicalClimbResponse(
+                        7L, 51.5, -0.1, 51.51, -0.1, 1100.0, 100.0, 0.09, 12L, 298.0, 305.0)));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/climbs").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].effortCount").value(12))
+                .andExpect(jsonPath("$[0].bestDurationSeconds").value(298.0));
+    }
+
+    @Test
+    void shouldReturnEffortHistoryForUserClimb() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+        given(climbHistoryService.getClimbEfforts(7L, 100L))
+                .willReturn(List.of(new ClimbEffortResponse(
+                        1L, 2L, "ride.gpx", 3L, LocalDateTime.now(), 312.0, 280.0, 1100.0, 100.0, 0.09)));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/climbs/7/efforts").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].gpxFileId").value(2))
+                .andExpect(jsonPath("$[0].durationSeconds").value(312.0));
+    }
+
+    @Test
+    void shouldReturnFastestAndMostPowerfulEffortsForUserClimb() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        ClimbEffortResponse fastest = new ClimbEffortResponse(
+                1L, 2L, "ride.gpx", 3L, LocalDateTime.now(), 298.0, 250.0, 1100.0, 100.0, 0.09);
+        ClimbEffortResponse strongest = new ClimbEffortResponse(
+                4L, 5L, "race.gpx", 6L, LocalDateTime.now(), 305.0, 320.0, 1100.0, 100.0, 0.09);
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+        given(climbHistoryService.getClimbRecords(7L, 100L, 3))
+                .willReturn(new ClimbRecordsResponse(7L, 12L, List.of(fastest), List.of(strongest)));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/climbs/7/records")
+                        .header("Authorization", "Bearer " + token)
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.effortCount").value(12))
+                .andExpect(jsonPath("$.fastest[0].durationSeconds").value(298.0))
+                .andExpect(jsonPath("$.mostPowerful[0].averagePowerWatts").value(320.0));
+    }
+
+    @Test
+    void shouldReturnAllTimeAndRecentBestPowerForUser() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+        given(powerCurveService.getUserPowerCurve(100L))
+                .willReturn(new UserPowerCurveResponse(
+                        100L,
+                        List.of(new PowerCurve.Point(1, 950), new PowerCurve.Point(1200, 290)),
+                        90,
+                        List.of(new PowerCurve.Point(1, 880))));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/power-curve").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.allTime[1].watts").value(290))
+                .andExpect(jsonPath("$.recentDays").value(90))
+                .andExpect(jsonPath("$.recent[0].watts").value(880));
+    }
+
+    @Test
+    void shouldReturnTimeInZonesForUserOverDateRange() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        LocalDate fromDate = LocalDate.of(2024, 5, 1);
+        LocalDate toDate = LocalDate.of(2024, 5, 31);
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+        given(gpxAnalysisService.getUserTimeInZones(100L, fromDate, toDate))
+                .willReturn(new UserTimeInZonesResponse(
+                        100L,
+                        fromDate,
+                        toDate,
+                        new long[] {0, 3600, 0, 600, 0, 0, 0},
+                        new long[] {0, 0, 0, 0, 0},
+                        5,
+                        new long[] {0, 3000},
+                        new long[0]));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/time-in-zones")
+                        .param("fromDate", "2024-05-01")
+                        .param("toDate", "2024-05-31")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.powerZoneSeconds[1]").value(3600))
+                .andExpect(jsonPath("$.powerBinWatts").value(5))
+                .andExpect(jsonPath("$.powerHistogramSeconds[1]").value(3000));
+    }
+
+    @Test
+    void shouldReturn404WhenClimbBelongsToAnotherUser() throws Exception {
+        // given
+        String token = "test-jwt-token";
+        given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(100L);
+        given(climbHistoryService.getClimbEfforts(7L, 100L)).willThrow(new CanonicalClimbNotFoundException(7L));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/user/climbs/7/efforts").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
     }
 }
@@ -0,0 +1,104 @@
+package com.mycyclecoach.feature.gpxanalysis.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mycyclecoach.config.JwtConfig;
+import com.mycyclecoach.feature.auth.security.JwtAuthenticationFilter;
+import com.mycyclecoach.feature.auth.security.JwtTokenProvider;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobNotFoundException;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisJobStatus;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisQueueFullException;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisJobService;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(GpxAnalysisJobController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class GpxAnalysisJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private GpxAnalysisJobService gpxAnalysisJobService;
+
+    @MockitoBean
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockitoBean
+    private JwtConfig jwtConfig;
+
+    @MockitoBean
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Test
+    void shouldReturn202WithLocationWhenGpxFileIsQueued() throws Exception {
+        // given
+        MockMultipartFile file = new MockMultipartFile("file", "ride.gpx", "application/gpx+xml", "<gpx/>".getBytes());
+        GpxAnalysisJobResponse job = new GpxAnalysisJobResponse(
+                5L, "ride.gpx", GpxAnalysisJobStatus.QUEUED, null, null, LocalDateTime.now(), null);
+
+        given(gpxAnalysisJobService.submitAnalysis(any(), eq(100L))).willReturn(job);
+
+        // when / then
+        mockMvc.perform(multipart("/api/v1/gpx/jobs").file(file).param("userId", "100"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/gpx/jobs/5"))
+                .andExpect(jsonPath("$.jobId").value(5))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void shouldReturn429WhenAnalysisQueueIsFull() throws Exception {
+        // given
+        MockMultipartFile file = new MockMultipartFile("file", "ride.gpx", "application/gpx+xml", "<gpx/>".getBytes());
+
+        given(gpxAnalysisJobService.submitAnalysis(any(), eq(100L))).willThrow(new GpxAnalysisQueueFullException());
+
+        // when / then
+        mockMvc.perform(multipart("/api/v1/gpx/jobs").file(file).param("userId", "100"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void shouldReturn200WhenGettingJobStatus() throws Exception {
+        // given
+        GpxAnalysisJobResponse job = new GpxAnalysisJobResponse(
+                5L, "ride.gpx", GpxAnalysisJobStatus.COMPLETED, 9L, null, LocalDateTime.now(), LocalDateTime.now());
+
+        given(gpxAnalysisJobService.getJob(5L)).willReturn(job);
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/jobs/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.gpxFileId").value(9));
+    }
+
+    @Test
+    void shouldReturn404WhenJobDoesNotExist() throws Exception {
+        // given
+        given(gpxAnalysisJobService.getJob(99L)).willThrow(new GpxAnalysisJobNotFoundException(99L));
+
+        // when / then
+        mockMvc.perform(get("/api/v1/gpx/jobs/99")).andExpect(status().isNotFound());
+    }
+}
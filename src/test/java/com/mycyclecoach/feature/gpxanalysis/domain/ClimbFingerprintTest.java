@@ -0,0 +1,61 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ClimbFingerprintTest {
+
+    private static final ClimbFingerprint CLIMB = new ClimbFingerprint(51.5, -0.1, 51.51, -0.1, 1100, 100);
+
+    @Test
+    void shouldMatchWhenEndsMovedWithinRadiusAndLengthAndGainAreClose() {
+        // given
+        ClimbFingerprint laterRide = new ClimbFingerprint(51.5008, -0.1005, 51.5097, -0.0995, 1010, 88);
+
+        // when / then
+        assertThat(CLIMB.matches(laterRide)).isTrue();
+        assertThat(laterRide.matches(CLIMB)).isTrue();
+    }
+
+    @Test
+    void shouldNotMatchWhenRiddenInOppositeDirection() {
+        // given
+        ClimbFingerprint descent = new ClimbFingerprint(51.51, -0.1, 51.5, -0.1, 1100, 100);
+
+        // when / then
+        assertThat(CLIMB.matches(descent)).isFalse();
+    }
+
+    @Test
+    void shouldNotMatchWhenClimbStopsPartWayUp() {
+        // given
+        ClimbFingerprint shorter = new ClimbFingerprint(51.5, -0.1, 51.505, -0.1, 550, 50);
+
+        // when / then
+        assertThat(CLIMB.matches(shorter)).isFalse();
+    }
+
+    @Test
+    void shouldNotMatchWhenGainDiffersBeyondTolerance() {
+        // given
+        ClimbFingerprint steeper = new ClimbFingerprint(51.5, -0.1, 51.51, -0.1, 1100, 160);
+
+        // when / then
+        assertThat(CLIMB.matches(steeper)).isFalse();
+    }
+
+    @Test
+    void shouldProbeNeighbouringCellWhenMatchingClimbStartsAcrossCellEdge() {
+        // given
+        double edge = Math.floor(51.5 / Geohash.cellHeight(ClimbFingerprint.CELL_BITS) + 1)
+                * Geohash.cellHeight(ClimbFingerprint.CELL_BITS);
+        ClimbFingerprint below = new ClimbFingerprint(edge - 0.0002, -0.1, 51.51, -0.1, 1100, 100);
+        ClimbFingerprint above = new ClimbFingerprint(edge + 0.0002, -0.1, 51.51, -0.1, 1100, 100);
+
+        // when / then
+        assertThat(below.startCell()).isNotEqualTo(above.startCell());
+        assertThat(below.matches(above)).isTrue();
+        assertThat(below.startCells()).contains(below.startCell(), above.startCell());
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DistanceKernelTest {
+
+    @Test
+    void shouldComputeHaversineSegmentDistancesWhenUsingScalarKernel() {
+        // given
+        double[] latitudes = {Math.toRadians(0.0), Math.toRadians(1.0), Math.toRadians(1.0)};
+        double[] longitudes = {Math.toRadians(0.0), Math.toRadians(0.0), Math.toRadians(1.0)};
+        double[] distances = new double[3];
+
+        // when
+        DistanceKernel.scalar().segmentDistances(latitudes, longitudes, distances, 3);
+
+        // then
+        assertThat(distances[0]).isZero();
+        assertThat(distances[1]).isCloseTo(111_194.93, within(0.01));
+        assertThat(distances[2]).isCloseTo(111_177.99, within(0.01));
+    }
+
+    @Test
+    void shouldMatchScalarKernelWhenUsingBestKernel() {
+        // given
+        int size = 10_007;
+        Random random = new Random(42);
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 1; i < size; i++) {
+            latitudes[i] = latitudes[i - 1] + random.nextGaussian() * 1e-4;
+            longitudes[i] = longitudes[i - 1] + random.nextGaussian() * 1e-4;
+        }
+        double[] expectedRadians = new double[size];
+        double[] expectedDistances = new double[size];
+        DistanceKernel.scalar().toRadians(latitudes, expectedRadians, size);
+        DistanceKernel.scalar().toRadians(longitudes, longitudes, size);
+        DistanceKernel.scalar().segmentDistances(expectedRadians, longitudes, expectedDistances, size);
+
+        double[] radians = new double[size];
+        double[] distances = new double[size];
+
+        // when
+        DistanceKernel.best().toRadians(latitudes, radians, size);
+        DistanceKernel.best().segmentDistances(radians, longitudes, distances, size);
+
+        // then
+        assertThat(radians).containsExactly(expectedRadians);
+        for (int i = 0; i < size; i++) {
+            assertThat(distances[i]).isCloseTo(expectedDistances[i], within(1e-9));
+        }
+    }
+
+    @Test
+    void shouldLeaveDistancesUntouchedWhenTrackIsEmpty() {
+        // given
+        double[] distances = {-1.0};
+
+        // when
+        DistanceKernel.best().segmentDistances(new double[0], new double[0], distances, 0);
+
+        // then
+        assertThat(distances[0]).isEqualTo(-1.0);
+    }
+
+    @Test
+    void shouldMatchPublishedGeodesicWhenUsingVincentyKernel() {
+        // given Flinders Peak to Buninyong, Vincenty's own worked example
+        double[] latitudes = {Math.toRadians(-37.95103341666667), Math.toRadians(-37.65282113888889)};
+        double[] longitudes = {Math.toRadians(144.42486788888888), Math.toRadians(143.92649552777777)};
+        double[] distances = new double[2];
+
+        // when
+        DistanceMode.VINCENTY.kernel().segmentDistances(latitudes, longitudes, distances, 2);
+
+        // then
+        assertThat(distances[1]).isCloseTo(54_972.271, within(0.001));
+    }
+
+    @Test
+    void shouldStayWithinDocumentedErrorOfVincentyWhenUsingCheapRuler() {
+        // given
+        Random random = new Random(7);
+        double[] latitudes = new double[2];
+        double[] longitudes = new double[2];
+        double[] cheapRuler = new double[2];
+        double[] vincenty = new double[2];
+        double worst = 0.0;
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            double length = 10 + random.nextDouble() * 990;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            latitudes[0] = Math.toRadians(random.nextDouble() * 140 - 70);
+            latitudes[1] = latitudes[0] + length / 6_371_000 * Math.cos(bearing);
+            longitudes[1] = length / 6_371_000 * Math.sin(bearing) / Math.cos(latitudes[0]);
+            DistanceMode.CHEAP_RULER.kernel().segmentDistances(latitudes, longitudes, cheapRuler, 2);
+            DistanceMode.VINCENTY.kernel().segmentDistances(latitudes, longitudes, vincenty, 2);
+            worst = Math.max(worst, Math.abs(cheapRuler[1] - vincenty[1]) / vincenty[1]);
+        }
+
+        // then
+        assertThat(worst).isLessThan(1e-6);
+    }
+
+    @Test
+    void shouldWrapLongitudeWhenCheapRulerSegmentCrossesAntimeridian() {
+        // given
+        double[] latitudes = {0.0, 0.0};
+        double[] longitudes = {Math.toRadians(179.9999), Math.toRadians(-179.9999)};
+        double[] distances = new double[2];
+
+        // when
+        DistanceMode.CHEAP_RULER.kernel().segmentDistances(latitudes, longitudes, distances, 2);
+
+        // then
+        assertThat(distances[1]).isCloseTo(22.26, within(0.01));
+    }
+
+    @Test
+    void shouldNotSizeKnotsFromLatitudeWhenCheapRulerLatitudeIsOffTheGlobe() {
+        // given
+        double[][] latitudes = {
+            {0.0, Math.toRadians(1e7)},
+            {0.0, Double.POSITIVE_INFINITY},
+            {Double.NEGATIVE_INFINITY, 0.0},
+            {0.0, Double.NaN}
+        };
+        double[] longitudes = {0.0, Math.toRadians(0.001)};
+        double[] distances = new double[2];
+
+        // when / then
+        for (double[] pair : latitudes) {
+            DistanceMode.CHEAP_RULER.kernel().segmentDistances(pair, longitudes, distances, 2);
+            assertThat(distances[0]).isZero();
+        }
+    }
+
+    @Test
+    void shouldUseRequestedModeWhenBuildingTrackBuffer() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder()
+                .add(51.5000, -0.1000, 100, TrackBuffer.NO_TIME)
+                .add(51.5010, -0.1000, 100, TrackBuffer.NO_TIME);
+
+        // when
+        TrackBuffer haversine = builder.build(DistanceMode.HAVERSINE);
+        TrackBuffer cheapRuler = builder.build(DistanceMode.CHEAP_RULER);
+
+        // then
+        assertThat(haversine.totalDistance()).isCloseTo(111.19, within(0.01));
+        assertThat(cheapRuler.totalDistance()).isCloseTo(111.26, within(0.01));
+    }
+}
@@ -0,0 +1,91 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ElevationProfileTest {
+
+    @Test
+    void shouldKeepNarrowSummitWhenDownsampling() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 1000; i++) {
+            double elevation = 100 + 5 * Math.sin(i / 50.0) + (i == 613 ? 80 : 0);
+            builder.add(51.5 + i * 0.0001, -0.1, elevation, TrackBuffer.NO_TIME);
+        }
+
+        // when
+        int[] selected = LttbDownsampler.downsample(builder.build(DistanceMode.HAVERSINE), 20);
+
+        // then
+        assertThat(selected).hasSize(20).startsWith(0).endsWith(999).contains(613).isSorted();
+    }
+
+    @Test
+    void shouldSkipPointsWithoutElevationWhenDownsampling() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder().add(51.5, -0.1, Double.NaN, TrackBuffer.NO_TIME);
+        for (int i = 1; i < 10; i++) {
+            builder.add(51.5 + i * 0.001, -0.1, 100 + i, TrackBuffer.NO_TIME);
+        }
+        builder.add(51.51, -0.1, Double.NaN, TrackBuffer.NO_TIME);
+
+        // when
+        int[] selected = LttbDownsampler.downsample(builder.build(DistanceMode.HAVERSINE), 5);
+
+        // then
+        assertThat(selected).hasSize(5).startsWith(1).endsWith(9);
+    }
+
+    @Test
+    void shouldReturnEveryPointWhenTrackIsShorterThanRequested() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, TrackBuffer.NO_TIME)
+                .add(51.501, -0.1, 110, TrackBuffer.NO_TIME)
+                .add(51.502, -0.1, 105, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        ElevationProfile profile = ElevationProfile.of(track, List.of(), 300);
+
+        // then
+        assertThat(profile.elevationMeters()).containsExactly(100.0, 110.0, 105.0);
+        assertThat(profile.distanceMeters()[0]).isZero();
+        assertThat(profile.distanceMeters()[2]).isEqualTo(track.totalDistance());
+    }
+
+    @Test
+    void shouldPlaceClimbsOnDistanceAxisInTrackOrder() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 20; i++) {
+            builder.add(51.5 + i * 0.001, -0.1, 100 + i, TrackBuffer.NO_TIME);
+        }
+        TrackBuffer track = builder.build(DistanceMode.HAVERSINE);
+        Climb later = Climb.builder()
+                .id(2L)
+                .elevationGainMeters(5.0)
+                .averageGradient(0.05)
+                .startPointIndex(12)
+                .endPointIndex(17)
+                .build();
+        Climb earlier = Climb.builder()
+                .id(1L)
+                .elevationGainMeters(4.0)
+                .averageGradient(0.04)
+                .startPointIndex(2)
+                .endPointIndex(6)
+                .build();
+
+        // when
+        ElevationProfile profile = ElevationProfile.of(track, List.of(later, earlier), 10);
+
+        // then
+        assertThat(profile.climbs()).extracting(ElevationProfile.ProfileClimb::id).containsExactly(1L, 2L);
+        assertThat(profile.climbs().getFirst().startDistanceMeters()).isEqualTo(track.cumulativeDistance(2));
+        assertThat(profile.climbs().getFirst().endDistanceMeters()).isEqualTo(track.cumulativeDistance(6));
+    }
+}
@@ -1,6 +1,7 @@
 package com.mycyclecoach.feature.gpxanalysis.domain;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,11 +19,11 @@ class GpxAnalysisMapperTest {
     @Test
     void shouldMapClimbToClimbResponse() {
         // given
-        GpxFile gpxFile = GpxFile.builder().id(1L).filename("test.gpx").build();
+        GpxTrack gpxTrack = GpxTrack.builder().id(1L).build();
 
         Climb climb = Climb.builder()
                 .id(1L)
-                .gpxFile(gpxFile)
+                .track(gpxTrack)
                 .distanceMeters(500.0)
                 .elevationGainMeters(50.0)
                 .averageGradient(0.1)
@@ -46,34 +47,20 @@ class GpxAnalysisMapperTest {
     @Test
     void shouldMapGpxFileAndClimbsToGpxAnalysisResponse() {
         // given
-        String gpxContent =
-                """
-                <?xml version="1.0" encoding="UTF-8"?>
-                <gpx version="1.1" creator="Test">
-                  <trk>
-                    <name>Test Track</name>
-                    <trkseg>
-                      <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
-                      <trkpt lat="51.5010" lon="-0.1000"><ele>110</ele></trkpt>
-                      <trkpt lat="51.5020" lon="-0.1000"><ele>125</ele></trkpt>
-                      <trkpt lat="51.5030" lon="-0.1000"><ele>140</ele></trkpt>
-                    </trkseg>
-                  </trk>
-                </gpx>
-                """;
-
         GpxFile gpxFile = GpxFile.builder()
                 .id(1L)
                 .filename("test.gpx")
-                .content(gpxContent)
+                .track(GpxTrack.builder().content("<gpx/>").build())
                 .userId(100L)
+                .totalDistanceKm(12.3)
+                .estimatedRideTimeMinutes(30.5)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
 
         Climb climb = Climb.builder()
                 .id(1L)
-                .gpxFile(gpxFile)
+                .track(gpxFile.getTrack())
                 .distanceMeters(200.0)
                 .elevationGainMeters(40.0)
                 .averageGradient(0.2)
@@ -90,34 +77,21 @@ class GpxAnalysisMapperTest {
         assertThat(response.filename()).isEqualTo("test.gpx");
         assertThat(response.climbCount()).isEqualTo(1);
         assertThat(response.climbs()).hasSize(1);
-        assertThat(response.totalDistanceKm()).isGreaterThan(0.0);
-        assertThat(response.estimatedRideTimeMinutes()).isGreaterThan(0.0);
+        assertThat(response.totalDistanceKm()).isEqualTo(12.3);
+        assertThat(response.estimatedRideTimeMinutes()).isEqualTo(30.5);
         assertThat(response.uploadedAt()).isNotNull();
     }
 
     @Test
-    void shouldHandleGpxFileWithNoClimbs() {
+    void shouldNotParseContentWhenMappingGpxAnalysisResponse() {
         // given
-        String gpxContent =
-                """
-                <?xml version="1.0" encoding="UTF-8"?>
-                <gpx version="1.1" creator="Test">
-                  <trk>
-                    <name>Flat Track</name>
-                    <trkseg>
-                      <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
-                      <trkpt lat="51.5010" lon="-0.1000"><ele>100</ele></trkpt>
-                      <trkpt lat="51.5020" lon="-0.1000"><ele>100</ele></trkpt>
-                    </trkseg>
-                  </trk>
-                </gpx>
-                """;
-
         GpxFile gpxFile = GpxFile.builder()
                 .id(1L)
-                .filename("flat.gpx")
-                .content(gpxContent)
+                .filename("invalid.gpx")
+                .track(GpxTrack.builder().content("invalid xml content").build())
                 .userId(100L)
+                .totalDistanceKm(5.0)
+                .estimatedRideTimeMinutes(12.0)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
@@ -126,34 +100,117 @@ class GpxAnalysisMapperTest {
         GpxAnalysisResponse response = gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, List.of());
 
         // then
-        assertThat(response).isNotNull();
-        assertThat(response.gpxFileId()).isEqualTo(1L);
-        assertThat(response.filename()).isEqualTo("flat.gpx");
         assertThat(response.climbCount()).isEqualTo(0);
         assertThat(response.climbs()).isEmpty();
-        assertThat(response.totalDistanceKm()).isGreaterThan(0.0);
-        assertThat(response.estimatedRideTimeMinutes()).isGreaterThan(0.0);
+        assertThat(response.totalDistanceKm()).isEqualTo(5.0);
+        assertThat(response.estimatedRideTimeMinutes()).isEqualTo(12.0);
     }
 
     @Test
-    void shouldHandleInvalidGpxContent() {
+    void shouldMapGpxAnalysisJobToGpxAnalysisJobResponse() {
         // given
-        GpxFile gpxFile = GpxFile.builder()
-                .id(1L)
-                .filename("invalid.gpx")
-                .content("invalid xml content")
+        GpxAnalysisJob job = GpxAnalysisJob.builder()
+                .id(5L)
                 .userId(100L)
+                .filename("ride.gpx")
+                .status(GpxAnalysisJobStatus.FAILED)
+                .payload("<gpx/>".getBytes())
+                .errorMessage("No waypoints found in GPX file")
                 .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
                 .build();
 
         // when
-        GpxAnalysisResponse response = gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, List.of());
+        GpxAnalysisJobResponse response = gpxAnalysisMapper.toGpxAnalysisJobResponse(job);
 
         // then
-        assertThat(response).isNotNull();
-        assertThat(response.gpxFileId()).isEqualTo(1L);
-        assertThat(response.totalDistanceKm()).isEqualTo(0.0);
-        assertThat(response.estimatedRideTimeMinutes()).isEqualTo(0.0);
+        assertThat(response.jobId()).isEqualTo(5L);
+        assertThat(response.status()).isEqualTo(GpxAnalysisJobStatus.FAILED);
+        assertThat(response.errorMessage()).isEqualTo("No waypoints found in GPX file");
+        assertThat(response.gpxFileId()).isNull();
+    }
+
+    @Test
+    void shouldCalculateRouteMetricsWhenTrackContainsClimb() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5000, -0.1000, 100, TrackBuffer.NO_TIME)
+                .add(51.5010, -0.1000, 110, TrackBuffer.NO_TIME)
+                .add(51.5020, -0.1000, 125, TrackBuffer.NO_TIME)
+                .add(51.5030, -0.1000, 140, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        Climb climb = Climb.builder()
+                .distanceMeters(333.0)
+                .elevationGainMeters(40.0)
+                .averageGradient(0.12)
+                .startPointIndex(0)
+                .endPointIndex(3)
+                .build();
+
+        // when
+        RouteMetrics metrics = gpxAnalysisMapper.calculateRouteMetrics(track, List.of(climb));
+
+        // then
+        assertThat(metrics.totalDistanceKm()).isCloseTo(0.3336, within(0.001));
+        assertThat(metrics.estimatedRideTimeMinutes()).isEqualTo(2.5);
+    }
+
+    @Test
+    void shouldCalculateSameRouteMetricsWhenClimbsAreUnsorted() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add(51.5 + i * 0.0009, -0.1, 100 + i, TrackBuffer.NO_TIME);
+        }
+        TrackBuffer track = builder.build(DistanceMode.HAVERSINE);
+
+        Climb steep = Climb.builder()
+                .averageGradient(0.08)
+                .startPointIndex(10)
+                .endPointIndex(30)
+                .build();
+        Climb moderate = Climb.builder()
+                .averageGradient(0.03)
+                .startPointIndex(30)
+                .endPointIndex(60)
+                .build();
+
+        // when
+        RouteMetrics sorted = gpxAnalysisMapper.calculateRouteMetrics(track, List.of(steep, moderate));
+        RouteMetrics unsorted = gpxAnalysisMapper.calculateRouteMetrics(track, List.of(moderate, steep));
+
+        // then
+        assertThat(unsorted).isEqualTo(sorted);
+        assertThat(sorted.estimatedRideTimeMinutes()).isEqualTo(39.8);
+    }
+
+    @Test
+    void shouldCalculateRouteMetricsWhenTrackIsFlat() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5000, -0.1000, 100, TrackBuffer.NO_TIME)
+                .add(51.5010, -0.1000, 100, TrackBuffer.NO_TIME)
+                .add(51.5020, -0.1000, 100, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        RouteMetrics metrics = gpxAnalysisMapper.calculateRouteMetrics(track, List.of());
+
+        // then
+        assertThat(metrics.totalDistanceKm()).isGreaterThan(0.0);
+        assertThat(metrics.estimatedRideTimeMinutes()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldReturnZeroMetricsWhenTrackHasSinglePoint() {
+        // given
+        TrackBuffer track =
+                TrackBuffer.builder().add(51.5, -0.1, 100, TrackBuffer.NO_TIME).build(DistanceMode.HAVERSINE);
+
+        // when
+        RouteMetrics metrics = gpxAnalysisMapper.calculateRouteMetrics(track, List.of());
+
+        // then
+        assertThat(metrics).isEqualTo(RouteMetrics.EMPTY);
     }
 }
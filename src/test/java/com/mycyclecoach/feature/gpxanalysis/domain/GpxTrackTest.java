@@ -0,0 +1,42 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.Test;
+
+class GpxTrackTest {
+
+    @Test
+    void shouldLeaveReferenceCountOutOfFlushWhenBackfillUpdatesLoadedTrack() {
+        // given: the mapping Hibernate flushes a dirty track with, built without a database connection
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, PostgreSQLDialect.class.getName())
+                .applySetting(AvailableSettings.ALLOW_METADATA_ON_BOOT, false)
+                .build();
+
+        try (SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) new MetadataSources(registry)
+                .addAnnotatedClass(GpxTrack.class)
+                .buildMetadata()
+                .buildSessionFactory()) {
+            // when
+            EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(GpxTrack.class);
+            boolean[] updatable = persister.getPropertyUpdateability();
+            int referenceCount = Arrays.asList(persister.getPropertyNames()).indexOf("referenceCount");
+            int trackData = Arrays.asList(persister.getPropertyNames()).indexOf("trackData");
+
+            // then: a share that increments the count between a backfill's load and flush is not overwritten
+            assertThat(updatable[referenceCount]).isFalse();
+            assertThat(updatable[trackData]).isTrue();
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+}
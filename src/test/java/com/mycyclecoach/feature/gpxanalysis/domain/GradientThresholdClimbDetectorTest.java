@@ -0,0 +1,46 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GradientThresholdClimbDetectorTest {
+
+    private final GradientThresholdClimbDetector climbDetector =
+            new GradientThresholdClimbDetector(new GpxAnalysisConfig());
+
+    @Test
+    void shouldDetectClimbWhenRampIsClean() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i <= 40; i++) {
+            builder.add(51.5 + i * 0.00009, -0.1, 100 + Math.max(0, Math.min(i - 10, 20)), TrackBuffer.NO_TIME);
+        }
+
+        // when
+        List<Climb> climbs = climbDetector.detect(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(climbs).hasSize(1);
+        assertThat(climbs.get(0).getStartPointIndex()).isEqualTo(10);
+        assertThat(climbs.get(0).getEndPointIndex()).isEqualTo(30);
+        assertThat(climbs.get(0).getElevationGainMeters()).isEqualTo(20.0);
+        assertThat(climbs.get(0).getDistanceMeters()).isCloseTo(200.0, within(1.0));
+    }
+
+    @Test
+    void shouldMissNoisyClimbThatHysteresisDetectorFinds() throws IOException {
+        // given
+        TrackBuffer track = HysteresisClimbDetectorTest.readTrack("noisy-single-climb.gpx");
+
+        // when
+        List<Climb> climbs = climbDetector.detect(track);
+
+        // then
+        assertThat(climbs).isEmpty();
+    }
+}
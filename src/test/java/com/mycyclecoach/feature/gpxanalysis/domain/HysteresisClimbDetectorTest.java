@@ -0,0 +1,107 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.parser.GpxStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HysteresisClimbDetectorTest {
+
+    private final GpxAnalysisConfig gpxAnalysisConfig = new GpxAnalysisConfig();
+
+    private final HysteresisClimbDetector climbDetector = new HysteresisClimbDetector(gpxAnalysisConfig);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"noisy-single-climb", "false-flat", "two-climbs", "noisy-flat", "short-kicker"})
+    void shouldMatchGoldenClimbsWhenDetectingCorpusTrack(String name) throws IOException {
+        // given
+        TrackBuffer track = readTrack(name + ".gpx");
+        List<String[]> expected = readExpected(name + ".csv");
+
+        // when
+        List<Climb> climbs = climbDetector.detect(track);
+
+        // then
+        assertThat(climbs).hasSameSizeAs(expected);
+        for (int i = 0; i < climbs.size(); i++) {
+            Climb climb = climbs.get(i);
+            String[] row = expected.get(i);
+            assertThat(climb.getStartPointIndex()).isEqualTo(Integer.parseInt(row[0]));
+            assertThat(climb.getEndPointIndex()).isEqualTo(Integer.parseInt(row[1]));
+            assertThat(climb.getDistanceMeters()).isCloseTo(Double.parseDouble(row[2]), within(0.5));
+            assertThat(climb.getElevationGainMeters()).isCloseTo(Double.parseDouble(row[3]), within(0.5));
+            assertThat(climb.getAverageGradient())
+                    .isCloseTo(climb.getElevationGainMeters() / climb.getDistanceMeters(), within(1e-9));
+        }
+    }
+
+    @Test
+    void shouldSplitClimbWhenFalseFlatIsLongerThanConfiguredLimit() throws IOException {
+        // given
+        gpxAnalysisConfig.getClimbDetection().setMaxFalseFlatMeters(100.0);
+        TrackBuffer track = readTrack("false-flat.gpx");
+
+        // when
+        List<Climb> climbs = climbDetector.detect(track);
+
+        // then
+        assertThat(climbs).hasSize(2);
+        assertThat(climbs.get(0).getEndPointIndex()).isLessThan(climbs.get(1).getStartPointIndex());
+    }
+
+    @Test
+    void shouldDiscardClimbWhenElevationGainIsBelowConfiguredMinimum() throws IOException {
+        // given
+        gpxAnalysisConfig.getClimbDetection().setMinElevationGainMeters(100.0);
+        TrackBuffer track = readTrack("noisy-single-climb.gpx");
+
+        // when
+        List<Climb> climbs = climbDetector.detect(track);
+
+        // then
+        assertThat(climbs).isEmpty();
+    }
+
+    @Test
+    void shouldReturnNoClimbsWhenTrackHasNoElevation() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 50; i++) {
+            builder.add(51.5 + i * 0.00009, -0.1, Double.NaN, TrackBuffer.NO_TIME);
+        }
+
+        // when
+        List<Climb> climbs = climbDetector.detect(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(climbs).isEmpty();
+    }
+
+    static TrackBuffer readTrack(String name) throws IOException {
+        try (InputStream inputStream = open(name)) {
+            return GpxStreamReader.readTrack(inputStream, DistanceMode.HAVERSINE);
+        }
+    }
+
+    private static List<String[]> readExpected(String name) throws IOException {
+        try (InputStream inputStream = open(name)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)
+                    .lines()
+                    .skip(1)
+                    .map(line -> line.split(","))
+                    .toList();
+        }
+    }
+
+    private static InputStream open(String name) {
+        return HysteresisClimbDetectorTest.class.getResourceAsStream("/gpx/climbs/" + name);
+    }
+}
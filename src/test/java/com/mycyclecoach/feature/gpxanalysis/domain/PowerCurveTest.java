@@ -0,0 +1,141 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class PowerCurveTest {
+
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    void shouldFindBestWindowOfEachDurationWhenRideHasSurge() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 600; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 1000L, i >= 270 && i < 330 ? 400 : 200, 140, 90);
+        }
+
+        // when
+        PowerCurve curve = PowerCurve.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(curve.points())
+                .hasSize(17)
+                .contains(
+                        new PowerCurve.Point(1, 400),
+                        new PowerCurve.Point(60, 400),
+                        new PowerCurve.Point(120, 300),
+                        new PowerCurve.Point(600, 220));
+    }
+
+    @Test
+    void shouldHoldSamplesAcrossShortGapsAndCountLongStopsAsZero() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 12; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 5000L, 300, 140, 90);
+        }
+        // A ten minute stop, then a minute at 300 W
+        long restart = START_MILLIS + 11 * 5000L + 600_000L;
+        for (int i = 0; i < 60; i++) {
+            builder.add(51.5, -0.1, 100, restart + i * 1000L, 300, 140, 90);
+        }
+
+        // when
+        PowerCurve curve = PowerCurve.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(curve.points())
+                .contains(new PowerCurve.Point(45, 300), new PowerCurve.Point(90, 200))
+                .last()
+                .isEqualTo(new PowerCurve.Point(600, 30));
+    }
+
+    @Test
+    void shouldKeepOneSamplePerSecondWhenTrackIsRecordedFasterThanOneHertz() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        // Two minutes at 4 Hz, starting mid-second; only the first sample of each second is above 100 W
+        for (int i = 0; i < 480; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + 300L + i * 250L, i % 4 == 0 ? 300 : 100, 140, 90);
+        }
+
+        // when
+        PowerCurve curve = PowerCurve.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(curve.points())
+                .hasSize(12)
+                .contains(new PowerCurve.Point(1, 300))
+                .last()
+                .isEqualTo(new PowerCurve.Point(120, 300));
+    }
+
+    @Test
+    void shouldBeEmptyWhenTrackHasNoPowerOrNoTimes() {
+        // given
+        TrackBuffer withoutPower = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, START_MILLIS)
+                .add(51.501, -0.1, 100, START_MILLIS + 1000L)
+                .build(DistanceMode.HAVERSINE);
+        TrackBuffer withoutTimes = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, TrackBuffer.NO_TIME, 250, 140, 90)
+                .add(51.501, -0.1, 100, TrackBuffer.NO_TIME, 250, 140, 90)
+                .build(DistanceMode.HAVERSINE);
+
+        // when / then
+        assertThat(PowerCurve.of(withoutPower).isEmpty()).isTrue();
+        assertThat(PowerCurve.of(withoutTimes).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldMergeElementWiseAndReportWhetherCurveImprovesAnother() {
+        // given
+        PowerCurve sprint = steady(30, 500);
+        PowerCurve endurance = steady(3600, 250);
+
+        // when
+        PowerCurve merged = sprint.max(endurance);
+
+        // then
+        assertThat(merged.points()).hasSize(endurance.points().size());
+        assertThat(merged.points().getFirst()).isEqualTo(new PowerCurve.Point(1, 500));
+        assertThat(merged.points().getLast()).isEqualTo(new PowerCurve.Point(3600, 250));
+        assertThat(sprint.improves(endurance)).isTrue();
+        assertThat(endurance.improves(sprint)).isTrue();
+        assertThat(sprint.improves(merged)).isFalse();
+        assertThat(PowerCurve.EMPTY.improves(sprint)).isFalse();
+    }
+
+    @Test
+    void shouldRoundTripEncodedCurve() {
+        // given
+        PowerCurve curve = steady(7200, 210);
+
+        // when
+        byte[] encoded = curve.encode();
+
+        // then
+        assertThat(encoded.length).isLessThan(64);
+        assertThat(PowerCurve.decode(encoded).points()).isEqualTo(curve.points());
+        assertThat(PowerCurve.decode(PowerCurve.EMPTY.encode()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldRejectCurveWhenFormatVersionIsUnknown() {
+        // when / then
+        assertThatThrownBy(() -> PowerCurve.decode(new byte[] {9, 0}))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("format version 9");
+    }
+
+    private static PowerCurve steady(int seconds, int watts) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < seconds; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 1000L, watts, TrackBuffer.NO_SAMPLE, TrackBuffer.NO_SAMPLE);
+        }
+        return PowerCurve.of(builder.build(DistanceMode.HAVERSINE));
+    }
+}
@@ -0,0 +1,100 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class RideLoadTest {
+
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    void shouldScoreHundredWhenRiddenAtFtpForAnHour() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 3600; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 1000L, 250, 140, 90);
+        }
+
+        // when
+        RideLoad load = RideLoad.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(load.movingSeconds()).isEqualTo(3600);
+        assertThat(load.normalizedPowerWatts()).isCloseTo(250.0, within(1e-9));
+        assertThat(load.intensityFactor(250)).isCloseTo(1.0, within(1e-9));
+        assertThat(load.trainingStressScore(250)).isCloseTo(100.0, within(1e-6));
+    }
+
+    @Test
+    void shouldWeightSurgesAboveAveragePowerWhenPowerVaries() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 1200; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 1000L, (i / 60) % 2 == 0 ? 400 : 100, 140, 90);
+        }
+
+        // when
+        RideLoad load = RideLoad.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(load.normalizedPowerWatts()).isCloseTo(315.6, within(0.1));
+        assertThat(load.trainingStressScore(300)).isCloseTo(36.9, within(0.1));
+    }
+
+    @Test
+    void shouldHoldSamplesAcrossShortGapsAndSkipPauses() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 360; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 5000L, 200, 140, 90);
+        }
+        // An hour's pause, then another half hour at 200 W
+        long restart = START_MILLIS + 359 * 5000L + 3_600_000L;
+        for (int i = 0; i < 360; i++) {
+            builder.add(51.5, -0.1, 100, restart + i * 5000L, 200, 140, 90);
+        }
+
+        // when
+        RideLoad load = RideLoad.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(load.movingSeconds()).isEqualTo(2 * (1 + 359 * 5));
+        assertThat(load.normalizedPowerWatts()).isCloseTo(200.0, within(1e-9));
+    }
+
+    @Test
+    void shouldCountEachSecondOnceWhenTrackIsRecordedFasterThanOneHertz() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        // An hour at FTP recorded at 4 Hz
+        for (int i = 0; i < 4 * 3600; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 250L, 300, 140, 90);
+        }
+
+        // when
+        RideLoad load = RideLoad.of(builder.build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(load.movingSeconds()).isEqualTo(3600);
+        assertThat(load.trainingStressScore(300)).isCloseTo(100.0, within(1e-9));
+    }
+
+    @Test
+    void shouldBeEmptyWhenTrackHasNoPowerOrIsShorterThanRollingWindow() {
+        // given
+        TrackBuffer withoutPower = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, START_MILLIS)
+                .add(51.501, -0.1, 100, START_MILLIS + 60_000L)
+                .build(DistanceMode.HAVERSINE);
+        TrackBuffer.Builder shortRide = TrackBuffer.builder();
+        for (int i = 0; i < 29; i++) {
+            shortRide.add(51.5, -0.1, 100, START_MILLIS + i * 1000L, 300, 140, 90);
+        }
+
+        // when / then
+        assertThat(RideLoad.of(withoutPower).isEmpty()).isTrue();
+        assertThat(RideLoad.of(shortRide.build(DistanceMode.HAVERSINE)).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import org.junit.jupiter.api.Test;
+
+class RideTimeEstimatorTest {
+
+    private final RideTimeEstimator rideTimeEstimator = new RideTimeEstimator(new GpxAnalysisConfig());
+
+    @Test
+    void shouldEstimateFlatRideTimeFromPowerBalance() {
+        // given
+        TrackBuffer track = straightTrack(0.0);
+
+        // when
+        double minutes = rideTimeEstimator.estimateMinutes(track, 75.0, 200);
+
+        // then
+        assertThat(track.totalDistance()).isCloseTo(10_007.5, within(0.1));
+        assertThat(minutes).isEqualTo(21.3);
+    }
+
+    @Test
+    void shouldTakeLongerWhenRiderIsHeavierOnClimb() {
+        // given
+        TrackBuffer track = straightTrack(0.06);
+
+        // when
+        double light = rideTimeEstimator.estimateMinutes(track, 75.0, 200);
+        double heavy = rideTimeEstimator.estimateMinutes(track, 95.0, 200);
+
+        // then
+        assertThat(light).isEqualTo(72.0);
+        assertThat(heavy).isGreaterThan(light);
+    }
+
+    @Test
+    void shouldTakeLessTimeWhenFtpIsHigher() {
+        // given
+        TrackBuffer track = straightTrack(0.06);
+
+        // when
+        double minutes = rideTimeEstimator.estimateMinutes(track, 75.0, 300);
+
+        // then
+        assertThat(minutes).isLessThan(rideTimeEstimator.estimateMinutes(track, 75.0, 200));
+    }
+
+    @Test
+    void shouldClampSpeedToConfiguredRange() {
+        // given
+        SpeedTable speedTable = rideTimeEstimator.speedTable(75.0, 200);
+
+        // when
+        double descent = speedTable.speedMetersPerSecond(-0.5);
+        double wall = speedTable.speedMetersPerSecond(0.5);
+
+        // then
+        assertThat(descent * 3.6).isCloseTo(55.0, within(1e-9));
+        assertThat(wall * 3.6).isCloseTo(4.0, within(1e-9));
+    }
+
+    @Test
+    void shouldReuseSpeedTableWhenRiderIsUnchanged() {
+        // when
+        SpeedTable first = rideTimeEstimator.speedTable(75.0, 200);
+        SpeedTable second = rideTimeEstimator.speedTable(75.04, 200);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(rideTimeEstimator.speedTable(75.0, 201)).isNotSameAs(first);
+    }
+
+    @Test
+    void shouldReturnZeroWhenTrackHasSinglePoint() {
+        // given
+        TrackBuffer track =
+                TrackBuffer.builder().add(51.5, -0.1, 100, TrackBuffer.NO_TIME).build(DistanceMode.HAVERSINE);
+
+        // when
+        double minutes = rideTimeEstimator.estimateMinutes(track, 75.0, 200);
+
+        // then
+        assertThat(minutes).isZero();
+    }
+
+    private static TrackBuffer straightTrack(double gradient) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i <= 100; i++) {
+            builder.add(51.5 + i * 0.0009, -0.1, 100 + i * 100 * gradient, TrackBuffer.NO_TIME);
+        }
+        return builder.build(DistanceMode.HAVERSINE);
+    }
+}
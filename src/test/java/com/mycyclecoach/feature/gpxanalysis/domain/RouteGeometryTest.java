@@ -0,0 +1,138 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class RouteGeometryTest {
+
+    @Test
+    void shouldRankEndpointsThenCornerFirstWhenTrackTurnsOnce() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i <= 10; i++) {
+            builder.add(51.5, -0.1 + i * 0.001, 100, TrackBuffer.NO_TIME);
+        }
+        for (int i = 1; i <= 10; i++) {
+            builder.add(51.5 + i * 0.001, -0.09, 100, TrackBuffer.NO_TIME);
+        }
+
+        // when
+        int[] ranked = RouteSimplifier.rank(builder.build(DistanceMode.HAVERSINE), 5);
+
+        // then
+        assertThat(ranked).hasSize(5).startsWith(0, 20, 10);
+    }
+
+    @Test
+    void shouldNestSmallerLevelsInsideLargerOnesWhenSimplifying() {
+        // given
+        TrackBuffer track = wigglyTrack(2000);
+        RouteGeometry geometry = RouteGeometry.of(track, 1000);
+
+        // when
+        double[][] coarse = geometry.coordinates(50);
+        double[][] fine = geometry.coordinates(200);
+
+        // then
+        assertThat(geometry.size()).isEqualTo(1000);
+        assertThat(coarse).hasNumberOfRows(50);
+        assertThat(fine).hasNumberOfRows(200);
+        assertThat(fine).contains(coarse);
+        assertThat(coarse[0]).containsExactly(track.longitude(0), track.latitude(0));
+        assertThat(coarse[49]).containsExactly(track.longitude(1999), track.latitude(1999));
+    }
+
+    @Test
+    void shouldKeepEveryPointWhenTrackIsSmallerThanLevel() {
+        // given
+        TrackBuffer track = wigglyTrack(30);
+
+        // when
+        RouteGeometry geometry = RouteGeometry.of(track, 50);
+
+        // then
+        assertThat(geometry.coordinates(50)).hasNumberOfRows(30);
+        assertThat(geometry.coordinates(1000)).hasNumberOfRows(30);
+    }
+
+    @Test
+    void shouldEncodeGooglePolylineWhenTrackMatchesReferenceExample() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(38.5, -120.2, 0, TrackBuffer.NO_TIME)
+                .add(40.7, -120.95, 0, TrackBuffer.NO_TIME)
+                .add(43.252, -126.453, 0, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        String polyline = RouteGeometry.of(track, 50).polyline(50);
+
+        // then
+        assertThat(polyline).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void shouldEncodeOnlyRequestedLevelWhenBuildingPolyline() {
+        // given
+        RouteGeometry geometry = RouteGeometry.of(wigglyTrack(2000), 1000);
+
+        // when
+        String coarse = geometry.polyline(50);
+        String fine = geometry.polyline(200);
+
+        // then
+        assertThat(coarse).isNotEmpty();
+        assertThat(fine.length()).isGreaterThan(coarse.length());
+        assertThat(RouteGeometry.of(TrackBuffer.builder().build(DistanceMode.HAVERSINE), 50).polyline(50)).isEmpty();
+    }
+
+    @Test
+    void shouldRoundTripGeometryWithinOneMeter() {
+        // given
+        RouteGeometry geometry = RouteGeometry.of(wigglyTrack(5000), 1000);
+
+        // when
+        byte[] encoded = geometry.encode();
+        RouteGeometry decoded = RouteGeometry.decode(encoded);
+
+        // then
+        assertThat(encoded.length).isLessThan(geometry.size() * 8);
+        double[][] expected = geometry.coordinates(200);
+        double[][] actual = decoded.coordinates(200);
+        assertThat(actual).hasNumberOfRows(200);
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(actual[i][0]).isCloseTo(expected[i][0], within(0.6e-5));
+            assertThat(actual[i][1]).isCloseTo(expected[i][1], within(0.6e-5));
+        }
+    }
+
+    @Test
+    void shouldRoundTripEmptyGeometry() {
+        // when
+        RouteGeometry decoded = RouteGeometry.decode(
+                RouteGeometry.of(TrackBuffer.builder().build(DistanceMode.HAVERSINE), 50).encode());
+
+        // then
+        assertThat(decoded.size()).isZero();
+        assertThat(decoded.coordinates(50)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectGeometryWhenFormatVersionIsUnknown() {
+        // when / then
+        assertThatThrownBy(() -> RouteGeometry.decode(new byte[] {9, 0}))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("format version 9");
+    }
+
+    private static TrackBuffer wigglyTrack(int points) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < points; i++) {
+            builder.add(51.5 + i * 0.0001, -0.1 + 0.002 * Math.sin(i / 37.0), 100, TrackBuffer.NO_TIME);
+        }
+        return builder.build(DistanceMode.HAVERSINE);
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TimeInZonesTest {
+
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    void shouldCountSecondsInZonesAndBinsWhenThresholdsAreKnown() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 60; i++) {
+            boolean easy = i < 30;
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 2000L, easy ? 100 : 260, easy ? 120 : 170, 90);
+        }
+
+        // when
+        TimeInZones zones = TimeInZones.of(builder.build(DistanceMode.HAVERSINE), 250, 190);
+
+        // then
+        assertThat(zones.powerZoneSeconds()).containsExactly(59, 0, 0, 60, 0, 0, 0);
+        assertThat(zones.heartRateZoneSeconds()).containsExactly(0, 59, 0, 60, 0);
+        assertThat(zones.powerHistogram()).hasSize(53);
+        assertThat(zones.powerHistogram()[20]).isEqualTo(59);
+        assertThat(zones.powerHistogram()[52]).isEqualTo(60);
+        assertThat(zones.heartRateHistogram()).hasSize(171);
+        assertThat(zones.heartRateHistogram()[120]).isEqualTo(59);
+        assertThat(zones.heartRateHistogram()[170]).isEqualTo(60);
+    }
+
+    @Test
+    void shouldKeepHistogramsButNoZonesWhenThresholdsAreUnknown() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 10; i++) {
+            builder.add(51.5, -0.1, 100, START_MILLIS + i * 1000L, 200, 140, 90);
+        }
+
+        // when
+        TimeInZones zones = TimeInZones.of(builder.build(DistanceMode.HAVERSINE), null, 0);
+
+        // then
+        assertThat(zones.powerZoneSeconds()).isNull();
+        assertThat(zones.heartRateZoneSeconds()).isNull();
+        assertThat(zones.powerHistogram()).hasSize(41).endsWith(10);
+        assertThat(zones.heartRateHistogram()).hasSize(141).endsWith(10);
+    }
+
+    @Test
+    void shouldCountEachSecondOnceWhenTrackIsRecordedFasterThanOneHertz() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        // A minute at 2 Hz, starting mid-second; the second sample of each second is an easier one
+        for (int i = 0; i < 120; i++) {
+            boolean first = i % 2 == 0;
+            builder.add(51.5, -0.1, 100, START_MILLIS + 500L + i * 500L, first ? 260 : 100, first ? 170 : 120, 90);
+        }
+
+        // when
+        TimeInZones zones = TimeInZones.of(builder.build(DistanceMode.HAVERSINE), 250, 190);
+
+        // then
+        assertThat(zones.powerZoneSeconds()).containsExactly(0, 0, 0, 60, 0, 0, 0);
+        assertThat(zones.heartRateZoneSeconds()).containsExactly(0, 0, 0, 60, 0);
+    }
+
+    @Test
+    void shouldSkipPausesAndSecondsWithoutHeartRate() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, START_MILLIS, 300, 150, 90)
+                .add(51.5, -0.1, 100, START_MILLIS + 5_000L, 300, TrackBuffer.NO_SAMPLE, 90)
+                // A ten minute pause counts a single second
+                .add(51.5, -0.1, 100, START_MILLIS + 605_000L, 300, 150, 90)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        TimeInZones zones = TimeInZones.of(track, 300, 200);
+
+        // then
+        assertThat(zones.powerZoneSeconds()).containsExactly(0, 0, 0, 7, 0, 0, 0);
+        assertThat(zones.heartRateZoneSeconds()).containsExactly(0, 0, 2, 0, 0);
+    }
+
+    @Test
+    void shouldBeEmptyWhenTrackHasNoSensorsOrNoTimes() {
+        // given
+        TrackBuffer withoutSensors = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, START_MILLIS)
+                .add(51.501, -0.1, 100, START_MILLIS + 1000L)
+                .build(DistanceMode.HAVERSINE);
+        TrackBuffer withoutTimes = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, TrackBuffer.NO_TIME, 250, 140, 90)
+                .add(51.501, -0.1, 100, TrackBuffer.NO_TIME, 250, 140, 90)
+                .build(DistanceMode.HAVERSINE);
+
+        // when / then
+        assertThat(TimeInZones.of(withoutSensors, 250, 190).isEmpty()).isTrue();
+        assertThat(TimeInZones.of(withoutTimes, 250, 190).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TrackBoundsIndexTest {
+
+    @Test
+    void shouldFindSameFilesAsLinearScanWhenUserHasManyFiles() {
+        // given
+        Random random = new Random(42);
+        List<GpxFileBounds> files = new ArrayList<>();
+        for (long id = 0; id < 5000; id++) {
+            double latitude = 50 + random.nextDouble() * 5;
+            double longitude = -3 + random.nextDouble() * 5;
+            files.add(bounds(id, latitude, longitude, latitude + random.nextDouble() * 0.5, longitude + 0.3));
+        }
+        TrackBoundsIndex index = TrackBoundsIndex.of(files);
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = 50 + random.nextDouble() * 5;
+            double longitude = -3 + random.nextDouble() * 5;
+            SearchArea area = query % 2 == 0
+                    ? new GeoBounds(latitude, longitude, latitude + 0.1, longitude + 0.2)
+                    : new GeoCircle(latitude, longitude, 5000);
+
+            // when
+            TrackBoundsIndex.Candidates candidates = index.candidates(area);
+
+            // then
+            List<GpxFileBounds> expected = files.stream()
+                    .filter(file -> area.intersects(
+                            file.minLatitude(), file.minLongitude(), file.maxLatitude(), file.maxLongitude()))
+                    .toList();
+            List<GpxFileBounds> found = new ArrayList<>(candidates.inside());
+            found.addAll(candidates.overlapping());
+            assertThat(found).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void shouldSeparateFilesInsideAreaFromThoseOverlappingIt() {
+        // given
+        GpxFileBounds inside = bounds(1L, 51.50, -0.12, 51.52, -0.10);
+        GpxFileBounds overlapping = bounds(2L, 51.55, -0.12, 51.70, -0.10);
+        GpxFileBounds outside = bounds(3L, 52.00, -0.12, 52.10, -0.10);
+        TrackBoundsIndex index = TrackBoundsIndex.of(List.of(inside, overlapping, outside));
+
+        // when
+        TrackBoundsIndex.Candidates candidates = index.candidates(new GeoBounds(51.4, -0.2, 51.6, 0.0));
+
+        // then
+        assertThat(candidates.inside()).containsExactly(inside);
+        assertThat(candidates.overlapping()).containsExactly(overlapping);
+    }
+
+    @Test
+    void shouldFindNothingWhenUserHasNoIndexedFiles() {
+        // when
+        TrackBoundsIndex.Candidates candidates =
+                TrackBoundsIndex.of(List.of()).candidates(new GeoCircle(51.5, -0.1, 1000));
+
+        // then
+        assertThat(candidates.inside()).isEmpty();
+        assertThat(candidates.overlapping()).isEmpty();
+    }
+
+    private static GpxFileBounds bounds(
+            Long id, double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 0);
+        return new GpxFileBounds(
+                id,
+                "ride" + id + ".gpx",
+                100L,
+                createdAt,
+                createdAt,
+                id,
+                minLatitude,
+                minLongitude,
+                maxLatitude,
+                maxLongitude);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class TrackBufferTest {
+
+    @Test
+    void shouldPrecomputeSegmentAndCumulativeDistancesWhenBuilt() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder()
+                .add(51.5000, -0.1000, 100, TrackBuffer.NO_TIME)
+                .add(51.5010, -0.1000, 110, TrackBuffer.NO_TIME)
+                .add(51.5020, -0.1000, 125, TrackBuffer.NO_TIME);
+
+        // when
+        TrackBuffer track = builder.build(DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.segmentDistance(0)).isZero();
+        assertThat(track.segmentDistance(1)).isCloseTo(111.19, within(0.01));
+        assertThat(track.cumulativeDistance(2)).isCloseTo(222.39, within(0.01));
+        assertThat(track.totalDistance()).isEqualTo(track.cumulativeDistance(2));
+        assertThat(track.latitudeRadians(0)).isEqualTo(Math.toRadians(51.5));
+    }
+
+    @Test
+    void shouldKeepAllPointsWhenBuilderGrowsBeyondInitialCapacity() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 5000; i++) {
+            builder.add(51.5 + i * 0.0001, -0.1, i, i * 1000L);
+        }
+
+        // when
+        TrackBuffer track = builder.build(DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(5000);
+        assertThat(track.elevation(4999)).isEqualTo(4999.0);
+        assertThat(track.epochMillis(4999)).isEqualTo(4_999_000L);
+    }
+
+    @Test
+    void shouldBackfillEarlierPointsWhenSensorChannelStartsMidTrack() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder()
+                .add(51.5, -0.1, Double.NaN, TrackBuffer.NO_TIME)
+                .add(51.6, -0.1, Double.NaN, TrackBuffer.NO_TIME, 200, TrackBuffer.NO_SAMPLE, TrackBuffer.NO_SAMPLE);
+
+        // when
+        TrackBuffer track = builder.build(DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.hasPower()).isTrue();
+        assertThat(track.power(0)).isEqualTo(TrackBuffer.NO_SAMPLE);
+        assertThat(track.power(1)).isEqualTo(200);
+        assertThat(track.hasHeartRate()).isFalse();
+        assertThat(track.heartRate(1)).isEqualTo(TrackBuffer.NO_SAMPLE);
+        assertThat(track.hasElevation(0)).isFalse();
+    }
+
+    @Test
+    void shouldReturnZeroDistanceWhenTrackIsEmpty() {
+        // when
+        TrackBuffer track = TrackBuffer.builder().build(DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.isEmpty()).isTrue();
+        assertThat(track.totalDistance()).isZero();
+    }
+}
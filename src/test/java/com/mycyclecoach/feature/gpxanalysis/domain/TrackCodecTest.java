@@ -0,0 +1,107 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class TrackCodecTest {
+
+    @Test
+    void shouldRoundTripTrackWhenAllChannelsArePresent() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5000001, -0.1000001, 100.25, 1_748_761_200_000L, 250, 140, 90)
+                .add(51.5000702, -0.0998902, 101.0, 1_748_761_201_000L, 260, 141, 91)
+                .add(51.4999000, -0.0997000, 99.5, 1_748_761_202_000L, 0, 142, 0)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        TrackBuffer decoded = TrackCodec.decode(TrackCodec.encode(track), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(decoded.size()).isEqualTo(3);
+        for (int i = 0; i < track.size(); i++) {
+            assertThat(decoded.latitude(i)).isCloseTo(track.latitude(i), within(1e-7));
+            assertThat(decoded.longitude(i)).isCloseTo(track.longitude(i), within(1e-7));
+            assertThat(decoded.elevation(i)).isCloseTo(track.elevation(i), within(0.05));
+            assertThat(decoded.epochMillis(i)).isEqualTo(track.epochMillis(i));
+            assertThat(decoded.power(i)).isEqualTo(track.power(i));
+            assertThat(decoded.heartRate(i)).isEqualTo(track.heartRate(i));
+            assertThat(decoded.cadence(i)).isEqualTo(track.cadence(i));
+        }
+    }
+
+    @Test
+    void shouldPreserveMissingValuesWhenPointsHaveGaps() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, Double.NaN, TrackBuffer.NO_TIME)
+                .add(51.6, -0.2, 120.0, 1_000L, TrackBuffer.NO_SAMPLE, 150, TrackBuffer.NO_SAMPLE)
+                .add(51.7, -0.3, Double.NaN, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        TrackBuffer decoded = TrackCodec.decode(TrackCodec.encode(track), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(decoded.hasElevation(0)).isFalse();
+        assertThat(decoded.elevation(1)).isEqualTo(120.0);
+        assertThat(decoded.hasElevation(2)).isFalse();
+        assertThat(decoded.hasTime(0)).isFalse();
+        assertThat(decoded.epochMillis(1)).isEqualTo(1_000L);
+        assertThat(decoded.hasPower()).isFalse();
+        assertThat(decoded.heartRate(0)).isEqualTo(TrackBuffer.NO_SAMPLE);
+        assertThat(decoded.heartRate(1)).isEqualTo(150);
+    }
+
+    @Test
+    void shouldUseFewBytesPerPointWhenTrackIsRecordedAtOneHertz() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 3600; i++) {
+            builder.add(51.5 + i * 0.00007, -0.1 + i * 0.00011, 100 + (i % 20) * 0.2, 1_748_761_200_000L + i * 1000L);
+        }
+        TrackBuffer track = builder.build(DistanceMode.HAVERSINE);
+
+        // when
+        byte[] encoded = TrackCodec.encode(track);
+
+        // then
+        assertThat(encoded.length).isLessThan(track.size() * 8);
+    }
+
+    @Test
+    void shouldRoundTripEmptyTrack() {
+        // when
+        TrackBuffer decoded = TrackCodec.decode(
+                TrackCodec.encode(TrackBuffer.builder().build(DistanceMode.HAVERSINE)), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(decoded.isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenDataIsTruncated() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, 1_000L)
+                .add(51.6, -0.2, 110, 2_000L)
+                .build(DistanceMode.HAVERSINE);
+        byte[] encoded = TrackCodec.encode(track);
+
+        // when / then
+        assertThatThrownBy(() -> TrackCodec.decode(Arrays.copyOf(encoded, encoded.length - 2), DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class);
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenFormatVersionIsUnknown() {
+        // when / then
+        assertThatThrownBy(() -> TrackCodec.decode(new byte[] {99, 0, 0}, DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("version 99");
+    }
+}
@@ -0,0 +1,105 @@
+package com.mycyclecoach.feature.gpxanalysis.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class TrackFootprintTest {
+
+    @Test
+    void shouldMatchGeohashReferenceWhenEncodingCell() {
+        // when
+        long cell = Geohash.cell(57.64911, 10.40744, 30);
+
+        // then: u4pruy is 11010 00100 10101 10111 11010 11110 under the leading marker bit
+        assertThat(Long.toBinaryString(cell)).isEqualTo("1110100010010101101111101011110");
+    }
+
+    @Test
+    void shouldKeepCellsOfDifferentDepthsApart() {
+        // when
+        long fine = Geohash.cell(51.5, -0.1, TrackFootprint.FINE_BITS);
+        long coarse = Geohash.cell(51.5, -0.1, TrackFootprint.COARSE_BITS);
+
+        // then
+        assertThat(fine >>> 10).isEqualTo(coarse);
+        assertThat(fine).isNotEqualTo(coarse);
+    }
+
+    @Test
+    void shouldCoverEveryCellAlongSparselyRecordedSegment() {
+        // given: two points 50 km apart with nothing in between
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.0, -1.0, 100, TrackBuffer.NO_TIME)
+                .add(51.45, -1.0, 100, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        TrackFootprint footprint = TrackFootprint.of(track);
+
+        // then
+        assertThat(footprint.bounds()).isEqualTo(new GeoBounds(51.0, -1.0, 51.45, -1.0));
+        assertThat(footprint.cells()).isSorted().doesNotHaveDuplicates();
+        for (double latitude = 51.0; latitude <= 51.45; latitude += 0.001) {
+            assertThat(footprint.cells()).contains(Geohash.cell(latitude, -1.0, TrackFootprint.FINE_BITS));
+        }
+        assertThat(footprint.cells()).contains(Geohash.cell(51.2, -1.0, TrackFootprint.COARSE_BITS));
+    }
+
+    @Test
+    void shouldRejectTrackBeforeSteppingWhenLatitudeIsOffTheGlobe() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.0, -1.0, 100, TrackBuffer.NO_TIME)
+                .add(1e7, -1.0, 100, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when / then
+        assertThatThrownBy(() -> TrackFootprint.of(track))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("latitude");
+    }
+
+    @Test
+    void shouldHaveNoBoundsOrCellsWhenTrackIsEmpty() {
+        // when
+        TrackFootprint footprint = TrackFootprint.of(TrackBuffer.builder().build(DistanceMode.HAVERSINE));
+
+        // then
+        assertThat(footprint.bounds()).isNull();
+        assertThat(footprint.cells()).isEmpty();
+    }
+
+    @Test
+    void shouldCoverOnlyCellsTouchingCircle() {
+        // given
+        GeoCircle circle = new GeoCircle(51.5, -0.1, 500);
+
+        // when
+        long[] cells = Geohash.cover(circle, TrackFootprint.FINE_BITS, 1024);
+
+        // then
+        assertThat(cells).contains(Geohash.cell(51.5, -0.1, TrackFootprint.FINE_BITS));
+        assertThat(cells).doesNotContain(Geohash.cell(51.52, -0.1, TrackFootprint.FINE_BITS));
+        assertThat(cells.length).isLessThan(10);
+    }
+
+    @Test
+    void shouldReturnNullWhenAreaNeedsMoreCellsThanAllowed() {
+        // given
+        GeoBounds region = new GeoBounds(50.0, -3.0, 53.0, 1.0);
+
+        // when / then
+        assertThat(Geohash.cover(region, TrackFootprint.FINE_BITS, 1024)).isNull();
+        assertThat(Geohash.cover(region, TrackFootprint.COARSE_BITS, 1024)).isNotEmpty();
+    }
+
+    @Test
+    void shouldRejectBoundsWhenMinimumExceedsMaximum() {
+        // when / then
+        assertThatThrownBy(() -> new GeoBounds(51.6, -0.2, 51.4, 0.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("latitude");
+    }
+}
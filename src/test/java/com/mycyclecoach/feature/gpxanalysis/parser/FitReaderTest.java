@@ -0,0 +1,270 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FitReaderTest {
+
+    private static final long FIT_EPOCH_SECONDS = 631_065_600L;
+    private static final long START_SECONDS = Instant.parse("2025-06-01T07:00:00Z").getEpochSecond();
+    // timestamp, position_lat, position_long, enhanced_altitude, power, heart_rate, cadence
+    private static final int[] RECORD_FIELDS = {253, 4, 0, 4, 1, 4, 78, 4, 7, 2, 3, 1, 4, 1};
+
+    @Test
+    void shouldReadRecordsWhenFitIsValid() {
+        // given
+        byte[] fit = new FitFile()
+                .define(0, ByteOrder.LITTLE_ENDIAN, 0, 0, 1)
+                .data(0, 4)
+                .define(1, ByteOrder.LITTLE_ENDIAN, 20, RECORD_FIELDS)
+                .data(1, fitTime(START_SECONDS), semicircles(51.5), semicircles(-0.1), altitude(100.4), 250, 140, 90)
+                .data(
+                        1,
+                        fitTime(START_SECONDS + 1),
+                        semicircles(51.501),
+                        semicircles(-0.1005),
+                        altitude(101),
+                        260,
+                        141,
+                        91)
+                .build();
+
+        // when
+        TrackBuffer track = FitReader.readTrack(fit, DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(2);
+        assertThat(track.latitude(0)).isCloseTo(51.5, within(1e-6));
+        assertThat(track.longitude(0)).isCloseTo(-0.1, within(1e-6));
+        assertThat(track.elevation(0)).isCloseTo(100.4, within(1e-9));
+        assertThat(track.epochMillis(0)).isEqualTo(START_SECONDS * 1000L);
+        assertThat(track.power(0)).isEqualTo(250);
+        assertThat(track.heartRate(0)).isEqualTo(140);
+        assertThat(track.cadence(0)).isEqualTo(90);
+        assertThat(track.latitude(1)).isCloseTo(51.501, within(1e-6));
+        assertThat(track.epochMillis(1)).isEqualTo((START_SECONDS + 1) * 1000L);
+    }
+
+    @Test
+    void shouldRollCompressedTimestampsOverWhenDefinitionIsBigEndian() {
+        // given
+        long start = fitTime(START_SECONDS) | 0x1E;
+        byte[] fit = new FitFile()
+                .define(0, ByteOrder.BIG_ENDIAN, 20, RECORD_FIELDS)
+                .data(0, start, semicircles(51.5), semicircles(-0.1), altitude(100), 250, 140, 90)
+                // position_lat, position_long, altitude, power
+                .define(1, ByteOrder.BIG_ENDIAN, 20, 0, 4, 1, 4, 2, 2, 7, 2)
+                .compressed(1, 0x1F, semicircles(51.501), semicircles(-0.1), altitude(101), 255)
+                .compressed(1, 0x01, semicircles(51.502), semicircles(-0.1), altitude(102), 260)
+                .build();
+
+        // when
+        TrackBuffer track = FitReader.readTrack(fit, DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(3);
+        long startMillis = (FIT_EPOCH_SECONDS + start) * 1000L;
+        assertThat(track.epochMillis(1)).isEqualTo(startMillis + 1000L);
+        assertThat(track.epochMillis(2)).isEqualTo(startMillis + 3000L);
+        assertThat(track.elevation(2)).isCloseTo(102.0, within(1e-9));
+        assertThat(track.power(2)).isEqualTo(260);
+        assertThat(track.hasHeartRate()).isTrue();
+        assertThat(track.heartRate(2)).isEqualTo(TrackBuffer.NO_SAMPLE);
+    }
+
+    @Test
+    void shouldSkipRecordsWithoutPositionAndDeveloperFields() {
+        // given
+        byte[] fit = new FitFile()
+                .defineWithDeveloperField(0, 20, 3, RECORD_FIELDS)
+                .data(0, fitTime(START_SECONDS), 0x7FFFFFFFL, 0x7FFFFFFFL, altitude(100), 250, 140, 90)
+                .data(
+                        0,
+                        fitTime(START_SECONDS + 1),
+                        semicircles(51.5),
+                        semicircles(-0.1),
+                        0xFFFFFFFFL,
+                        0xFFFF,
+                        140,
+                        0xFF)
+                .build();
+
+        // when
+        TrackBuffer track = FitReader.readTrack(fit, DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(1);
+        assertThat(track.latitude(0)).isCloseTo(51.5, within(1e-6));
+        assertThat(track.hasElevation(0)).isFalse();
+        assertThat(track.hasPower()).isFalse();
+        assertThat(track.heartRate(0)).isEqualTo(140);
+        assertThat(track.cadence(0)).isEqualTo(TrackBuffer.NO_SAMPLE);
+    }
+
+    @Test
+    void shouldReadEveryFileWhenFilesAreChained() {
+        // given
+        byte[] first = new FitFile()
+                .define(0, ByteOrder.LITTLE_ENDIAN, 20, RECORD_FIELDS)
+                .data(0, fitTime(START_SECONDS), semicircles(51.5), semicircles(-0.1), altitude(100), 250, 140, 90)
+                .build();
+        byte[] second = new FitFile()
+                .define(0, ByteOrder.LITTLE_ENDIAN, 20, RECORD_FIELDS)
+                .data(0, fitTime(START_SECONDS + 1), semicircles(51.6), semicircles(-0.1), altitude(100), 250, 140, 90)
+                .build();
+        byte[] chained = ByteBuffer.allocate(first.length + second.length)
+                .put(first)
+                .put(second)
+                .array();
+
+        // when
+        TrackBuffer track = FitReader.readTrack(chained, DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(2);
+        assertThat(track.latitude(1)).isCloseTo(51.6, within(1e-6));
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenChecksumDoesNotMatch() {
+        // given
+        byte[] fit = new FitFile()
+                .define(0, ByteOrder.LITTLE_ENDIAN, 20, RECORD_FIELDS)
+                .data(0, fitTime(START_SECONDS), semicircles(51.5), semicircles(-0.1), altitude(100), 250, 140, 90)
+                .build();
+        fit[fit.length - 5] ^= 0x01;
+
+        // when / then
+        assertThatThrownBy(() -> FitReader.readTrack(fit, DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("checksum mismatch");
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenDataMessageHasNoDefinition() {
+        // given
+        byte[] fit = new FitFile().raw(0x03).build();
+
+        // when / then
+        assertThatThrownBy(() -> FitReader.readTrack(fit, DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("data message without a definition");
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenLatitudeIsPastThePole() {
+        // given
+        byte[] fit = new FitFile()
+                .define(0, ByteOrder.LITTLE_ENDIAN, 20, RECORD_FIELDS)
+                .data(0, fitTime(START_SECONDS), semicircles(135), semicircles(-0.1), altitude(100), 250, 140, 90)
+                .build();
+
+        // when / then
+        assertThatThrownBy(() -> FitReader.readTrack(fit, DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("invalid latitude");
+    }
+
+    private static long fitTime(long epochSeconds) {
+        return epochSeconds - FIT_EPOCH_SECONDS;
+    }
+
+    private static long semicircles(double degrees) {
+        return Math.round(degrees * (1L << 31) / 180.0) & 0xFFFFFFFFL;
+    }
+
+    private static long altitude(double meters) {
+        return Math.round((meters + 500) * 5);
+    }
+
+    /** Writes FIT files field by field, with the sizes and byte order of the last definition for each local type. */
+    private static final class FitFile {
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private final Map<Integer, int[]> sizes = new HashMap<>();
+        private final Map<Integer, ByteOrder> orders = new HashMap<>();
+        private final Map<Integer, Integer> developerBytes = new HashMap<>();
+
+        FitFile define(int localType, ByteOrder order, int globalMessage, int... fields) {
+            writeDefinition(0x40 | localType, localType, order, globalMessage, fields);
+            return this;
+        }
+
+        FitFile defineWithDeveloperField(int localType, int globalMessage, int developerSize, int... fields) {
+            writeDefinition(0x60 | localType, localType, ByteOrder.LITTLE_ENDIAN, globalMessage, fields);
+            data.write(1);
+            data.write(new byte[] {0, (byte) developerSize, 0}, 0, 3);
+            developerBytes.put(localType, developerSize);
+            return this;
+        }
+
+        FitFile data(int localType, long... values) {
+            data.write(localType);
+            return values(localType, values);
+        }
+
+        FitFile compressed(int localType, int timeOffset, long... values) {
+            data.write(0x80 | localType << 5 | timeOffset);
+            return values(localType, values);
+        }
+
+        FitFile raw(int value) {
+            data.write(value);
+            return this;
+        }
+
+        byte[] build() {
+            byte[] records = data.toByteArray();
+            ByteBuffer fit = ByteBuffer.allocate(14 + records.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+            fit.put((byte) 14).put((byte) 0x20).putShort((short) 2132).putInt(records.length);
+            fit.put(new byte[] {'.', 'F', 'I', 'T'});
+            fit.putShort((short) FitReader.crc(fit, 0, 12));
+            fit.put(records);
+            fit.putShort((short) FitReader.crc(fit, 0, 14 + records.length));
+            return fit.array();
+        }
+
+        private void writeDefinition(int header, int localType, ByteOrder order, int globalMessage, int[] fields) {
+            ByteBuffer definition = ByteBuffer.allocate(6 + fields.length / 2 * 3).order(order);
+            definition.put((byte) header).put((byte) 0).put((byte) (order == ByteOrder.BIG_ENDIAN ? 1 : 0));
+            definition.putShort((short) globalMessage).put((byte) (fields.length / 2));
+            int[] fieldSizes = new int[fields.length / 2];
+            for (int i = 0; i < fieldSizes.length; i++) {
+                fieldSizes[i] = fields[i * 2 + 1];
+                definition.put((byte) fields[i * 2]).put((byte) fieldSizes[i]).put((byte) 0);
+            }
+            data.write(definition.array(), 0, definition.capacity());
+            sizes.put(localType, fieldSizes);
+            orders.put(localType, order);
+            developerBytes.remove(localType);
+        }
+
+        private FitFile values(int localType, long... values) {
+            int[] fieldSizes = sizes.get(localType);
+            ByteBuffer message = ByteBuffer.allocate(16 * fieldSizes.length).order(orders.get(localType));
+            for (int i = 0; i < fieldSizes.length; i++) {
+                switch (fieldSizes[i]) {
+                    case 1 -> message.put((byte) values[i]);
+                    case 2 -> message.putShort((short) values[i]);
+                    default -> message.putInt((int) values[i]);
+                }
+            }
+            data.write(message.array(), 0, message.position());
+            int developerSize = developerBytes.getOrDefault(localType, 0);
+            data.write(new byte[developerSize], 0, developerSize);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class GpxStreamReaderTest {
+
+    @Test
+    void shouldReadTrackPointsWhenGpxIsValid() {
+        // given
+        String gpx =
+                """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <gpx version="1.1" creator="Test" xmlns="http://www.topografix.com/GPX/1/1">
+                  <trk>
+                    <trkseg>
+                      <trkpt lat="51.5000" lon="-0.1000"><ele>100.5</ele><time>2025-06-01T07:00:00Z</time></trkpt>
+                      <trkpt lat="51.5010" lon="-0.1005"><ele>102</ele><time>2025-06-01T07:00:01Z</time></trkpt>
+                    </trkseg>
+                  </trk>
+                </gpx>
+                """;
+
+        // when
+        TrackBuffer track = GpxStreamReader.readTrack(
+                new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(2);
+        assertThat(track.latitude(0)).isEqualTo(51.5);
+        assertThat(track.longitude(0)).isEqualTo(-0.1);
+        assertThat(track.elevation(0)).isEqualTo(100.5);
+        assertThat(track.epochMillis(0))
+                .isEqualTo(Instant.parse("2025-06-01T07:00:00Z").toEpochMilli());
+        assertThat(track.longitude(1)).isEqualTo(-0.1005);
+        assertThat(track.hasPower()).isFalse();
+    }
+
+    @Test
+    void shouldMarkMissingElevationAndTimeWhenPointHasNone() {
+        // given
+        String gpx =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5" lon="-0.1"/>
+                </trkseg></trk></gpx>
+                """;
+
+        // when
+        TrackBuffer track = GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(1);
+        assertThat(track.hasElevation(0)).isFalse();
+        assertThat(track.hasTime(0)).isFalse();
+    }
+
+    @Test
+    void shouldIgnoreNestedElementsWhenPointHasExtensions() {
+        // given
+        String gpx =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5" lon="-0.1">
+                    <ele>100</ele>
+                    <extensions><custom><ele>999</ele></custom></extensions>
+                  </trkpt>
+                  <trkpt lat="51.6" lon="-0.2"><ele>110</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+
+        // when
+        TrackBuffer track = GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(2);
+        assertThat(track.elevation(0)).isEqualTo(100.0);
+        assertThat(track.elevation(1)).isEqualTo(110.0);
+    }
+
+    @Test
+    void shouldReadSensorChannelsWhenPointHasTrackPointExtension() {
+        // given
+        String gpx =
+                """
+                <gpx version="1.1" xmlns:gpxtpx="http://www.garmin.com/xmlschemas/TrackPointExtension/v1">
+                  <trk><trkseg>
+                    <trkpt lat="51.5" lon="-0.1">
+                      <extensions>
+                        <power>250</power>
+                        <gpxtpx:TrackPointExtension>
+                          <gpxtpx:hr>142</gpxtpx:hr>
+                          <gpxtpx:cad>88</gpxtpx:cad>
+                        </gpxtpx:TrackPointExtension>
+                      </extensions>
+                    </trkpt>
+                    <trkpt lat="51.6" lon="-0.2"/>
+                  </trkseg></trk>
+                </gpx>
+                """;
+
+        // when
+        TrackBuffer track = GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.power(0)).isEqualTo(250);
+        assertThat(track.heartRate(0)).isEqualTo(142);
+        assertThat(track.cadence(0)).isEqualTo(88);
+        assertThat(track.power(1)).isEqualTo(TrackBuffer.NO_SAMPLE);
+        assertThat(track.heartRate(1)).isEqualTo(TrackBuffer.NO_SAMPLE);
+    }
+
+    @Test
+    void shouldIgnoreRoutePointsAndWaypointsWhenReadingTrack() {
+        // given
+        String gpx =
+                """
+                <gpx version="1.1">
+                  <wpt lat="1" lon="1"/>
+                  <rte><rtept lat="2" lon="2"/></rte>
+                  <trk><trkseg><trkpt lat="3" lon="3"/></trkseg></trk>
+                </gpx>
+                """;
+
+        // when
+        int count = GpxStreamReader.read(new StringReader(gpx), (lat, lon, ele, time, power, hr, cad) -> {});
+
+        // then
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenContentIsNotXml() {
+        // when / then
+        assertThatThrownBy(() -> GpxStreamReader.readTrack(new StringReader("invalid content"), DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("Failed to parse GPX file");
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenRootIsNotGpx() {
+        // when / then
+        assertThatThrownBy(() -> GpxStreamReader.readTrack(new StringReader("<kml></kml>"), DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("missing <gpx> root element");
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenLatitudeIsMissing() {
+        // given
+        String gpx = "<gpx><trk><trkseg><trkpt lon=\"1\"/></trkseg></trk></gpx>";
+
+        // when / then
+        assertThatThrownBy(() -> GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("lat");
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenCoordinateIsNotFiniteOrOutOfRange() {
+        // given
+        String[] points = {
+            "lat=\"NaN\" lon=\"-0.1\"",
+            "lat=\"Infinity\" lon=\"-0.1\"",
+            "lat=\"1e7\" lon=\"-0.1\"",
+            "lat=\"-90.5\" lon=\"-0.1\"",
+            "lat=\"51.5\" lon=\"180.5\"",
+            "lat=\"51.5\" lon=\"-Infinity\""
+        };
+
+        // when / then
+        for (String point : points) {
+            String gpx = "<gpx><trk><trkseg><trkpt " + point + "/></trkseg></trk></gpx>";
+            assertThatThrownBy(() -> GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE))
+                    .isInstanceOf(GpxParsingException.class)
+                    .hasMessageContaining("invalid");
+        }
+    }
+
+    @Test
+    void shouldMarkElevationMissingWhenItIsNotFinite() {
+        // given
+        String gpx =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="90" lon="-180"><ele>Infinity</ele></trkpt>
+                  <trkpt lat="-90" lon="180"><ele>NaN</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+
+        // when
+        TrackBuffer track = GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(2);
+        assertThat(track.hasElevation(0)).isFalse();
+        assertThat(track.hasElevation(1)).isFalse();
+    }
+
+    @Test
+    void shouldRejectDoctypeWhenDocumentDeclaresExternalEntity() {
+        // given
+        String gpx =
+                """
+                <?xml version="1.0"?>
+                <!DOCTYPE gpx [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+                <gpx><trk><trkseg><trkpt lat="1" lon="1"><ele>&xxe;</ele></trkpt></trkseg></trk></gpx>
+                """;
+
+        // when / then
+        assertThatThrownBy(() -> GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class GpxWriterTest {
+
+    @Test
+    void shouldWriteGpxThatReadsBackToSameTrack() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100.5, 1_748_761_200_000L, 250, 140, 90)
+                .add(51.501, -0.1005, Double.NaN, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        String gpx = GpxWriter.write(track, "Morning ride");
+        TrackBuffer read = GpxStreamReader.readTrack(new StringReader(gpx), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(gpx).contains("<name>Morning ride</name>");
+        assertThat(read.size()).isEqualTo(2);
+        assertThat(read.latitude(1)).isEqualTo(51.501);
+        assertThat(read.elevation(0)).isEqualTo(100.5);
+        assertThat(read.hasElevation(1)).isFalse();
+        assertThat(read.epochMillis(0)).isEqualTo(1_748_761_200_000L);
+        assertThat(read.hasTime(1)).isFalse();
+        assertThat(read.power(0)).isEqualTo(250);
+        assertThat(read.heartRate(0)).isEqualTo(140);
+        assertThat(read.cadence(0)).isEqualTo(90);
+        assertThat(read.power(1)).isEqualTo(TrackBuffer.NO_SAMPLE);
+    }
+
+    @Test
+    void shouldWritePlainDecimalsWhenCoordinatesAreTiny() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(0.00001, -0.000001, Double.NaN, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+
+        // when
+        String gpx = GpxWriter.write(track, null);
+
+        // then
+        assertThat(gpx).contains("lat=\"0.000010\"").contains("lon=\"-0.0000010\"").doesNotContain("E-");
+    }
+}
@@ -0,0 +1,122 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class TcxStreamReaderTest {
+
+    @Test
+    void shouldReadTrackpointsAndSensorsWhenTcxIsValid() {
+        // given
+        String tcx =
+                """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <TrainingCenterDatabase xmlns="http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2"
+                    xmlns:ns3="http://www.garmin.com/xmlschemas/ActivityExtension/v2">
+                  <Activities><Activity Sport="Biking"><Lap StartTime="2025-06-01T07:00:00Z"><Track>
+                    <Trackpoint>
+                      <Time>2025-06-01T07:00:00Z</Time>
+                      <Position>
+                        <LatitudeDegrees>51.5</LatitudeDegrees>
+                        <LongitudeDegrees>-0.1</LongitudeDegrees>
+                      </Position>
+                      <AltitudeMeters>100.5</AltitudeMeters>
+                      <HeartRateBpm><Value>140</Value></HeartRateBpm>
+                      <Cadence>90</Cadence>
+                      <Extensions><ns3:TPX><ns3:Speed>8.1</ns3:Speed><ns3:Watts>250</ns3:Watts></ns3:TPX></Extensions>
+                    </Trackpoint>
+                    <Trackpoint>
+                      <Time>2025-06-01T07:00:01.000Z</Time>
+                      <Position>
+                        <LatitudeDegrees>51.501</LatitudeDegrees>
+                        <LongitudeDegrees>-0.1005</LongitudeDegrees>
+                      </Position>
+                    </Trackpoint>
+                  </Track></Lap></Activity></Activities>
+                </TrainingCenterDatabase>
+                """;
+
+        // when
+        TrackBuffer track = TcxStreamReader.readTrack(
+                new ByteArrayInputStream(tcx.getBytes(StandardCharsets.UTF_8)), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(2);
+        assertThat(track.latitude(0)).isEqualTo(51.5);
+        assertThat(track.longitude(0)).isEqualTo(-0.1);
+        assertThat(track.elevation(0)).isEqualTo(100.5);
+        assertThat(track.epochMillis(0))
+                .isEqualTo(Instant.parse("2025-06-01T07:00:00Z").toEpochMilli());
+        assertThat(track.power(0)).isEqualTo(250);
+        assertThat(track.heartRate(0)).isEqualTo(140);
+        assertThat(track.cadence(0)).isEqualTo(90);
+        assertThat(track.hasElevation(1)).isFalse();
+        assertThat(track.heartRate(1)).isEqualTo(TrackBuffer.NO_SAMPLE);
+    }
+
+    @Test
+    void shouldSkipTrackpointsWithoutPosition() {
+        // given
+        String tcx =
+                """
+                <TrainingCenterDatabase><Courses><Course><Track>
+                  <Trackpoint>
+                    <Time>2025-06-01T07:00:00Z</Time><HeartRateBpm><Value>95</Value></HeartRateBpm>
+                  </Trackpoint>
+                  <Trackpoint>
+                    <Time>2025-06-01T07:00:05Z</Time>
+                    <Position>
+                      <LatitudeDegrees>51.5</LatitudeDegrees>
+                      <LongitudeDegrees>-0.1</LongitudeDegrees>
+                    </Position>
+                  </Trackpoint>
+                </Track></Course></Courses></TrainingCenterDatabase>
+                """;
+
+        // when
+        TrackBuffer track = TcxStreamReader.readTrack(
+                new ByteArrayInputStream(tcx.getBytes(StandardCharsets.UTF_8)), DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(track.size()).isEqualTo(1);
+        assertThat(track.epochMillis(0))
+                .isEqualTo(Instant.parse("2025-06-01T07:00:05Z").toEpochMilli());
+        assertThat(track.hasHeartRate()).isFalse();
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenCoordinateIsNotFiniteOrOutOfRange() {
+        // given
+        String[][] positions = {{"NaN", "-0.1"}, {"1e7", "-0.1"}, {"51.5", "Infinity"}, {"51.5", "-180.5"}};
+
+        // when / then
+        for (String[] position : positions) {
+            byte[] tcx = ("<TrainingCenterDatabase><Trackpoint><Position><LatitudeDegrees>" + position[0]
+                            + "</LatitudeDegrees><LongitudeDegrees>" + position[1]
+                            + "</LongitudeDegrees></Position></Trackpoint></TrainingCenterDatabase>")
+                    .getBytes(StandardCharsets.UTF_8);
+            assertThatThrownBy(() -> TcxStreamReader.readTrack(new ByteArrayInputStream(tcx), DistanceMode.HAVERSINE))
+                    .isInstanceOf(GpxParsingException.class)
+                    .hasMessageContaining("invalid");
+        }
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenRootIsNotTrainingCenterDatabase() {
+        // given
+        byte[] gpx = "<gpx><trk><trkseg/></trk></gpx>".getBytes(StandardCharsets.UTF_8);
+
+        // when / then
+        assertThatThrownBy(() -> TcxStreamReader.readTrack(new ByteArrayInputStream(gpx), DistanceMode.HAVERSINE))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("missing <TrainingCenterDatabase> root element");
+    }
+}
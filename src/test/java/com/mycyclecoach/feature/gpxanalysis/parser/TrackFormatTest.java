@@ -0,0 +1,109 @@
+package com.mycyclecoach.feature.gpxanalysis.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class TrackFormatTest {
+
+    @Test
+    void shouldDetectFormatFromContentWhenUploadIsSniffed() {
+        // given
+        byte[] gpx = "<?xml version=\"1.0\"?><gpx version=\"1.1\"/>".getBytes(StandardCharsets.UTF_8);
+        byte[] tcx = "<?xml version=\"1.0\"?>\n<!-- exported -->\n<TrainingCenterDatabase/>"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] fit = {14, 0x20, 0x54, 0x08, 0, 0, 0, 0, '.', 'F', 'I', 'T', 0, 0, 0, 0};
+        byte[] shortBinary = {14, 0x20, '.', 'F', 'I', 'T'};
+
+        // when / then
+        assertThat(TrackFormat.detect(gpx)).isEqualTo(TrackFormat.GPX);
+        assertThat(TrackFormat.detect(tcx)).isEqualTo(TrackFormat.TCX);
+        assertThat(TrackFormat.detect(fit)).isEqualTo(TrackFormat.FIT);
+        assertThat(TrackFormat.detect(shortBinary)).isEqualTo(TrackFormat.GPX);
+    }
+
+    @Test
+    void shouldDetectGpxWhenTcxRootElementNameAppearsOutsideRootElement() {
+        // given
+        byte[] gpx =
+                """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!-- Converted from TrainingCenterDatabase -->
+                <gpx version="1.1" xmlns:tcx="http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2">
+                  <metadata><desc>Exported from a TrainingCenterDatabase file</desc></metadata>
+                </gpx>
+                """
+                        .getBytes(StandardCharsets.UTF_8);
+        byte[] malformed = "TrainingCenterDatabase".getBytes(StandardCharsets.UTF_8);
+
+        // when / then
+        assertThat(TrackFormat.detect(gpx)).isEqualTo(TrackFormat.GPX);
+        assertThat(TrackFormat.detect(malformed)).isEqualTo(TrackFormat.GPX);
+    }
+
+    @Test
+    void shouldRejectTrackWhenItHasMorePointsThanAllowed() {
+        // given
+        byte[] gpx =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5" lon="-0.1"/><trkpt lat="51.501" lon="-0.1"/><trkpt lat="51.502" lon="-0.1"/>
+                </trkseg></trk></gpx>
+                """
+                        .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer content = ByteBuffer.wrap(gpx);
+
+        // when / then
+        assertThat(TrackFormat.GPX.readTrack(content, DistanceMode.HAVERSINE, 3).size()).isEqualTo(3);
+        assertThatThrownBy(() -> TrackFormat.GPX.readTrack(content, DistanceMode.HAVERSINE, 2))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("more than 2 points");
+    }
+
+    @Test
+    void shouldReadSameTrackWhenRideIsUploadedAsGpxOrTcx() {
+        // given
+        byte[] gpx =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5" lon="-0.1"><ele>100</ele><time>2025-06-01T07:00:00Z</time></trkpt>
+                  <trkpt lat="51.51" lon="-0.1"><ele>110</ele><time>2025-06-01T07:01:00Z</time></trkpt>
+                </trkseg></trk></gpx>
+                """
+                        .getBytes(StandardCharsets.UTF_8);
+        byte[] tcx =
+                """
+                <TrainingCenterDatabase><Activities><Activity><Lap><Track>
+                  <Trackpoint><Time>2025-06-01T07:00:00Z</Time><AltitudeMeters>100</AltitudeMeters>
+                    <Position>
+                      <LatitudeDegrees>51.5</LatitudeDegrees>
+                      <LongitudeDegrees>-0.1</LongitudeDegrees>
+                    </Position>
+                  </Trackpoint>
+                  <Trackpoint><Time>2025-06-01T07:01:00Z</Time><AltitudeMeters>110</AltitudeMeters>
+                    <Position>
+                      <LatitudeDegrees>51.51</LatitudeDegrees>
+                      <LongitudeDegrees>-0.1</LongitudeDegrees>
+                    </Position>
+                  </Trackpoint>
+                </Track></Lap></Activity></Activities></TrainingCenterDatabase>
+                """
+                        .getBytes(StandardCharsets.UTF_8);
+
+        // when
+        TrackBuffer fromGpx = TrackFormat.detect(gpx).readTrack(gpx, DistanceMode.HAVERSINE);
+        TrackBuffer fromTcx = TrackFormat.detect(tcx).readTrack(tcx, DistanceMode.HAVERSINE);
+
+        // then
+        assertThat(fromTcx.size()).isEqualTo(fromGpx.size());
+        assertThat(fromTcx.totalDistance()).isEqualTo(fromGpx.totalDistance());
+        assertThat(fromTcx.elevation(1)).isEqualTo(fromGpx.elevation(1));
+        assertThat(fromTcx.epochMillis(1)).isEqualTo(fromGpx.epochMillis(1));
+    }
+}
@@ -0,0 +1,376 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.mycyclecoach.feature.gpxanalysis.domain.*;
+import com.mycyclecoach.feature.gpxanalysis.repository.CanonicalClimbRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.ClimbEffortRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.ClimbPersonalRecordRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+@ExtendWith(MockitoExtension.class)
+class ClimbHistoryServiceImplTest {
+
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @Mock
+    private CanonicalClimbRepository canonicalClimbRepository;
+
+    @Mock
+    private ClimbEffortRepository climbEffortRepository;
+
+    @Mock
+    private ClimbPersonalRecordRepository climbPersonalRecordRepository;
+
+    @Captor
+    private ArgumentCaptor<List<CanonicalClimb>> canonicalClimbsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<ClimbEffort>> effortsCaptor;
+
+    @Captor
+    private ArgumentCaptor<Collection<ClimbPersonalRecord>> recordsCaptor;
+
+    @InjectMocks
+    private ClimbHistoryServiceImpl climbHistoryService;
+
+    @Test
+    void shouldCreateCanonicalClimbWithTimedEffortWhenHillIsRiddenForFirstTime() {
+        // given
+        TrackBuffer track = climbTrack(51.5, 10_000);
+        GpxFile gpxFile = GpxFile.builder().id(1L).userId(100L).build();
+        Climb climb = climb(0, 10);
+
+        given(canonicalClimbRepository.findByUserIdAndStartCellIn(eq(100L), anyCollection())).willReturn(List.of());
+
+        // when
+        climbHistoryService.recordEfforts(gpxFile, track, List.of(climb));
+
+        // then
+        then(canonicalClimbRepository).should().saveAll(canonicalClimbsCaptor.capture());
+        then(climbEffortRepository).should().saveAll(effortsCaptor.capture());
+        CanonicalClimb created = canonicalClimbsCaptor.getValue().getFirst();
+        assertThat(created.getUserId()).isEqualTo(100L);
+        assertThat(created.getStartCell()).isEqualTo(Geohash.cell(51.5, -0.1, ClimbFingerprint.CELL_BITS));
+        ClimbEffort effort = effortsCaptor.getValue().getFirst();
+        assertThat(effort.getCanonicalClimb()).isSameAs(created);
+        assertThat(effort.getGpxFile()).isSameAs(gpxFile);
+        assertThat(effort.getClimb()).isSameAs(climb);
+        assertThat(effort.getStartedAt()).isEqualTo(LocalDateTime.of(2023, 11, 14, 22, 13, 20));
+        assertThat(effort.getDurationSeconds()).isEqualTo(100.0);
+        assertThat(effort.getAveragePowerWatts()).isNull();
+        then(canonicalClimbRepository).should().lockUserClimbs(100L);
+        then(climbPersonalRecordRepository).should().saveAll(recordsCaptor.capture());
+        assertThat(recordsCaptor.getValue()).singleElement().satisfies(record -> {
+            assertThat(record.getEffortCount()).isEqualTo(1L);
+            assertThat(record.getBestDurationSeconds()).isEqualTo(100.0);
+            assertThat(record.getBestAveragePowerWatts()).isNull();
+        });
+    }
+
+    @Test
+    void shouldRecordEffortOnExistingCanonicalClimbWhenHillWasRiddenBefore() {
+        // given
+        TrackBuffer track = climbTrack(51.5004, 12_000);
+        GpxFile gpxFile = GpxFile.builder().id(2L).userId(100L).build();
+        CanonicalClimb existing = CanonicalClimb.builder()
+                .id(7L)
+                .userId(100L)
+                .startCell(Geohash.cell(51.5, -0.1, ClimbFingerprint.CELL_BITS))
+                .startLatitude(51.5)
+                .startLongitude(-0.1)
+                .endLatitude(51.51)
+                .endLongitude(-0.1)
+                .distanceMeters(1100.0)
+                .elevationGainMeters(100.0)
+                .averageGradient(0.09)
+                .build();
+
+        ClimbPersonalRecord record = ClimbPersonalRecord.builder()
+                .canonicalClimbId(7L)
+                .effortCount(4L)
+                .fastestEffortId(40L)
+                .bestDurationSeconds(130.0)
+                .build();
+
+        given(canonicalClimbRepository.findByUserIdAndStartCellIn(eq(100L), anyCollection()))
+                .willReturn(List.of(existing));
+        given(climbEffortRepository.saveAll(anyList())).willAnswer(invocation -> {
+            List<ClimbEffort> efforts = invocation.getArgument(0);
+            efforts.forEach(effort -> effort.setId(50L));
+            return efforts;
+        });
+        given(climbPersonalRecordRepository.findAllById(Set.of(7L))).willReturn(List.of(record));
+
+        // when
+        climbHistoryService.recordEfforts(gpxFile, track, List.of(climb(0, 10)));
+
+        // then
+        then(canonicalClimbRepository).should().saveAll(List.of());
+        then(climbEffortRepository).should().saveAll(effortsCaptor.capture());
+        assertThat(effortsCaptor.getValue()).extracting(ClimbEffort::getCanonicalClimb).containsExactly(existing);
+        assertThat(record.getEffortCount()).isEqualTo(5L);
+        assertThat(record.getFastestEffortId()).isEqualTo(50L);
+        assertThat(record.getBestDurationSeconds()).isEqualTo(120.0);
+        assertThat(record.getStrongestEffortId()).isNull();
+    }
+
+    @Test
+    void shouldKeepBestTimeButTakeBestPowerWhenNewEffortIsSlowerAndStronger() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i <= 10; i++) {
+            builder.add(51.5 + i * 0.001, -0.1, 100 + i * 10, START_MILLIS + i * 15_000L, 250 + i, 150, 80);
+        }
+        GpxFile gpxFile = GpxFile.builder().id(2L).userId(100L).build();
+        CanonicalClimb existing = CanonicalClimb.builder()
+                .id(7L)
+                .userId(100L)
+                .startCell(Geohash.cell(51.5, -0.1, ClimbFingerprint.CELL_BITS))
+                .startLatitude(51.5)
+                .startLongitude(-0.1)
+                .endLatitude(51.51)
+                .endLongitude(-0.1)
+                .distanceMeters(1100.0)
+                .elevationGainMeters(100.0)
+                .averageGradient(0.09)
+                .build();
+        ClimbPersonalRecord record = ClimbPersonalRecord.builder()
+                .canonicalClimbId(7L)
+                .effortCount(4L)
+                .fastestEffortId(40L)
+                .bestDurationSeconds(110.0)
+                .strongestEffortId(41L)
+                .bestAveragePowerWatts(240.0)
+                .build();
+
+        given(canonicalClimbRepository.findByUserIdAndStartCellIn(eq(100L), anyCollection()))
+                .willReturn(List.of(existing));
+        given(climbEffortRepository.saveAll(anyList())).willAnswer(invocation -> {
+            List<ClimbEffort> efforts = invocation.getArgument(0);
+            efforts.forEach(effort -> effort.setId(50L));
+            return efforts;
+        });
+        given(climbPersonalRecordRepository.findAllById(Set.of(7L))).willReturn(List.of(record));
+
+        // when
+        climbHistoryService.recordEfforts(gpxFile, builder.build(DistanceMode.HAVERSINE), List.of(climb(0, 10)));
+
+        // then
+        assertThat(record.getEffortCount()).isEqualTo(5L);
+        assertThat(record.getFastestEffortId()).isEqualTo(40L);
+        assertThat(record.getBestDurationSeconds()).isEqualTo(110.0);
+        assertThat(record.getStrongestEffortId()).isEqualTo(50L);
+        assertThat(record.getBestAveragePowerWatts()).isEqualTo(255.0);
+    }
+
+    @Test
+    void shouldMatchRepeatedLapToClimbCreatedEarlierInSameRide() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int lap = 0; lap < 2; lap++) {
+            for (int i = 0; i <= 10; i++) {
+                builder.add(51.5 + i * 0.001, -0.1, 100 + i * 10, TrackBuffer.NO_TIME);
+            }
+        }
+        GpxFile gpxFile = GpxFile.builder().id(3L).userId(100L).build();
+
+        given(canonicalClimbRepository.findByUserIdAndStartCellIn(eq(100L), anyCollection())).willReturn(List.of());
+
+        // when
+        climbHistoryService.recordEfforts(
+                gpxFile, builder.build(DistanceMode.HAVERSINE), List.of(climb(0, 10), climb(11, 21)));
+
+        // then
+        then(canonicalClimbRepository).should().saveAll(canonicalClimbsCaptor.capture());
+        then(climbEffortRepository).should().saveAll(effortsCaptor.capture());
+        assertThat(canonicalClimbsCaptor.getValue()).hasSize(1);
+        CanonicalClimb created = canonicalClimbsCaptor.getValue().getFirst();
+        assertThat(effortsCaptor.getValue())
+                .extracting(ClimbEffort::getCanonicalClimb)
+                .containsExactly(created, created);
+        assertThat(effortsCaptor.getValue()).extracting(ClimbEffort::getStartedAt).containsOnlyNulls();
+        then(climbPersonalRecordRepository).should().saveAll(recordsCaptor.capture());
+        assertThat(recordsCaptor.getValue()).singleElement().satisfies(record -> assertThat(record.getEffortCount())
+                .isEqualTo(2L));
+    }
+
+    @Test
+    void shouldSkipLookupWhenRideHasNoClimbs() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(4L).userId(100L).build();
+
+        // when
+        climbHistoryService.recordEfforts(gpxFile, climbTrack(51.5, 0), List.of());
+
+        // then
+        then(canonicalClimbRepository).should(never()).findByUserIdAndStartCellIn(eq(100L), anyCollection());
+        then(climbEffortRepository).should(never()).saveAll(anyList());
+        then(canonicalClimbRepository).should(never()).lockUserClimbs(100L);
+    }
+
+    @Test
+    void shouldRebuildRecordsOfAffectedClimbsWhenFileIsDeleted() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(2L).userId(100L).build();
+        ClimbPersonalRecord stillRidden = ClimbPersonalRecord.builder()
+                .canonicalClimbId(7L)
+                .effortCount(3L)
+                .fastestEffortId(50L)
+                .bestDurationSeconds(120.0)
+                .build();
+        ClimbPersonalRecord noLongerRidden = ClimbPersonalRecord.builder()
+                .canonicalClimbId(8L)
+                .effortCount(1L)
+                .build();
+        ClimbEffortResponse nextFastest = new ClimbEffortResponse(
+                41L, 5L, "ride.gpx", 3L, LocalDateTime.now(), 130.0, 240.0, 1100.0, 100.0, 0.09);
+
+        given(climbEffortRepository.findCanonicalClimbIdsByGpxFileId(2L)).willReturn(List.of(7L, 8L));
+        given(climbPersonalRecordRepository.findAllById(List.of(7L, 8L)))
+                .willReturn(List.of(stillRidden, noLongerRidden));
+        given(climbEffortRepository.countByCanonicalClimbId(7L)).willReturn(2L);
+        given(climbEffortRepository.countByCanonicalClimbId(8L)).willReturn(0L);
+        given(climbEffortRepository.findFastest(7L, Limit.of(1))).willReturn(List.of(nextFastest));
+        given(climbEffortRepository.findMostPowerful(7L, Limit.of(1))).willReturn(List.of(nextFastest));
+
+        // when
+        climbHistoryService.deleteEfforts(gpxFile);
+
+        // then
+        then(canonicalClimbRepository).should().lockUserClimbs(100L);
+        then(climbEffortRepository).should().deleteByGpxFileId(2L);
+        then(climbPersonalRecordRepository).should().save(stillRidden);
+        then(climbPersonalRecordRepository).should().delete(noLongerRidden);
+        assertThat(stillRidden.getEffortCount()).isEqualTo(2L);
+        assertThat(stillRidden.getFastestEffortId()).isEqualTo(41L);
+        assertThat(stillRidden.getBestDurationSeconds()).isEqualTo(130.0);
+        assertThat(stillRidden.getBestAveragePowerWatts()).isEqualTo(240.0);
+    }
+
+    @Test
+    void shouldSkipLockWhenDeletedFileHasNoEfforts() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(2L).userId(100L).build();
+
+        given(climbEffortRepository.findCanonicalClimbIdsByGpxFileId(2L)).willReturn(List.of());
+
+        // when
+        climbHistoryService.deleteEfforts(gpxFile);
+
+        // then
+        then(canonicalClimbRepository).should(never()).lockUserClimbs(100L);
+        then(climbEffortRepository).should(never()).deleteByGpxFileId(2L);
+    }
+
+    @Test
+    void shouldLockUsersInOrderWhenRebuildingPendingRecords() {
+        // given
+        CanonicalClimb first = CanonicalClimb.builder().id(7L).userId(200L).build();
+        CanonicalClimb second = CanonicalClimb.builder().id(8L).userId(100L).build();
+
+        given(canonicalClimbRepository.findWithoutRecord(Limit.of(10))).willReturn(List.of(first, second));
+        given(climbEffortRepository.countByCanonicalClimbId(anyLong())).willReturn(1L);
+
+        // when
+        int rebuilt = climbHistoryService.rebuildPendingRecords(10);
+
+        // then
+        assertThat(rebuilt).isEqualTo(2);
+        InOrder inOrder = inOrder(canonicalClimbRepository);
+        inOrder.verify(canonicalClimbRepository).lockUserClimbs(100L);
+        inOrder.verify(canonicalClimbRepository).lockUserClimbs(200L);
+        then(climbPersonalRecordRepository).should(times(2)).save(any(ClimbPersonalRecord.class));
+    }
+
+    @Test
+    void shouldCapTopEffortsAndCountDirectlyWhenRecordIsNotBuiltYet() {
+        // given
+        given(canonicalClimbRepository.findByIdAndUserId(7L, 100L))
+                .willReturn(Optional.of(CanonicalClimb.builder().id(7L).build()));
+        given(climbPersonalRecordRepository.findById(7L)).willReturn(Optional.empty());
+        given(climbEffortRepository.countByCanonicalClimbId(7L)).willReturn(3L);
+        given(climbEffortRepository.findFastest(7L, Limit.of(50))).willReturn(List.of());
+        given(climbEffortRepository.findMostPowerful(7L, Limit.of(50))).willReturn(List.of());
+
+        // when
+        ClimbRecordsResponse result = climbHistoryService.getClimbRecords(7L, 100L, 1000);
+
+        // then
+        assertThat(result.canonicalClimbId()).isEqualTo(7L);
+        assertThat(result.effortCount()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldReturnEffortHistoryWhenClimbBelongsToUser() {
+        // given
+        List<ClimbEffortResponse> efforts = List.of(new ClimbEffortResponse(
+                1L, 2L, "ride.gpx", 3L, LocalDateTime.now(), 100.0, null, 1100.0, 100.0, 0.09));
+
+        given(canonicalClimbRepository.findByIdAndUserId(7L, 100L))
+                .willReturn(Optional.of(CanonicalClimb.builder().id(7L).build()));
+        given(climbEffortRepository.findByCanonicalClimbId(7L)).willReturn(efforts);
+
+        // when
+        List<ClimbEffortResponse> result = climbHistoryService.getClimbEfforts(7L, 100L);
+
+        // then
+        assertThat(result).isEqualTo(efforts);
+    }
+
+    @Test
+    void shouldThrowCanonicalClimbNotFoundExceptionWhenClimbBelongsToAnotherUser() {
+        // given
+        given(canonicalClimbRepository.findByIdAndUserId(7L, 100L)).willReturn(Optional.empty());
+
+        // when / then
+        assertThatThrownBy(() -> climbHistoryService.getClimbEfforts(7L, 100L))
+                .isInstanceOf(CanonicalClimbNotFoundException.class)
+                .hasMessageContaining("7");
+        then(climbEffortRepository).should(never()).findByCanonicalClimbId(7L);
+    }
+
+    /** Eleven points climbing 100 m over about 1.1 km north, {@code stepMillis} apart or untimed when it is zero. */
+    private static TrackBuffer climbTrack(double startLatitude, long stepMillis) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i <= 10; i++) {
+            long time = stepMillis == 0 ? TrackBuffer.NO_TIME : START_MILLIS + i * stepMillis;
+            builder.add(startLatitude + i * 0.001, -0.1, 100 + i * 10, time);
+        }
+        return builder.build(DistanceMode.HAVERSINE);
+    }
+
+    private static Climb climb(int startPointIndex, int endPointIndex) {
+        return Climb.builder()
+                .distanceMeters(1112.0)
+                .elevationGainMeters(100.0)
+                .averageGradient(0.09)
+                .startPointIndex(startPointIndex)
+                .endPointIndex(endPointIndex)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GpxAnalysisJobDispatcherTest {
+
+    private GpxAnalysisJobDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        GpxAnalysisConfig config = new GpxAnalysisConfig();
+        config.getJobs().setConcurrency(1);
+        config.getJobs().setQueueCapacity(1);
+        dispatcher = new GpxAnalysisJobDispatcher(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void shouldRejectReservationWhenWorkersAndQueueAreFull() {
+        // when
+        boolean first = dispatcher.tryReserve();
+        boolean second = dispatcher.tryReserve();
+        boolean third = dispatcher.tryReserve();
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+    }
+
+    @Test
+    void shouldFreeSlotWhenReservationIsCancelled() {
+        // given
+        dispatcher.tryReserve();
+        dispatcher.tryReserve();
+
+        // when
+        dispatcher.cancelReservation();
+
+        // then
+        assertThat(dispatcher.tryReserve()).isTrue();
+    }
+
+    @Test
+    void shouldFreeSlotWhenTaskFinishes() throws InterruptedException {
+        // given
+        CountDownLatch finished = new CountDownLatch(1);
+        dispatcher.tryReserve();
+        dispatcher.tryReserve();
+
+        // when
+        dispatcher.execute(finished::countDown);
+
+        // then
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(awaitReservation()).isTrue();
+    }
+
+    private boolean awaitReservation() throws InterruptedException {
+        // The slot is released just after the task returns, on the worker thread
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (dispatcher.tryReserve()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,325 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.*;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxAnalysisJobRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+@ExtendWith(MockitoExtension.class)
+class GpxAnalysisJobServiceImplTest {
+
+    @Mock
+    private GpxAnalysisJobRepository gpxAnalysisJobRepository;
+
+    @Mock
+    private GpxAnalysisService gpxAnalysisService;
+
+    @Mock
+    private GpxAnalysisJobDispatcher gpxAnalysisJobDispatcher;
+
+    @Mock
+    private GpxAnalysisMapper gpxAnalysisMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private GpxAnalysisConfig gpxAnalysisConfig = new GpxAnalysisConfig();
+
+    @InjectMocks
+    private GpxAnalysisJobServiceImpl gpxAnalysisJobService;
+
+    @Test
+    void shouldPersistQueuedJobAndDispatchWhenQueueHasCapacity() {
+        // given
+        MockMultipartFile file = new MockMultipartFile("file", "ride.gpx", "application/gpx+xml", "<gpx/>".getBytes());
+        GpxAnalysisJobResponse expectedResponse = new GpxAnalysisJobResponse(
+                1L, "ride.gpx", GpxAnalysisJobStatus.QUEUED, null, null, LocalDateTime.now(), null);
+
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true);
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class))).willAnswer(invocation -> {
+            GpxAnalysisJob job = invocation.getArgument(0);
+            job.setId(1L);
+            return job;
+        });
+        given(gpxAnalysisMapper.toGpxAnalysisJobResponse(any(GpxAnalysisJob.class))).willReturn(expectedResponse);
+
+        // when
+        GpxAnalysisJobResponse response = gpxAnalysisJobService.submitAnalysis(file, 100L);
+
+        // then
+        assertThat(response).isEqualTo(expectedResponse);
+        then(gpxAnalysisJobRepository)
+                .should()
+                .save(argThat(job -> job.getUserId() == 100L
+                        && job.getStatus() == GpxAnalysisJobStatus.QUEUED
+                        && new String(job.getPayload()).equals("<gpx/>")));
+        then(gpxAnalysisJobDispatcher).should().execute(any(Runnable.class));
+        then(gpxAnalysisService).should(never()).analyzeGpxBytes(any(), any(), any());
+    }
+
+    @Test
+    void shouldQueueSpooledFileInsteadOfPayloadWhenUploadIsAboveSpillThreshold(@TempDir Path directory)
+            throws IOException {
+        // given
+        gpxAnalysisConfig.getUpload().setSpillThresholdBytes(3);
+        gpxAnalysisConfig.getUpload().setSpillDirectory(directory.toString());
+        MockMultipartFile file = new MockMultipartFile("file", "ride.gpx", "application/gpx+xml", "<gpx/>".getBytes());
+
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true);
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        gpxAnalysisJobService.submitAnalysis(file, 100L);
+
+        // then
+        ArgumentCaptor<GpxAnalysisJob> job = ArgumentCaptor.forClass(GpxAnalysisJob.class);
+        then(gpxAnalysisJobRepository).should().save(job.capture());
+        assertThat(job.getValue().getPayload()).isNull();
+        Path spooled = Path.of(job.getValue().getPayloadPath());
+        assertThat(spooled.getParent()).isEqualTo(directory);
+        assertThat(Files.readString(spooled)).isEqualTo("<gpx/>");
+    }
+
+    @Test
+    void shouldThrowQueueFullExceptionWithoutReadingOrPersistingWhenQueueIsFull() throws IOException {
+        // given
+        MultipartFile file = mock(MultipartFile.class);
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(false);
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisJobService.submitAnalysis(file, 100L))
+                .isInstanceOf(GpxAnalysisQueueFullException.class);
+        then(file).should(never()).getBytes();
+        then(gpxAnalysisJobRepository).should(never()).save(any(GpxAnalysisJob.class));
+        then(gpxAnalysisJobDispatcher).should(never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldReleaseReservationWhenUploadCannotBeRead() throws IOException {
+        // given
+        MultipartFile file = mock(MultipartFile.class);
+        given(file.getBytes()).willThrow(new IOException("connection reset"));
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true);
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisJobService.submitAnalysis(file, 100L))
+                .isInstanceOf(GpxParsingException.class);
+        then(gpxAnalysisJobDispatcher).should().cancelReservation();
+        then(gpxAnalysisJobRepository).should(never()).save(any(GpxAnalysisJob.class));
+    }
+
+    @Test
+    void shouldReleaseReservationWhenJobCannotBePersisted() {
+        // given
+        MockMultipartFile file = new MockMultipartFile("file", "ride.gpx", "application/gpx+xml", "<gpx/>".getBytes());
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true);
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class))).willThrow(new IllegalStateException("db down"));
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisJobService.submitAnalysis(file, 100L))
+                .isInstanceOf(IllegalStateException.class);
+        then(gpxAnalysisJobDispatcher).should().cancelReservation();
+    }
+
+    @Test
+    void shouldCompleteJobAndPublishEventWhenWorkerRunsAnalysis() {
+        // given
+        GpxAnalysisJob job = GpxAnalysisJob.builder()
+                .id(1L)
+                .userId(100L)
+                .filename("ride.gpx")
+                .status(GpxAnalysisJobStatus.QUEUED)
+                .payload("<gpx/>".getBytes())
+                .build();
+        GpxAnalysisResponse analysis =
+                new GpxAnalysisResponse(7L, "ride.gpx", 0, List.of(), 1.0, 2.0, LocalDateTime.now());
+
+        given(gpxAnalysisJobRepository.findById(1L)).willReturn(Optional.of(job));
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(gpxAnalysisService.analyzeGpxBytes(any(), any(), any())).willReturn(analysis);
+
+        // when
+        runDispatchedJob(1L);
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(GpxAnalysisJobStatus.COMPLETED);
+        assertThat(job.getGpxFileId()).isEqualTo(7L);
+        assertThat(job.getPayload()).isNull();
+        assertThat(job.getCompletedAt()).isNotNull();
+        then(gpxAnalysisService).should().analyzeGpxBytes(eq("ride.gpx"), any(), eq(100L));
+        then(eventPublisher)
+                .should()
+                .publishEvent(new GpxAnalysisJobCompletedEvent(1L, 100L, GpxAnalysisJobStatus.COMPLETED, 7L, null));
+    }
+
+    @Test
+    void shouldAnalyzeSpooledFileAndDeleteItWhenJobWasQueuedOnDisk(@TempDir Path directory) throws IOException {
+        // given
+        Path spooled = Files.writeString(directory.resolve("gpx-upload-1.tmp"), "<gpx/>");
+        GpxAnalysisJob job = GpxAnalysisJob.builder()
+                .id(4L)
+                .userId(100L)
+                .filename("ride.gpx")
+                .status(GpxAnalysisJobStatus.QUEUED)
+                .payloadPath(spooled.toString())
+                .build();
+        GpxAnalysisResponse analysis =
+                new GpxAnalysisResponse(8L, "ride.gpx", 0, List.of(), 1.0, 2.0, LocalDateTime.now());
+
+        given(gpxAnalysisJobRepository.findById(4L)).willReturn(Optional.of(job));
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(gpxAnalysisService.analyzeGpxPath("ride.gpx", spooled, 100L)).willReturn(analysis);
+
+        // when
+        runDispatchedJob(4L);
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(GpxAnalysisJobStatus.COMPLETED);
+        assertThat(job.getGpxFileId()).isEqualTo(8L);
+        assertThat(job.getPayloadPath()).isNull();
+        assertThat(spooled).doesNotExist();
+        then(gpxAnalysisService).should(never()).analyzeGpxBytes(any(), any(), any());
+    }
+
+    @Test
+    void shouldMarkJobFailedWhenAnalysisThrows() {
+        // given
+        GpxAnalysisJob job = GpxAnalysisJob.builder()
+                .id(2L)
+                .userId(100L)
+                .filename("broken.gpx")
+                .status(GpxAnalysisJobStatus.QUEUED)
+                .payload("not xml".getBytes())
+                .build();
+
+        given(gpxAnalysisJobRepository.findById(2L)).willReturn(Optional.of(job));
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(gpxAnalysisService.analyzeGpxBytes(any(), any(), any()))
+                .willThrow(new GpxParsingException("Failed to parse GPX file"));
+
+        // when
+        runDispatchedJob(2L);
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(GpxAnalysisJobStatus.FAILED);
+        assertThat(job.getErrorMessage()).isEqualTo("Failed to parse GPX file");
+        assertThat(job.getPayload()).isNull();
+        then(eventPublisher)
+                .should()
+                .publishEvent(new GpxAnalysisJobCompletedEvent(
+                        2L, 100L, GpxAnalysisJobStatus.FAILED, null, "Failed to parse GPX file"));
+    }
+
+    @Test
+    void shouldHideFailureDetailsWhenAnalysisFailsForAnotherReason() {
+        // given
+        GpxAnalysisJob job = GpxAnalysisJob.builder()
+                .id(3L)
+                .userId(100L)
+                .filename("ride.gpx")
+                .status(GpxAnalysisJobStatus.QUEUED)
+                .payload("<gpx/>".getBytes())
+                .build();
+
+        given(gpxAnalysisJobRepository.findById(3L)).willReturn(Optional.of(job));
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(gpxAnalysisService.analyzeGpxBytes(any(), any(), any()))
+                .willThrow(new IllegalStateException("ERROR: duplicate key value violates unique constraint"));
+
+        // when
+        runDispatchedJob(3L);
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(GpxAnalysisJobStatus.FAILED);
+        assertThat(job.getErrorMessage()).isEqualTo("Failed to analyze file");
+        assertThat(job.getPayload()).isNull();
+        then(eventPublisher)
+                .should()
+                .publishEvent(new GpxAnalysisJobCompletedEvent(
+                        3L, 100L, GpxAnalysisJobStatus.FAILED, null, "Failed to analyze file"));
+    }
+
+    @Test
+    void shouldReturnJobStatusWhenJobExists() {
+        // given
+        GpxAnalysisJobResponse expectedResponse = new GpxAnalysisJobResponse(
+                1L, "ride.gpx", GpxAnalysisJobStatus.RUNNING, null, null, LocalDateTime.now(), null);
+        given(gpxAnalysisJobRepository.findResponseById(1L)).willReturn(Optional.of(expectedResponse));
+
+        // when
+        GpxAnalysisJobResponse response = gpxAnalysisJobService.getJob(1L);
+
+        // then
+        assertThat(response).isEqualTo(expectedResponse);
+    }
+
+    @Test
+    void shouldThrowJobNotFoundExceptionWhenJobDoesNotExist() {
+        // given
+        given(gpxAnalysisJobRepository.findResponseById(99L)).willReturn(Optional.empty());
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisJobService.getJob(99L))
+                .isInstanceOf(GpxAnalysisJobNotFoundException.class)
+                .hasMessageContaining("99");
+    }
+
+    @Test
+    void shouldResumeUnfinishedJobsUntilQueueIsFull() {
+        // given
+        given(gpxAnalysisJobRepository.findIdsByStatusIn(
+                        List.of(GpxAnalysisJobStatus.QUEUED, GpxAnalysisJobStatus.RUNNING)))
+                .willReturn(List.of(1L, 2L, 3L));
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true, true, false);
+
+        // when
+        int resumed = gpxAnalysisJobService.resumePendingJobs();
+
+        // then
+        assertThat(resumed).isEqualTo(2);
+        then(gpxAnalysisJobDispatcher).should(times(2)).execute(any(Runnable.class));
+    }
+
+    private void runDispatchedJob(Long jobId) {
+        given(gpxAnalysisJobRepository.findIdsByStatusIn(any())).willReturn(List.of(jobId));
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true);
+        gpxAnalysisJobService.resumePendingJobs();
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        then(gpxAnalysisJobDispatcher).should().execute(task.capture());
+        task.getValue().run();
+    }
+}
@@ -2,24 +2,46 @@ package com.mycyclecoach.feature.gpxanalysis.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 
+import com.mycyclecoach.config.GpxAnalysisConfig;
 import com.mycyclecoach.feature.gpxanalysis.domain.*;
 import com.mycyclecoach.feature.gpxanalysis.repository.ClimbRepository;
 import com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxTrackCellRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxTrackRepository;
+import com.mycyclecoach.feature.userprofile.domain.UserProfile;
+import com.mycyclecoach.feature.userprofile.repository.UserProfileRepository;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class GpxAnalysisServiceImplTest {
@@ -27,15 +49,56 @@ class GpxAnalysisServiceImplTest {
     @Mock
     private GpxFileRepository gpxFileRepository;
 
+    @Mock
+    private GpxTrackRepository gpxTrackRepository;
+
     @Mock
     private ClimbRepository climbRepository;
 
     @Mock
     private GpxAnalysisMapper gpxAnalysisMapper;
 
+    @Mock
+    private ClimbDetector climbDetector;
+
+    @Mock
+    private RideTimeEstimator rideTimeEstimator;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Spy
+    private GpxAnalysisConfig gpxAnalysisConfig = new GpxAnalysisConfig();
+
+    @Spy
+    private ElevationProfileCache elevationProfileCache = new ElevationProfileCache(new GpxAnalysisConfig());
+
+    @Mock
+    private GpxTrackCellRepository gpxTrackCellRepository;
+
+    @Spy
+    private TrackBoundsIndexCache trackBoundsIndexCache = new TrackBoundsIndexCache(new GpxAnalysisConfig());
+
+    @Mock
+    private ClimbHistoryService climbHistoryService;
+
+    @Mock
+    private PowerCurveService powerCurveService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
+
     @InjectMocks
     private GpxAnalysisServiceImpl gpxAnalysisService;
 
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
+    }
+
     @Test
     void shouldAnalyzeGpxFileSuccessfully() throws IOException {
         // given
@@ -60,7 +123,7 @@ class GpxAnalysisServiceImplTest {
         GpxFile savedGpxFile = GpxFile.builder()
                 .id(1L)
                 .filename("test.gpx")
-                .content(gpxContent)
+                .track(GpxTrack.builder().id(1L).content(gpxContent).build())
                 .userId(100L)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
@@ -68,7 +131,7 @@ class GpxAnalysisServiceImplTest {
 
         Climb climb = Climb.builder()
                 .id(1L)
-                .gpxFile(savedGpxFile)
+                .track(savedGpxFile.getTrack())
                 .distanceMeters(200.0)
                 .elevationGainMeters(40.0)
                 .averageGradient(0.2)
@@ -85,6 +148,18 @@ class GpxAnalysisServiceImplTest {
                 5.0,
                 LocalDateTime.now());
 
+        Climb detectedClimb = Climb.builder()
+                .distanceMeters(200.0)
+                .elevationGainMeters(40.0)
+                .averageGradient(0.2)
+                .startPointIndex(0)
+                .endPointIndex(2)
+                .build();
+
+        given(climbDetector.detect(any(TrackBuffer.class))).willReturn(new ArrayList<>(List.of(detectedClimb)));
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(new RouteMetrics(1.5, 5.0));
+        givenTrackHashIsUnclaimed(10L);
         given(gpxFileRepository.save(any(GpxFile.class))).willReturn(savedGpxFile);
         given(climbRepository.saveAll(anyList())).willReturn(List.of(climb));
         given(gpxAnalysisMapper.toGpxAnalysisResponse(any(GpxFile.class), anyList()))
@@ -97,31 +172,939 @@ class GpxAnalysisServiceImplTest {
         assertThat(response).isNotNull();
         assertThat(response.gpxFileId()).isEqualTo(1L);
         assertThat(response.filename()).isEqualTo("test.gpx");
-        then(gpxFileRepository).should().save(any(GpxFile.class));
-        then(climbRepository).should().saveAll(anyList());
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getTotalDistanceKm() == 1.5
+                        && saved.getEstimatedRideTimeMinutes() == 5.0
+                        && saved.getMetricsComputedAt() != null
+                        && !saved.getPreviewPolyline().isEmpty()
+                        && saved.getTrack().getMinLatitude() == 51.5
+                        && saved.getTrack().getMaxLatitude() == 51.502));
+        then(climbRepository).should().saveAll(List.of(detectedClimb));
+        then(climbHistoryService).should().recordEfforts(eq(savedGpxFile), any(TrackBuffer.class), eq(List.of(climb)));
+        then(powerCurveService).should().recordRide(savedGpxFile);
+        then(gpxTrackCellRepository).should().saveAll(argThat(cells -> cells.iterator().hasNext()));
+        assertThat(detectedClimb.getTrack()).isNotNull();
     }
 
     @Test
-    void shouldThrowGpxParsingExceptionWhenFileIsInvalid() {
+    void shouldAnalyzeGpxBytesWhenContentIsValid() {
         // given
+        byte[] gpxContent = "<gpx><trk><trkseg><trkpt lat=\"51.5\" lon=\"-0.1\"/></trkseg></trk></gpx>".getBytes();
+
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.analyzeGpxBytes("queued.gpx", gpxContent, 100L);
+
+        // then
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getFilename().equals("queued.gpx") && saved.getUserId() == 100L));
+    }
+
+    @Test
+    void shouldSpoolAndMapUploadWithoutKeepingXmlWhenFileExceedsSpillThreshold(@TempDir Path spillDirectory) {
+        // given
+        String gpxContent =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5" lon="-0.1"><ele>100</ele></trkpt>
+                  <trkpt lat="51.501" lon="-0.1"><ele>104</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
         MockMultipartFile file =
-                new MockMultipartFile("file", "test.gpx", "application/gpx+xml", "invalid content".getBytes());
+                new MockMultipartFile("file", "ultra.gpx", "application/gpx+xml", gpxContent.getBytes());
+        gpxAnalysisConfig.getUpload().setSpillThresholdBytes(16);
+        gpxAnalysisConfig.getUpload().setSpillDirectory(spillDirectory.toString());
+        gpxAnalysisConfig.getStorage().setRetainXml(true);
 
-        GpxFile savedGpxFile = GpxFile.builder()
-                .id(1L)
-                .filename("test.gpx")
-                .content("invalid content")
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.analyzeGpxFile(file, 100L);
+
+        // then
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getTrack().getContent() == null
+                        && TrackCodec.decode(saved.getTrack().getTrackData(), DistanceMode.HAVERSINE).size() == 2));
+        assertThat(spillDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void shouldReadTcxAndKeepOnlyTrackDataWhenUploadIsNotGpx() {
+        // given
+        byte[] tcxContent =
+                """
+                <TrainingCenterDatabase><Activities><Activity><Lap><Track><Trackpoint>
+                  <Position><LatitudeDegrees>51.5</LatitudeDegrees><LongitudeDegrees>-0.1</LongitudeDegrees></Position>
+                </Trackpoint></Track></Lap></Activity></Activities></TrainingCenterDatabase>
+                """
+                        .getBytes(StandardCharsets.UTF_8);
+        gpxAnalysisConfig.getStorage().setRetainXml(true);
+
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.analyzeGpxBytes("ride.tcx", tcxContent, 100L);
+
+        // then
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getTrack().getContent() == null
+                        && TrackCodec.decode(saved.getTrack().getTrackData(), DistanceMode.HAVERSINE).size() == 1));
+    }
+
+    @Test
+    void shouldEstimateRideTimeFromRiderProfileWhenWeightAndFtpAreSet() {
+        // given
+        String gpxContent =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
+                  <trkpt lat="51.5010" lon="-0.1000"><ele>110</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+        UserProfile profile = UserProfile.builder()
                 .userId(100L)
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
+                .weight(new BigDecimal("72.5"))
+                .currentFtp(250)
                 .build();
 
-        given(gpxFileRepository.save(any(GpxFile.class))).willReturn(savedGpxFile);
+        given(userProfileRepository.findByUserId(100L)).willReturn(Optional.of(profile));
+        given(rideTimeEstimator.estimateMinutes(any(TrackBuffer.class), eq(72.5), eq(250))).willReturn(1.2);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.analyzeGpxBytes("profile.gpx", gpxContent.getBytes(), 100L);
+
+        // then
+        then(gpxFileRepository).should().save(argThat(saved -> saved.getEstimatedRideTimeMinutes() == 1.2));
+        then(gpxAnalysisMapper).should(never()).calculateRouteMetrics(any(TrackBuffer.class), anyList());
+    }
+
+    @Test
+    void shouldUseTerrainSpeedEstimateWhenProfileHasNoFtp() {
+        // given
+        byte[] gpxContent = "<gpx><trk><trkseg><trkpt lat=\"51.5\" lon=\"-0.1\"/></trkseg></trk></gpx>".getBytes();
+        UserProfile profile = UserProfile.builder().userId(100L).weight(new BigDecimal("72.5")).build();
+
+        given(userProfileRepository.findByUserId(100L)).willReturn(Optional.of(profile));
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.analyzeGpxBytes("profile.gpx", gpxContent, 100L);
+
+        // then
+        then(rideTimeEstimator).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void shouldStoreTrainingLoadAgainstRiderFtpWhenRideHasPower() {
+        // given
+        StringBuilder gpxContent = new StringBuilder("<gpx version=\"1.1\"><trk><trkseg>");
+        for (int i = 0; i < 60; i++) {
+            gpxContent
+                    .append("<trkpt lat=\"")
+                    .append(51.5 + i * 0.0001)
+                    .append("\" lon=\"-0.1\"><time>2024-05-01T08:00:%02dZ</time>".formatted(i))
+                    .append("<extensions><power>240</power></extensions></trkpt>");
+        }
+        gpxContent.append("</trkseg></trk></gpx>");
+        UserProfile profile = UserProfile.builder().userId(100L).currentFtp(300).build();
+
+        given(userProfileRepository.findByUserId(100L)).willReturn(Optional.of(profile));
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.analyzeGpxBytes("power.gpx", gpxContent.toString().getBytes(), 100L);
+
+        // then
+        ArgumentCaptor<GpxFile> saved = ArgumentCaptor.forClass(GpxFile.class);
+        then(gpxFileRepository).should().save(saved.capture());
+        assertThat(saved.getValue().getMovingTimeSeconds()).isEqualTo(60);
+        assertThat(saved.getValue().getNormalizedPowerWatts()).isCloseTo(240.0, within(1e-9));
+        assertThat(saved.getValue().getIntensityFactor()).isCloseTo(0.8, within(1e-9));
+        // An hour at FTP scores 100, so a minute at 80% scores 100 * 0.8 * 0.8 / 60
+        assertThat(saved.getValue().getTrainingStressScore()).isCloseTo(1.0667, within(1e-4));
+        assertThat(saved.getValue().getLoadComputedAt()).isNotNull();
+        // 240 W is 80% of FTP, in the tempo zone, and in the 240-244 W bin
+        assertThat(saved.getValue().getPowerZoneSeconds()).containsExactly(0, 0, 60, 0, 0, 0, 0);
+        assertThat(saved.getValue().getPowerHistogram()).hasSize(49).endsWith(60);
+        assertThat(saved.getValue().getHeartRateHistogram()).isNull();
+        assertThat(saved.getValue().getHeartRateZoneSeconds()).isNull();
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenFileIsInvalid() {
+        // given
+        MockMultipartFile file =
+                new MockMultipartFile("file", "test.gpx", "application/gpx+xml", "invalid content".getBytes());
 
         // when / then
         assertThatThrownBy(() -> gpxAnalysisService.analyzeGpxFile(file, 100L))
                 .isInstanceOf(GpxParsingException.class)
                 .hasMessageContaining("Failed to parse GPX file");
+        then(gpxFileRepository).should(never()).save(any(GpxFile.class));
+    }
+
+    @Test
+    void shouldRejectUploadWithoutStoringWhenTrackHasMorePointsThanAllowed() {
+        // given
+        byte[] gpxContent = ("<gpx><trk><trkseg><trkpt lat=\"51.5\" lon=\"-0.1\"/><trkpt lat=\"51.501\" lon=\"-0.1\"/>"
+                        + "</trkseg></trk></gpx>")
+                .getBytes();
+        gpxAnalysisConfig.getUpload().setMaxTrackPoints(1);
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.analyzeGpxBytes("long.gpx", gpxContent, 100L))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("more than 1 points");
+        then(gpxTrackRepository).should(never()).insertIfAbsent(any(byte[].class));
+        then(gpxFileRepository).should(never()).save(any(GpxFile.class));
+    }
+
+    @Test
+    void shouldParseUploadOutsideTransactionWhenSourceHashIsUnknown() {
+        // given
+        MockMultipartFile file =
+                new MockMultipartFile("file", "test.gpx", "application/gpx+xml", "invalid content".getBytes());
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.analyzeGpxFile(file, 100L))
+                .isInstanceOf(GpxParsingException.class);
+        // Only the source lookup ran in a transaction, and it had committed before parsing failed
+        then(transactionManager).should(times(1)).getTransaction(any());
+        then(transactionManager).should().commit(any());
+        then(transactionManager).should(never()).rollback(any());
+    }
+
+    @Test
+    void shouldImportGpxContentWhenContentIsValid() {
+        // given
+        String gpxContent =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
+                  <trkpt lat="51.5010" lon="-0.1000"><ele>100</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+        GpxAnalysisResponse expectedResponse =
+                new GpxAnalysisResponse(7L, "12345_ride.gpx", 0, List.of(), 0.1, 0.3, LocalDateTime.now());
+
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(new RouteMetrics(0.1, 0.3));
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+        given(gpxAnalysisMapper.toGpxAnalysisResponse(any(GpxFile.class), anyList()))
+                .willReturn(expectedResponse);
+
+        // when
+        GpxAnalysisResponse response = gpxAnalysisService.importGpxContent(100L, "12345_ride.gpx", gpxContent);
+
+        // then
+        assertThat(response.gpxFileId()).isEqualTo(7L);
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getUserId() == 100L
+                        && saved.getFilename().equals("12345_ride.gpx")
+                        && saved.getTrack().getContent() == null
+                        && TrackCodec.decode(saved.getTrack().getTrackData(), DistanceMode.HAVERSINE).size() == 2
+                        && RouteGeometry.decode(saved.getTrack().getGeometryData()).size() == 2
+                        && saved.getTrack().getContentHash().length == 32
+                        && saved.getTrack().getReferenceCount() == 1
+                        && saved.getSourceHash().length == 32));
+    }
+
+    @Test
+    void shouldReuseStoredTrackWithoutParsingWhenSourceHashMatches() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 60; i++) {
+            builder.add(51.5 + i * 0.0001, -0.1, 100 + i, 1_700_000_000_000L + i * 1000L, 250, 150, 90);
+        }
+        GpxTrack sharedTrack =
+                GpxTrack.builder().id(10L).trackData(TrackCodec.encode(builder.build(DistanceMode.HAVERSINE))).build();
+        GpxFile source = GpxFile.builder()
+                .id(20L)
+                .filename("original.gpx")
+                .track(sharedTrack)
+                .userId(200L)
+                .totalDistanceKm(42.0)
+                .estimatedRideTimeMinutes(95.0)
+                .metricsComputedAt(LocalDateTime.now())
+                .previewPolyline("_p~iF~ps|U_ulLnnqC")
+                .movingTimeSeconds(3600)
+                .normalizedPowerWatts(250.0)
+                .intensityFactor(1.0)
+                .trainingStressScore(100.0)
+                .loadComputedAt(LocalDateTime.now())
+                .powerHistogram(new int[] {0, 60})
+                .zonesComputedAt(LocalDateTime.now())
+                .build();
+        List<Climb> climbs = List.of(Climb.builder().id(30L).track(sharedTrack).build());
+        UserProfile rider = UserProfile.builder().userId(100L).currentFtp(200).maxHr(200).build();
+
+        given(gpxFileRepository.findFirstBySourceHash(any(byte[].class))).willReturn(Optional.of(source));
+        given(userProfileRepository.findByUserId(100L)).willReturn(Optional.of(rider));
+        given(climbRepository.findByTrackId(10L)).willReturn(climbs);
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), eq(climbs)))
+                .willReturn(new RouteMetrics(0.6, 2.0));
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        gpxAnalysisService.importGpxContent(100L, "copy.gpx", "content that is never parsed");
+
+        // then
+        then(gpxTrackRepository).should().incrementReferenceCount(10L);
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getUserId() == 100L
+                        && saved.getFilename().equals("copy.gpx")
+                        && saved.getTrack() == sharedTrack
+                        && saved.getTotalDistanceKm() == 0.6
+                        && saved.getEstimatedRideTimeMinutes() == 2.0
+                        && saved.getPreviewPolyline().equals("_p~iF~ps|U_ulLnnqC")
+                        && saved.getNormalizedPowerWatts() == 250.0
+                        && saved.getIntensityFactor() == 1.25
+                        && saved.getPowerZoneSeconds()[5] == 60
+                        && saved.getHeartRateZoneSeconds()[2] == 60));
+        then(gpxAnalysisMapper).should().toGpxAnalysisResponse(any(GpxFile.class), eq(climbs));
+        then(climbHistoryService)
+                .should()
+                .recordEfforts(argThat(saved -> saved.getUserId() == 100L), any(TrackBuffer.class), eq(climbs));
+        then(powerCurveService).should().recordRide(argThat(saved -> saved.getUserId() == 100L));
+        then(climbRepository).should(never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldEstimateRideTimeForUploaderWhenSourceHashMatchesAnotherRidersFile() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 10; i++) {
+            builder.add(51.5 + i * 0.001, -0.1, 100, TrackBuffer.NO_TIME);
+        }
+        GpxTrack sharedTrack =
+                GpxTrack.builder().id(10L).trackData(TrackCodec.encode(builder.build(DistanceMode.HAVERSINE))).build();
+        GpxFile source = GpxFile.builder()
+                .id(20L)
+                .filename("original.gpx")
+                .track(sharedTrack)
+                .userId(200L)
+                .totalDistanceKm(1.0)
+                .estimatedRideTimeMinutes(95.0)
+                .metricsComputedAt(LocalDateTime.now())
+                .build();
+        UserProfile rider = UserProfile.builder()
+                .userId(100L)
+                .weight(new BigDecimal("70"))
+                .currentFtp(300)
+                .build();
+
+        given(gpxFileRepository.findFirstBySourceHash(any(byte[].class))).willReturn(Optional.of(source));
+        given(userProfileRepository.findByUserId(100L)).willReturn(Optional.of(rider));
+        given(climbRepository.findByTrackId(10L)).willReturn(List.of());
+        given(rideTimeEstimator.estimateMinutes(any(TrackBuffer.class), eq(70.0), eq(300)))
+                .willReturn(2.5);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        gpxAnalysisService.importGpxContent(100L, "copy.gpx", "content that is never parsed");
+
+        // then
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getUserId() == 100L
+                        && saved.getEstimatedRideTimeMinutes() == 2.5
+                        && saved.getMetricsComputedAt() != null));
+        then(gpxAnalysisMapper).should(never()).calculateRouteMetrics(any(TrackBuffer.class), anyList());
+    }
+
+    @Test
+    void shouldReturnExistingAnalysisWhenUserReuploadsSameFile() {
+        // given
+        GpxTrack sharedTrack = GpxTrack.builder().id(10L).build();
+        GpxFile existing = GpxFile.builder()
+                .id(20L)
+                .filename("ride.gpx")
+                .track(sharedTrack)
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findFirstBySourceHash(any(byte[].class))).willReturn(Optional.of(existing));
+        given(climbRepository.findByTrackId(10L)).willReturn(List.of());
+        given(gpxFileRepository.findFirstByUserIdAndTrackId(100L, 10L)).willReturn(Optional.of(existing));
+
+        // when
+        gpxAnalysisService.importGpxContent(100L, "ride.gpx", "content that is never parsed");
+
+        // then
+        then(gpxAnalysisMapper).should().toGpxAnalysisResponse(existing, List.of());
+        then(gpxFileRepository).should(never()).save(any(GpxFile.class));
+        then(climbHistoryService).should(never()).recordEfforts(any(), any(), anyList());
+        then(gpxTrackRepository).should(never()).incrementReferenceCount(any());
+    }
+
+    @Test
+    void shouldShareStoredTrackAndSkipClimbDetectionWhenContentHashMatches() {
+        // given
+        String gpxContent =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
+                  <trkpt lat="51.5010" lon="-0.1000"><ele>100</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+        GpxTrack sharedTrack = GpxTrack.builder().id(10L).build();
+
+        given(gpxTrackRepository.findIdByContentHash(any(byte[].class))).willReturn(Optional.of(10L));
+        given(climbRepository.findByTrackId(10L)).willReturn(List.of());
+        given(gpxTrackRepository.getReferenceById(10L)).willReturn(sharedTrack);
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(new RouteMetrics(0.1, 0.3));
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        gpxAnalysisService.importGpxContent(100L, "reexported.gpx", gpxContent);
+
+        // then
+        then(gpxTrackRepository).should().incrementReferenceCount(10L);
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> saved.getTrack() == sharedTrack
+                        && saved.getTotalDistanceKm() == 0.1
+                        && !saved.getPreviewPolyline().isEmpty()));
+        then(climbRepository).should(never()).saveAll(anyList());
+        then(climbHistoryService).should().recordEfforts(any(GpxFile.class), any(TrackBuffer.class), eq(List.of()));
+        then(powerCurveService).should().recordRide(any(GpxFile.class));
+    }
+
+    @Test
+    void shouldShareTrackStoredConcurrentlyWhenContentHashIsClaimedAfterLookup() {
+        // given
+        String gpxContent =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
+                  <trkpt lat="51.5010" lon="-0.1000"><ele>100</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+        GpxTrack sharedTrack = GpxTrack.builder().id(10L).build();
+
+        given(gpxTrackRepository.findIdByContentHash(any(byte[].class)))
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of(10L));
+        given(gpxTrackRepository.insertIfAbsent(any(byte[].class))).willReturn(Optional.empty());
+        given(climbRepository.findByTrackId(10L)).willReturn(List.of());
+        given(gpxTrackRepository.getReferenceById(10L)).willReturn(sharedTrack);
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(new RouteMetrics(0.1, 0.3));
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        gpxAnalysisService.importGpxContent(100L, "concurrent.gpx", gpxContent);
+
+        // then
+        then(gpxTrackRepository).should().incrementReferenceCount(10L);
+        then(gpxFileRepository).should().save(argThat(saved -> saved.getTrack() == sharedTrack));
+        then(climbDetector).should(never()).detect(any(TrackBuffer.class));
+        then(climbRepository).should(never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldKeepOriginalXmlWhenRetainXmlIsEnabled() {
+        // given
+        String gpxContent = "<gpx><trk><trkseg><trkpt lat=\"51.5\" lon=\"-0.1\"/></trkseg></trk></gpx>";
+        gpxAnalysisConfig.getStorage().setRetainXml(true);
+
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        givenTrackHashIsUnclaimed(10L);
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+
+        // when
+        gpxAnalysisService.importGpxContent(100L, "ride.gpx", gpxContent);
+
+        // then
+        then(gpxFileRepository)
+                .should()
+                .save(argThat(saved -> gpxContent.equals(saved.getTrack().getContent())
+                        && saved.getTrack().getTrackData() != null));
+    }
+
+    @Test
+    void shouldThrowGpxParsingExceptionWhenImportedContentHasNoTrackPoints() {
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.importGpxContent(100L, "empty.gpx", "<gpx version=\"1.1\"/>"))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("No waypoints found");
+        then(gpxFileRepository).should(never()).save(any(GpxFile.class));
+    }
+
+    @Test
+    void shouldBackfillRouteMetricsWhenStoredFilesHaveNone() {
+        // given
+        String gpxContent =
+                """
+                <gpx version="1.1"><trk><trkseg>
+                  <trkpt lat="51.5000" lon="-0.1000"><ele>100</ele></trkpt>
+                  <trkpt lat="51.5010" lon="-0.1000"><ele>100</ele></trkpt>
+                </trkseg></trk></gpx>
+                """;
+        GpxFile gpxFile = GpxFile.builder()
+                .id(3L)
+                .filename("old.gpx")
+                .track(GpxTrack.builder().id(3L).content(gpxContent).build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findPendingBackfill(any(Pageable.class))).willReturn(List.of(gpxFile));
+        given(climbRepository.findByTrackId(3L)).willReturn(List.of());
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(new RouteMetrics(0.1, 0.3));
+
+        // when
+        int processed = gpxAnalysisService.backfillRouteMetrics(50);
+
+        // then
+        assertThat(processed).isEqualTo(1);
+        assertThat(gpxFile.getTotalDistanceKm()).isEqualTo(0.1);
+        assertThat(gpxFile.getEstimatedRideTimeMinutes()).isEqualTo(0.3);
+        assertThat(gpxFile.getMetricsComputedAt()).isNotNull();
+        assertThat(gpxFile.getPreviewPolyline()).isNotEmpty();
+        assertThat(gpxFile.getLoadComputedAt()).isNotNull();
+    }
+
+    @Test
+    void shouldRecordEmptyMetricsWhenStoredContentCannotBeParsed() {
+        // given
+        GpxFile gpxFile = GpxFile.builder()
+                .id(4L)
+                .filename("broken.gpx")
+                .track(GpxTrack.builder().id(4L).content("not xml").build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findPendingBackfill(any(Pageable.class))).willReturn(List.of(gpxFile));
+
+        // when
+        int processed = gpxAnalysisService.backfillRouteMetrics(50);
+
+        // then
+        assertThat(processed).isEqualTo(1);
+        assertThat(gpxFile.getTotalDistanceKm()).isEqualTo(0.0);
+        assertThat(gpxFile.getEstimatedRideTimeMinutes()).isEqualTo(0.0);
+        assertThat(gpxFile.getMetricsComputedAt()).isNotNull();
+        assertThat(gpxFile.getPreviewPolyline()).isEmpty();
+        assertThat(gpxFile.getNormalizedPowerWatts()).isNull();
+        assertThat(gpxFile.getLoadComputedAt()).isNotNull();
+        assertThat(gpxFile.getZonesComputedAt()).isNotNull();
+    }
+
+    @Test
+    void shouldConvertStoredXmlToTrackDataAndDropXmlWhenNotRetained() {
+        // given
+        GpxTrack gpxTrack = GpxTrack.builder()
+                .id(5L)
+                .content(
+                        """
+                        <gpx version="1.1"><trk><trkseg>
+                          <trkpt lat="51.5" lon="-0.1"><ele>100</ele></trkpt>
+                        </trkseg></trk></gpx>
+                        """)
+                .build();
+
+        given(gpxTrackRepository.findByTrackDataIsNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(gpxTrack));
+
+        // when
+        int processed = gpxAnalysisService.convertStoredTracks(50);
+
+        // then
+        assertThat(processed).isEqualTo(1);
+        assertThat(gpxTrack.getContent()).isNull();
+        TrackBuffer track = TrackCodec.decode(gpxTrack.getTrackData(), DistanceMode.HAVERSINE);
+        assertThat(track.size()).isEqualTo(1);
+        assertThat(track.elevation(0)).isEqualTo(100.0);
+        assertThat(RouteGeometry.decode(gpxTrack.getGeometryData()).size()).isEqualTo(1);
+        assertThat(gpxTrack.getContentHash()).hasSize(32);
+    }
+
+    @Test
+    void shouldLeaveContentHashUnsetWhenConvertedTrackDuplicatesHashedTrack() {
+        // given
+        GpxTrack gpxTrack = GpxTrack.builder()
+                .id(7L)
+                .content("<gpx><trk><trkseg><trkpt lat=\"51.5\" lon=\"-0.1\"/></trkseg></trk></gpx>")
+                .build();
+
+        given(gpxTrackRepository.findByTrackDataIsNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(gpxTrack));
+        given(gpxTrackRepository.existsByContentHash(any(byte[].class))).willReturn(true);
+
+        // when
+        gpxAnalysisService.convertStoredTracks(50);
+
+        // then
+        assertThat(gpxTrack.getTrackData()).isNotNull();
+        assertThat(gpxTrack.getContentHash()).isNull();
+    }
+
+    @Test
+    void shouldKeepXmlAndStoreEmptyTrackWhenStoredContentCannotBeConverted() {
+        // given
+        GpxTrack gpxTrack = GpxTrack.builder().id(6L).content("not xml").build();
+
+        given(gpxTrackRepository.findByTrackDataIsNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(gpxTrack));
+
+        // when
+        int processed = gpxAnalysisService.convertStoredTracks(50);
+
+        // then
+        assertThat(processed).isEqualTo(1);
+        assertThat(gpxTrack.getContent()).isEqualTo("not xml");
+        assertThat(TrackCodec.decode(gpxTrack.getTrackData(), DistanceMode.HAVERSINE).isEmpty()).isTrue();
+        assertThat(gpxTrack.getContentHash()).isNull();
+    }
+
+    @Test
+    void shouldIndexBoundsAndCellsWhenConvertedTrackWasNotSpatiallyIndexed() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, TrackBuffer.NO_TIME)
+                .add(51.52, -0.08, 100, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+        GpxTrack gpxTrack = GpxTrack.builder().id(6L).trackData(TrackCodec.encode(track)).build();
+
+        given(gpxTrackRepository.findBySpatialIndexedAtIsNullAndTrackDataIsNotNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(gpxTrack));
+
+        // when
+        int processed = gpxAnalysisService.indexStoredTracks(50);
+
+        // then
+        assertThat(processed).isEqualTo(1);
+        assertThat(gpxTrack.getMinLatitude()).isEqualTo(51.5);
+        assertThat(gpxTrack.getMaxLongitude()).isEqualTo(-0.08);
+        assertThat(gpxTrack.getSpatialIndexedAt()).isNotNull();
+        then(gpxTrackCellRepository)
+                .should()
+                .saveAll(argThat(cells -> cells.iterator().next().getTrack() == gpxTrack));
+    }
+
+    @Test
+    void shouldStorePowerCurveAndInvalidateOwnersWhenTrackWasStoredBeforePowerCurves() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 120; i++) {
+            builder.add(51.5 + i * 0.0001, -0.1, 100, 1_700_000_000_000L + i * 1000L, 250, 140, 90);
+        }
+        GpxTrack withPower = GpxTrack.builder()
+                .id(6L)
+                .trackData(TrackCodec.encode(builder.build(DistanceMode.HAVERSINE)))
+                .build();
+        GpxTrack withoutPower = GpxTrack.builder()
+                .id(7L)
+                .trackData(TrackCodec.encode(TrackBuffer.builder()
+                        .add(51.5, -0.1, 100, TrackBuffer.NO_TIME)
+                        .build(DistanceMode.HAVERSINE)))
+                .build();
+
+        given(gpxTrackRepository.findByPowerCurveIsNullAndTrackDataIsNotNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(withPower, withoutPower));
+        given(gpxFileRepository.findUserIdsByTrackIdIn(List.of(6L))).willReturn(List.of(100L, 200L));
+
+        // when
+        int processed = gpxAnalysisService.computeStoredPowerCurves(50);
+
+        // then
+        assertThat(processed).isEqualTo(2);
+        assertThat(PowerCurve.decode(withPower.getPowerCurve()).points())
+                .contains(new PowerCurve.Point(60, 250))
+                .hasSize(12);
+        assertThat(withPower.getStartedAt()).isEqualTo(LocalDateTime.of(2023, 11, 14, 22, 13, 20));
+        assertThat(PowerCurve.decode(withoutPower.getPowerCurve()).isEmpty()).isTrue();
+        then(powerCurveService).should().invalidate(List.of(100L, 200L));
+    }
+
+    @Test
+    void shouldServeStoredPowerCurveOrAnalyseTrackWhenNoneWasStored() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 10; i++) {
+            builder.add(51.5 + i * 0.0001, -0.1, 100, 1_700_000_000_000L + i * 1000L, 300 + i, 140, 90);
+        }
+        GpxFile gpxFile = GpxFile.builder()
+                .id(17L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder()
+                        .id(18L)
+                        .trackData(TrackCodec.encode(builder.build(DistanceMode.HAVERSINE)))
+                        .build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(17L)).willReturn(Optional.of(gpxFile));
+        given(gpxFileRepository.findPowerCurveById(17L)).willReturn(Optional.empty());
+
+        // when
+        GpxPowerCurveResponse response = gpxAnalysisService.getPowerCurve(17L);
+
+        // then
+        assertThat(response.gpxFileId()).isEqualTo(17L);
+        assertThat(response.points())
+                .startsWith(new PowerCurve.Point(1, 309))
+                .endsWith(new PowerCurve.Point(10, 305));
+    }
+
+    @Test
+    void shouldRebuildGpxFromTrackDataWhenExportingFileWithoutXml() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, TrackBuffer.NO_TIME)
+                .add(51.501, -0.1, 105.5, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+        GpxFile gpxFile = GpxFile.builder()
+                .id(8L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder().trackData(TrackCodec.encode(track)).build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(8L)).willReturn(Optional.of(gpxFile));
+
+        // when
+        GpxExport export = gpxAnalysisService.exportGpx(8L);
+
+        // then
+        assertThat(export.filename()).isEqualTo("ride.gpx");
+        assertThat(export.content()).contains("<trkpt lat=\"51.501\" lon=\"-0.1\"><ele>105.5</ele></trkpt>");
+    }
+
+    @Test
+    void shouldReturnOriginalXmlWhenExportingFileWithRetainedXml() {
+        // given
+        GpxFile gpxFile = GpxFile.builder()
+                .id(9L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder().content("<gpx>original</gpx>").build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(9L)).willReturn(Optional.of(gpxFile));
+
+        // when
+        GpxExport export = gpxAnalysisService.exportGpx(9L);
+
+        // then
+        assertThat(export.content()).isEqualTo("<gpx>original</gpx>");
+    }
+
+    @Test
+    void shouldServeFinestLevelWithinBudgetFromStoredGeometry() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add(51.5 + i * 0.0001, -0.1 + 0.001 * Math.sin(i / 10.0), 100, TrackBuffer.NO_TIME);
+        }
+        GpxFile gpxFile = GpxFile.builder()
+                .id(13L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder().id(14L).build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(13L)).willReturn(Optional.of(gpxFile));
+        given(gpxTrackRepository.findGeometryDataById(14L))
+                .willReturn(Optional.of(RouteGeometry.of(builder.build(DistanceMode.HAVERSINE), 1000).encode()));
+
+        // when
+        GpxGeometryResponse response = gpxAnalysisService.getGeometry(13L, 300);
+
+        // then
+        assertThat(response.gpxFileId()).isEqualTo(13L);
+        assertThat(response.lod()).isEqualTo(200);
+        assertThat(response.pointCount()).isEqualTo(200);
+        assertThat(response.coordinates()[0]).containsExactly(-0.1, 51.5);
+    }
+
+    @Test
+    void shouldSimplifyStoredTrackWhenGeometryWasNotStored() {
+        // given
+        TrackBuffer track = TrackBuffer.builder()
+                .add(51.5, -0.1, 100, TrackBuffer.NO_TIME)
+                .add(51.501, -0.1, 100, TrackBuffer.NO_TIME)
+                .add(51.501, -0.099, 100, TrackBuffer.NO_TIME)
+                .build(DistanceMode.HAVERSINE);
+        GpxFile gpxFile = GpxFile.builder()
+                .id(15L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder().id(16L).trackData(TrackCodec.encode(track)).build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(15L)).willReturn(Optional.of(gpxFile));
+        given(gpxTrackRepository.findGeometryDataById(16L)).willReturn(Optional.empty());
+
+        // when
+        GpxGeometryResponse response = gpxAnalysisService.getGeometry(15L, null);
+
+        // then
+        assertThat(response.lod()).isEqualTo(1000);
+        assertThat(response.pointCount()).isEqualTo(3);
+        assertThat(response.coordinates()[2]).containsExactly(-0.099, 51.501);
+    }
+
+    @Test
+    void shouldThrowGpxFileNotFoundExceptionWhenGeometryFileIsMissing() {
+        // given
+        given(gpxFileRepository.findById(17L)).willReturn(Optional.empty());
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.getGeometry(17L, 50))
+                .isInstanceOf(GpxFileNotFoundException.class);
+    }
+
+    @Test
+    void shouldBuildElevationProfileOnceAndServeRepeatRequestsFromCache() {
+        // given
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add(51.5 + i * 0.001, -0.1, 100 + Math.min(i, 50), TrackBuffer.NO_TIME);
+        }
+        GpxFile gpxFile = GpxFile.builder()
+                .id(18L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder()
+                        .id(19L)
+                        .trackData(TrackCodec.encode(builder.build(DistanceMode.HAVERSINE)))
+                        .build())
+                .userId(100L)
+                .build();
+        Climb climb = Climb.builder()
+                .id(20L)
+                .distanceMeters(5562.9)
+                .elevationGainMeters(50.0)
+                .averageGradient(0.009)
+                .startPointIndex(0)
+                .endPointIndex(50)
+                .build();
+
+        given(gpxFileRepository.findById(18L)).willReturn(Optional.of(gpxFile));
+        given(climbRepository.findByTrackId(19L)).willReturn(List.of(climb));
+
+        // when
+        ElevationProfileResponse first = gpxAnalysisService.getElevationProfile(18L, 20);
+        ElevationProfileResponse second = gpxAnalysisService.getElevationProfile(18L, 20);
+
+        // then
+        assertThat(first.pointCount()).isEqualTo(20);
+        assertThat(first.elevationMeters()[0]).isEqualTo(100.0);
+        assertThat(first.elevationMeters()[19]).isEqualTo(150.0);
+        assertThat(first.climbs()).hasSize(1);
+        assertThat(first.climbs().getFirst().startDistanceMeters()).isZero();
+        assertThat(first.climbs().getFirst().endDistanceMeters()).isCloseTo(5562.9, within(0.1));
+        assertThat(second.distanceMeters()).isSameAs(first.distanceMeters());
+        then(climbRepository).should().findByTrackId(19L);
+    }
+
+    @Test
+    void shouldClampRequestedProfilePointsToConfiguredMaximum() {
+        // given
+        gpxAnalysisConfig.getProfile().setMaxPoints(10);
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add(51.5 + i * 0.001, -0.1, 100 + (i % 7), TrackBuffer.NO_TIME);
+        }
+        GpxFile gpxFile = GpxFile.builder()
+                .id(21L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder()
+                        .id(22L)
+                        .trackData(TrackCodec.encode(builder.build(DistanceMode.HAVERSINE)))
+                        .build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(21L)).willReturn(Optional.of(gpxFile));
+        given(climbRepository.findByTrackId(22L)).willReturn(List.of());
+
+        // when
+        ElevationProfileResponse response = gpxAnalysisService.getElevationProfile(21L, 5000);
+
+        // then
+        assertThat(response.pointCount()).isEqualTo(10);
+        assertThat(response.climbs()).isEmpty();
+    }
+
+    @Test
+    void shouldDeleteFileAndReleaseTrackWhenOwnerDeletesFile() {
+        // given
+        GpxFile gpxFile = GpxFile.builder()
+                .id(11L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder().id(12L).build())
+                .userId(100L)
+                .build();
+
+        given(gpxFileRepository.findById(11L)).willReturn(Optional.of(gpxFile));
+        given(gpxTrackRepository.deleteIfUnreferenced(12L)).willReturn(1);
+
+        // when
+        gpxAnalysisService.deleteGpxFile(11L, 100L);
+
+        // then
+        then(climbHistoryService).should().deleteEfforts(gpxFile);
+        then(powerCurveService).should().deleteRide(gpxFile);
+        then(gpxFileRepository).should().delete(gpxFile);
+        then(gpxTrackRepository).should().decrementReferenceCount(12L);
+        then(gpxTrackRepository).should().deleteIfUnreferenced(12L);
+    }
+
+    @Test
+    void shouldThrowGpxFileNotFoundExceptionWhenDeletingAnotherUsersFile() {
+        // given
+        GpxFile gpxFile = GpxFile.builder()
+                .id(11L)
+                .filename("ride.gpx")
+                .track(GpxTrack.builder().id(12L).build())
+                .userId(200L)
+                .build();
+
+        given(gpxFileRepository.findById(11L)).willReturn(Optional.of(gpxFile));
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.deleteGpxFile(11L, 100L))
+                .isInstanceOf(GpxFileNotFoundException.class)
+                .hasMessageContaining("11");
+        then(gpxFileRepository).should(never()).delete(any(GpxFile.class));
+        then(gpxTrackRepository).should(never()).decrementReferenceCount(any());
     }
 
     @Test
@@ -130,7 +1113,7 @@ class GpxAnalysisServiceImplTest {
         GpxFile gpxFile = GpxFile.builder()
                 .id(1L)
                 .filename("test.gpx")
-                .content("content")
+                .track(GpxTrack.builder().id(1L).content("content").build())
                 .userId(100L)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
@@ -138,7 +1121,7 @@ class GpxAnalysisServiceImplTest {
 
         Climb climb = Climb.builder()
                 .id(1L)
-                .gpxFile(gpxFile)
+                .track(gpxFile.getTrack())
                 .distanceMeters(200.0)
                 .elevationGainMeters(40.0)
                 .averageGradient(0.2)
@@ -156,7 +1139,7 @@ class GpxAnalysisServiceImplTest {
                 LocalDateTime.now());
 
         given(gpxFileRepository.findById(1L)).willReturn(Optional.of(gpxFile));
-        given(climbRepository.findByGpxFileId(1L)).willReturn(List.of(climb));
+        given(climbRepository.findByTrackId(1L)).willReturn(List.of(climb));
         given(gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, List.of(climb))).willReturn(expectedResponse);
 
         // when
@@ -166,7 +1149,7 @@ class GpxAnalysisServiceImplTest {
         assertThat(response).isNotNull();
         assertThat(response.gpxFileId()).isEqualTo(1L);
         then(gpxFileRepository).should().findById(1L);
-        then(climbRepository).should().findByGpxFileId(1L);
+        then(climbRepository).should().findByTrackId(1L);
     }
 
     @Test
@@ -187,7 +1170,7 @@ class GpxAnalysisServiceImplTest {
         GpxFile gpxFile = GpxFile.builder()
                 .id(1L)
                 .filename(filename)
-                .content("content")
+                .track(GpxTrack.builder().id(1L).content("content").build())
                 .userId(100L)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
@@ -195,7 +1178,7 @@ class GpxAnalysisServiceImplTest {
 
         Climb climb = Climb.builder()
                 .id(1L)
-                .gpxFile(gpxFile)
+                .track(gpxFile.getTrack())
                 .distanceMeters(200.0)
                 .elevationGainMeters(40.0)
                 .averageGradient(0.2)
@@ -207,7 +1190,7 @@ class GpxAnalysisServiceImplTest {
                 1L, filename, 1, List.of(new ClimbResponse(1L, 200.0, 40.0, 0.2, 0, 2)), 1.5, 5.0, LocalDateTime.now());
 
         given(gpxFileRepository.findByFilename(filename)).willReturn(Optional.of(gpxFile));
-        given(climbRepository.findByGpxFileId(1L)).willReturn(List.of(climb));
+        given(climbRepository.findByTrackId(1L)).willReturn(List.of(climb));
         given(gpxAnalysisMapper.toGpxAnalysisResponse(gpxFile, List.of(climb))).willReturn(expectedResponse);
 
         // when
@@ -218,7 +1201,7 @@ class GpxAnalysisServiceImplTest {
         assertThat(response.gpxFileId()).isEqualTo(1L);
         assertThat(response.filename()).isEqualTo(filename);
         then(gpxFileRepository).should().findByFilename(filename);
-        then(climbRepository).should().findByGpxFileId(1L);
+        then(climbRepository).should().findByTrackId(1L);
     }
 
     @Test
@@ -234,54 +1217,227 @@ class GpxAnalysisServiceImplTest {
     }
 
     @Test
-    void shouldReturnAllGpxFilesForUserSuccessfully() {
+    void shouldReturnFirstPageWithCursorWhenUserHasMoreFiles() {
         // given
         Long userId = 100L;
-        GpxFile gpxFile1 = GpxFile.builder()
-                .id(1L)
-                .filename("ride1.gpx")
-                .content("gpx content 1")
-                .userId(userId)
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
-        GpxFile gpxFile2 = GpxFile.builder()
-                .id(2L)
-                .filename("ride2.gpx")
-                .content("gpx content 2")
-                .userId(userId)
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
+        LocalDateTime newest = LocalDateTime.of(2026, 3, 2, 9, 0);
+        GpxFileResponse file1 = new GpxFileResponse(3L, "ride3.gpx", userId, newest, newest, null);
+        GpxFileResponse file2 = new GpxFileResponse(2L, "ride2.gpx", userId, newest.minusDays(1), newest, null);
+        GpxFileResponse file3 = new GpxFileResponse(1L, "ride1.gpx", userId, newest.minusDays(2), newest, null);
 
-        given(gpxFileRepository.findByUserId(userId)).willReturn(List.of(gpxFile1, gpxFile2));
+        given(gpxFileRepository.findSummariesByUserId(eq(userId), argThat(limit -> limit.max() == 3)))
+                .willReturn(List.of(file1, file2, file3));
 
         // when
-        List<GpxFileResponse> result = gpxAnalysisService.getUserGpxFiles(userId);
+        GpxFilePage result = gpxAnalysisService.getUserGpxFiles(userId, null, 2, false);
 
         // then
-        assertThat(result).hasSize(2);
-        assertThat(result.get(0).id()).isEqualTo(1L);
-        assertThat(result.get(0).filename()).isEqualTo("ride1.gpx");
-        assertThat(result.get(0).userId()).isEqualTo(userId);
-        assertThat(result.get(1).id()).isEqualTo(2L);
-        assertThat(result.get(1).filename()).isEqualTo("ride2.gpx");
-        assertThat(result.get(1).userId()).isEqualTo(userId);
+        assertThat(result.files()).containsExactly(file1, file2);
+        assertThat(result.nextCursor()).isNotNull();
+        assertThat(GpxFileCursor.decode(result.nextCursor())).isEqualTo(new GpxFileCursor(newest.minusDays(1), 2L));
+    }
+
+    @Test
+    void shouldSeekPastCursorWhenFetchingNextPage() {
+        // given
+        Long userId = 100L;
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 0);
+        String cursor = new GpxFileCursor(createdAt, 2L).encode();
+        GpxFileResponse file =
+                new GpxFileResponse(1L, "ride1.gpx", userId, createdAt.minusDays(1), createdAt, null);
+
+        given(gpxFileRepository.findSummariesByUserIdBefore(
+                        eq(userId), eq(createdAt), eq(2L), argThat(limit -> limit.max() == 3)))
+                .willReturn(List.of(file));
+
+        // when
+        GpxFilePage result = gpxAnalysisService.getUserGpxFiles(userId, cursor, 2, false);
+
+        // then
+        assertThat(result.files()).containsExactly(file);
+        assertThat(result.nextCursor()).isNull();
+        then(gpxFileRepository).should(never()).findSummariesByUserId(any(), any());
+    }
+
+    @Test
+    void shouldIncludePreviewPolylinesOnlyWhenRequested() {
+        // given
+        Long userId = 100L;
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 0);
+        GpxFileResponse file = new GpxFileResponse(1L, "ride1.gpx", userId, createdAt, createdAt, "_p~iF~ps|U");
+
+        given(gpxFileRepository.findSummariesByUserId(eq(userId), any())).willReturn(List.of(file));
+
+        // when
+        GpxFilePage withPreview = gpxAnalysisService.getUserGpxFiles(userId, null, 50, true);
+        GpxFilePage withoutPreview = gpxAnalysisService.getUserGpxFiles(userId, null, 50, false);
 
-        then(gpxFileRepository).should().findByUserId(userId);
+        // then
+        assertThat(withPreview.files()).containsExactly(file);
+        assertThat(withoutPreview.files().getFirst().previewPolyline()).isNull();
+        assertThat(withoutPreview.files().getFirst().id()).isEqualTo(1L);
     }
 
     @Test
-    void shouldReturnEmptyListWhenUserHasNoGpxFiles() {
+    void shouldReturnEmptyPageWhenUserHasNoGpxFiles() {
         // given
         Long userId = 999L;
-        given(gpxFileRepository.findByUserId(userId)).willReturn(List.of());
+        given(gpxFileRepository.findSummariesByUserId(eq(userId), argThat(limit -> limit.max() == 51)))
+                .willReturn(List.of());
+
+        // when
+        GpxFilePage result = gpxAnalysisService.getUserGpxFiles(userId, null, 50, false);
+
+        // then
+        assertThat(result.files()).isEmpty();
+        assertThat(result.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenCursorIsMalformed() {
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.getUserGpxFiles(100L, "not-a-cursor", 50, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid cursor");
+    }
+
+    @Test
+    void shouldSumStoredZonesAndHistogramsOverWholeDateRange() {
+        // given
+        given(gpxFileRepository.sumTimeInZonesByUserId(
+                        100L, LocalDateTime.of(2024, 5, 1, 0, 0), LocalDateTime.of(2024, 6, 1, 0, 0)))
+                .willReturn(List.of(
+                        timeInZonesTotal(TimeInZonesTotal.POWER_ZONES, 1, 3600),
+                        timeInZonesTotal(TimeInZonesTotal.POWER_ZONES, 3, 600),
+                        timeInZonesTotal(TimeInZonesTotal.POWER_HISTOGRAM, 40, 3000),
+                        timeInZonesTotal(TimeInZonesTotal.POWER_HISTOGRAM, 52, 1200),
+                        timeInZonesTotal(TimeInZonesTotal.HEART_RATE_HISTOGRAM, 150, 4200)));
 
         // when
-        List<GpxFileResponse> result = gpxAnalysisService.getUserGpxFiles(userId);
+        UserTimeInZonesResponse response =
+                gpxAnalysisService.getUserTimeInZones(100L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31));
 
         // then
-        assertThat(result).isEmpty();
-        then(gpxFileRepository).should().findByUserId(userId);
+        assertThat(response.powerZoneSeconds()).containsExactly(0, 3600, 0, 600, 0, 0, 0);
+        assertThat(response.heartRateZoneSeconds()).containsOnly(0);
+        assertThat(response.powerBinWatts()).isEqualTo(5);
+        assertThat(response.powerHistogramSeconds()).hasSize(53);
+        assertThat(response.powerHistogramSeconds()[40]).isEqualTo(3000);
+        assertThat(response.heartRateHistogramSeconds()).hasSize(151).endsWith(4200);
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenTimeInZonesRangeIsInverted() {
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.getUserTimeInZones(
+                        100L, LocalDate.of(2024, 5, 31), LocalDate.of(2024, 5, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("toDate");
+        then(gpxFileRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void shouldMatchFilesInsideAreaWithoutCheckingCells() {
+        // given
+        Long userId = 100L;
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 0);
+        GpxFileBounds inside = fileBounds(1L, 11L, createdAt, 51.50, -0.12, 51.52, -0.10);
+        GpxFileBounds elsewhere = fileBounds(2L, 12L, createdAt, 53.40, -2.30, 53.50, -2.20);
+
+        given(gpxFileRepository.findBoundsByUserId(userId)).willReturn(List.of(inside, elsewhere));
+
+        // when
+        List<GpxFileResponse> result =
+                gpxAnalysisService.searchUserGpxFiles(userId, new GeoBounds(51.4, -0.2, 51.6, 0.0), 50);
+
+        // then
+        assertThat(result).extracting(GpxFileResponse::id).containsExactly(1L);
+        then(gpxTrackCellRepository).should(never()).findTrackIdsPassingThrough(any(), any());
+    }
+
+    @Test
+    void shouldCheckCellsOfFilesStraddlingAreaEdge() {
+        // given
+        Long userId = 100L;
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 0);
+        GpxFileBounds passing = fileBounds(1L, 11L, createdAt, 51.45, -0.30, 51.55, -0.05);
+        GpxFileBounds skirting = fileBounds(2L, 12L, createdAt.plusDays(1), 51.45, -0.30, 51.55, -0.05);
+        GpxFileBounds inside = fileBounds(3L, 13L, createdAt.minusDays(1), 51.50, -0.12, 51.51, -0.11);
+
+        given(gpxFileRepository.findBoundsByUserId(userId)).willReturn(List.of(passing, skirting, inside));
+        given(gpxTrackCellRepository.findTrackIdsPassingThrough(
+                        argThat(trackIds -> trackIds.containsAll(List.of(11L, 12L))), any()))
+                .willReturn(List.of(11L));
+
+        // when
+        List<GpxFileResponse> result =
+                gpxAnalysisService.searchUserGpxFiles(userId, new GeoCircle(51.505, -0.115, 2000), 50);
+
+        // then
+        assertThat(result).extracting(GpxFileResponse::id).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void shouldReuseCachedBoundsIndexForRepeatSearches() {
+        // given
+        Long userId = 100L;
+        GpxFileBounds file = fileBounds(1L, 11L, LocalDateTime.now(), 51.50, -0.12, 51.52, -0.10);
+        GeoBounds area = new GeoBounds(51.4, -0.2, 51.6, 0.0);
+
+        given(gpxFileRepository.findBoundsByUserId(userId)).willReturn(List.of(file));
+
+        // when
+        gpxAnalysisService.searchUserGpxFiles(userId, area, 50);
+        List<GpxFileResponse> result = gpxAnalysisService.searchUserGpxFiles(userId, area, 50);
+
+        // then
+        assertThat(result).hasSize(1);
+        then(gpxFileRepository).should(times(1)).findBoundsByUserId(userId);
+    }
+
+    private void givenTrackHashIsUnclaimed(Long trackId) {
+        given(gpxTrackRepository.insertIfAbsent(any(byte[].class))).willReturn(Optional.of(trackId));
+        given(gpxTrackRepository.findById(trackId))
+                .willReturn(Optional.of(GpxTrack.builder().id(trackId).build()));
+    }
+
+    private static TimeInZonesTotal timeInZonesTotal(int histogram, int bin, long seconds) {
+        return new TimeInZonesTotal() {
+            @Override
+            public Integer getHistogram() {
+                return histogram;
+            }
+
+            @Override
+            public Integer getBin() {
+                return bin;
+            }
+
+            @Override
+            public Long getSeconds() {
+                return seconds;
+            }
+        };
+    }
+
+    private static GpxFileBounds fileBounds(
+            Long id,
+            Long trackId,
+            LocalDateTime createdAt,
+            double minLatitude,
+            double minLongitude,
+            double maxLatitude,
+            double maxLongitude) {
+        return new GpxFileBounds(
+                id,
+                "ride" + id + ".gpx",
+                100L,
+                createdAt,
+                createdAt,
+                trackId,
+                minLatitude,
+                minLongitude,
+                maxLatitude,
+                maxLongitude);
     }
 }
@@ -0,0 +1,188 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxBulkImportResult;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+
+@ExtendWith(MockitoExtension.class)
+class GpxBulkImportServiceImplTest {
+
+    @Mock
+    private GpxAnalysisService gpxAnalysisService;
+
+    @Spy
+    private GpxAnalysisConfig gpxAnalysisConfig = new GpxAnalysisConfig();
+
+    @InjectMocks
+    private GpxBulkImportServiceImpl gpxBulkImportService;
+
+    @Test
+    void shouldReportResultPerFileWhenMultipartFilesAreImported() {
+        // given
+        MockMultipartFile good = gpxPart("good.gpx", "<gpx>good</gpx>");
+        MockMultipartFile bad = gpxPart("bad.gpx", "<gpx>bad</gpx>");
+
+        given(gpxAnalysisService.analyzeGpxBytes(eq("good.gpx"), any(), eq(100L)))
+                .willReturn(analysis(1L, "good.gpx"));
+        given(gpxAnalysisService.analyzeGpxBytes(eq("bad.gpx"), any(), eq(100L)))
+                .willThrow(new GpxParsingException("Failed to parse GPX file"));
+
+        // when
+        GpxBulkImportResponse response = gpxBulkImportService.importFiles(List.of(good, bad), 100L);
+
+        // then
+        assertThat(response.importedCount()).isEqualTo(1);
+        assertThat(response.failedCount()).isEqualTo(1);
+        assertThat(response.results())
+                .containsExactly(
+                        new GpxBulkImportResult("good.gpx", 1L, 0, null),
+                        GpxBulkImportResult.failed("bad.gpx", "Failed to parse GPX file"));
+    }
+
+    @Test
+    void shouldReportGenericFailureWhenAnalysisFailsUnexpectedly() {
+        // given
+        MockMultipartFile file = gpxPart("ride.gpx", "<gpx>ride</gpx>");
+        given(gpxAnalysisService.analyzeGpxBytes(eq("ride.gpx"), any(), eq(100L)))
+                .willThrow(new DataIntegrityViolationException("ERROR: null value in column \"track_id\""));
+
+        // when
+        GpxBulkImportResponse response = gpxBulkImportService.importFiles(List.of(file), 100L);
+
+        // then
+        assertThat(response.results())
+                .containsExactly(GpxBulkImportResult.failed("ride.gpx", "Failed to analyze file"));
+    }
+
+    @Test
+    void shouldImportOnlyTrackEntriesWhenZipArchiveIsUploaded() throws IOException {
+        // given
+        MockMultipartFile archive = zipPart(
+                "rides.zip",
+                "rides/",
+                "",
+                "rides/one.gpx",
+                "<gpx>1</gpx>",
+                "rides/notes.txt",
+                "not a ride",
+                "__MACOSX/rides/._two.gpx",
+                "resource fork",
+                "two.GPX",
+                "<gpx>2</gpx>",
+                "rides/three.fit",
+                ".FIT",
+                "rides/four.tcx",
+                "<TrainingCenterDatabase/>");
+
+        given(gpxAnalysisService.analyzeGpxBytes(eq("one.gpx"), any(), eq(100L)))
+                .willReturn(analysis(1L, "one.gpx"));
+        given(gpxAnalysisService.analyzeGpxBytes(eq("two.GPX"), any(), eq(100L)))
+                .willReturn(analysis(2L, "two.GPX"));
+        given(gpxAnalysisService.analyzeGpxBytes(eq("three.fit"), any(), eq(100L)))
+                .willReturn(analysis(3L, "three.fit"));
+        given(gpxAnalysisService.analyzeGpxBytes(eq("four.tcx"), any(), eq(100L)))
+                .willReturn(analysis(4L, "four.tcx"));
+
+        // when
+        GpxBulkImportResponse response = gpxBulkImportService.importFiles(List.of(archive), 100L);
+
+        // then
+        assertThat(response.importedCount()).isEqualTo(4);
+        assertThat(response.results())
+                .extracting(GpxBulkImportResult::filename)
+                .containsExactly("one.gpx", "two.GPX", "three.fit", "four.tcx");
+    }
+
+    @Test
+    void shouldRejectFileWithoutAnalysingWhenItExceedsSizeLimit() throws IOException {
+        // given
+        gpxAnalysisConfig.getBulk().setMaxFileBytes(8);
+        MockMultipartFile archive = zipPart("rides.zip", "big.gpx", "<gpx>too large</gpx>");
+
+        // when
+        GpxBulkImportResponse response = gpxBulkImportService.importFiles(List.of(archive), 100L);
+
+        // then
+        assertThat(response.failedCount()).isEqualTo(1);
+        assertThat(response.results().getFirst().errorMessage()).contains("size limit");
+        then(gpxAnalysisService).should(never()).analyzeGpxBytes(any(), any(), any());
+    }
+
+    @Test
+    void shouldSkipFilesBeyondLimitWhenTooManyFilesAreUploaded() {
+        // given
+        gpxAnalysisConfig.getBulk().setMaxFiles(1);
+        given(gpxAnalysisService.analyzeGpxBytes(eq("first.gpx"), any(), eq(100L)))
+                .willReturn(analysis(1L, "first.gpx"));
+
+        // when
+        GpxBulkImportResponse response = gpxBulkImportService.importFiles(
+                List.of(gpxPart("first.gpx", "<gpx/>"), gpxPart("second.gpx", "<gpx/>")), 100L);
+
+        // then
+        assertThat(response.importedCount()).isEqualTo(1);
+        assertThat(response.results().get(1).errorMessage()).contains("limited to 1 files");
+        then(gpxAnalysisService).should(never()).analyzeGpxBytes(eq("second.gpx"), any(), any());
+    }
+
+    @Test
+    void shouldReportFailureWhenZipArchiveIsCorrupt() throws IOException {
+        // given
+        byte[] content = zipPart("rides.zip", "a.gpx", "<gpx>a ride that will not inflate</gpx>").getBytes();
+        // Overwrite the start of the deflated data, just past the 30 byte header and the entry name
+        Arrays.fill(content, 35, 45, (byte) 0xFF);
+        MockMultipartFile archive = new MockMultipartFile("files", "rides.zip", "application/zip", content);
+
+        // when
+        GpxBulkImportResponse response = gpxBulkImportService.importFiles(List.of(archive), 100L);
+
+        // then
+        assertThat(response.results())
+                .containsExactly(GpxBulkImportResult.failed("rides.zip", "Failed to read ZIP archive"));
+        then(gpxAnalysisService).should(never()).analyzeGpxBytes(any(), any(), any());
+    }
+
+    private static GpxAnalysisResponse analysis(Long gpxFileId, String filename) {
+        return new GpxAnalysisResponse(gpxFileId, filename, 0, List.of(), 1.0, 2.0, LocalDateTime.now());
+    }
+
+    private static MockMultipartFile gpxPart(String filename, String content) {
+        return new MockMultipartFile("files", filename, "application/gpx+xml", content.getBytes());
+    }
+
+    private static MockMultipartFile zipPart(String filename, String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes());
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("files", filename, "application/zip", bytes.toByteArray());
+    }
+}
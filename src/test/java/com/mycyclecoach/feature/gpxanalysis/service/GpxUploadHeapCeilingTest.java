@@ -0,0 +1,297 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assumptions.assumeThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.*;
+import com.mycyclecoach.feature.gpxanalysis.repository.ClimbRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxAnalysisJobRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxTrackCellRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxTrackRepository;
+import com.mycyclecoach.feature.userprofile.repository.UserProfileRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Ingests uploads of realistic point density larger than the heap they run in, directly and through the job queue. A
+ * track at the point cap only fits if the spill path never holds the file on the heap, and a longer one has to be
+ * rejected before its points fill it. Run
+ * by the {@code heapCeilingTest} task, which forks a JVM with a fixed small heap; the tests are skipped under larger
+ * heaps, where they would prove nothing.
+ */
+@Tag("heap-ceiling")
+@ExtendWith(MockitoExtension.class)
+class GpxUploadHeapCeilingTest {
+
+    private static final long MAX_HEAP_BYTES = 128L * 1024 * 1024;
+    // About 100 MB of GPX at the density below, and about 50 MB of heap once parsed and analysed
+    private static final int MAX_TRACK_POINTS = 400_000;
+
+    @Mock
+    private GpxFileRepository gpxFileRepository;
+
+    @Mock
+    private GpxTrackRepository gpxTrackRepository;
+
+    @Mock
+    private ClimbRepository climbRepository;
+
+    @Mock
+    private GpxAnalysisMapper gpxAnalysisMapper;
+
+    @Mock
+    private ClimbDetector climbDetector;
+
+    @Mock
+    private RideTimeEstimator rideTimeEstimator;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Spy
+    private GpxAnalysisConfig gpxAnalysisConfig = new GpxAnalysisConfig();
+
+    @Spy
+    private ElevationProfileCache elevationProfileCache = new ElevationProfileCache(new GpxAnalysisConfig());
+
+    @Mock
+    private GpxTrackCellRepository gpxTrackCellRepository;
+
+    @Spy
+    private TrackBoundsIndexCache trackBoundsIndexCache = new TrackBoundsIndexCache(new GpxAnalysisConfig());
+
+    @Mock
+    private ClimbHistoryService climbHistoryService;
+
+    @Mock
+    private PowerCurveService powerCurveService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
+
+    @InjectMocks
+    private GpxAnalysisServiceImpl gpxAnalysisService;
+
+    @Mock
+    private GpxAnalysisJobRepository gpxAnalysisJobRepository;
+
+    @Mock
+    private GpxAnalysisJobDispatcher gpxAnalysisJobDispatcher;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
+    }
+
+    @Test
+    void shouldIngestUploadLargerThanHeapWhenTrackIsWithinPointCap(@TempDir Path directory) throws IOException {
+        // given
+        long maxHeap = givenSmallHeapAndPointCap(directory);
+        Path upload = writeRide(directory.resolve("ultra.gpx"), MAX_TRACK_POINTS);
+        assertThat(Files.size(upload)).isGreaterThan(maxHeap);
+        givenNewTrackIsStored();
+
+        // when
+        gpxAnalysisService.analyzeGpxFile(new FileMultipartFile(upload), 100L);
+
+        // then
+        assertThatStoredTrackIsWholeAndSpoolIsDeleted(directory, upload);
+    }
+
+    @Test
+    void shouldIngestQueuedUploadLargerThanHeapWhenTrackIsWithinPointCap(@TempDir Path directory) throws IOException {
+        // given
+        long maxHeap = givenSmallHeapAndPointCap(directory);
+        Path upload = writeRide(directory.resolve("ultra.gpx"), MAX_TRACK_POINTS);
+        assertThat(Files.size(upload)).isGreaterThan(maxHeap);
+        givenNewTrackIsStored();
+        given(gpxAnalysisMapper.toGpxAnalysisResponse(any(GpxFile.class), anyList()))
+                .willReturn(new GpxAnalysisResponse(7L, "ultra.gpx", 0, List.of(), 0.0, 0.0, LocalDateTime.now()));
+
+        AtomicReference<GpxAnalysisJob> queued = new AtomicReference<>();
+        given(gpxAnalysisJobDispatcher.tryReserve()).willReturn(true);
+        given(gpxAnalysisJobRepository.save(any(GpxAnalysisJob.class))).willAnswer(invocation -> {
+            GpxAnalysisJob job = invocation.getArgument(0);
+            job.setId(1L);
+            queued.set(job);
+            return job;
+        });
+        given(gpxAnalysisJobRepository.findById(1L)).willAnswer(invocation -> Optional.of(queued.get()));
+        GpxAnalysisJobServiceImpl gpxAnalysisJobService = new GpxAnalysisJobServiceImpl(
+                gpxAnalysisJobRepository,
+                gpxAnalysisService,
+                gpxAnalysisJobDispatcher,
+                gpxAnalysisMapper,
+                eventPublisher,
+                gpxAnalysisConfig);
+
+        // when
+        gpxAnalysisJobService.submitAnalysis(new FileMultipartFile(upload), 100L);
+        ArgumentCaptor<Runnable> worker = ArgumentCaptor.forClass(Runnable.class);
+        then(gpxAnalysisJobDispatcher).should().execute(worker.capture());
+        worker.getValue().run();
+
+        // then
+        assertThat(queued.get().getStatus()).isEqualTo(GpxAnalysisJobStatus.COMPLETED);
+        assertThat(queued.get().getPayload()).isNull();
+        assertThat(queued.get().getPayloadPath()).isNull();
+        assertThatStoredTrackIsWholeAndSpoolIsDeleted(directory, upload);
+    }
+
+    @Test
+    void shouldRejectUploadBeforeItFillsHeapWhenTrackExceedsPointCap(@TempDir Path directory) throws IOException {
+        // given
+        long maxHeap = givenSmallHeapAndPointCap(directory);
+        Path upload = writeRide(directory.resolve("multi-day.gpx"), 1_500_000);
+        assertThat(Files.size(upload)).isGreaterThan(3 * maxHeap);
+
+        // when / then
+        assertThatThrownBy(() -> gpxAnalysisService.analyzeGpxFile(new FileMultipartFile(upload), 100L))
+                .isInstanceOf(GpxParsingException.class)
+                .hasMessageContaining("more than " + MAX_TRACK_POINTS + " points");
+        then(gpxTrackRepository).should(never()).insertIfAbsent(any(byte[].class));
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(upload);
+        }
+    }
+
+    private long givenSmallHeapAndPointCap(Path directory) {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        assumeThat(maxHeap).isLessThanOrEqualTo(MAX_HEAP_BYTES);
+        gpxAnalysisConfig.getUpload().setSpillDirectory(directory.toString());
+        gpxAnalysisConfig.getUpload().setMaxTrackPoints(MAX_TRACK_POINTS);
+        return maxHeap;
+    }
+
+    private void givenNewTrackIsStored() {
+        given(gpxAnalysisMapper.calculateRouteMetrics(any(TrackBuffer.class), anyList()))
+                .willReturn(RouteMetrics.EMPTY);
+        given(gpxTrackRepository.insertIfAbsent(any(byte[].class))).willReturn(Optional.of(10L));
+        given(gpxTrackRepository.findById(10L)).willReturn(Optional.of(GpxTrack.builder().id(10L).build()));
+        given(gpxFileRepository.save(any(GpxFile.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(climbRepository.saveAll(anyList())).willReturn(List.of());
+    }
+
+    private void assertThatStoredTrackIsWholeAndSpoolIsDeleted(Path directory, Path upload) throws IOException {
+        ArgumentCaptor<GpxFile> saved = ArgumentCaptor.forClass(GpxFile.class);
+        then(gpxFileRepository).should().save(saved.capture());
+        TrackBuffer track = TrackCodec.decode(saved.getValue().getTrack().getTrackData(), DistanceMode.HAVERSINE);
+        assertThat(track.size()).isEqualTo(MAX_TRACK_POINTS);
+        assertThat(track.hasPower()).isTrue();
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(upload);
+        }
+    }
+
+    /** A 1 Hz ride with elevation, power, heart rate and cadence on every point, as a head unit writes it. */
+    private static Path writeRide(Path path, int points) throws IOException {
+        long start = Instant.parse("2025-06-01T07:00:00Z").toEpochMilli();
+        try (BufferedWriter gpx = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            gpx.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            gpx.write("<gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\"");
+            gpx.write(" xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v1\"><trk><trkseg>\n");
+            for (int i = 0; i < points; i++) {
+                gpx.write(String.format(
+                        Locale.ROOT,
+                        "<trkpt lat=\"%.7f\" lon=\"%.7f\"><ele>%.1f</ele><time>%s</time><extensions>"
+                                + "<power>%d</power><gpxtpx:TrackPointExtension><gpxtpx:hr>%d</gpxtpx:hr>"
+                                + "<gpxtpx:cad>%d</gpxtpx:cad></gpxtpx:TrackPointExtension></extensions></trkpt>\n",
+                        51.5 + (i % 20_000) * 0.00007,
+                        -0.1 + Math.sin(i / 600.0) * 0.01,
+                        120 + 80 * Math.sin(i / 900.0),
+                        Instant.ofEpochMilli(start + i * 1000L),
+                        200 + i % 50,
+                        140 + i % 20,
+                        85 + i % 10));
+            }
+            gpx.write("</trkseg></trk></gpx>\n");
+        }
+        return path;
+    }
+
+    /** An upload already on disk, as the servlet container leaves large multipart parts; never read into memory. */
+    private record FileMultipartFile(Path path) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/gpx+xml";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("Oversized uploads must not be read onto the heap");
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(java.io.File dest) throws IOException {
+            Files.copy(path, dest.toPath());
+        }
+    }
+}
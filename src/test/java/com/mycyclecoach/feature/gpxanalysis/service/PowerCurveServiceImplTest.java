@@ -0,0 +1,221 @@
+package com.mycyclecoach.feature.gpxanalysis.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+
+import com.mycyclecoach.config.GpxAnalysisConfig;
+import com.mycyclecoach.feature.gpxanalysis.domain.DistanceMode;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxFile;
+import com.mycyclecoach.feature.gpxanalysis.domain.PowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.RidePowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.TrackBuffer;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurve;
+import com.mycyclecoach.feature.gpxanalysis.domain.UserPowerCurveResponse;
+import com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository;
+import com.mycyclecoach.feature.gpxanalysis.repository.UserPowerCurveRepository;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PowerCurveServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now(ZoneOffset.UTC);
+
+    @Mock
+    private UserPowerCurveRepository userPowerCurveRepository;
+
+    @Mock
+    private GpxFileRepository gpxFileRepository;
+
+    @Spy
+    private GpxAnalysisConfig gpxAnalysisConfig = new GpxAnalysisConfig();
+
+    @InjectMocks
+    private PowerCurveServiceImpl powerCurveService;
+
+    @Test
+    void shouldRaiseAllTimeAndRecentBestWhenRecentRideBeatsThem() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(1L).userId(100L).build();
+        UserPowerCurve best = UserPowerCurve.builder()
+                .userId(100L)
+                .allTimeCurve(steady(60, 300).encode())
+                .recentCurve(steady(60, 200).encode())
+                .build();
+        LocalDateTime startedAt = NOW.minusDays(10);
+
+        given(gpxFileRepository.findPowerCurveById(1L))
+                .willReturn(Optional.of(new RidePowerCurve(startedAt, steady(30, 250).encode())));
+        given(userPowerCurveRepository.findById(100L)).willReturn(Optional.of(best));
+
+        // when
+        powerCurveService.recordRide(gpxFile);
+
+        // then
+        then(userPowerCurveRepository).should().lockUserPowerCurve(100L);
+        then(userPowerCurveRepository).should().save(best);
+        assertThat(PowerCurve.decode(best.getAllTimeCurve()).points()).isEqualTo(steady(60, 300).points());
+        assertThat(PowerCurve.decode(best.getRecentCurve()).points().getFirst())
+                .isEqualTo(new PowerCurve.Point(1, 250));
+        assertThat(best.getRecentRebuildAt()).isEqualTo(startedAt.plusDays(90));
+    }
+
+    @Test
+    void shouldLeaveRecentBestAloneWhenRideIsOlderThanWindow() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(1L).userId(100L).build();
+        UserPowerCurve best = UserPowerCurve.builder()
+                .userId(100L)
+                .allTimeCurve(PowerCurve.EMPTY.encode())
+                .recentCurve(PowerCurve.EMPTY.encode())
+                .build();
+
+        given(gpxFileRepository.findPowerCurveById(1L))
+                .willReturn(Optional.of(new RidePowerCurve(NOW.minusDays(200), steady(30, 250).encode())));
+        given(userPowerCurveRepository.findById(100L)).willReturn(Optional.of(best));
+
+        // when
+        powerCurveService.recordRide(gpxFile);
+
+        // then
+        assertThat(PowerCurve.decode(best.getAllTimeCurve()).isEmpty()).isFalse();
+        assertThat(PowerCurve.decode(best.getRecentCurve()).isEmpty()).isTrue();
+        assertThat(best.getRecentRebuildAt()).isNull();
+    }
+
+    @Test
+    void shouldSkipLockWhenRideHasNoPower() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(1L).userId(100L).build();
+
+        given(gpxFileRepository.findPowerCurveById(1L))
+                .willReturn(Optional.of(new RidePowerCurve(NOW, PowerCurve.EMPTY.encode())));
+
+        // when
+        powerCurveService.recordRide(gpxFile);
+
+        // then
+        then(userPowerCurveRepository).should(never()).lockUserPowerCurve(anyLong());
+        then(userPowerCurveRepository).should(never()).save(any());
+    }
+
+    @Test
+    void shouldBuildBestPowerFromStoredCurvesWhenUserHasNone() {
+        // given
+        given(userPowerCurveRepository.findById(100L)).willReturn(Optional.empty());
+        given(gpxFileRepository.findPowerCurvesByUserId(100L))
+                .willReturn(List.of(
+                        new RidePowerCurve(NOW.minusDays(5), steady(30, 400).encode()),
+                        new RidePowerCurve(NOW.minusDays(400), steady(120, 350).encode()),
+                        new RidePowerCurve(null, steady(60, 500).encode())));
+        given(userPowerCurveRepository.save(any(UserPowerCurve.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        UserPowerCurveResponse response = powerCurveService.getUserPowerCurve(100L);
+
+        // then
+        then(userPowerCurveRepository).should().lockUserPowerCurve(100L);
+        assertThat(response.recentDays()).isEqualTo(90);
+        assertThat(response.allTime().getFirst()).isEqualTo(new PowerCurve.Point(1, 500));
+        assertThat(response.allTime().getLast()).isEqualTo(new PowerCurve.Point(120, 350));
+        assertThat(response.recent()).isEqualTo(steady(30, 400).points());
+    }
+
+    @Test
+    void shouldServeStoredBestPowerWithoutReadingRidesWhileRecentBestIsCurrent() {
+        // given
+        UserPowerCurve best = UserPowerCurve.builder()
+                .userId(100L)
+                .allTimeCurve(steady(60, 300).encode())
+                .recentCurve(steady(60, 280).encode())
+                .recentRebuildAt(NOW.plusDays(30))
+                .build();
+
+        given(userPowerCurveRepository.findById(100L)).willReturn(Optional.of(best));
+
+        // when
+        UserPowerCurveResponse response = powerCurveService.getUserPowerCurve(100L);
+
+        // then
+        assertThat(response.recent().getFirst()).isEqualTo(new PowerCurve.Point(1, 280));
+        then(gpxFileRepository).should(never()).findPowerCurvesByUserId(100L);
+        then(userPowerCurveRepository).should(never()).save(any());
+    }
+
+    @Test
+    void shouldRebuildRecentBestWhenRideThatSetItLeavesWindow() {
+        // given
+        UserPowerCurve best = UserPowerCurve.builder()
+                .userId(100L)
+                .allTimeCurve(steady(60, 300).encode())
+                .recentCurve(steady(60, 300).encode())
+                .recentRebuildAt(NOW.minusDays(1))
+                .build();
+
+        given(userPowerCurveRepository.findById(100L)).willReturn(Optional.of(best));
+        given(gpxFileRepository.findPowerCurvesByUserId(100L))
+                .willReturn(List.of(
+                        new RidePowerCurve(NOW.minusDays(20), steady(60, 240).encode()),
+                        new RidePowerCurve(NOW.minusDays(91), steady(60, 300).encode())));
+        given(userPowerCurveRepository.save(best)).willReturn(best);
+
+        // when
+        UserPowerCurveResponse response = powerCurveService.getUserPowerCurve(100L);
+
+        // then
+        assertThat(response.allTime().getLast()).isEqualTo(new PowerCurve.Point(60, 300));
+        assertThat(response.recent().getLast()).isEqualTo(new PowerCurve.Point(60, 240));
+        assertThat(best.getRecentRebuildAt()).isAfter(NOW);
+    }
+
+    @Test
+    void shouldDropBestPowerWhenDeletedRideHasPower() {
+        // given
+        GpxFile gpxFile = GpxFile.builder().id(1L).userId(100L).build();
+
+        given(gpxFileRepository.findPowerCurveById(1L))
+                .willReturn(Optional.of(new RidePowerCurve(NOW, steady(30, 250).encode())));
+
+        // when
+        powerCurveService.deleteRide(gpxFile);
+
+        // then
+        then(userPowerCurveRepository).should().lockUserPowerCurve(100L);
+        then(userPowerCurveRepository).should().deleteById(100L);
+    }
+
+    @Test
+    void shouldLockUsersInOrderWhenInvalidatingBestPower() {
+        // when
+        powerCurveService.invalidate(List.of(200L, 100L, 200L));
+
+        // then
+        InOrder inOrder = inOrder(userPowerCurveRepository);
+        inOrder.verify(userPowerCurveRepository).lockUserPowerCurve(100L);
+        inOrder.verify(userPowerCurveRepository).lockUserPowerCurve(200L);
+        inOrder.verify(userPowerCurveRepository).deleteAllByIdInBatch(List.of(100L, 200L));
+    }
+
+    private static PowerCurve steady(int seconds, int watts) {
+        TrackBuffer.Builder builder = TrackBuffer.builder();
+        for (int i = 0; i < seconds; i++) {
+            builder.add(51.5, -0.1, 100, 1_700_000_000_000L + i * 1000L, watts, 140, 90);
+        }
+        return PowerCurve.of(builder.build(DistanceMode.HAVERSINE));
+    }
+}
@@ -108,10 +108,11 @@ class StravaControllerTest {
                 "Ride",
                 null,
                 "Ride",
+                null,
                 null);
 
         given(jwtTokenProvider.getUserIdFromToken(token)).willReturn(userId);
-        given(stravaSyncService.getUserRides(userId)).willReturn(List.of(ride));
+        given(stravaSyncService.getUserRides(userId, false)).willReturn(List.of(ride));
 
         // when / then
         mockMvc.perform(get("/api/v1/strava/rides").header("Authorization", "Bearer " + token))
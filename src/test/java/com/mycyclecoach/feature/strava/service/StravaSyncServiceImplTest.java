@@ -5,14 +5,19 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.*;
 
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxAnalysisResponse;
+import com.mycyclecoach.feature.gpxanalysis.domain.GpxParsingException;
+import com.mycyclecoach.feature.gpxanalysis.service.GpxAnalysisService;
 import com.mycyclecoach.feature.strava.client.StravaApiClient;
 import com.mycyclecoach.feature.strava.domain.Ride;
+import com.mycyclecoach.feature.strava.domain.RideWithPreview;
 import com.mycyclecoach.feature.strava.domain.StravaConnection;
 import com.mycyclecoach.feature.strava.dto.RideResponse;
 import com.mycyclecoach.feature.strava.dto.StravaActivity;
 import com.mycyclecoach.feature.strava.exception.StravaConnectionNotFoundException;
 import com.mycyclecoach.feature.strava.repository.RideRepository;
 import com.mycyclecoach.feature.strava.repository.StravaConnectionRepository;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,6 +27,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
 
 @ExtendWith(MockitoExtension.class)
 class StravaSyncServiceImplTest {
@@ -39,7 +46,7 @@ class StravaSyncServiceImplTest {
     private StravaAuthService stravaAuthService;
 
     @Mock
-    private com.mycyclecoach.feature.gpxanalysis.repository.GpxFileRepository gpxFileRepository;
+    private GpxAnalysisService gpxAnalysisService;
 
     @InjectMocks
     private StravaSyncServiceImpl stravaSyncService;
@@ -157,12 +164,39 @@ class StravaSyncServiceImplTest {
         given(rideRepository.findByUserId(userId)).willReturn(List.of(ride));
 
         // when
-        List<RideResponse> rides = stravaSyncService.getUserRides(userId);
+        List<RideResponse> rides = stravaSyncService.getUserRides(userId, false);
 
         // then
         assertThat(rides).hasSize(1);
         assertThat(rides.get(0).name()).isEqualTo("Morning Ride");
         assertThat(rides.get(0).stravaActivityId()).isEqualTo(12345L);
+        assertThat(rides.get(0).previewPolyline()).isNull();
+        then(rideRepository).should(never()).findWithPreviewByUserId(any());
+    }
+
+    @Test
+    void shouldReturnUserRidesWithPreviewPolylineWhenRequested() {
+        // given
+        Long userId = 1L;
+        Ride ride = Ride.builder()
+                .id(1L)
+                .userId(userId)
+                .stravaActivityId(12345L)
+                .name("Morning Ride")
+                .gpxFileId(7L)
+                .build();
+
+        given(rideRepository.findWithPreviewByUserId(userId))
+                .willReturn(List.of(new RideWithPreview(ride, "_p~iF~ps|U")));
+
+        // when
+        List<RideResponse> rides = stravaSyncService.getUserRides(userId, true);
+
+        // then
+        assertThat(rides).hasSize(1);
+        assertThat(rides.get(0).gpxFileId()).isEqualTo(7L);
+        assertThat(rides.get(0).previewPolyline()).isEqualTo("_p~iF~ps|U");
+        then(rideRepository).should(never()).findByUserId(any());
     }
 
     @Test
@@ -290,21 +324,17 @@ class StravaSyncServiceImplTest {
                 "Ride");
 
         String gpxContent = "<?xml version=\"1.0\"?><gpx>test content</gpx>";
-        com.mycyclecoach.feature.gpxanalysis.domain.GpxFile savedGpxFile =
-                com.mycyclecoach.feature.gpxanalysis.domain.GpxFile.builder()
-                        .id(100L)
-                        .filename("12345_Morning_Ride_with_Special__Chars______.gpx")
-                        .content(gpxContent)
-                        .userId(userId)
-                        .build();
+        String expectedFilename = "12345_Morning_Ride_with_Special__Chars______.gpx";
+        GpxAnalysisResponse analysis =
+                new GpxAnalysisResponse(100L, expectedFilename, 0, List.of(), 25.0, 60.0, LocalDateTime.now());
 
         given(stravaConnectionRepository.findByUserId(userId)).willReturn(Optional.of(connection));
         willDoNothing().given(stravaAuthService).refreshTokenIfNeeded(userId);
         given(stravaApiClient.getAthleteActivities(eq("access-token"), eq(30), eq(1)))
                 .willReturn(List.of(activity));
         given(stravaApiClient.getActivityGpx("access-token", 12345L)).willReturn(gpxContent);
-        given(gpxFileRepository.save(any(com.mycyclecoach.feature.gpxanalysis.domain.GpxFile.class)))
-                .willReturn(savedGpxFile);
+        given(gpxAnalysisService.importGpxContent(userId, expectedFilename, gpxContent))
+                .willReturn(analysis);
         given(rideRepository.existsByStravaActivityId(12345L)).willReturn(false);
         given(rideRepository.save(any(Ride.class))).willAnswer(invocation -> invocation.getArgument(0));
 
@@ -313,7 +343,7 @@ class StravaSyncServiceImplTest {
 
         // then
         then(stravaApiClient).should().getActivityGpx("access-token", 12345L);
-        then(gpxFileRepository).should().save(any(com.mycyclecoach.feature.gpxanalysis.domain.GpxFile.class));
+        then(gpxAnalysisService).should().importGpxContent(userId, expectedFilename, gpxContent);
         then(rideRepository).should().save(argThat(ride -> ride.getGpxFileId() != null && ride.getGpxFileId() == 100L));
     }
 
@@ -358,6 +388,121 @@ class StravaSyncServiceImplTest {
 
         // then
         then(rideRepository).should().save(argThat(ride -> ride.getGpxFileId() == null));
-        then(gpxFileRepository).should(never()).save(any(com.mycyclecoach.feature.gpxanalysis.domain.GpxFile.class));
+        then(gpxAnalysisService).should(never()).importGpxContent(any(), any(), any());
+    }
+
+    @Test
+    void shouldSaveRideWithoutGpxWhenGpxCannotBeParsed() {
+        // given
+        Long userId = 1L;
+        StravaConnection connection = StravaConnection.builder()
+                .userId(userId)
+                .accessToken("access-token")
+                .refreshToken("refresh-token")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+
+        StravaActivity activity = new StravaActivity(
+                12345L,
+                "Morning Ride",
+                new BigDecimal("25000"),
+                3600,
+                3700,
+                new BigDecimal("250"),
+                LocalDateTime.now(),
+                new BigDecimal("6.94"),
+                new BigDecimal("12.5"),
+                null,
+                null,
+                null,
+                "Ride",
+                null,
+                "Ride");
+
+        given(stravaConnectionRepository.findByUserId(userId)).willReturn(Optional.of(connection));
+        willDoNothing().given(stravaAuthService).refreshTokenIfNeeded(userId);
+        given(stravaApiClient.getAthleteActivities(eq("access-token"), eq(30), eq(1)))
+                .willReturn(List.of(activity));
+        given(stravaApiClient.getActivityGpx("access-token", 12345L)).willReturn("<gpx></gpx>");
+        given(gpxAnalysisService.importGpxContent(eq(userId), any(), eq("<gpx></gpx>")))
+                .willThrow(new GpxParsingException("No waypoints found in GPX file"));
+        given(rideRepository.existsByStravaActivityId(12345L)).willReturn(false);
+        given(rideRepository.save(any(Ride.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        stravaSyncService.syncRidesForUser(userId);
+
+        // then
+        then(rideRepository).should().save(argThat(ride -> ride.getGpxFileId() == null));
+    }
+
+    @Test
+    void shouldKeepSyncingRidesWhenGpxImportFailsToPersist() {
+        // given
+        Long userId = 1L;
+        StravaConnection connection = StravaConnection.builder()
+                .userId(userId)
+                .accessToken("access-token")
+                .refreshToken("refresh-token")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+
+        StravaActivity failing = activity(12345L, "Morning Ride");
+        StravaActivity imported = activity(12346L, "Evening Ride");
+        GpxAnalysisResponse analysis =
+                new GpxAnalysisResponse(100L, "12346_Evening_Ride.gpx", 0, List.of(), 25.0, 60.0, LocalDateTime.now());
+
+        given(stravaConnectionRepository.findByUserId(userId)).willReturn(Optional.of(connection));
+        willDoNothing().given(stravaAuthService).refreshTokenIfNeeded(userId);
+        given(stravaApiClient.getAthleteActivities(eq("access-token"), eq(30), eq(1)))
+                .willReturn(List.of(failing, imported));
+        given(stravaApiClient.getActivityGpx(eq("access-token"), any())).willReturn("<gpx></gpx>");
+        given(gpxAnalysisService.importGpxContent(userId, "12345_Morning_Ride.gpx", "<gpx></gpx>"))
+                .willThrow(new DataIntegrityViolationException("duplicate key value"));
+        given(gpxAnalysisService.importGpxContent(userId, "12346_Evening_Ride.gpx", "<gpx></gpx>"))
+                .willReturn(analysis);
+        given(rideRepository.existsByStravaActivityId(any())).willReturn(false);
+        given(rideRepository.save(any(Ride.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        stravaSyncService.syncRidesForUser(userId);
+
+        // then
+        then(rideRepository)
+                .should()
+                .save(argThat(ride -> ride.getStravaActivityId() == 12345L && ride.getGpxFileId() == null));
+        then(rideRepository)
+                .should()
+                .save(argThat(ride -> ride.getStravaActivityId() == 12346L && ride.getGpxFileId() == 100L));
+    }
+
+    @Test
+    void shouldSyncOutsideTransactionSoEachRideHoldsOneConnection() throws NoSuchMethodException {
+        // given
+        Method syncUser = StravaSyncServiceImpl.class.getMethod("syncRidesForUser", Long.class);
+        Method syncAll = StravaSyncServiceImpl.class.getMethod("syncRidesForAllUsers");
+
+        // when / then: the import opens its own transaction, so an outer one would hold a second connection per ride
+        assertThat(syncUser.isAnnotationPresent(Transactional.class)).isFalse();
+        assertThat(syncAll.isAnnotationPresent(Transactional.class)).isFalse();
+    }
+
+    private static StravaActivity activity(Long id, String name) {
+        return new StravaActivity(
+                id,
+                name,
+                new BigDecimal("25000"),
+                3600,
+                3700,
+                new BigDecimal("250"),
+                LocalDateTime.now(),
+                new BigDecimal("6.94"),
+                new BigDecimal("12.5"),
+                null,
+                null,
+                null,
+                "Ride",
+                null,
+                "Ride");
     }
 }